@@ -0,0 +1,121 @@
+package org.tiltedwindmills.fantasy.zealots.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+import org.tiltedwindmills.fantasy.mfl.model.players.PlayerScoresResponse;
+import org.tiltedwindmills.fantasy.mfl.model.weeklyresults.WeeklyResultsResponse;
+import org.tiltedwindmills.fantasy.zealots.SyntheticDataset;
+import org.tiltedwindmills.fantasy.zealots.data.LeagueWeekResults;
+import org.tiltedwindmills.fantasy.zealots.data.MflExports;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerScoreRankings;
+import org.tiltedwindmills.fantasy.zealots.data.WeeklyResultsFiles;
+import org.tiltedwindmills.fantasy.zealots.metrics.ReportMetrics;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Decoding a single export file, as the {@code MflJsonDecoder} does now and as the loaders originally did by
+ * binding the whole response with a new {@code ObjectMapper} per file.
+ *
+ * @author John Daniel
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecodeBenchmark {
+
+    @Param({"30"})
+    private int rosterSize;
+
+    @Param({"2500"})
+    private int playerPool;
+
+    private League league;
+    private WeeklyResultsFiles weeklyResultsFiles;
+    private PlayerScoreRankings playerScoreRankings;
+
+    private byte[] weeklyResults;
+    private byte[] playerScores;
+
+    @Setup
+    public void setUp() {
+
+        final SyntheticDataset dataset = new SyntheticDataset(1, 1, 12, rosterSize, 20, playerPool, 42L);
+        league = dataset.getLeagues().get(0);
+        weeklyResults = dataset.weeklyResultsJson(0, 1).getBytes(StandardCharsets.UTF_8);
+        playerScores = dataset.playerScoresJson(Position.WIDE_RECEIVER, 1).getBytes(StandardCharsets.UTF_8);
+
+        final MflExports exports = new MflExports() {
+
+            @Override
+            public InputStream openWeeklyResults(final League anyLeague, final int week) {
+                return new ByteArrayInputStream(weeklyResults);
+            }
+
+            @Override
+            public InputStream openPlayerScores(final Position position, final int week) {
+                return new ByteArrayInputStream(playerScores);
+            }
+
+            @Override
+            public InputStream openPlayers() throws IOException {
+                throw new IOException("not used");
+            }
+        };
+
+        final ReportMetrics reportMetrics = new ReportMetrics();
+        weeklyResultsFiles = new WeeklyResultsFiles(exports, reportMetrics);
+        playerScoreRankings = new PlayerScoreRankings(exports, reportMetrics);
+    }
+
+    @Benchmark
+    public LeagueWeekResults weeklyResults() {
+        return weeklyResultsFiles.read(league, 1);
+    }
+
+    @Benchmark
+    public WeeklyResultsResponse weeklyResultsObjectMapper() throws IOException {
+        return objectMapper().readValue(new ByteArrayInputStream(weeklyResults), WeeklyResultsResponse.class);
+    }
+
+    @Benchmark
+    public int[] playerScores() {
+        return playerScoreRankings.getRankedPlayerIds(Position.WIDE_RECEIVER, 1,
+                PlayerScoreRankings.getLeagueStarterLimit(Position.WIDE_RECEIVER));
+    }
+
+    @Benchmark
+    public PlayerScoresResponse playerScoresObjectMapper() throws IOException {
+        return objectMapper().readValue(new ByteArrayInputStream(playerScores), PlayerScoresResponse.class);
+    }
+
+    // configured the way the original per-file loaders did it.
+    private static ObjectMapper objectMapper() {
+
+        final ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.enable(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY);
+        objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        return objectMapper;
+    }
+}
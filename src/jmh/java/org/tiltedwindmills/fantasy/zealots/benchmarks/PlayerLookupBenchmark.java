@@ -0,0 +1,85 @@
+package org.tiltedwindmills.fantasy.zealots.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tiltedwindmills.fantasy.mfl.model.Player;
+import org.tiltedwindmills.fantasy.zealots.SyntheticDataset;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerRegistry;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.Iterables;
+
+/**
+ * Resolving one player id, the way the controllers originally did with a scan of the player list and the way
+ * they do now through the {@link PlayerRegistry}.
+ *
+ * @author John Daniel
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayerLookupBenchmark {
+
+    @Param({"2500", "10000"})
+    private int playerPool;
+
+    private List<Player> players;
+    private PlayerRegistry playerRegistry;
+
+    // ids drawn at random from the pool, cycled through so every call resolves a different player.
+    private int[] ids;
+    private int next;
+
+    @Setup
+    public void setUp() {
+
+        players = new SyntheticDataset(1, 1, 12, 30, 20, playerPool, 42L).getPlayers();
+        playerRegistry = new PlayerRegistry(players);
+
+        final Random random = new Random(42);
+        ids = new int[4096];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = players.get(random.nextInt(players.size())).getId();
+        }
+    }
+
+    @Benchmark
+    public Player listScan() {
+
+        final int id = nextId();
+        return Iterables.find(players, new Predicate<Player>() {
+
+            @Override
+            public boolean apply(final Player testPlayer) {
+                return testPlayer != null && testPlayer.getId() == id;
+            }
+        });
+    }
+
+    @Benchmark
+    public Player registry() {
+        return playerRegistry.get(nextId());
+    }
+
+    private int nextId() {
+
+        next = (next + 1) & (ids.length - 1);
+        return ids[next];
+    }
+}
@@ -0,0 +1,140 @@
+package org.tiltedwindmills.fantasy.zealots.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+import org.tiltedwindmills.fantasy.zealots.SyntheticDataset;
+import org.tiltedwindmills.fantasy.zealots.aggregation.AggregationEngine;
+import org.tiltedwindmills.fantasy.zealots.aggregation.PositionCountTotals;
+import org.tiltedwindmills.fantasy.zealots.aggregation.PositionScoreTotals;
+import org.tiltedwindmills.fantasy.zealots.data.BackgroundLoad;
+import org.tiltedwindmills.fantasy.zealots.data.DataLocationExports;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerRegistry;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerScoreRankings;
+import org.tiltedwindmills.fantasy.zealots.data.WeeklyResultsFiles;
+import org.tiltedwindmills.fantasy.zealots.data.WeeklyResultsRepository;
+import org.tiltedwindmills.fantasy.zealots.data.WeeklyResultsSource;
+import org.tiltedwindmills.fantasy.zealots.metrics.ReportMetrics;
+import org.tiltedwindmills.fantasy.zealots.model.PlayerScoreBreakdown;
+import org.tiltedwindmills.fantasy.zealots.reports.AggregatingReportService;
+import org.tiltedwindmills.fantasy.zealots.reports.StarterTiers;
+
+/**
+ * The reports end to end over a synthetic season written to disk: loading every league-week, the full
+ * aggregations a cold {@code AggregatingReportService} runs, and the same reports once its caches are warm.
+ *
+ * @author John Daniel
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmark {
+
+    private static final int FIRST_WEEK = WeeklyResultsSource.FIRST_WEEK;
+    private static final int LAST_WEEK = WeeklyResultsSource.LAST_WEEK;
+
+    @Param({"61"})
+    private int leagueCount;
+
+    @Param({"30"})
+    private int rosterSize;
+
+    @Param({"2500"})
+    private int playerPool;
+
+    private File dataDirectory;
+    private AggregationEngine aggregationEngine;
+
+    private List<League> leagues;
+    private BackgroundLoad<PlayerRegistry> playerRegistry;
+    private ReportMetrics reportMetrics;
+    private WeeklyResultsFiles weeklyResultsFiles;
+    private PlayerScoreRankings playerScoreRankings;
+    private WeeklyResultsRepository weeklyResults;
+    private AggregatingReportService warmReports;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+
+        final SyntheticDataset dataset =
+                new SyntheticDataset(leagueCount, LAST_WEEK, 12, rosterSize, 20, playerPool, 42L);
+
+        dataDirectory = Files.createTempDirectory("zealots-benchmark").toFile();
+        final DataLocationExports exports = new DataLocationExports(dataset.writeTo(dataDirectory));
+
+        aggregationEngine = new AggregationEngine(Runtime.getRuntime().availableProcessors());
+        leagues = dataset.getLeagues();
+        playerRegistry = BackgroundLoad.of("players", new PlayerRegistry(dataset.getPlayers()));
+        reportMetrics = new ReportMetrics();
+        weeklyResultsFiles = new WeeklyResultsFiles(exports, reportMetrics);
+        playerScoreRankings = new PlayerScoreRankings(exports, reportMetrics);
+        weeklyResults = new WeeklyResultsRepository(weeklyResultsFiles, leagues, aggregationEngine);
+
+        warmReports = newReports();
+        warmReports.positionScoring(FIRST_WEEK, LAST_WEEK);
+        warmReports.starterWeeks(Position.WIDE_RECEIVER, StarterTiers.DEFAULT, 0, 0, FIRST_WEEK, LAST_WEEK);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        aggregationEngine.shutdown();
+        SyntheticDataset.delete(dataDirectory);
+    }
+
+    @Benchmark
+    public WeeklyResultsRepository loadWeeklyResults() {
+        return new WeeklyResultsRepository(weeklyResultsFiles, leagues, aggregationEngine);
+    }
+
+    @Benchmark
+    public PositionScoreTotals positionScoring() {
+        return newReports().positionScoring(FIRST_WEEK, LAST_WEEK);
+    }
+
+    @Benchmark
+    public PositionScoreTotals positionScoringCached() {
+        return warmReports.positionScoring(FIRST_WEEK, LAST_WEEK);
+    }
+
+    @Benchmark
+    public PositionCountTotals positionCount() {
+        return warmReports.positionCount();
+    }
+
+    @Benchmark
+    public List<PlayerScoreBreakdown> starterWeeks() {
+        return newReports().starterWeeks(Position.WIDE_RECEIVER, StarterTiers.DEFAULT, 0, 0, FIRST_WEEK, LAST_WEEK);
+    }
+
+    @Benchmark
+    public List<PlayerScoreBreakdown> starterWeeksCached() {
+        return warmReports.starterWeeks(Position.WIDE_RECEIVER, StarterTiers.DEFAULT, 0, 0, FIRST_WEEK, LAST_WEEK);
+    }
+
+    private AggregatingReportService newReports() {
+        return new AggregatingReportService(weeklyResults, playerScoreRankings, leagues, playerRegistry,
+                aggregationEngine, reportMetrics);
+    }
+}
@@ -0,0 +1,364 @@
+package org.tiltedwindmills.fantasy.zealots.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.embedded.EmbeddedWebApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.zealots.SyntheticDataset;
+import org.tiltedwindmills.fantasy.zealots.ZealotsStatisticsApplication;
+import org.tiltedwindmills.fantasy.zealots.data.WeeklyResultsSource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Boots the application against a synthetic season and drives the report endpoints with concurrent virtual
+ * users.  Given a {@code rate}, the users send requests on a fixed-rate schedule and each latency is measured from
+ * when its request was meant to be sent, so a slow response counts against the requests queued behind it too.
+ * Without one, each user sends its next request as soon as the last one answers; that closed loop slows down with
+ * the server and understates the latency under load, so the report is labelled as closed-loop.  Latencies are
+ * recorded per endpoint in HdrHistograms and written as JSON, so the reports from two builds can be diffed.
+ *
+ * Options, as {@code --name=value}:
+ * <ul>
+ *     <li>{@code leagues}: how many leagues to generate, 610 (ten times the configured leagues) by default;</li>
+ *     <li>{@code users}: concurrent virtual users, 16 by default;</li>
+ *     <li>{@code rate}: requests a second across all users, or 0, the default, for a closed loop;</li>
+ *     <li>{@code warmup} and {@code duration}: seconds to run before and while recording, 10 and 30 by default;</li>
+ *     <li>{@code output}: where to write the report, {@code target/load-report.json} by default.</li>
+ * </ul>
+ * Anything else, e.g. {@code --reports.backend=h2}, is passed on to the application.
+ *
+ * Run with {@code mvn -Pbenchmarks test-compile exec:exec
+ * -Dbenchmark.main=org.tiltedwindmills.fantasy.zealots.benchmarks.ReportLoadTest -Dbenchmark.args="--users=32"}.
+ *
+ * @author John Daniel
+ */
+public final class ReportLoadTest {
+
+    private static final String[] ENDPOINTS = {"positionScoring", "positionCount", "starterWeeks"};
+    private static final String[] STARTER_WEEKS_POSITIONS = {"QB", "RB", "WR", "TE", "PK"};
+
+    // latencies are recorded in microseconds, to three significant digits.
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private static final long READY_POLL_MILLIS = 100;
+
+    private final Map<String, String> options = new LinkedHashMap<>();
+    private final List<String> applicationArgs = new ArrayList<>();
+
+    private final Map<String, Histogram> latencies = new LinkedHashMap<>();
+    private final Map<String, Long> errors = new LinkedHashMap<>();
+
+    private ReportLoadTest(final String[] args) {
+
+        options.put("leagues", "610");
+        options.put("users", "16");
+        options.put("rate", "0");
+        options.put("warmup", "10");
+        options.put("duration", "30");
+        options.put("output", "target/load-report.json");
+
+        for (String arg : args) {
+            final int equals = arg.indexOf('=');
+            final String name = arg.startsWith("--") && equals > 0 ? arg.substring(2, equals) : null;
+            if (name != null && options.containsKey(name)) {
+                options.put(name, arg.substring(equals + 1));
+            } else {
+                applicationArgs.add(arg);
+            }
+        }
+    }
+
+    public static void main(final String[] args) throws Exception {
+        new ReportLoadTest(args).run();
+    }
+
+    private int option(final String name) {
+        return Integer.parseInt(options.get(name));
+    }
+
+    private void run() throws Exception {
+
+        final File dataDirectory = Files.createTempDirectory("zealots-load").toFile();
+        ConfigurableApplicationContext context = null;
+        try {
+            final SyntheticDataset dataset = new SyntheticDataset(option("leagues"), WeeklyResultsSource.LAST_WEEK,
+                    12, 30, 20, 2500, 42L);
+            final String dataLocation = dataset.writeTo(dataDirectory);
+
+            final long bootStarted = System.nanoTime();
+            context = SpringApplication.run(ZealotsStatisticsApplication.class,
+                    applicationArgs(dataset.getLeagues(), dataLocation, dataDirectory));
+            final long bootMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - bootStarted);
+
+            final int port = ((EmbeddedWebApplicationContext) context).getEmbeddedServletContainer().getPort();
+            awaitReady("http://localhost:" + port);
+            final long readyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - bootStarted);
+
+            drive("http://localhost:" + port);
+            writeReport(bootMillis, readyMillis);
+
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+            SyntheticDataset.delete(dataDirectory);
+        }
+    }
+
+    private String[] applicationArgs(final List<League> leagues, final String dataLocation,
+                                     final File dataDirectory) {
+
+        final List<String> args = new ArrayList<>();
+        args.add("--server.port=0");
+        args.add("--management.port=-1");
+        args.add("--data.source=files");
+        args.add("--data.location=" + dataLocation);
+        args.add("--seasons=");
+        args.add("--spring.thymeleaf.cache=true");
+        args.add("--spring.datasource.url=jdbc:h2:file:" + new File(dataDirectory, "facts").getAbsolutePath());
+        args.add("--players.snapshot.directory=" + new File(dataDirectory, "player-snapshots").getAbsolutePath());
+        args.add("--logging.level.org.tiltedwindmills=INFO");
+
+        final StringBuilder keys = new StringBuilder();
+        for (League league : leagues) {
+            keys.append(keys.length() == 0 ? "" : ",").append(league.getName());
+            args.add("--leagues." + league.getName() + ".name=" + league.getName());
+            args.add("--leagues." + league.getName() + ".serverid=" + league.getServerId());
+            args.add("--leagues." + league.getName() + ".leagueid=" + league.getId());
+        }
+        args.add("--leagues=" + keys);
+
+        // whatever was passed through goes last, so it wins.
+        args.addAll(applicationArgs);
+        return args.toArray(new String[args.size()]);
+    }
+
+    // the players and weekly results load after the server is up; until then the reports answer 503.
+    private static void awaitReady(final String baseUrl) throws Exception {
+
+        while (true) {
+            final HttpURLConnection connection =
+                    (HttpURLConnection) new URL(baseUrl + "/" + ENDPOINTS[0]).openConnection();
+            final int status = connection.getResponseCode();
+            connection.disconnect();
+            if (status != HttpURLConnection.HTTP_UNAVAILABLE) {
+                return;
+            }
+            Thread.sleep(READY_POLL_MILLIS);
+        }
+    }
+
+    private void drive(final String baseUrl) throws Exception {
+
+        final int users = option("users");
+        final long started = System.nanoTime();
+        final long warmupEnds = started + TimeUnit.SECONDS.toNanos(option("warmup"));
+        final long runEnds = warmupEnds + TimeUnit.SECONDS.toNanos(option("duration"));
+
+        final ExecutorService executor = Executors.newFixedThreadPool(users);
+        final List<Future<VirtualUser>> running = new ArrayList<>();
+        for (int user = 0; user < users; user++) {
+            running.add(executor.submit(new VirtualUser(baseUrl, user, schedule(user, started), warmupEnds,
+                                                        runEnds)));
+        }
+
+        for (String endpoint : ENDPOINTS) {
+            latencies.put(endpoint, new Histogram(SIGNIFICANT_DIGITS));
+            errors.put(endpoint, 0L);
+        }
+
+        try {
+            for (Future<VirtualUser> user : running) {
+                final VirtualUser finished = user.get();
+                for (int i = 0; i < ENDPOINTS.length; i++) {
+                    latencies.get(ENDPOINTS[i]).add(finished.latencies[i]);
+                    errors.put(ENDPOINTS[i], errors.get(ENDPOINTS[i]) + finished.errors[i]);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // the users share the rate, each sending on its own evenly spaced ticks; no ticks at all means a closed loop.
+    private long[] schedule(final int user, final long started) {
+
+        final int rate = option("rate");
+        if (rate <= 0) {
+            return null;
+        }
+        final long intervalNanos = TimeUnit.SECONDS.toNanos(option("users")) / rate;
+        return new long[] {started + intervalNanos * user / option("users"), intervalNanos};
+    }
+
+    private void writeReport(final long bootMillis, final long readyMillis) throws IOException {
+
+        final double seconds = option("duration");
+
+        final Map<String, Object> report = new LinkedHashMap<>();
+        report.put("options", options);
+        report.put("latency", option("rate") > 0 ? "fixed-rate, from intended start" : "closed-loop");
+        report.put("bootMillis", bootMillis);
+        report.put("readyMillis", readyMillis);
+
+        final Map<String, Object> endpoints = new LinkedHashMap<>();
+        long totalRequests = 0;
+        for (Map.Entry<String, Histogram> entry : latencies.entrySet()) {
+
+            final Histogram histogram = entry.getValue();
+            totalRequests += histogram.getTotalCount();
+
+            final Map<String, Object> endpoint = new LinkedHashMap<>();
+            endpoint.put("requests", histogram.getTotalCount());
+            endpoint.put("errors", errors.get(entry.getKey()));
+            endpoint.put("throughputPerSecond", round(histogram.getTotalCount() / seconds));
+            endpoint.put("meanMillis", millis(histogram.getMean()));
+            endpoint.put("p50Millis", millis(histogram.getValueAtPercentile(50)));
+            endpoint.put("p90Millis", millis(histogram.getValueAtPercentile(90)));
+            endpoint.put("p99Millis", millis(histogram.getValueAtPercentile(99)));
+            endpoint.put("p999Millis", millis(histogram.getValueAtPercentile(99.9)));
+            endpoint.put("maxMillis", millis(histogram.getMaxValue()));
+            endpoints.put(entry.getKey(), endpoint);
+
+            System.out.println(String.format(Locale.US, "%-16s %s %s", entry.getKey(), report.get("latency"),
+                                             endpoint));
+        }
+        report.put("throughputPerSecond", round(totalRequests / seconds));
+        report.put("endpoints", endpoints);
+
+        final File output = new File(options.get("output"));
+        if (output.getAbsoluteFile().getParentFile() != null) {
+            Files.createDirectories(output.getAbsoluteFile().getParentFile().toPath());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output, report);
+        System.out.println("Wrote " + output.getAbsolutePath());
+    }
+
+    private static double millis(final double micros) {
+        return round(micros / 1000);
+    }
+
+    private static double round(final double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    /**
+     * One client, cycling through the endpoints and keeping its own histograms so users never contend.  On a
+     * schedule, a request that falls behind is sent straight away rather than skipped, and its latency still runs
+     * from its tick.
+     */
+    private static final class VirtualUser implements Callable<VirtualUser> {
+
+        private final String baseUrl;
+        private final int user;
+        private final long[] schedule;
+        private final long warmupEnds;
+        private final long runEnds;
+
+        private final Histogram[] latencies = new Histogram[ENDPOINTS.length];
+        private final long[] errors = new long[ENDPOINTS.length];
+        private final byte[] buffer = new byte[8192];
+
+        /**
+         * @param schedule the first tick and the interval between ticks, in nanoseconds, or {@code null} to send
+         *          each request as soon as the last one answers.
+         */
+        VirtualUser(final String baseUrl, final int user, final long[] schedule, final long warmupEnds,
+                    final long runEnds) {
+
+            this.baseUrl = baseUrl;
+            this.user = user;
+            this.schedule = schedule;
+            this.warmupEnds = warmupEnds;
+            this.runEnds = runEnds;
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new Histogram(SIGNIFICANT_DIGITS);
+            }
+        }
+
+        @Override
+        public VirtualUser call() throws InterruptedException {
+
+            long tick = schedule == null ? 0 : schedule[0];
+
+            // users start on different endpoints so every endpoint is always under load.
+            for (long request = user; !Thread.currentThread().isInterrupted(); request++) {
+
+                final int endpoint = (int) (request % ENDPOINTS.length);
+                final String path = "/" + ENDPOINTS[endpoint] + (ENDPOINTS[endpoint].equals("starterWeeks")
+                        ? "/" + STARTER_WEEKS_POSITIONS[(int) (request / ENDPOINTS.length
+                                                              % STARTER_WEEKS_POSITIONS.length)]
+                        : "");
+
+                final long started;
+                if (schedule == null) {
+                    started = System.nanoTime();
+                } else {
+                    started = tick;
+                    tick += schedule[1];
+                    final long wait = started - System.nanoTime();
+                    if (wait > 0) {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                }
+                if (started >= runEnds) {
+                    break;
+                }
+
+                final boolean succeeded = get(baseUrl + path);
+                final long finished = System.nanoTime();
+
+                if (started >= warmupEnds) {
+                    if (succeeded) {
+                        latencies[endpoint].recordValue(TimeUnit.NANOSECONDS.toMicros(finished - started));
+                    } else {
+                        errors[endpoint]++;
+                    }
+                }
+            }
+            return this;
+        }
+
+        // reads the whole body so the connection goes back to the keep-alive pool.
+        private boolean get(final String url) {
+
+            HttpURLConnection connection = null;
+            try {
+                connection = (HttpURLConnection) new URL(url).openConnection();
+                final int status = connection.getResponseCode();
+                try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                    while (body != null && body.read(buffer) >= 0) {
+                        continue;
+                    }
+                }
+                return status == HttpURLConnection.HTTP_OK;
+
+            } catch (IOException e) {
+                if (connection != null) {
+                    connection.disconnect();
+                }
+                return false;
+            }
+        }
+    }
+}
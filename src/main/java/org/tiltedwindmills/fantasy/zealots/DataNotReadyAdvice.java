@@ -0,0 +1,43 @@
+package org.tiltedwindmills.fantasy.zealots;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.tiltedwindmills.fantasy.zealots.data.DataNotReadyException;
+import org.tiltedwindmills.fantasy.zealots.reports.ReportsBusyException;
+
+/**
+ * Answers report requests that arrive while the players or weekly results are still loading with a
+ * {@code 503} rather than holding them until startup finishes.  Requests turned away because too many reports are
+ * already waiting get the same answer.
+ *
+ * @author John Daniel
+ */
+@ControllerAdvice
+public class DataNotReadyAdvice {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DataNotReadyAdvice.class);
+
+    static final String RETRY_AFTER_SECONDS = "5";
+
+    @ExceptionHandler(DataNotReadyException.class)
+    @ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE, reason = "Still loading, try again shortly")
+    public final void dataNotReady(final DataNotReadyException e, final HttpServletResponse response) {
+
+        LOG.debug("Rejected request while loading: {}", e.getMessage());
+        response.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+    }
+
+    @ExceptionHandler(ReportsBusyException.class)
+    @ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE, reason = "Too busy, try again shortly")
+    public final void reportsBusy(final ReportsBusyException e, final HttpServletResponse response) {
+
+        LOG.debug("Rejected request while busy: {}", e.getMessage());
+        response.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+    }
+}
@@ -0,0 +1,108 @@
+package org.tiltedwindmills.fantasy.zealots;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.ModelAndView;
+import org.tiltedwindmills.fantasy.zealots.reports.ReportExecutor;
+import org.tiltedwindmills.fantasy.zealots.reports.ReportsBusyException;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Hands the report pages' work to the {@link ReportExecutor} and renders the result once it is ready, so the
+ * request thread goes straight back to the server.  Requests for the same page share one computation.  A report
+ * that isn't ready within {@code reports.async.timeoutMillis} is answered like a busy server, with a {@code 503}.
+ *
+ * @author John Daniel
+ */
+@Component
+public class DeferredReports {
+
+    @javax.annotation.Resource
+    private ReportExecutor reportExecutor;
+
+    @Value("${reports.async.timeoutMillis:60000}")
+    private long timeoutMillis;
+
+    public DeferredReports() { }
+
+    /**
+     * Renders reports worked out on a given executor.
+     *
+     * @param reportExecutor works out the reports.
+     * @param timeoutMillis how long a request waits for its report.
+     */
+    public DeferredReports(final ReportExecutor reportExecutor, final long timeoutMillis) {
+
+        this.reportExecutor = reportExecutor;
+        this.timeoutMillis = timeoutMillis;
+        postConstruct();
+    }
+
+    @PostConstruct
+    private void postConstruct() {
+        checkNotNull(reportExecutor, "reportExecutor cannot be null");
+    }
+
+    /**
+     * Works out a report, or joins an identical one already being worked out, and renders it.
+     *
+     * @param key the page and every parameter the report depends on.
+     * @param viewName the view to render.
+     * @param modelName the name the view knows the report by.
+     * @param report works out the report.  Its result is shared by every request with the same key, so it must
+     *          not be changed afterwards.
+     * @return the rendered view, once the report is ready.
+     * @throws ReportsBusyException if too many reports are already waiting.
+     */
+    public <T> DeferredResult<ModelAndView> render(final List<?> key, final String viewName, final String modelName,
+                                                   final Callable<T> report) {
+        return render(key, viewName, modelName, Collections.<String, Object>emptyMap(), report);
+    }
+
+    /**
+     * Works out a report, or joins an identical one already being worked out, and renders it alongside
+     * attributes known up front, such as the parameters it was worked out with.
+     *
+     * @param key the page and every parameter the report depends on.
+     * @param viewName the view to render.
+     * @param modelName the name the view knows the report by.
+     * @param attributes the rest of the model.
+     * @param report works out the report.  Its result is shared by every request with the same key, so it must
+     *          not be changed afterwards.
+     * @return the rendered view, once the report is ready.
+     * @throws ReportsBusyException if too many reports are already waiting.
+     */
+    public <T> DeferredResult<ModelAndView> render(final List<?> key, final String viewName, final String modelName,
+                                                   final Map<String, ?> attributes, final Callable<T> report) {
+
+        final DeferredResult<ModelAndView> result =
+                new DeferredResult<>(timeoutMillis, new ReportsBusyException("Timed out waiting for " + key));
+
+        Futures.addCallback(reportExecutor.submit(key, report), new FutureCallback<T>() {
+
+            @Override
+            public void onSuccess(final T model) {
+                result.setResult(new ModelAndView(viewName, modelName, model).addAllObjects(attributes));
+            }
+
+            @Override
+            public void onFailure(final Throwable t) {
+                result.setErrorResult(t);
+            }
+        }, MoreExecutors.directExecutor());
+        return result;
+    }
+}
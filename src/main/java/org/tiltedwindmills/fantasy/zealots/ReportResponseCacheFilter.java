@@ -0,0 +1,304 @@
+package org.tiltedwindmills.fantasy.zealots;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.tiltedwindmills.fantasy.zealots.data.DatasetVersion;
+import org.tiltedwindmills.fantasy.zealots.metrics.HitCounter;
+import org.tiltedwindmills.fantasy.zealots.metrics.ReportMetrics;
+
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Answers repeat requests for the report pages without running the controllers.  Every page carries the
+ * {@link DatasetVersion} as a strong ETag, so a browser revalidating a page it already has gets a 304 straight
+ * away.  Other requests are served from a cache of rendered pages, gzipped once when first rendered and keyed by
+ * path, query string and dataset version, so each page is rendered once per dataset.  Only successful renders are
+ * kept, and until the dataset version has been worked out every request goes straight through.  Pages whose
+ * report is worked out asynchronously are captured on the dispatch that renders them.
+ *
+ * @author John Daniel
+ */
+public class ReportResponseCacheFilter extends OncePerRequestFilter {
+
+    private static final String RENDERING_ATTRIBUTE = ReportResponseCacheFilter.class.getName() + ".RENDERING";
+
+    private final DatasetVersion datasetVersion;
+    private final HitCounter responsesCounter;
+    private final Cache<String, CachedResponse> responses;
+
+    // the version the cached pages were rendered from; older pages are dropped as soon as it changes.
+    private volatile String cachedVersion;
+
+    /**
+     * @param datasetVersion identifies the data the pages are built from.
+     * @param reportMetrics where to count how many requests the cache answers.
+     * @param maxBytes how many bytes of gzipped pages to keep.
+     */
+    public ReportResponseCacheFilter(final DatasetVersion datasetVersion, final ReportMetrics reportMetrics,
+                                     final long maxBytes) {
+
+        this.datasetVersion = checkNotNull(datasetVersion, "datasetVersion cannot be null");
+        this.responsesCounter = checkNotNull(reportMetrics, "reportMetrics cannot be null").cache("responses");
+        this.responses = CacheBuilder.newBuilder().maximumWeight(maxBytes)
+                .weigher(new Weigher<String, CachedResponse>() {
+
+            @Override
+            public int weigh(final String key, final CachedResponse response) {
+                return key.length() + response.gzipped.length;
+            }
+        }).build();
+    }
+
+    /**
+     * The report pages are rendered on an async dispatch once their report has been worked out, and that render
+     * has to be captured too.
+     */
+    @Override
+    protected final boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected final void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+                                          final FilterChain filterChain) throws ServletException, IOException {
+
+        // the dispatch that renders a page whose report was worked out on the report executor.
+        final BufferedResponse pending = (BufferedResponse) request.getAttribute(RENDERING_ATTRIBUTE);
+        if (pending != null) {
+            render(request, pending, filterChain);
+            return;
+        }
+
+        final String version = "GET".equals(request.getMethod()) ? datasetVersion.get() : null;
+        if (version == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        final boolean gzip = Strings.nullToEmpty(request.getHeader("Accept-Encoding")).contains("gzip");
+        if (matches(request.getHeader("If-None-Match"), version)) {
+            setCacheHeaders(response, version, gzip);
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        // the version is swapped first, so a page of the old version finishing meanwhile is never put back.
+        if (!version.equals(cachedVersion)) {
+            cachedVersion = version;
+            responses.invalidateAll();
+        }
+
+        // the version is part of the key too, so a page rendered just before it changed is never served after.
+        final String key =
+                version + ' ' + request.getRequestURI() + '?' + Strings.nullToEmpty(request.getQueryString());
+        responsesCounter.lookup();
+        final CachedResponse cached = responses.getIfPresent(key);
+        if (cached == null) {
+            responsesCounter.miss();
+            render(request, new BufferedResponse(response, key, version, gzip), filterChain);
+            return;
+        }
+        send(response, cached, version, gzip);
+    }
+
+    /**
+     * Renders a page into a buffer, then caches and sends it.  If the controller handed its report to the report
+     * executor instead, the buffer is kept on the request until the async dispatch renders the page.
+     */
+    private void render(final HttpServletRequest request, final BufferedResponse rendered,
+                        final FilterChain filterChain) throws ServletException, IOException {
+
+        request.setAttribute(RENDERING_ATTRIBUTE, rendered);
+        filterChain.doFilter(request, rendered);
+        if (request.isAsyncStarted()) {
+            return;
+        }
+        request.removeAttribute(RENDERING_ATTRIBUTE);
+
+        // errors, and anything already sent, go out as they are.
+        final HttpServletResponse response = (HttpServletResponse) rendered.getResponse();
+        if (response.getStatus() != HttpServletResponse.SC_OK || response.isCommitted()) {
+            if (!response.isCommitted()) {
+                response.getOutputStream().write(rendered.toByteArray());
+            }
+            return;
+        }
+
+        final CachedResponse cached = new CachedResponse(response.getContentType(), gzip(rendered.toByteArray()));
+        if (rendered.version.equals(cachedVersion)) {
+            responses.put(rendered.key, cached);
+        }
+        send(response, cached, rendered.version, rendered.gzip);
+    }
+
+    private static void send(final HttpServletResponse response, final CachedResponse cached, final String version,
+                             final boolean gzip) throws IOException {
+
+        setCacheHeaders(response, version, gzip);
+        response.setContentType(cached.contentType);
+
+        final byte[] body = gzip ? cached.gzipped : gunzip(cached.gzipped);
+        if (gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * Whether an {@code If-None-Match} header names the given version, in either encoding.
+     */
+    private static boolean matches(final String ifNoneMatch, final String version) {
+        return ifNoneMatch != null && (ifNoneMatch.trim().equals("*") || ifNoneMatch.contains('"' + version));
+    }
+
+    private static void setCacheHeaders(final HttpServletResponse response, final String version,
+                                        final boolean gzip) {
+
+        // the gzipped and plain pages are different bytes, so they need different strong ETags.
+        response.setHeader("ETag", '"' + version + (gzip ? "-gzip" : "") + '"');
+        response.setHeader("Vary", "Accept-Encoding");
+    }
+
+    private static byte[] gzip(final byte[] body) throws IOException {
+
+        final ByteArrayOutputStream gzipped = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (OutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write(body);
+        }
+        return gzipped.toByteArray();
+    }
+
+    private static byte[] gunzip(final byte[] gzipped) throws IOException {
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            return ByteStreams.toByteArray(in);
+        }
+    }
+
+    /**
+     * A rendered page, kept gzipped.
+     */
+    private static final class CachedResponse {
+
+        private final String contentType;
+        private final byte[] gzipped;
+
+        CachedResponse(final String contentType, final byte[] gzipped) {
+
+            this.contentType = contentType;
+            this.gzipped = gzipped;
+        }
+    }
+
+    /**
+     * Keeps whatever is written in memory, so it can be cached before it is sent, along with where to cache it.
+     */
+    private static final class BufferedResponse extends HttpServletResponseWrapper {
+
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private final String key;
+        private final String version;
+        private final boolean gzip;
+        private PrintWriter writer;
+
+        BufferedResponse(final HttpServletResponse response, final String key, final String version,
+                         final boolean gzip) {
+
+            super(response);
+            this.key = key;
+            this.version = version;
+            this.gzip = gzip;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+
+            return new ServletOutputStream() {
+
+                @Override
+                public void write(final int b) {
+                    body.write(b);
+                }
+
+                @Override
+                public void write(final byte[] bytes, final int offset, final int length) {
+                    body.write(bytes, offset, length);
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(final WriteListener writeListener) {
+                    throw new UnsupportedOperationException("buffered responses are written synchronously");
+                }
+            };
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(body, getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void setContentLength(final int length) {
+            // the length is set when the page is sent, gzipped or not.
+        }
+
+        @Override
+        public void flushBuffer() {
+
+            // nothing is sent until the page has been cached.
+            if (writer != null) {
+                writer.flush();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+
+            if (writer != null) {
+                writer.flush();
+            }
+            body.reset();
+        }
+
+        byte[] toByteArray() {
+
+            if (writer != null) {
+                writer.flush();
+            }
+            return body.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,621 @@
+package org.tiltedwindmills.fantasy.zealots;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.tiltedwindmills.fantasy.mfl.model.Player;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+import org.tiltedwindmills.fantasy.zealots.aggregation.CubeRollup;
+import org.tiltedwindmills.fantasy.zealots.aggregation.LeagueGroups;
+import org.tiltedwindmills.fantasy.zealots.aggregation.PositionCountTotals;
+import org.tiltedwindmills.fantasy.zealots.aggregation.PositionScoreTotals;
+import org.tiltedwindmills.fantasy.zealots.aggregation.ScoreCube;
+import org.tiltedwindmills.fantasy.zealots.aggregation.ScoreDistribution;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerScoreRankings;
+import org.tiltedwindmills.fantasy.zealots.data.WeeklyResultsSource;
+import org.tiltedwindmills.fantasy.zealots.model.PlayerScoreBreakdown;
+import org.tiltedwindmills.fantasy.zealots.model.PlayerUsage;
+import org.tiltedwindmills.fantasy.zealots.model.RosterUsage;
+import org.tiltedwindmills.fantasy.zealots.reports.ReportService;
+import org.tiltedwindmills.fantasy.zealots.reports.StarterTiers;
+import org.tiltedwindmills.fantasy.zealots.seasons.SeasonRegistry;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * The reports as JSON, for dashboards and scripts.  Takes the same parameters as the pages, under {@code /api}.
+ * Each result is written with a {@link JsonGenerator} straight to the response as soon as it is worked out.  No
+ * document is built in memory, so asking for many seasons or every position costs no more memory than asking
+ * for one.  Every season asked for is loaded, and the first result worked out, before anything is written, so bad
+ * parameters and data that is still loading get the same status codes as the pages.
+ *
+ * Starter weeks are paged with {@code offset} and {@code limit}, and {@code fields} picks which of each player's
+ * fields to write, e.g. {@code ?offset=50&limit=50&fields=rank,name,grade}.  A page is at most
+ * {@code reports.api.maxPageSize} rows, which is also what a page without a limit gets.
+ *
+ * Player usage, under {@code /players/{playerId}/usage}, says how often a player was rostered and started across
+ * the leagues, and by whom; {@code /franchise} lists what the configured franchise rostered in each league.
+ *
+ * {@code /cube} slices and rolls up the seasons' score cubes, e.g.
+ * {@code ?season=2013&season=2015&group=ppr&status=starter&by=season,position} for PPR starters by season and
+ * position.
+ *
+ * @author John Daniel
+ */
+@Controller
+@RequestMapping("/api")
+public class ReportsApiController {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReportsApiController.class);
+
+    private static final String CONTENT_TYPE = "application/json";
+
+    // JsonFactory is thread-safe and recycles its buffers, so every response shares the one instance.
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * What can be written for each ranked player, by its name in the {@code fields} parameter.
+     */
+    private enum PlayerField {
+
+        RANK("rank"), ID("id"), NAME("name"), POSITION("position"), TEAM("team"), GRADE("grade"),
+        TIER_FINISHES("tierFinishes");
+
+        private final String fieldName;
+
+        PlayerField(final String fieldName) {
+            this.fieldName = fieldName;
+        }
+
+        static EnumSet<PlayerField> parse(final List<String> fieldNames) {
+
+            if (fieldNames == null || fieldNames.isEmpty()) {
+                return EnumSet.allOf(PlayerField.class);
+            }
+
+            final EnumSet<PlayerField> fields = EnumSet.noneOf(PlayerField.class);
+            for (String fieldName : fieldNames) {
+                fields.add(fromFieldName(fieldName.trim()));
+            }
+            return fields;
+        }
+
+        private static PlayerField fromFieldName(final String fieldName) {
+
+            for (PlayerField field : values()) {
+                if (field.fieldName.equals(fieldName)) {
+                    return field;
+                }
+            }
+            throw new IllegalArgumentException("unknown field " + fieldName);
+        }
+    }
+
+    @Inject
+    private SeasonRegistry seasonRegistry;
+
+    @javax.annotation.Resource
+    private LeagueGroups leagueGroups;
+
+    @Value("${reports.api.maxPageSize:200}")
+    private int maxPageSize;
+
+    @Value("${reports.starterWeeks.maxDepth:100}")
+    private int maxDepth;
+
+    @PostConstruct
+    private void postConstruct() {
+
+        checkNotNull(seasonRegistry, "seasonRegistry cannot be null");
+        checkNotNull(leagueGroups, "leagueGroups cannot be null");
+        checkArgument(maxPageSize > 0, "reports.api.maxPageSize must be positive");
+        checkArgument(maxDepth > 0, "reports.starterWeeks.maxDepth must be positive");
+    }
+
+    /**
+     * Starter scoring by position for each season asked for, as on {@code /positionScoring}, with how each
+     * position's starter scores were spread.
+     */
+    @RequestMapping("/positionScoring")
+    public final void positionScoring(final @RequestParam(value = "season", required = false) List<Integer> seasons,
+                                      final @RequestParam(value = "from", required = false) Integer from,
+                                      final @RequestParam(value = "to", required = false) Integer to,
+                                      final HttpServletResponse response) throws IOException {
+
+        final int firstWeek = from == null ? WeeklyResultsSource.FIRST_WEEK : from;
+        final int lastWeek = to == null ? WeeklyResultsSource.LAST_WEEK : to;
+        final List<SeasonRegistry.Season> loaded = seasonRegistry.get(years(seasons));
+
+        PositionScoreTotals totals = loaded.get(0).getReports().positionScoring(firstWeek, lastWeek);
+        try (JsonGenerator json = open(response)) {
+
+            json.writeStartObject();
+            json.writeArrayFieldStart("seasons");
+            for (int i = 0; i < loaded.size(); i++) {
+
+                final SeasonRegistry.Season season = loaded.get(i);
+                if (i > 0) {
+                    totals = season.getReports().positionScoring(firstWeek, lastWeek);
+                }
+
+                json.writeStartObject();
+                json.writeNumberField("season", season.getYear());
+                json.writeNumberField("teams", totals.getTeams());
+                json.writeNumberField("leagueCount", season.getLeagues().size());
+                json.writeObjectFieldStart("positionScores");
+                for (Map.Entry<Position, Double> score : totals.getPositionScores().entrySet()) {
+                    json.writeNumberField(score.getKey().getType(), score.getValue());
+                }
+                json.writeEndObject();
+                writeDistributions(json, totals.getScoreDistributions());
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * Rostered players by position for each season asked for, as on {@code /positionCount}.
+     */
+    @RequestMapping("/positionCount")
+    public final void positionCount(final @RequestParam(value = "season", required = false) List<Integer> seasons,
+                                    final HttpServletResponse response) throws IOException {
+
+        final List<SeasonRegistry.Season> loaded = seasonRegistry.get(years(seasons));
+
+        PositionCountTotals totals = loaded.get(0).getReports().positionCount();
+        try (JsonGenerator json = open(response)) {
+
+            json.writeStartObject();
+            json.writeArrayFieldStart("seasons");
+            for (int i = 0; i < loaded.size(); i++) {
+
+                final SeasonRegistry.Season season = loaded.get(i);
+                if (i > 0) {
+                    totals = season.getReports().positionCount();
+                }
+
+                json.writeStartObject();
+                json.writeNumberField("season", season.getYear());
+                json.writeNumberField("teams", totals.getTeams());
+                json.writeNumberField("leagueCount", season.getLeagues().size());
+                json.writeNumberField("unknownPlayers", totals.getUnknownPlayers().size());
+                json.writeObjectFieldStart("positionCounts");
+                for (Map.Entry<Position, Integer> count : totals.getPositionCounts().entrySet()) {
+                    json.writeNumberField(count.getKey().getType(), count.getValue());
+                }
+                json.writeEndObject();
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * One page of a position's starter weeks ranking, as on {@code /starterWeeks/{positionName}}.
+     */
+    @RequestMapping("/starterWeeks/{positionName}")
+    public final void starterWeeks(final @PathVariable String positionName,
+                                   final @RequestParam(value = "tiers", required = false) int[] tiers,
+                                   final @RequestParam(value = "weights", required = false) int[] weights,
+                                   final @RequestParam(value = "depth", defaultValue = "0") int depth,
+                                   final @RequestParam(value = "offset", defaultValue = "0") int offset,
+                                   final @RequestParam(value = "limit", defaultValue = "0") int limit,
+                                   final @RequestParam(value = "from", required = false) Integer from,
+                                   final @RequestParam(value = "to", required = false) Integer to,
+                                   final @RequestParam(value = "season", required = false) Integer season,
+                                   final @RequestParam(value = "fields", required = false) List<String> fieldNames,
+                                   final HttpServletResponse response) throws IOException {
+
+        final EnumSet<PlayerField> fields = PlayerField.parse(fieldNames);
+        final int year = season == null ? seasonRegistry.getDefaultSeason() : season;
+        final Position position = Position.fromValue(positionName);
+        final StarterTiers starterTiers = StarterTiers.of(tiers, weights);
+        starterTiers.checkDepth(depth, maxDepth);
+
+        final List<PlayerScoreBreakdown> ranked = page(seasonRegistry.get(year).getReports(), position,
+                starterTiers, depth, offset, limit, from, to);
+        try (JsonGenerator json = open(response)) {
+
+            json.writeStartObject();
+            json.writeNumberField("season", year);
+            json.writeStringField("position", position.getType());
+            json.writeNumberField("offset", offset);
+            writePlayers(json, ranked, offset, fields);
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * One page of every position's starter weeks ranking, one position after another.
+     */
+    @RequestMapping("/starterWeeks")
+    public final void allStarterWeeks(final @RequestParam(value = "tiers", required = false) int[] tiers,
+                                      final @RequestParam(value = "weights", required = false) int[] weights,
+                                      final @RequestParam(value = "depth", defaultValue = "0") int depth,
+                                      final @RequestParam(value = "offset", defaultValue = "0") int offset,
+                                      final @RequestParam(value = "limit", defaultValue = "0") int limit,
+                                      final @RequestParam(value = "from", required = false) Integer from,
+                                      final @RequestParam(value = "to", required = false) Integer to,
+                                      final @RequestParam(value = "season", required = false) Integer season,
+                                      final @RequestParam(value = "fields", required = false) List<String> fieldNames,
+                                      final HttpServletResponse response) throws IOException {
+
+        final EnumSet<PlayerField> fields = PlayerField.parse(fieldNames);
+        final int year = season == null ? seasonRegistry.getDefaultSeason() : season;
+        final StarterTiers starterTiers = StarterTiers.of(tiers, weights);
+        starterTiers.checkDepth(depth, maxDepth);
+        final ReportService reportService = seasonRegistry.get(year).getReports();
+
+        final List<Position> positions = new ArrayList<>();
+        for (Position position : Position.values()) {
+            if (PlayerScoreRankings.getLeagueStarterLimit(position) > 0) {
+                positions.add(position);
+            }
+        }
+
+        List<PlayerScoreBreakdown> ranked =
+                page(reportService, positions.get(0), starterTiers, depth, offset, limit, from, to);
+        try (JsonGenerator json = open(response)) {
+
+            json.writeStartObject();
+            json.writeNumberField("season", year);
+            json.writeNumberField("offset", offset);
+            json.writeArrayFieldStart("positions");
+            for (int i = 0; i < positions.size(); i++) {
+
+                if (i > 0) {
+                    ranked = page(reportService, positions.get(i), starterTiers, depth, offset, limit, from, to);
+                }
+
+                json.writeStartObject();
+                json.writeStringField("position", positions.get(i).getType());
+                writePlayers(json, ranked, offset, fields);
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * How often a player was rostered and started across every league in a season, with a row per team that
+     * rostered them.
+     */
+    @RequestMapping("/players/{playerId}/usage")
+    public final void playerUsage(final @PathVariable int playerId,
+                                  final @RequestParam(value = "from", required = false) Integer from,
+                                  final @RequestParam(value = "to", required = false) Integer to,
+                                  final @RequestParam(value = "season", required = false) Integer season,
+                                  final HttpServletResponse response) throws IOException {
+
+        final int year = season == null ? seasonRegistry.getDefaultSeason() : season;
+        final PlayerUsage usage = seasonRegistry.get(year).getReports().playerUsage(playerId,
+                from == null ? WeeklyResultsSource.FIRST_WEEK : from,
+                to == null ? WeeklyResultsSource.LAST_WEEK : to);
+        try (JsonGenerator json = open(response)) {
+
+            json.writeStartObject();
+            json.writeNumberField("season", year);
+            writePlayer(json, usage.getPlayerId(), usage.getPlayer());
+            json.writeNumberField("leagueWeeks", usage.getLeagueWeeks());
+            json.writeNumberField("rosteredWeeks", usage.getRosteredWeeks());
+            json.writeNumberField("startedWeeks", usage.getStartedWeeks());
+            json.writeNumberField("starterPoints", usage.getStarterPoints());
+            json.writeNumberField("ownershipPercent", usage.getOwnershipPercent());
+            json.writeNumberField("startPercent", usage.getStartPercent());
+            json.writeArrayFieldStart("teams");
+            for (RosterUsage team : usage.getTeams()) {
+                json.writeStartObject();
+                json.writeStringField("league", team.getLeague());
+                json.writeNumberField("franchiseId", team.getFranchiseId());
+                writeRosterWeeks(json, team);
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * Every player the configured franchise rostered in each league in a season, most starts first.
+     */
+    @RequestMapping("/franchise")
+    public final void franchiseUsage(final @RequestParam(value = "from", required = false) Integer from,
+                                     final @RequestParam(value = "to", required = false) Integer to,
+                                     final @RequestParam(value = "season", required = false) Integer season,
+                                     final HttpServletResponse response) throws IOException {
+
+        final int year = season == null ? seasonRegistry.getDefaultSeason() : season;
+        final List<RosterUsage> usages = seasonRegistry.get(year).getReports().franchiseUsage(
+                from == null ? WeeklyResultsSource.FIRST_WEEK : from,
+                to == null ? WeeklyResultsSource.LAST_WEEK : to);
+        try (JsonGenerator json = open(response)) {
+
+            json.writeStartObject();
+            json.writeNumberField("season", year);
+            json.writeArrayFieldStart("leagues");
+            String league = null;
+            for (RosterUsage usage : usages) {
+
+                // the rows come a league at a time, so each league's players are written as one group.
+                if (!usage.getLeague().equals(league)) {
+                    if (league != null) {
+                        json.writeEndArray();
+                        json.writeEndObject();
+                    }
+                    league = usage.getLeague();
+                    json.writeStartObject();
+                    json.writeStringField("league", league);
+                    json.writeNumberField("franchiseId", usage.getFranchiseId());
+                    json.writeArrayFieldStart("players");
+                }
+
+                json.writeStartObject();
+                writePlayer(json, usage.getPlayerId(), usage.getPlayer());
+                writeRosterWeeks(json, usage);
+                json.writeEndObject();
+            }
+            if (league != null) {
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * Players counted, their total score and the teams they were spread across, for the league groups, weeks,
+     * positions and statuses asked for, broken down by the dimensions in {@code by}.  Nothing asked for means
+     * everything, so no parameters at all gives one grand total for the configured season.
+     */
+    @RequestMapping("/cube")
+    public final void cube(final @RequestParam(value = "season", required = false) List<Integer> seasons,
+                           final @RequestParam(value = "group", required = false) List<String> groups,
+                           final @RequestParam(value = "from", required = false) Integer from,
+                           final @RequestParam(value = "to", required = false) Integer to,
+                           final @RequestParam(value = "position", required = false) List<String> positionNames,
+                           final @RequestParam(value = "status", required = false) List<String> statusNames,
+                           final @RequestParam(value = "by", required = false) List<String> dimensionNames,
+                           final HttpServletResponse response) throws IOException {
+
+        final List<Integer> years = years(seasons);
+        final List<String> groupNames = groups == null ? Collections.<String>emptyList() : groups;
+        for (String group : groupNames) {
+            checkArgument(leagueGroups.getNames().contains(group),
+                    "league group %s is not one of %s", group, leagueGroups.getNames());
+        }
+
+        final List<Position> positions = new ArrayList<>();
+        for (String positionName : positionNames == null ? Collections.<String>emptyList() : positionNames) {
+            final Position position = Position.fromValue(positionName.trim());
+            checkArgument(position != Position.UNKNOWN, "unknown position %s", positionName);
+            positions.add(position);
+        }
+        final List<ScoreCube.Status> statuses = new ArrayList<>();
+        for (String statusName : statusNames == null ? Collections.<String>emptyList() : statusNames) {
+            statuses.add(ScoreCube.Status.fromParamName(statusName.trim()));
+        }
+        final Set<ScoreCube.Dimension> by = new LinkedHashSet<>();
+        for (String dimensionName : dimensionNames == null ? Collections.<String>emptyList() : dimensionNames) {
+            by.add(ScoreCube.Dimension.fromParamName(dimensionName.trim()));
+        }
+
+        final CubeRollup rollup = new CubeRollup(by, leagueGroups, groupNames,
+                from == null ? WeeklyResultsSource.FIRST_WEEK : from,
+                to == null ? WeeklyResultsSource.LAST_WEEK : to, positions, statuses);
+        for (SeasonRegistry.Season season : seasonRegistry.get(years)) {
+            rollup.add(season.getYear(), season.getReports().scoreCube());
+        }
+
+        try (JsonGenerator json = open(response)) {
+
+            json.writeStartObject();
+            json.writeArrayFieldStart("by");
+            for (ScoreCube.Dimension dimension : by) {
+                json.writeString(dimension.getParamName());
+            }
+            json.writeEndArray();
+            json.writeArrayFieldStart("cells");
+            for (CubeRollup.Cell cell : rollup.getCells()) {
+                writeCell(json, cell);
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "Invalid report parameters")
+    public final void badParameters(final IllegalArgumentException e) {
+        LOG.debug("Rejected report API request: {}", e.getMessage());
+    }
+
+    private List<Integer> years(final List<Integer> seasons) {
+
+        final List<Integer> years = seasons == null || seasons.isEmpty()
+                ? Collections.singletonList(seasonRegistry.getDefaultSeason()) : seasons;
+
+        // every season is checked up front, so a bad one is rejected before anything has been written.
+        for (int year : years) {
+            checkArgument(seasonRegistry.getSeasons().contains(year),
+                    "season %s is not one of %s", year, seasonRegistry.getSeasons());
+        }
+        return years;
+    }
+
+    private List<PlayerScoreBreakdown> page(final ReportService reportService, final Position position,
+                                                   final StarterTiers tiers, final int depth,
+                                                   final int offset, final int limit,
+                                                   final Integer from, final Integer to) {
+
+        checkArgument(offset >= 0, "offset cannot be negative: %s", offset);
+        checkArgument(limit >= 0, "limit cannot be negative: %s", limit);
+
+        // the top offset + limit rows are the start of the whole ranking, so only those need ranking; a page far
+        // enough down still asks for no more rows than there can be.
+        final int end = (int) Math.min((long) offset + (limit == 0 ? maxPageSize : Math.min(limit, maxPageSize)),
+                                       Integer.MAX_VALUE);
+        final List<PlayerScoreBreakdown> ranked = reportService.starterWeeks(position, tiers, depth, end,
+                from == null ? WeeklyResultsSource.FIRST_WEEK : from,
+                to == null ? WeeklyResultsSource.LAST_WEEK : to);
+        return ranked.subList(Math.min(offset, ranked.size()), Math.min(end, ranked.size()));
+    }
+
+    private static JsonGenerator open(final HttpServletResponse response) throws IOException {
+
+        response.setContentType(CONTENT_TYPE);
+        response.setCharacterEncoding("UTF-8");
+        return JSON_FACTORY.createGenerator(response.getOutputStream(), JsonEncoding.UTF8);
+    }
+
+    private static void writeDistributions(final JsonGenerator json,
+                                           final Map<Position, ScoreDistribution> distributions) throws IOException {
+
+        json.writeObjectFieldStart("scoreDistributions");
+        for (Map.Entry<Position, ScoreDistribution> entry : distributions.entrySet()) {
+
+            final ScoreDistribution distribution = entry.getValue();
+            json.writeObjectFieldStart(entry.getKey().getType());
+            json.writeNumberField("starters", distribution.getCount());
+            writeKnownNumber(json, "mean", distribution.getMean());
+            writeKnownNumber(json, "standardDeviation", distribution.getStandardDeviation());
+            writeKnownNumber(json, "min", distribution.getMin());
+            writeKnownNumber(json, "median", distribution.getMedian());
+            writeKnownNumber(json, "p90", distribution.getP90());
+            writeKnownNumber(json, "max", distribution.getMax());
+            json.writeEndObject();
+        }
+        json.writeEndObject();
+    }
+
+    // JSON has no NaN, so statistics that couldn't be worked out are left out.
+    private static void writeKnownNumber(final JsonGenerator json, final String fieldName, final double value)
+            throws IOException {
+
+        if (!Double.isNaN(value)) {
+            json.writeNumberField(fieldName, value);
+        }
+    }
+
+    private static void writePlayer(final JsonGenerator json, final int playerId, final Player player)
+            throws IOException {
+
+        json.writeNumberField("id", playerId);
+        if (player != null) {
+            json.writeStringField("name", player.getName());
+            json.writeStringField("position", player.getPosition() == null ? null : player.getPosition().getType());
+            json.writeStringField("team", player.getTeam());
+        }
+    }
+
+    private static void writeCell(final JsonGenerator json, final CubeRollup.Cell cell) throws IOException {
+
+        json.writeStartObject();
+        if (cell.getSeason() != null) {
+            json.writeNumberField("season", cell.getSeason());
+        }
+        if (cell.getGroup() != null) {
+            json.writeStringField("group", cell.getGroup());
+        }
+        if (cell.getLeague() != null) {
+            json.writeStringField("league", cell.getLeague());
+        }
+        if (cell.getWeek() != null) {
+            json.writeNumberField("week", cell.getWeek());
+        }
+        if (cell.getPosition() != null) {
+            json.writeStringField("position", cell.getPosition().getType());
+        }
+        if (cell.getStatus() != null) {
+            json.writeStringField("status", cell.getStatus().getParamName());
+        }
+        json.writeNumberField("count", cell.getCount());
+        json.writeNumberField("sum", cell.getSum());
+        json.writeNumberField("teams", cell.getTeams());
+        writeKnownNumber(json, "mean", cell.getMean());
+        writeKnownNumber(json, "perTeam", cell.getPerTeam());
+        json.writeEndObject();
+    }
+
+    private static void writeRosterWeeks(final JsonGenerator json, final RosterUsage usage) throws IOException {
+
+        json.writeNumberField("rosteredWeeks", usage.getRosteredWeeks());
+        json.writeNumberField("startedWeeks", usage.getStartedWeeks());
+        json.writeNumberField("starterPoints", usage.getStarterPoints());
+    }
+
+    private static void writePlayers(final JsonGenerator json, final List<PlayerScoreBreakdown> ranked,
+                                     final int offset, final EnumSet<PlayerField> fields) throws IOException {
+
+        json.writeArrayFieldStart("players");
+        int rank = offset;
+        for (PlayerScoreBreakdown player : ranked) {
+
+            rank++;
+            json.writeStartObject();
+            for (PlayerField field : fields) {
+                switch (field) {
+                    case RANK:
+                        json.writeNumberField(field.fieldName, rank);
+                        break;
+                    case ID:
+                        json.writeNumberField(field.fieldName, player.getId());
+                        break;
+                    case NAME:
+                        json.writeStringField(field.fieldName, player.getName());
+                        break;
+                    case POSITION:
+                        json.writeStringField(field.fieldName,
+                                player.getPosition() == null ? null : player.getPosition().getType());
+                        break;
+                    case TEAM:
+                        json.writeStringField(field.fieldName, player.getTeam());
+                        break;
+                    case GRADE:
+                        json.writeNumberField(field.fieldName, player.getGrade());
+                        break;
+                    case TIER_FINISHES:
+                        json.writeArrayFieldStart(field.fieldName);
+                        for (int finishes : player.getTierFinishes()) {
+                            json.writeNumber(finishes);
+                        }
+                        json.writeEndArray();
+                        break;
+                    default:
+                        throw new IllegalStateException("unhandled field " + field);
+                }
+            }
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+    }
+}
@@ -2,11 +2,13 @@ package org.tiltedwindmills.fantasy.zealots;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
-import java.io.IOException;
-import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
@@ -14,24 +16,18 @@ import javax.servlet.http.HttpSession;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.io.ClassPathResource;
-import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RequestMapping;
-import org.tiltedwindmills.fantasy.mfl.model.League;
-import org.tiltedwindmills.fantasy.mfl.model.Player;
-import org.tiltedwindmills.fantasy.mfl.model.Position;
-import org.tiltedwindmills.fantasy.mfl.model.weeklyresults.MatchupResults;
-import org.tiltedwindmills.fantasy.mfl.model.weeklyresults.PlayerResultDetails;
-import org.tiltedwindmills.fantasy.mfl.model.weeklyresults.TeamResultDetails;
-import org.tiltedwindmills.fantasy.mfl.model.weeklyresults.WeeklyResultsResponse;
-import org.tiltedwindmills.fantasy.mfl.model.weeklyresults.WeeklyResultsWrapper;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.ModelAndView;
 import org.tiltedwindmills.fantasy.mfl.services.LeagueService;
-
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.common.base.Predicate;
-import com.google.common.collect.Iterables;
+import org.tiltedwindmills.fantasy.zealots.aggregation.PositionScoreTotals;
+import org.tiltedwindmills.fantasy.zealots.data.WeeklyResultsSource;
+import org.tiltedwindmills.fantasy.zealots.seasons.SeasonRegistry;
 
 @Controller
 public class WeeklyResultsController {
@@ -41,135 +37,65 @@ public class WeeklyResultsController {
     @Inject
     private LeagueService leagueService;
 
-    @javax.annotation.Resource
-    private List<League> propertyBasedLeagues;
+    @Inject
+    private SeasonRegistry seasonRegistry;
 
-    @javax.annotation.Resource
-    private List<Player> players;
+    @Inject
+    private DeferredReports deferredReports;
 
     @PostConstruct
     private void postConstruct() {
 
         checkNotNull(leagueService, "leagueService cannot be null");
+        checkNotNull(seasonRegistry, "seasonRegistry cannot be null");
+        checkNotNull(deferredReports, "deferredReports cannot be null");
     }
 
-    int teamsInPlay = 0;
-
-    @SuppressWarnings("unchecked")
+    /**
+     * Totals starter scoring by position, with how each position's starter scores were spread, for the whole
+     * regular season or just the weeks from {@code from} to {@code to}.  Several seasons can be compared side by
+     * side with e.g. {@code ?season=2013,2015}.  Worked out on the report executor, shared with any identical
+     * request already waiting.
+     */
     @RequestMapping("/positionScoring")
-    public final String home(final Map<String, Object> model, final HttpSession session) {
-
-        teamsInPlay = 0;
-
-        final Map<Position, Double> positionScoreMap = new HashMap<>();
-
-        for (League league : propertyBasedLeagues) {
-            for (int i = 1; i <= 13; i++) {
-                LOG.debug("Loading week {} for {}", i, league.getName());
-                mapWeeklyScoresForLeagueWeek(positionScoreMap, league, i);
-            }
-        }
-
-        model.put("teams", (double) teamsInPlay);
-        model.put("leagueCount", propertyBasedLeagues.size());
-        model.put("positionScoreMap", positionScoreMap);
-        return "positionStats";
-    }
-
-
-    private void mapWeeklyScoresForLeagueWeek(final Map<Position, Double> positionScoreMap, final League league, int week) {
-
-        final WeeklyResultsWrapper weeklyResultsWrapper = getWeeklyResultsFromFile(league.getName(), week);
-
-        if (weeklyResultsWrapper != null && weeklyResultsWrapper.getMatchupResults() != null) {
-
-            for (MatchupResults matchupResults : weeklyResultsWrapper.getMatchupResults()) {
-                loadMatchupResults(positionScoreMap, matchupResults);
-            }
-        }
-    }
-
-    private void loadMatchupResults(Map<Position, Double> positionScoreMap, final MatchupResults matchupResults) {
-
-        if (matchupResults != null && matchupResults.getTeams() != null) {
-
-            for (TeamResultDetails teamResultDetails : matchupResults.getTeams()) {
-                loadTeamMatchupResults(positionScoreMap, teamResultDetails);
-            }
-        }
-    }
-
-    private void loadTeamMatchupResults(Map<Position, Double> positionScoreMap, final TeamResultDetails teamResultDetails) {
-
-        if (teamResultDetails != null) {
-
-            teamsInPlay++;
-
-            for(final PlayerResultDetails playerResultDetails : teamResultDetails.getPlayerResults()) {
-
-                if (playerResultDetails != null && "starter".equals(playerResultDetails.getStatus())) {
-
-                    Player player = Iterables.find(players, new Predicate<Player>() {
-
-                        public boolean apply(Player testPlayer) {
-                            return testPlayer != null && testPlayer.getId() == playerResultDetails.getPlayerId();
-                        }
-                    });
-
-                    LOG.trace("Adding {} score of {} to map for {}",
-                            player.getPosition(), playerResultDetails.getScore(), player.getName());
-                    addPlayerScoreToMap(positionScoreMap, player.getPosition(), playerResultDetails.getScore());
+    public final DeferredResult<ModelAndView> home(
+                final @RequestParam(value = "season", required = false) List<Integer> seasons,
+                final @RequestParam(value = "from", required = false) Integer from,
+                final @RequestParam(value = "to", required = false) Integer to,
+                final HttpSession session) {
+
+        final List<Integer> years = seasons == null || seasons.isEmpty()
+                ? Collections.singletonList(seasonRegistry.getDefaultSeason()) : seasons;
+        final int firstWeek = from == null ? WeeklyResultsSource.FIRST_WEEK : from;
+        final int lastWeek = to == null ? WeeklyResultsSource.LAST_WEEK : to;
+
+        return deferredReports.render(Arrays.asList("positionScoring", years, firstWeek, lastWeek),
+                "positionStats", "seasons", new Callable<List<Map<String, Object>>>() {
+
+            @Override
+            public List<Map<String, Object>> call() {
+
+                final List<Map<String, Object>> seasonStats = new ArrayList<>();
+                for (SeasonRegistry.Season season : seasonRegistry.get(years)) {
+
+                    final PositionScoreTotals totals = season.getReports().positionScoring(firstWeek, lastWeek);
+
+                    final Map<String, Object> stats = new HashMap<>();
+                    stats.put("season", season.getYear());
+                    stats.put("teams", (double) totals.getTeams());
+                    stats.put("leagueCount", season.getLeagues().size());
+                    stats.put("positionScoreMap", totals.getPositionScores());
+                    stats.put("distributions", totals.getScoreDistributions());
+                    seasonStats.add(stats);
                 }
+                return seasonStats;
             }
-        }
-    }
-
-    private WeeklyResultsWrapper getWeeklyResultsFromFile(String name, int week) {
-
-        final String fileName = name + "week" + week + ".json";
-
-        try {
-            final Resource resource = new ClassPathResource("data/weeklyResults/" + fileName);
-            final InputStream resourceInputStream = resource.getInputStream();
-
-            final ObjectMapper objectMapper = new ObjectMapper();
-            objectMapper.enable(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY);
-            objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
-            final WeeklyResultsResponse response =
-                    objectMapper.readValue(resourceInputStream, WeeklyResultsResponse.class);
-
-            if (response != null) {
-                return response.getWeeklyResults();
-            }
-
-        } catch (IOException e) {
-            LOG.error("Failed to load MFL players from file: {}", e.getMessage());
-        }
-
-        return null;
+        });
     }
 
-
-    private void addPlayerScoreToMap(Map<Position, Double> positionScoreMap, Position position, double score) {
-
-        if (positionScoreMap == null) {
-            positionScoreMap = new HashMap<>();
-        }
-
-        Position mappedPosition = position;
-        if (position == Position.CORNERBACK || position == Position.SAFETY) {
-            mappedPosition = Position.DEFENSIVE_BACK;
-        }
-
-        if (position == Position.DEFENSIVE_TACKLE || position == Position.DEFENSIVE_END) {
-            mappedPosition = Position.DEFENSIVE_LINEMAN;
-        }
-
-        if (positionScoreMap.containsKey(mappedPosition)) {
-            positionScoreMap.put(mappedPosition, positionScoreMap.get(mappedPosition) + score);
-
-        } else {
-            positionScoreMap.put(mappedPosition, score);
-        }
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "Invalid season or week range")
+    public final void badParameters(final IllegalArgumentException e) {
+        LOG.debug("Rejected position scoring request: {}", e.getMessage());
     }
 }
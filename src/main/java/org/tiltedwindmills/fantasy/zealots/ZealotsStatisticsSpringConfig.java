@@ -1,24 +1,34 @@
 package org.tiltedwindmills.fantasy.zealots;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.ArrayList;
+import java.io.File;
 import java.util.List;
+import java.util.concurrent.Callable;
+
+import javax.inject.Inject;
+import javax.servlet.DispatcherType;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.embedded.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
-import org.springframework.core.io.ClassPathResource;
-import org.springframework.core.io.Resource;
-import org.springframework.util.CollectionUtils;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
 import org.tiltedwindmills.fantasy.mfl.model.League;
-import org.tiltedwindmills.fantasy.mfl.model.Player;
-import org.tiltedwindmills.fantasy.mfl.model.players.PlayerResponse;
-
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.tiltedwindmills.fantasy.zealots.aggregation.AggregationEngine;
+import org.tiltedwindmills.fantasy.zealots.aggregation.LeagueGroups;
+import org.tiltedwindmills.fantasy.zealots.data.BackgroundLoad;
+import org.tiltedwindmills.fantasy.zealots.data.DatasetVersion;
+import org.tiltedwindmills.fantasy.zealots.data.MflExports;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerRegistry;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerSnapshot;
+import org.tiltedwindmills.fantasy.zealots.metrics.ReportMetrics;
+import org.tiltedwindmills.fantasy.zealots.metrics.ReportMetricsInterceptor;
+import org.tiltedwindmills.fantasy.zealots.reports.ReportExecutor;
+import org.tiltedwindmills.fantasy.zealots.seasons.LeagueProperties;
 
 /**
  * Spring configuration file.
@@ -26,16 +36,30 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  * @author John Daniel
  */
 @Configuration
-public class ZealotsStatisticsSpringConfig {
-
-    private static final String LEAGUE_PROPERTY_PREFIX = "leagues.";
-    private static final String SERVER_ID_PROPERTY_SUFFIX = ".serverid";
-    private static final String FRANCHISE_ID_PROPERTY_SUFFIX = ".franchiseId";
-    private static final String LEAGUE_ID_PROPERTY_SUFFIX = ".leagueid";
-    private static final String LEAGUE_NAME_PROPERTY_SUFFIX = ".name";
+@EnableScheduling
+public class ZealotsStatisticsSpringConfig extends WebMvcConfigurerAdapter {
 
     private static final Logger LOG = LoggerFactory.getLogger(ZealotsStatisticsSpringConfig.class);
 
+    @Inject
+    private MflExports mflExports;
+
+    @Inject
+    private ReportMetricsInterceptor reportMetricsInterceptor;
+
+    @Inject
+    private ReportMetrics reportMetrics;
+
+    /**
+     * Times the report endpoints for the {@code zealots.stage.*} metrics.
+     */
+    @Override
+    public final void addInterceptors(final InterceptorRegistry registry) {
+
+        registry.addInterceptor(reportMetricsInterceptor)
+                .addPathPatterns("/positionScoring", "/positionCount", "/starterWeeks/**");
+    }
+
     /**
      * Initializes the {@code League} from MFL by querying the Developer's API.
      *
@@ -49,84 +73,121 @@ public class ZealotsStatisticsSpringConfig {
                 final Environment environment) {
     // CHECKSTYLE:ON
 
-        final List<League> propertyLeagues = new ArrayList<League>();
+        final List<League> propertyLeagues = LeagueProperties.read(leagues, environment);
 
-        if (leagues != null) {
-            for (String leagueKey : leagues) {
+        LOG.info("Found {} configured leagues", propertyLeagues.size());
+        return propertyLeagues;
+    }
 
-                final Integer mflId =
-                        environment.getRequiredProperty(LEAGUE_PROPERTY_PREFIX + leagueKey + LEAGUE_ID_PROPERTY_SUFFIX,
-                                                        Integer.class);
 
-                final Integer serverId =
-                        environment.getRequiredProperty(LEAGUE_PROPERTY_PREFIX + leagueKey + SERVER_ID_PROPERTY_SUFFIX,
-                                                        Integer.class);
+    /**
+     * Groups the leagues of every season, by key, for slicing the score cube.
+     *
+     * @return the {@code LeagueGroups}.
+     */
+    // CHECKSTYLE:OFF
+    // jd - beans cannot be final
+    @Bean
+    public LeagueGroups leagueGroups(final Environment environment) {
+    // CHECKSTYLE:ON
 
-                final String leagueName =
-                        environment.getRequiredProperty(
-                                LEAGUE_PROPERTY_PREFIX + leagueKey + LEAGUE_NAME_PROPERTY_SUFFIX);
+        final LeagueGroups leagueGroups = LeagueProperties.readGroups(environment);
 
-                final String franchiseId =
-                        environment.getProperty(
-                                LEAGUE_PROPERTY_PREFIX + leagueKey + FRANCHISE_ID_PROPERTY_SUFFIX);
+        LOG.info("Grouping leagues into {}", leagueGroups.getNames());
+        return leagueGroups;
+    }
 
-                // construct the league based on the discovered properties.
-                final League league = new League();
-                //league.setName(leagueName);
-                league.setName(leagueKey);
-                league.setId(mflId);
-                league.setServerId(serverId);
-                league.setFranchiseId(franchiseId);
 
-                // add the skeleton League to our bean.
-                propertyLeagues.add(league);
+    /**
+     * Indexes the season's players by MFL id so controllers can resolve players without scanning the list.  The
+     * players are read on their own thread, from the binary snapshot under {@code players.snapshot.directory} when
+     * it matches the {@code players} export, so the server comes up without waiting for them.
+     *
+     * @param season the season the exports belong to.
+     * @param snapshotDirectory where the player snapshots are kept.
+     * @return the loading {@code PlayerRegistry}.
+     */
+    // CHECKSTYLE:OFF
+    // jd - beans cannot be final
+    @Bean
+    public BackgroundLoad<PlayerRegistry> playerRegistry(
+                @Value("${season:2015}") final int season,
+                @Value("${players.snapshot.directory:./player-snapshots}") final String snapshotDirectory) {
+    // CHECKSTYLE:ON
 
-                LOG.debug("Found configured league '{}', using ({}, {}, {})", leagueKey, mflId, serverId, franchiseId);
-            }
-        }
+        // data.source picks between the local snapshot under data.location and a live, cached fetch from MFL.
+        final File snapshotFile = PlayerSnapshot.file(snapshotDirectory, season);
+        return BackgroundLoad.start("players", new Callable<PlayerRegistry>() {
 
-        LOG.info("Found {} configured leagues", propertyLeagues.size());
-        return propertyLeagues;
+            @Override
+            public PlayerRegistry call() {
+
+                final PlayerRegistry playerRegistry =
+                        new PlayerRegistry(PlayerSnapshot.load(mflExports, snapshotFile));
+                LOG.debug("Indexed {} players", playerRegistry.size());
+                return playerRegistry;
+            }
+        });
     }
 
 
     /**
-     * Initializes the {@code Player} list.
+     * Initializes the engine that spreads report aggregation across league-weeks.
      *
-     * @return a {@code List} of {@code Player}s.
+     * @param parallelism the worker thread count; {@code 0} uses every available processor and {@code 1}
+     *          keeps aggregation on the request thread.
+     * @return the {@code AggregationEngine}.
      */
     // CHECKSTYLE:OFF
     // jd - beans cannot be final
-    @Bean
-    public List<Player> players() {
+    @Bean(destroyMethod = "shutdown")
+    public AggregationEngine aggregationEngine(@Value("${reports.parallelism:0}") final int parallelism) {
     // CHECKSTYLE:ON
 
-        /* TODO : Currently retrieves from a local file to prevent having to call the service during development.
-                Should think of a better approach long term.  May want to keep this impl as an option
-                depending on env. */
-
-        PlayerResponse playerResponse = null;
-        try {
-            final Resource resource = new ClassPathResource("data/mfl_players.json");
-            final InputStream resourceInputStream = resource.getInputStream();
+        return new AggregationEngine(parallelism);
+    }
 
-            final ObjectMapper mapper = new ObjectMapper();
-            playerResponse = mapper.readValue(resourceInputStream, PlayerResponse.class);
 
+    /**
+     * Creates the pool the report pages are worked out on, away from the server's request threads.
+     *
+     * @param threads how many reports to work out at once.
+     * @param queueDepth how many more reports can wait before requests are turned away with a 503.
+     * @return the {@code ReportExecutor}.
+     */
+    // CHECKSTYLE:OFF
+    // jd - beans cannot be final
+    @Bean(destroyMethod = "shutdown")
+    public ReportExecutor reportExecutor(@Value("${reports.async.threads:4}") final int threads,
+                                         @Value("${reports.async.queueDepth:32}") final int queueDepth) {
+    // CHECKSTYLE:ON
 
-        } catch (IOException e) {
-            LOG.error("Failed to load MFL players from file: {}", e.getMessage());
-        }
+        return new ReportExecutor(threads, queueDepth, reportMetrics);
+    }
 
-        if (playerResponse != null &&
-            playerResponse.getWrapper() != null &&
-            !CollectionUtils.isEmpty(playerResponse.getWrapper().getPlayers())) {
+    /**
+     * Serves the report pages from gzipped copies rendered once per dataset version, and answers revalidations with
+     * a 304 before any controller runs.
+     *
+     * @param datasetVersion identifies the data the pages are built from.
+     * @param maxBytes how many bytes of gzipped pages to keep; 0 leaves the filter out.
+     * @return the registration of the {@code ReportResponseCacheFilter}.
+     */
+    // CHECKSTYLE:OFF
+    // jd - beans cannot be final
+    @Bean
+    public FilterRegistrationBean reportResponseCache(
+                final DatasetVersion datasetVersion,
+                @Value("${reports.responseCache.maxBytes:16777216}") final long maxBytes) {
+    // CHECKSTYLE:ON
 
-            LOG.debug("Found {} players", playerResponse.getWrapper().getPlayers().size());
-            return playerResponse.getWrapper().getPlayers();
-        }
+        final FilterRegistrationBean registration =
+                new FilterRegistrationBean(new ReportResponseCacheFilter(datasetVersion, reportMetrics, maxBytes));
+        registration.addUrlPatterns("/positionScoring", "/positionCount", "/starterWeeks/*");
+        registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
 
-        LOG.debug("No players found.");
-        return new ArrayList<Player>();
+        // nothing could be kept, so the pages skip the filter altogether.
+        registration.setEnabled(maxBytes > 0);
+        return registration;
     }
 }
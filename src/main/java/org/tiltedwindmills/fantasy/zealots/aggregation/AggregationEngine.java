@@ -0,0 +1,142 @@
+package org.tiltedwindmills.fantasy.zealots.aggregation;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+
+/**
+ * Runs a {@link LeagueWeekAggregator} over every league-week in a range, spreading the league-weeks across a
+ * fork-join pool.  Every league-week gets its own partial result and the partials are always merged in
+ * league then week order, so the result is identical, to the last bit of every floating point sum,
+ * whatever the parallelism.
+ *
+ * @author John Daniel
+ */
+public class AggregationEngine {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AggregationEngine.class);
+
+    // below this many league-weeks a task stops splitting and runs its range directly.
+    private static final int SEQUENTIAL_THRESHOLD = 4;
+
+    private final int parallelism;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param parallelism the number of worker threads, or {@code 0} to use one per available processor.
+     *          A parallelism of {@code 1} runs every aggregation on the calling thread.
+     */
+    public AggregationEngine(final int parallelism) {
+
+        checkArgument(parallelism >= 0, "parallelism cannot be negative");
+
+        this.parallelism = parallelism == 0 ? Runtime.getRuntime().availableProcessors() : parallelism;
+        this.pool = this.parallelism > 1 ? new ForkJoinPool(this.parallelism) : null;
+
+        LOG.info("Aggregating with a parallelism of {}", this.parallelism);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Aggregates every week from {@code firstWeek} to {@code lastWeek} (inclusive) for each league.
+     *
+     * @param leagues the {@code League}s to include.
+     * @param firstWeek the first week.
+     * @param lastWeek the last week.
+     * @param aggregator the report being computed.
+     * @return the merged result.
+     */
+    public <T> T aggregate(final List<League> leagues, final int firstWeek, final int lastWeek,
+                           final LeagueWeekAggregator<T> aggregator) {
+
+        final int weeks = Math.max(0, lastWeek - firstWeek + 1);
+        final int tasks = leagues.size() * weeks;
+
+        final Object[] partials = new Object[tasks];
+        final LeagueWeekTask<T> root = new LeagueWeekTask<>(leagues, firstWeek, weeks, aggregator, partials, 0, tasks);
+
+        if (pool == null || tasks <= SEQUENTIAL_THRESHOLD) {
+            root.computeDirectly();
+        } else {
+            pool.invoke(root);
+        }
+
+        final T result = aggregator.newPartial();
+        for (Object partial : partials) {
+            @SuppressWarnings("unchecked")
+            final T typedPartial = (T) partial;
+            aggregator.merge(result, typedPartial);
+        }
+        return result;
+    }
+
+    /**
+     * Stops the worker threads.
+     */
+    public void shutdown() {
+
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Computes the partials for a contiguous range of league-weeks, splitting in half until the range is
+     * small enough.
+     */
+    private static final class LeagueWeekTask<T> extends RecursiveAction {
+
+        private static final long serialVersionUID = -2319426480716390207L;
+
+        private final List<League> leagues;
+        private final int firstWeek;
+        private final int weeks;
+        private final LeagueWeekAggregator<T> aggregator;
+        private final Object[] partials;
+        private final int from;
+        private final int to;
+
+        LeagueWeekTask(final List<League> leagues, final int firstWeek, final int weeks,
+                       final LeagueWeekAggregator<T> aggregator, final Object[] partials, final int from, final int to) {
+
+            this.leagues = leagues;
+            this.firstWeek = firstWeek;
+            this.weeks = weeks;
+            this.aggregator = aggregator;
+            this.partials = partials;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                computeDirectly();
+                return;
+            }
+
+            final int middle = (from + to) >>> 1;
+            invokeAll(new LeagueWeekTask<>(leagues, firstWeek, weeks, aggregator, partials, from, middle),
+                      new LeagueWeekTask<>(leagues, firstWeek, weeks, aggregator, partials, middle, to));
+        }
+
+        void computeDirectly() {
+
+            for (int i = from; i < to; i++) {
+                final T partial = aggregator.newPartial();
+                aggregator.accumulate(partial, leagues.get(i / weeks), firstWeek + i % weeks);
+                partials[i] = partial;
+            }
+        }
+    }
+}
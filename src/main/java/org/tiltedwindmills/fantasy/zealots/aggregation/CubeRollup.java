@@ -0,0 +1,246 @@
+package org.tiltedwindmills.fantasy.zealots.aggregation;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+import org.tiltedwindmills.fantasy.zealots.aggregation.ScoreCube.Dimension;
+import org.tiltedwindmills.fantasy.zealots.aggregation.ScoreCube.Status;
+
+import com.google.common.collect.ComparisonChain;
+import com.google.common.collect.Ordering;
+
+/**
+ * A slice of one or more seasons' {@link ScoreCube}s, rolled up to the dimensions asked for.  The slice keeps
+ * only the league groups, weeks, positions and statuses asked for; every dimension not broken down by is summed
+ * over.  Each resulting cell holds the players counted, their total score and the teams they were spread across.
+ * Not thread safe.
+ *
+ * @author John Daniel
+ */
+public final class CubeRollup {
+
+    private static final Ordering<Comparable<?>> COORDINATES = Ordering.natural().nullsFirst();
+
+    private final Set<Dimension> by;
+    private final LeagueGroups leagueGroups;
+    private final Set<String> groups;
+    private final int firstWeek;
+    private final int lastWeek;
+    private final List<Position> positions = new ArrayList<>();
+    private final Set<Status> statuses;
+
+    private final Map<List<Object>, Cell> cells = new LinkedHashMap<>();
+
+    /**
+     * @param by the dimensions to break the totals down by; an empty set gives a single grand total.
+     * @param leagueGroups what group each league is in.
+     * @param groups the league groups to include, or empty for every league.
+     * @param firstWeek the first week to include.
+     * @param lastWeek the last week to include.
+     * @param positions the report positions to include, or empty for all of them.  Positions are folded, so
+     *          {@code CB} selects the {@code CB+S} report position.
+     * @param statuses the statuses to include, or empty for both.
+     */
+    public CubeRollup(final Set<Dimension> by, final LeagueGroups leagueGroups, final Collection<String> groups,
+                      final int firstWeek, final int lastWeek, final Collection<Position> positions,
+                      final Collection<Status> statuses) {
+
+        this.by = by.isEmpty() ? EnumSet.noneOf(Dimension.class) : EnumSet.copyOf(by);
+        this.leagueGroups = checkNotNull(leagueGroups, "leagueGroups cannot be null");
+        this.groups = new HashSet<>(groups);
+        this.firstWeek = firstWeek;
+        this.lastWeek = lastWeek;
+        for (Position position : positions.isEmpty() ? Arrays.asList(Position.values()) : positions) {
+            final Position folded = ReportPositions.fold(position);
+            if (!this.positions.contains(folded)) {
+                this.positions.add(folded);
+            }
+        }
+        this.statuses = statuses.isEmpty() ? EnumSet.allOf(Status.class) : EnumSet.copyOf(statuses);
+    }
+
+    /**
+     * Adds a season's slice of the cells.
+     *
+     * @param season the season the cube is for.
+     * @param cube the season's cube.
+     * @throws IllegalArgumentException if the weeks are not a range within the cube's.
+     */
+    public void add(final int season, final ScoreCube cube) {
+
+        cube.checkWeeks(firstWeek, lastWeek);
+
+        final Set<Cell> leagueWeekCells = new HashSet<>();
+        final List<String> leagueNames = cube.getLeagueNames();
+        for (int league = 0; league < leagueNames.size(); league++) {
+
+            final String leagueName = leagueNames.get(league);
+            final String group = leagueGroups.groupOf(leagueName);
+            if (!groups.isEmpty() && !groups.contains(group)) {
+                continue;
+            }
+
+            for (int week = firstWeek; week <= lastWeek; week++) {
+
+                // every cell the league-week falls in counts its teams once, whichever positions it adds to.
+                leagueWeekCells.clear();
+                for (Position position : positions) {
+                    for (Status status : statuses) {
+
+                        final Cell cell = cell(season, group, leagueName, week, position, status);
+                        cell.count += cube.getCount(league, week, position, status);
+                        cell.sum += cube.getSum(league, week, position, status);
+                        if (leagueWeekCells.add(cell)) {
+                            cell.teams += cube.getTeams(league, week);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the cells with any players in them, ordered by their coordinates.
+     */
+    public List<Cell> getCells() {
+
+        final List<Cell> counted = new ArrayList<>();
+        for (Cell cell : cells.values()) {
+            if (cell.count > 0) {
+                counted.add(cell);
+            }
+        }
+        Collections.sort(counted, new Comparator<Cell>() {
+
+            @Override
+            public int compare(final Cell left, final Cell right) {
+                return ComparisonChain.start()
+                        .compare(left.season, right.season, COORDINATES)
+                        .compare(left.group, right.group, COORDINATES)
+                        .compare(left.league, right.league, COORDINATES)
+                        .compare(left.week, right.week, COORDINATES)
+                        .compare(left.position, right.position, COORDINATES)
+                        .compare(left.status, right.status, COORDINATES)
+                        .result();
+            }
+        });
+        return counted;
+    }
+
+    private Cell cell(final int season, final String group, final String league, final int week,
+                      final Position position, final Status status) {
+
+        final Cell candidate = new Cell(
+                by.contains(Dimension.SEASON) ? season : null,
+                by.contains(Dimension.LEAGUE_GROUP) ? group : null,
+                by.contains(Dimension.LEAGUE) ? league : null,
+                by.contains(Dimension.WEEK) ? week : null,
+                by.contains(Dimension.POSITION) ? position : null,
+                by.contains(Dimension.STATUS) ? status : null);
+
+        final List<Object> key = candidate.coordinates();
+        final Cell cell = cells.get(key);
+        if (cell != null) {
+            return cell;
+        }
+        cells.put(key, candidate);
+        return candidate;
+    }
+
+    /**
+     * The totals at one set of coordinates.  A coordinate is {@code null} where its dimension was summed over.
+     */
+    public static final class Cell {
+
+        private final Integer season;
+        private final String group;
+        private final String league;
+        private final Integer week;
+        private final Position position;
+        private final Status status;
+
+        private long count;
+        private double sum;
+        private int teams;
+
+        Cell(final Integer season, final String group, final String league, final Integer week,
+             final Position position, final Status status) {
+
+            this.season = season;
+            this.group = group;
+            this.league = league;
+            this.week = week;
+            this.position = position;
+            this.status = status;
+        }
+
+        public Integer getSeason() {
+            return season;
+        }
+
+        public String getGroup() {
+            return group;
+        }
+
+        public String getLeague() {
+            return league;
+        }
+
+        public Integer getWeek() {
+            return week;
+        }
+
+        public Position getPosition() {
+            return position;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getSum() {
+            return sum;
+        }
+
+        /**
+         * @return the number of teams the players were spread across, counting each team once a week.
+         */
+        public int getTeams() {
+            return teams;
+        }
+
+        /**
+         * @return the mean score, or {@code NaN} if there are no players.
+         */
+        public double getMean() {
+            return count == 0 ? Double.NaN : sum / count;
+        }
+
+        /**
+         * @return the total score per team-week, or {@code NaN} if there are no teams.
+         */
+        public double getPerTeam() {
+            return teams == 0 ? Double.NaN : sum / teams;
+        }
+
+        private List<Object> coordinates() {
+            return Arrays.<Object>asList(season, group, league, week, position, status);
+        }
+    }
+}
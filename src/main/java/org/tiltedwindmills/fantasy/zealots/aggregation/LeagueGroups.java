@@ -0,0 +1,68 @@
+package org.tiltedwindmills.fantasy.zealots.aggregation;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Named groups of leagues, such as the PPR leagues, for slicing the {@link ScoreCube}.  Leagues are known by their
+ * configured key; every league not listed in a group is in the default group.  Groups are applied when the cube is
+ * sliced, so regrouping the leagues never means aggregating the results again.
+ *
+ * @author John Daniel
+ */
+public final class LeagueGroups {
+
+    /**
+     * Every league in one group.
+     */
+    public static final LeagueGroups NONE =
+            new LeagueGroups(Collections.<String, Collection<String>>emptyMap(), "all");
+
+    private final Map<String, String> groupsByLeague = new HashMap<>();
+    private final String defaultGroup;
+    private final List<String> names = new ArrayList<>();
+
+    /**
+     * @param leaguesByGroup the keys of the leagues in each group, in the order the groups should be listed.
+     * @param defaultGroup the group of every other league.
+     * @throws IllegalArgumentException if a league is in more than one group.
+     */
+    public LeagueGroups(final Map<String, ? extends Collection<String>> leaguesByGroup, final String defaultGroup) {
+
+        this.defaultGroup = checkNotNull(defaultGroup, "defaultGroup cannot be null");
+        for (Map.Entry<String, ? extends Collection<String>> group : leaguesByGroup.entrySet()) {
+            for (String league : group.getValue()) {
+                final String previous = groupsByLeague.put(league, group.getKey());
+                checkArgument(previous == null, "league %s is in both %s and %s", league, previous, group.getKey());
+            }
+            names.add(group.getKey());
+        }
+        if (!names.contains(defaultGroup)) {
+            names.add(defaultGroup);
+        }
+    }
+
+    /**
+     * @param leagueName the league's configured key.
+     * @return the group the league is in.
+     */
+    public String groupOf(final String leagueName) {
+
+        final String group = groupsByLeague.get(leagueName);
+        return group == null ? defaultGroup : group;
+    }
+
+    /**
+     * @return every group's name, the default group last.
+     */
+    public List<String> getNames() {
+        return Collections.unmodifiableList(names);
+    }
+}
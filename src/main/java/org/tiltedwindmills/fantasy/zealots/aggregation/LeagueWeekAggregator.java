@@ -0,0 +1,37 @@
+package org.tiltedwindmills.fantasy.zealots.aggregation;
+
+import org.tiltedwindmills.fantasy.mfl.model.League;
+
+/**
+ * A report computed independently for every league-week and then merged.  The {@link AggregationEngine}
+ * gives each league-week its own partial result, so implementations never share mutable state between
+ * threads.
+ *
+ * @param <T> the partial (and final) result type.
+ *
+ * @author John Daniel
+ */
+public interface LeagueWeekAggregator<T> {
+
+    /**
+     * @return a new, empty result.
+     */
+    T newPartial();
+
+    /**
+     * Adds one league-week to a partial result owned by the calling thread.
+     *
+     * @param partial the partial result for this league-week.
+     * @param league the {@code League}.
+     * @param week the week.
+     */
+    void accumulate(T partial, League league, int week);
+
+    /**
+     * Folds a completed partial result into the final result.
+     *
+     * @param result the final result.
+     * @param partial a completed partial result.
+     */
+    void merge(T result, T partial);
+}
@@ -0,0 +1,58 @@
+package org.tiltedwindmills.fantasy.zealots.aggregation;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+
+/**
+ * Running count of rostered players per position for a single request, plus the number of teams counted and
+ * the ids of any players missing from the player database.  Counts are kept in a {@link PositionStats}.
+ *
+ * @author John Daniel
+ */
+public final class PositionCountTotals {
+
+    private final PositionStats stats = new PositionStats();
+    private final Set<Integer> unknownPlayers = new TreeSet<>();
+    private int teams;
+
+    public void addTeams(final int count) {
+        teams += count;
+    }
+
+    /**
+     * @param position the player's position; folded into its report position.
+     */
+    public void increment(final Position position) {
+        stats.add(position, 1);
+    }
+
+    public void add(final Position position, final int count) {
+        stats.add(position, count, count);
+    }
+
+    public void addUnknownPlayer(final int playerId) {
+        unknownPlayers.add(playerId);
+    }
+
+    public void merge(final PositionCountTotals other) {
+
+        teams += other.teams;
+        unknownPlayers.addAll(other.unknownPlayers);
+        stats.merge(other.stats);
+    }
+
+    public int getTeams() {
+        return teams;
+    }
+
+    public Map<Position, Integer> getPositionCounts() {
+        return stats.getCounts();
+    }
+
+    public Set<Integer> getUnknownPlayers() {
+        return unknownPlayers;
+    }
+}
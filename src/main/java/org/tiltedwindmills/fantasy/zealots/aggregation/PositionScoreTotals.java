@@ -0,0 +1,128 @@
+package org.tiltedwindmills.fantasy.zealots.aggregation;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+
+/**
+ * Running score totals per position, plus the number of teams that contributed to them.  Scores are kept in a
+ * {@link PositionStats}, and sketched per position so their {@link ScoreDistribution} is available alongside the
+ * totals in bounded memory.
+ *
+ * @author John Daniel
+ */
+public final class PositionScoreTotals {
+
+    private static final Position[] POSITIONS = Position.values();
+
+    private final PositionStats stats;
+
+    // by report position ordinal; created with a position's first score.
+    private final QuantileSketch[] sketches = new QuantileSketch[POSITIONS.length];
+    private int teams;
+
+    public PositionScoreTotals() {
+        this(new PositionStats());
+    }
+
+    private PositionScoreTotals(final PositionStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * @return totals equal to these, down to the values each sketch holds, that share nothing with them.
+     */
+    public PositionScoreTotals copy() {
+
+        final PositionScoreTotals copy = new PositionScoreTotals(stats.copy());
+        for (int i = 0; i < POSITIONS.length; i++) {
+            copy.sketches[i] = sketches[i] == null ? null : sketches[i].copy();
+        }
+        copy.teams = teams;
+        return copy;
+    }
+
+    public void addTeams(final int count) {
+        teams += count;
+    }
+
+    /**
+     * @param position the player's position; folded into its report position.
+     * @param score the score.
+     */
+    public void addScore(final Position position, final double score) {
+
+        stats.add(position, score);
+        sketch(ReportPositions.foldedOrdinal(position)).update(score);
+    }
+
+    /**
+     * Adds a position's scores known only by their summary.  They count towards the totals and spread, but
+     * leave no median or percentiles unless their sketches are merged in as well.
+     *
+     * @param position the player's position; folded into its report position.
+     * @param count how many scores.
+     * @param sum their sum.
+     * @param min the smallest.
+     * @param max the largest.
+     * @param variance their population variance.
+     */
+    public void addScores(final Position position, final long count, final double sum, final double min,
+                          final double max, final double variance) {
+        stats.add(position, count, sum, min, max, variance);
+    }
+
+    public void merge(final PositionScoreTotals other) {
+
+        teams += other.teams;
+        stats.merge(other.stats);
+        mergeSketches(other);
+    }
+
+    /**
+     * Adds only the sketches of other totals, for totals whose summaries were added some other way.
+     */
+    void mergeSketches(final PositionScoreTotals other) {
+
+        for (int i = 0; i < POSITIONS.length; i++) {
+            if (other.sketches[i] != null) {
+                sketch(i).merge(other.sketches[i]);
+            }
+        }
+    }
+
+    public int getTeams() {
+        return teams;
+    }
+
+    public PositionStats getStats() {
+        return stats;
+    }
+
+    public Map<Position, Double> getPositionScores() {
+        return stats.getSums();
+    }
+
+    /**
+     * @return how the scores were spread, for each position with any.
+     */
+    public Map<Position, ScoreDistribution> getScoreDistributions() {
+
+        final Map<Position, ScoreDistribution> distributions = new EnumMap<>(Position.class);
+        for (Position position : POSITIONS) {
+            if (stats.contains(position)) {
+                distributions.put(position, new ScoreDistribution(stats, sketches[position.ordinal()], position));
+            }
+        }
+        return distributions;
+    }
+
+    private QuantileSketch sketch(final int ordinal) {
+
+        if (sketches[ordinal] == null) {
+            sketches[ordinal] = new QuantileSketch();
+        }
+        return sketches[ordinal];
+    }
+}
@@ -0,0 +1,209 @@
+package org.tiltedwindmills.fantasy.zealots.aggregation;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+
+/**
+ * Count, sum, minimum, maximum, mean and variance of a value per report position, all kept in one pass over
+ * primitive arrays indexed by position ordinal.  Values are added under the position the reports group them
+ * under (see {@link ReportPositions#fold(Position)}), so callers pass a player's own position.  Adding a value
+ * allocates nothing.
+ *
+ * Two sets of stats can be merged, so each thread can keep its own and combine them afterwards.  The mean and
+ * variance are merged exactly, the way a single pass over all the values would have found them.
+ *
+ * @author John Daniel
+ */
+public final class PositionStats {
+
+    private static final Position[] POSITIONS = Position.values();
+
+    private final long[] counts = new long[POSITIONS.length];
+    private final double[] sums = new double[POSITIONS.length];
+    private final double[] mins = new double[POSITIONS.length];
+    private final double[] maxes = new double[POSITIONS.length];
+
+    // the running mean and sum of squared differences from it, updated as in Welford's algorithm.
+    private final double[] means = new double[POSITIONS.length];
+    private final double[] squaredDeviations = new double[POSITIONS.length];
+
+    public PositionStats() {
+
+        Arrays.fill(mins, Double.POSITIVE_INFINITY);
+        Arrays.fill(maxes, Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * @return stats equal to these, field for field.
+     */
+    public PositionStats copy() {
+
+        final PositionStats copy = new PositionStats();
+        System.arraycopy(counts, 0, copy.counts, 0, counts.length);
+        System.arraycopy(sums, 0, copy.sums, 0, sums.length);
+        System.arraycopy(mins, 0, copy.mins, 0, mins.length);
+        System.arraycopy(maxes, 0, copy.maxes, 0, maxes.length);
+        System.arraycopy(means, 0, copy.means, 0, means.length);
+        System.arraycopy(squaredDeviations, 0, copy.squaredDeviations, 0, squaredDeviations.length);
+        return copy;
+    }
+
+    /**
+     * Adds one value.
+     *
+     * @param position the player's position; folded into its report position.
+     * @param value the value.
+     */
+    public void add(final Position position, final double value) {
+
+        final int i = ReportPositions.foldedOrdinal(position);
+        final long count = ++counts[i];
+        sums[i] += value;
+        if (value < mins[i]) {
+            mins[i] = value;
+        }
+        if (value > maxes[i]) {
+            maxes[i] = value;
+        }
+
+        final double delta = value - means[i];
+        means[i] += delta / count;
+        squaredDeviations[i] += delta * (value - means[i]);
+    }
+
+    /**
+     * Adds a group of values known only by their count and sum, such as a total from the fact store.  They are
+     * taken to be equal, so the group adds nothing to the variance.
+     *
+     * @param position the player's position; folded into its report position.
+     * @param count how many values.
+     * @param sum their sum.
+     */
+    public void add(final Position position, final long count, final double sum) {
+
+        final double value = sum / count;
+        add(position, count, sum, value, value, 0);
+    }
+
+    /**
+     * Adds a group of values known by their summary, such as an aggregate query's.
+     *
+     * @param position the player's position; folded into its report position.
+     * @param count how many values.
+     * @param sum their sum.
+     * @param min the smallest.
+     * @param max the largest.
+     * @param variance their population variance.
+     */
+    public void add(final Position position, final long count, final double sum, final double min,
+                    final double max, final double variance) {
+
+        if (count > 0) {
+            merge(ReportPositions.foldedOrdinal(position), count, sum, min, max, sum / count, variance * count);
+        }
+    }
+
+    /**
+     * Adds every value another set of stats has seen.
+     *
+     * @param other the other stats, which are left unchanged.
+     */
+    public void merge(final PositionStats other) {
+
+        for (int i = 0; i < POSITIONS.length; i++) {
+            if (other.counts[i] > 0) {
+                merge(i, other.counts[i], other.sums[i], other.mins[i], other.maxes[i], other.means[i],
+                      other.squaredDeviations[i]);
+            }
+        }
+    }
+
+    private void merge(final int i, final long count, final double sum, final double min, final double max,
+                       final double mean, final double squaredDeviation) {
+
+        final long total = counts[i] + count;
+        final double delta = mean - means[i];
+
+        // Chan et al.'s pairwise update, so merged partials match a single pass.
+        squaredDeviations[i] += squaredDeviation + delta * delta * ((double) counts[i] * count / total);
+        means[i] += delta * count / total;
+        counts[i] = total;
+        sums[i] += sum;
+        mins[i] = Math.min(mins[i], min);
+        maxes[i] = Math.max(maxes[i], max);
+    }
+
+    /**
+     * @return whether any value has been added under the position.
+     */
+    public boolean contains(final Position position) {
+        return counts[position.ordinal()] > 0;
+    }
+
+    public long getCount(final Position position) {
+        return counts[position.ordinal()];
+    }
+
+    public double getSum(final Position position) {
+        return sums[position.ordinal()];
+    }
+
+    /**
+     * @return the smallest value added under the position, or {@code NaN} if there are none.
+     */
+    public double getMin(final Position position) {
+        return contains(position) ? mins[position.ordinal()] : Double.NaN;
+    }
+
+    /**
+     * @return the largest value added under the position, or {@code NaN} if there are none.
+     */
+    public double getMax(final Position position) {
+        return contains(position) ? maxes[position.ordinal()] : Double.NaN;
+    }
+
+    /**
+     * @return the mean of the values added under the position, or {@code NaN} if there are none.
+     */
+    public double getMean(final Position position) {
+        return contains(position) ? means[position.ordinal()] : Double.NaN;
+    }
+
+    /**
+     * @return the population variance of the values added under the position, or {@code NaN} if there are none.
+     */
+    public double getVariance(final Position position) {
+        return contains(position) ? squaredDeviations[position.ordinal()] / counts[position.ordinal()] : Double.NaN;
+    }
+
+    /**
+     * @return the sum for each position with any values, for the views.
+     */
+    public Map<Position, Double> getSums() {
+
+        final Map<Position, Double> sumMap = new EnumMap<>(Position.class);
+        for (Position position : POSITIONS) {
+            if (contains(position)) {
+                sumMap.put(position, sums[position.ordinal()]);
+            }
+        }
+        return sumMap;
+    }
+
+    /**
+     * @return the count for each position with any values, for the views.
+     */
+    public Map<Position, Integer> getCounts() {
+
+        final Map<Position, Integer> countMap = new EnumMap<>(Position.class);
+        for (Position position : POSITIONS) {
+            if (contains(position)) {
+                countMap.put(position, (int) counts[position.ordinal()]);
+            }
+        }
+        return countMap;
+    }
+}
@@ -0,0 +1,221 @@
+package org.tiltedwindmills.fantasy.zealots.aggregation;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Arrays;
+
+/**
+ * Approximate quantiles of a stream of values in bounded memory, after Karnin, Lang and Liberty's KLL sketch.
+ * Values are kept in levels, each value at level {@code h} standing for {@code 2^h} of the originals.  When a
+ * level fills up it is sorted and every other value is promoted to the level above, so a sketch holds about
+ * {@code 3k} values however many it has seen, and a quantile is off by roughly {@code 1.7 / k} in rank.
+ *
+ * Sketches merge, so each league-week can be sketched on its own thread and the sketches combined afterwards.
+ * Until the first level fills, a sketch holds every value and its quantiles are exact.  Not thread safe.
+ *
+ * @author John Daniel
+ */
+public final class QuantileSketch {
+
+    /**
+     * The default accuracy, good to about one percent in rank.
+     */
+    public static final int DEFAULT_K = 200;
+
+    private static final int MIN_CAPACITY = 2;
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final int k;
+
+    private double[][] levels = new double[1][];
+    private int[] sizes = new int[1];
+
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    // which half of a sorted level is promoted; varied from compaction to compaction so the errors cancel, but
+    // from a fixed seed so the same values always give the same sketch.
+    private long coin = 0x9E3779B97F4A7C15L;
+
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * @param k how many values the top level holds; larger is more accurate.
+     */
+    public QuantileSketch(final int k) {
+
+        checkArgument(k >= MIN_CAPACITY, "k must be at least %s", MIN_CAPACITY);
+        this.k = k;
+    }
+
+    /**
+     * @param value a value to add.
+     */
+    public void update(final double value) {
+
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+
+        append(0, value);
+        if (sizes[0] >= capacity(0)) {
+            compact();
+        }
+    }
+
+    /**
+     * Adds every value another sketch has seen.
+     *
+     * @param other the other sketch, which is left unchanged.
+     */
+    public void merge(final QuantileSketch other) {
+
+        if (other.count == 0) {
+            return;
+        }
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+
+        for (int h = 0; h < other.levels.length; h++) {
+            for (int i = 0; i < other.sizes[h]; i++) {
+                append(h, other.levels[h][i]);
+            }
+        }
+        compact();
+    }
+
+    /**
+     * @return a sketch holding exactly the values this one holds, so its quantiles are the same; merging into an
+     * empty sketch would compact them again.
+     */
+    public QuantileSketch copy() {
+
+        final QuantileSketch copy = new QuantileSketch(k);
+        copy.levels = new double[levels.length][];
+        for (int h = 0; h < levels.length; h++) {
+            copy.levels[h] = levels[h] == null ? null : levels[h].clone();
+        }
+        copy.sizes = sizes.clone();
+        copy.count = count;
+        copy.min = min;
+        copy.max = max;
+        copy.coin = coin;
+        return copy;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @param fraction the rank wanted, from {@code 0} for the smallest value to {@code 1} for the largest.
+     * @return the value at about that rank, or {@code NaN} if the sketch is empty.
+     */
+    public double quantile(final double fraction) {
+
+        checkArgument(fraction >= 0 && fraction <= 1, "%s is not between 0 and 1", fraction);
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (fraction == 0) {
+            return min;
+        }
+        if (fraction == 1) {
+            return max;
+        }
+
+        // sort each level on its own, then walk them together in order, weighting each kept value by the number of
+        // originals it stands for.
+        final double[][] sorted = new double[levels.length][];
+        for (int h = 0; h < levels.length; h++) {
+            sorted[h] = sizes[h] == 0 ? new double[0] : Arrays.copyOf(levels[h], sizes[h]);
+            Arrays.sort(sorted[h]);
+        }
+        final int[] heads = new int[levels.length];
+
+        final double rank = fraction * count;
+        long seen = 0;
+        while (true) {
+            int next = -1;
+            for (int h = 0; h < sorted.length; h++) {
+                if (heads[h] < sorted[h].length
+                        && (next < 0 || sorted[h][heads[h]] < sorted[next][heads[next]])) {
+                    next = h;
+                }
+            }
+            if (next < 0) {
+                return max;
+            }
+            final double value = sorted[next][heads[next]++];
+            seen += 1L << next;
+            if (seen >= rank) {
+                return value;
+            }
+        }
+    }
+
+    private void append(final int level, final double value) {
+
+        if (level >= levels.length) {
+            levels = Arrays.copyOf(levels, level + 1);
+            sizes = Arrays.copyOf(sizes, level + 1);
+        }
+        if (levels[level] == null) {
+            levels[level] = new double[INITIAL_CAPACITY];
+        } else if (sizes[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], sizes[level] * 2);
+        }
+        levels[level][sizes[level]++] = value;
+    }
+
+    /**
+     * Halves every level over its capacity, from the bottom up, promoting the survivors.
+     */
+    private void compact() {
+
+        for (int h = 0; h < levels.length; h++) {
+            if (sizes[h] < capacity(h)) {
+                continue;
+            }
+
+            final double[] level = levels[h];
+            final int size = sizes[h];
+            Arrays.sort(level, 0, size);
+
+            // an odd value out stays behind, so the promoted values pair up exactly.
+            final int paired = size & ~1;
+            final int offset = flip();
+            for (int i = offset; i < paired; i += 2) {
+                append(h + 1, level[i]);
+            }
+            if (paired < size) {
+                level[0] = level[size - 1];
+                sizes[h] = 1;
+            } else {
+                sizes[h] = 0;
+            }
+        }
+    }
+
+    /**
+     * Lower levels get geometrically smaller capacities, so most of the memory goes to the values that stand for
+     * the most originals.
+     */
+    private int capacity(final int level) {
+
+        final int depth = levels.length - 1 - level;
+        return Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(2.0 / 3, depth)));
+    }
+
+    private int flip() {
+
+        coin ^= coin << 13;
+        coin ^= coin >>> 7;
+        coin ^= coin << 17;
+        return (int) (coin & 1);
+    }
+}
@@ -0,0 +1,57 @@
+package org.tiltedwindmills.fantasy.zealots.aggregation;
+
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+
+/**
+ * The positions the reports group players under.
+ *
+ * @author John Daniel
+ */
+public final class ReportPositions {
+
+    private static final Position[] POSITIONS = Position.values();
+
+    // each position's report position, by ordinal, so folding on the aggregation paths is one array read.
+    private static final int[] FOLDED_ORDINALS = new int[POSITIONS.length];
+
+    static {
+        for (Position position : POSITIONS) {
+            FOLDED_ORDINALS[position.ordinal()] = foldPosition(position).ordinal();
+        }
+    }
+
+    private ReportPositions() { }
+
+    /**
+     * Folds the individual defensive positions into the groups the reports use: CB and S into DB, DT and DE
+     * into DL.
+     *
+     * @param position the player's MFL position.
+     * @return the position to report the player under.
+     */
+    public static Position fold(final Position position) {
+        return POSITIONS[FOLDED_ORDINALS[position.ordinal()]];
+    }
+
+    /**
+     * @param position the player's MFL position.
+     * @return the ordinal of the position to report the player under.
+     */
+    public static int foldedOrdinal(final Position position) {
+        return FOLDED_ORDINALS[position.ordinal()];
+    }
+
+    private static Position foldPosition(final Position position) {
+
+        Position mappedPosition = position;
+        if (position == Position.CORNERBACK || position == Position.SAFETY) {
+            mappedPosition = Position.DEFENSIVE_BACK;
+        }
+
+        if (position == Position.DEFENSIVE_TACKLE || position == Position.DEFENSIVE_END) {
+            mappedPosition = Position.DEFENSIVE_LINEMAN;
+        }
+
+        return mappedPosition;
+    }
+}
@@ -0,0 +1,405 @@
+package org.tiltedwindmills.fantasy.zealots.aggregation;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+
+/**
+ * One season's rostered players, counted and totalled by league, week, report position and whether they started,
+ * in dense primitive arrays.  Every report that counts or totals scores is a slice of the cube, and a
+ * {@link CubeRollup} answers any combination of season, league group, league, week, position and status from it
+ * without reading the weekly results again.  The teams playing in each league-week are kept alongside, and players
+ * missing from the player database are kept aside by id, since they have no position.
+ *
+ * A cube is built once, from a {@link Builder} filled one league-week at a time, and never changed afterwards;
+ * {@link #withWeeks} makes a copy with some weeks' cells replaced.
+ *
+ * @author John Daniel
+ */
+public final class ScoreCube {
+
+    /**
+     * Whether a player started for their team that week.
+     */
+    public enum Status {
+
+        STARTER("starter"), BENCH("bench");
+
+        private final String paramName;
+
+        Status(final String paramName) {
+            this.paramName = paramName;
+        }
+
+        public String getParamName() {
+            return paramName;
+        }
+
+        /**
+         * @throws IllegalArgumentException if no status goes by the name.
+         */
+        public static Status fromParamName(final String paramName) {
+
+            for (Status status : values()) {
+                if (status.paramName.equals(paramName)) {
+                    return status;
+                }
+            }
+            throw new IllegalArgumentException("unknown status " + paramName);
+        }
+    }
+
+    /**
+     * What a {@link CubeRollup} can break its totals down by.
+     */
+    public enum Dimension {
+
+        SEASON("season"), LEAGUE_GROUP("group"), LEAGUE("league"), WEEK("week"), POSITION("position"),
+        STATUS("status");
+
+        private final String paramName;
+
+        Dimension(final String paramName) {
+            this.paramName = paramName;
+        }
+
+        public String getParamName() {
+            return paramName;
+        }
+
+        /**
+         * @throws IllegalArgumentException if no dimension goes by the name.
+         */
+        public static Dimension fromParamName(final String paramName) {
+
+            for (Dimension dimension : values()) {
+                if (dimension.paramName.equals(paramName)) {
+                    return dimension;
+                }
+            }
+            throw new IllegalArgumentException("unknown dimension " + paramName);
+        }
+    }
+
+    private static final int POSITIONS = Position.values().length;
+    private static final int STATUSES = Status.values().length;
+    private static final int[] NO_PLAYERS = new int[0];
+
+    private final List<String> leagueNames;
+    private final int firstWeek;
+    private final int weeks;
+
+    // indexed by league, week, folded position ordinal and status, in that order.
+    private final long[] counts;
+    private final double[] sums;
+
+    // indexed by league and week.
+    private final int[] teams;
+    private final int[][] unknownPlayers;
+
+    private ScoreCube(final List<String> leagueNames, final int firstWeek, final int lastWeek,
+                      final Builder builder) {
+
+        checkArgument(firstWeek <= lastWeek, "weeks %s to %s are not a range", firstWeek, lastWeek);
+
+        this.leagueNames = new ArrayList<>(leagueNames);
+        this.firstWeek = firstWeek;
+        this.weeks = lastWeek - firstWeek + 1;
+
+        final int leagueWeeks = leagueNames.size() * weeks;
+        counts = new long[leagueWeeks * POSITIONS * STATUSES];
+        sums = new double[leagueWeeks * POSITIONS * STATUSES];
+        teams = new int[leagueWeeks];
+        unknownPlayers = new int[leagueWeeks][];
+        Arrays.fill(unknownPlayers, NO_PLAYERS);
+
+        fold(builder);
+    }
+
+    private ScoreCube(final ScoreCube cube, final Collection<Integer> replacedWeeks, final Builder replacements) {
+
+        this.leagueNames = cube.leagueNames;
+        this.firstWeek = cube.firstWeek;
+        this.weeks = cube.weeks;
+
+        counts = cube.counts.clone();
+        sums = cube.sums.clone();
+        teams = cube.teams.clone();
+        unknownPlayers = cube.unknownPlayers.clone();
+
+        for (int week : replacedWeeks) {
+
+            checkArgument(week >= firstWeek && week <= getLastWeek(), "week %s is outside the cube", week);
+            for (int league = 0; league < leagueNames.size(); league++) {
+
+                final int leagueWeek = leagueWeek(league, week);
+                final int offset = leagueWeek * POSITIONS * STATUSES;
+                Arrays.fill(counts, offset, offset + POSITIONS * STATUSES, 0L);
+                Arrays.fill(sums, offset, offset + POSITIONS * STATUSES, 0.0);
+                teams[leagueWeek] = 0;
+                unknownPlayers[leagueWeek] = NO_PLAYERS;
+            }
+        }
+        for (Builder.Block block : replacements.blocks) {
+            checkArgument(replacedWeeks.contains(block.week), "week %s is not being replaced", block.week);
+        }
+        fold(replacements);
+    }
+
+    /**
+     * @param leagueNames the configured names of the leagues, by the indexes their results were added under.
+     * @param firstWeek the first week of the cube.
+     * @param lastWeek the last week of the cube.
+     * @param builder every league-week's results.
+     * @return the cube.
+     * @throws IllegalArgumentException if the builder holds a league or week outside the cube.
+     */
+    public static ScoreCube of(final List<String> leagueNames, final int firstWeek, final int lastWeek,
+                               final Builder builder) {
+        return new ScoreCube(leagueNames, firstWeek, lastWeek, builder);
+    }
+
+    /**
+     * Replaces some weeks' cells in every league, keeping every other league-week's as they are, so a changed week
+     * costs reading that week's results again rather than the whole season.
+     *
+     * @param replacedWeeks the weeks to replace.
+     * @param replacements every league's results for those weeks.
+     * @return the updated cube; this one is left unchanged.
+     * @throws IllegalArgumentException if the replacements hold a league or week that isn't being replaced.
+     */
+    public ScoreCube withWeeks(final Collection<Integer> replacedWeeks, final Builder replacements) {
+        return new ScoreCube(this, replacedWeeks, replacements);
+    }
+
+    // the blocks are folded in the order they were merged, so the sums are the same however they were built.
+    private void fold(final Builder builder) {
+
+        for (Builder.Block block : builder.blocks) {
+
+            checkArgument(block.leagueIndex < leagueNames.size(), "no league at index %s", block.leagueIndex);
+            checkArgument(block.week >= firstWeek && block.week <= getLastWeek(), "week %s is outside the cube",
+                          block.week);
+
+            final int leagueWeek = leagueWeek(block.leagueIndex, block.week);
+            final int offset = leagueWeek * POSITIONS * STATUSES;
+            for (int cell = 0; cell < POSITIONS * STATUSES; cell++) {
+                counts[offset + cell] += block.counts[cell];
+                sums[offset + cell] += block.sums[cell];
+            }
+            teams[leagueWeek] += block.teams;
+            if (block.unknownCount > 0) {
+                unknownPlayers[leagueWeek] = union(unknownPlayers[leagueWeek],
+                                                   Arrays.copyOf(block.unknownPlayers, block.unknownCount));
+            }
+        }
+    }
+
+    public List<String> getLeagueNames() {
+        return leagueNames;
+    }
+
+    public int getFirstWeek() {
+        return firstWeek;
+    }
+
+    public int getLastWeek() {
+        return firstWeek + weeks - 1;
+    }
+
+    /**
+     * @return how many players were rostered at a report position with a status in one league-week.
+     */
+    public long getCount(final int leagueIndex, final int week, final Position position, final Status status) {
+        return counts[cell(leagueIndex, week, position, status)];
+    }
+
+    /**
+     * @return the total score of the players rostered at a report position with a status in one league-week.
+     */
+    public double getSum(final int leagueIndex, final int week, final Position position, final Status status) {
+        return sums[cell(leagueIndex, week, position, status)];
+    }
+
+    /**
+     * @return how many teams played in one league-week.
+     */
+    public int getTeams(final int leagueIndex, final int week) {
+        return teams[leagueWeek(leagueIndex, week)];
+    }
+
+    /**
+     * Counts rostered players per position over a range of weeks, starters and bench alike.
+     *
+     * @param from the first week to count.
+     * @param to the last week to count.
+     * @return the counts, with the teams counted and the ids of players missing from the player database.
+     */
+    public PositionCountTotals positionCount(final int from, final int to) {
+
+        checkWeeks(from, to);
+
+        final PositionCountTotals totals = new PositionCountTotals();
+        for (int league = 0; league < leagueNames.size(); league++) {
+            for (int week = from; week <= to; week++) {
+
+                final int leagueWeek = leagueWeek(league, week);
+                totals.addTeams(teams[leagueWeek]);
+                for (Position position : Position.values()) {
+
+                    long count = 0;
+                    for (Status status : Status.values()) {
+                        count += counts[cell(league, week, position, status)];
+                    }
+                    if (count > 0) {
+                        totals.add(position, (int) count);
+                    }
+                }
+                for (int playerId : unknownPlayers[leagueWeek]) {
+                    totals.addUnknownPlayer(playerId);
+                }
+            }
+        }
+        return totals;
+    }
+
+    void checkWeeks(final int from, final int to) {
+
+        checkArgument(firstWeek <= from && from <= to && to <= getLastWeek(),
+                "weeks %s to %s are not a range within weeks %s to %s", from, to, firstWeek, getLastWeek());
+    }
+
+    private int leagueWeek(final int leagueIndex, final int week) {
+        return leagueIndex * weeks + week - firstWeek;
+    }
+
+    private int cell(final int leagueIndex, final int week, final Position position, final Status status) {
+        return (leagueWeek(leagueIndex, week) * POSITIONS + position.ordinal()) * STATUSES + status.ordinal();
+    }
+
+    // the distinct ids of two sorted, distinct id arrays, in order.
+    private static int[] union(final int[] left, final int[] right) {
+
+        Arrays.sort(right);
+        final int[] merged = new int[left.length + right.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.length || j < right.length) {
+            final int next = j == right.length || i < left.length && left[i] <= right[j] ? left[i++] : right[j++];
+            if (size == 0 || merged[size - 1] != next) {
+                merged[size++] = next;
+            }
+        }
+        return Arrays.copyOf(merged, size);
+    }
+
+    /**
+     * Collects the results of some league-weeks for a cube.  Each league-week's results are added on their own
+     * aggregation thread into a small block of their own, and the blocks are merged, in league then week order,
+     * into the builder the cube is made from.  Not thread safe.
+     */
+    public static final class Builder {
+
+        private final List<Block> blocks = new ArrayList<>();
+
+        /**
+         * Adds one rostered player.
+         *
+         * @param leagueIndex the league's index among the configured leagues.
+         * @param week the week.
+         * @param position the player's position; folded into its report position.
+         * @param starter whether the player started.
+         * @param score the player's score.
+         */
+        public void add(final int leagueIndex, final int week, final Position position, final boolean starter,
+                        final double score) {
+            add(leagueIndex, week, position, starter, 1, score);
+        }
+
+        /**
+         * Adds a group of rostered players known only by their count and total score, such as a row of an
+         * aggregate query.
+         *
+         * @param leagueIndex the league's index among the configured leagues.
+         * @param week the week.
+         * @param position the players' position; folded into its report position.
+         * @param starter whether the players started.
+         * @param count how many players.
+         * @param sum their total score.
+         */
+        public void add(final int leagueIndex, final int week, final Position position, final boolean starter,
+                        final long count, final double sum) {
+
+            final Block block = block(leagueIndex, week);
+            final int cell = ReportPositions.foldedOrdinal(position) * STATUSES
+                    + (starter ? Status.STARTER : Status.BENCH).ordinal();
+            block.counts[cell] += count;
+            block.sums[cell] += sum;
+        }
+
+        public void addTeams(final int leagueIndex, final int week, final int count) {
+            block(leagueIndex, week).teams += count;
+        }
+
+        /**
+         * Keeps aside a rostered player missing from the player database.
+         */
+        public void addUnknownPlayer(final int leagueIndex, final int week, final int playerId) {
+
+            final Block block = block(leagueIndex, week);
+            if (block.unknownCount == block.unknownPlayers.length) {
+                block.unknownPlayers = Arrays.copyOf(block.unknownPlayers, Math.max(4, block.unknownCount * 2));
+            }
+            block.unknownPlayers[block.unknownCount++] = playerId;
+        }
+
+        /**
+         * Adds every league-week another builder has collected.
+         *
+         * @param other the other builder, which must not be changed afterwards.
+         */
+        public void merge(final Builder other) {
+            blocks.addAll(other.blocks);
+        }
+
+        // league-weeks are added one at a time, so the block is almost always the last one.
+        private Block block(final int leagueIndex, final int week) {
+
+            checkArgument(leagueIndex >= 0, "no league at index %s", leagueIndex);
+            if (!blocks.isEmpty()) {
+                final Block last = blocks.get(blocks.size() - 1);
+                if (last.leagueIndex == leagueIndex && last.week == week) {
+                    return last;
+                }
+            }
+            final Block block = new Block(leagueIndex, week);
+            blocks.add(block);
+            return block;
+        }
+
+        /**
+         * One league-week's counts and sums, by folded position and status.
+         */
+        private static final class Block {
+
+            private final int leagueIndex;
+            private final int week;
+            private final long[] counts = new long[POSITIONS * STATUSES];
+            private final double[] sums = new double[POSITIONS * STATUSES];
+            private int teams;
+            private int[] unknownPlayers = NO_PLAYERS;
+            private int unknownCount;
+
+            Block(final int leagueIndex, final int week) {
+                this.leagueIndex = leagueIndex;
+                this.week = week;
+            }
+        }
+    }
+}
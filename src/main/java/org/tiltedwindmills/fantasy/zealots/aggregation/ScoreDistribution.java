@@ -0,0 +1,86 @@
+package org.tiltedwindmills.fantasy.zealots.aggregation;
+
+import java.util.Arrays;
+
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+
+/**
+ * How one position's starter scores were spread: their count, mean and standard deviation, and the minimum,
+ * median, 90th percentile and maximum.  The percentiles come from a {@link QuantileSketch}, so they are
+ * approximate once a position has more starters than the sketch keeps, and {@code NaN} where the scores weren't
+ * sketched.
+ *
+ * @author John Daniel
+ */
+public final class ScoreDistribution {
+
+    private final long count;
+    private final double mean;
+    private final double standardDeviation;
+    private final double min;
+    private final double median;
+    private final double p90;
+    private final double max;
+
+    ScoreDistribution(final PositionStats stats, final QuantileSketch sketch, final Position position) {
+
+        this.count = stats.getCount(position);
+        this.mean = stats.getMean(position);
+        this.standardDeviation = Math.sqrt(stats.getVariance(position));
+        this.min = stats.getMin(position);
+        this.median = sketch == null ? Double.NaN : sketch.quantile(0.5);
+        this.p90 = sketch == null ? Double.NaN : sketch.quantile(0.9);
+        this.max = stats.getMax(position);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getStandardDeviation() {
+        return standardDeviation;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMedian() {
+        return median;
+    }
+
+    public double getP90() {
+        return p90;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+
+        if (!(obj instanceof ScoreDistribution)) {
+            return false;
+        }
+        return Arrays.equals(values(), ((ScoreDistribution) obj).values());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values());
+    }
+
+    @Override
+    public String toString() {
+        return "distribution " + Arrays.toString(values());
+    }
+
+    private double[] values() {
+        return new double[] {count, mean, standardDeviation, min, median, p90, max};
+    }
+}
@@ -0,0 +1,160 @@
+package org.tiltedwindmills.fantasy.zealots.aggregation;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+
+/**
+ * Starter score totals for each week of the season, arranged so the totals for any range of weeks can be put
+ * together quickly.  Teams, counts, sums and squared deviations are kept as prefix sums over the weeks, and minimums
+ * and maximums in sparse tables, so each is read in constant time whatever the range.  Sketches can't be
+ * subtracted, so only they are merged week by week; a range costs at most a season's worth of sketch merges however
+ * many league-weeks it covers, and its percentiles are as good as if the range had been aggregated directly.
+ *
+ * @author John Daniel
+ */
+public final class WeeklyPositionScores {
+
+    private static final Position[] POSITIONS = Position.values();
+
+    private final int firstWeek;
+    private final int lastWeek;
+    private final List<PositionScoreTotals> weeklyTotals;
+
+    // prefix sums by week: entry i covers the first i weeks.  Per-position arrays are indexed by position ordinal.
+    private final long[] teams;
+    private final long[][] counts = new long[POSITIONS.length][];
+    private final double[][] sums = new double[POSITIONS.length][];
+
+    // squared deviations from each position's season mean rather than plain squares, so taking the range's own mean
+    // out again loses no precision.
+    private final double[] seasonMeans = new double[POSITIONS.length];
+    private final double[][] squaredDeviations = new double[POSITIONS.length][];
+
+    // entry [j][i] covers the 2^j weeks from week index i.
+    private final double[][][] mins = new double[POSITIONS.length][][];
+    private final double[][][] maxes = new double[POSITIONS.length][][];
+
+    /**
+     * @param firstWeek the week of the first totals.
+     * @param weeklyTotals each week's totals across every league, in week order.  They must not be changed
+     *          afterwards.
+     */
+    public WeeklyPositionScores(final int firstWeek, final List<PositionScoreTotals> weeklyTotals) {
+
+        this.firstWeek = firstWeek;
+        this.lastWeek = firstWeek + weeklyTotals.size() - 1;
+        this.weeklyTotals = new ArrayList<>(weeklyTotals);
+
+        final int weeks = weeklyTotals.size();
+        teams = new long[weeks + 1];
+        for (int week = 0; week < weeks; week++) {
+            teams[week + 1] = teams[week] + weeklyTotals.get(week).getTeams();
+        }
+
+        for (Position position : POSITIONS) {
+
+            final int p = position.ordinal();
+            counts[p] = new long[weeks + 1];
+            sums[p] = new double[weeks + 1];
+            for (int week = 0; week < weeks; week++) {
+                final PositionStats stats = weeklyTotals.get(week).getStats();
+                counts[p][week + 1] = counts[p][week] + stats.getCount(position);
+                sums[p][week + 1] = sums[p][week] + stats.getSum(position);
+            }
+
+            seasonMeans[p] = counts[p][weeks] == 0 ? 0 : sums[p][weeks] / counts[p][weeks];
+            squaredDeviations[p] = new double[weeks + 1];
+            mins[p] = sparseTable(weeks);
+            maxes[p] = sparseTable(weeks);
+            Arrays.fill(mins[p][0], Double.POSITIVE_INFINITY);
+            Arrays.fill(maxes[p][0], Double.NEGATIVE_INFINITY);
+
+            for (int week = 0; week < weeks; week++) {
+
+                final PositionStats stats = weeklyTotals.get(week).getStats();
+                double squaredDeviation = 0;
+                if (stats.contains(position)) {
+                    final long count = stats.getCount(position);
+                    final double shift = stats.getMean(position) - seasonMeans[p];
+                    squaredDeviation = stats.getVariance(position) * count + shift * shift * count;
+                    mins[p][0][week] = stats.getMin(position);
+                    maxes[p][0][week] = stats.getMax(position);
+                }
+                squaredDeviations[p][week + 1] = squaredDeviations[p][week] + squaredDeviation;
+            }
+
+            for (int j = 1; j < mins[p].length; j++) {
+                for (int week = 0; week + (1 << j) <= weeks; week++) {
+                    mins[p][j][week] = Math.min(mins[p][j - 1][week], mins[p][j - 1][week + (1 << (j - 1))]);
+                    maxes[p][j][week] = Math.max(maxes[p][j - 1][week], maxes[p][j - 1][week + (1 << (j - 1))]);
+                }
+            }
+        }
+    }
+
+    public int getFirstWeek() {
+        return firstWeek;
+    }
+
+    public int getLastWeek() {
+        return lastWeek;
+    }
+
+    /**
+     * Totals a range of weeks.  Positions that no starter played in the range are left out, just as they are
+     * when the weeks are aggregated directly.
+     *
+     * @param from the first week to include.
+     * @param to the last week to include.
+     * @return the totals.
+     * @throws IllegalArgumentException if the range is empty or outside the season.
+     */
+    public PositionScoreTotals between(final int from, final int to) {
+
+        checkArgument(firstWeek <= from && from <= to && to <= lastWeek,
+                "weeks %s to %s are not a range within weeks %s to %s", from, to, firstWeek, lastWeek);
+
+        final int start = from - firstWeek;
+        final int end = to - firstWeek + 1;
+
+        final PositionScoreTotals totals = new PositionScoreTotals();
+        totals.addTeams((int) (teams[end] - teams[start]));
+        for (Position position : POSITIONS) {
+
+            final int p = position.ordinal();
+            final long count = counts[p][end] - counts[p][start];
+            if (count == 0) {
+                continue;
+            }
+
+            final double sum = sums[p][end] - sums[p][start];
+            final double shift = sum / count - seasonMeans[p];
+            final double variance = (squaredDeviations[p][end] - squaredDeviations[p][start]) / count - shift * shift;
+
+            final int j = 31 - Integer.numberOfLeadingZeros(end - start);
+            totals.addScores(position, count, sum,
+                             Math.min(mins[p][j][start], mins[p][j][end - (1 << j)]),
+                             Math.max(maxes[p][j][start], maxes[p][j][end - (1 << j)]),
+                             Math.max(0, variance));
+        }
+
+        for (int week = start; week < end; week++) {
+            totals.mergeSketches(weeklyTotals.get(week));
+        }
+        return totals;
+    }
+
+    private static double[][] sparseTable(final int weeks) {
+
+        final double[][] table = new double[weeks == 0 ? 1 : 32 - Integer.numberOfLeadingZeros(weeks)][];
+        for (int j = 0; j < table.length; j++) {
+            table[j] = new double[weeks];
+        }
+        return table;
+    }
+}
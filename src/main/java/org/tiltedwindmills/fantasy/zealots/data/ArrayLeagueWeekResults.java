@@ -0,0 +1,55 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+/**
+ * Heap backed {@link LeagueWeekResults}, holding the players in flat parallel arrays.
+ *
+ * @author John Daniel
+ */
+final class ArrayLeagueWeekResults implements LeagueWeekResults {
+
+    private final int teamCount;
+    private final int[] playerIds;
+    private final int[] franchiseIds;
+    private final double[] scores;
+    private final boolean[] starters;
+
+    ArrayLeagueWeekResults(final int teamCount, final int[] playerIds, final int[] franchiseIds,
+                           final double[] scores, final boolean[] starters) {
+
+        this.teamCount = teamCount;
+        this.playerIds = playerIds;
+        this.franchiseIds = franchiseIds;
+        this.scores = scores;
+        this.starters = starters;
+    }
+
+    @Override
+    public int getTeamCount() {
+        return teamCount;
+    }
+
+    @Override
+    public int getPlayerCount() {
+        return playerIds.length;
+    }
+
+    @Override
+    public int getPlayerId(final int index) {
+        return playerIds[index];
+    }
+
+    @Override
+    public int getFranchiseId(final int index) {
+        return franchiseIds[index];
+    }
+
+    @Override
+    public double getScore(final int index) {
+        return scores[index];
+    }
+
+    @Override
+    public boolean isStarter(final int index) {
+        return starters[index];
+    }
+}
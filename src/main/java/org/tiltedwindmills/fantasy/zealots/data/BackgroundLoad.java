@@ -0,0 +1,115 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * Data that is loaded on its own thread, so startup doesn't wait for it.  Requests that need it before it is
+ * ready get a {@link DataNotReadyException} instead of blocking.
+ *
+ * @author John Daniel
+ */
+public final class BackgroundLoad<T> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BackgroundLoad.class);
+
+    private final String name;
+    private final FutureTask<T> task;
+
+    private BackgroundLoad(final String name, final FutureTask<T> task) {
+        this.name = name;
+        this.task = task;
+    }
+
+    /**
+     * Starts loading on a new daemon thread.
+     *
+     * @param name what is being loaded, for logs and errors.
+     * @param loader loads the data.
+     * @return the load, which is ready once the loader returns.
+     */
+    public static <T> BackgroundLoad<T> start(final String name, final Callable<T> loader) {
+
+        final BackgroundLoad<T> load = new BackgroundLoad<>(name, new FutureTask<>(new Callable<T>() {
+
+            @Override
+            public T call() throws Exception {
+
+                final Stopwatch stopwatch = Stopwatch.createStarted();
+                try {
+                    final T loaded = loader.call();
+                    LOG.info("Loaded {} in {}", name, stopwatch);
+                    return loaded;
+
+                } catch (Exception e) {
+                    LOG.error("Failed to load {}", name, e);
+                    throw e;
+                }
+            }
+        }));
+
+        final Thread thread = new Thread(load.task, "load-" + name.replace(' ', '-'));
+        thread.setDaemon(true);
+        thread.start();
+        return load;
+    }
+
+    /**
+     * @param name what was loaded.
+     * @param value the data, already loaded.
+     * @return a load that is already ready.
+     */
+    public static <T> BackgroundLoad<T> of(final String name, final T value) {
+
+        final FutureTask<T> task = new FutureTask<>(new Callable<T>() {
+
+            @Override
+            public T call() {
+                return value;
+            }
+        });
+        task.run();
+        return new BackgroundLoad<>(name, task);
+    }
+
+    public boolean isReady() {
+        return task.isDone();
+    }
+
+    /**
+     * Gets the data without waiting; for requests.
+     *
+     * @return the loaded data.
+     * @throws DataNotReadyException if it is still loading.
+     * @throws IllegalStateException if loading failed.
+     */
+    public T get() {
+
+        if (!task.isDone()) {
+            throw new DataNotReadyException(name + " still loading");
+        }
+        return await();
+    }
+
+    /**
+     * Waits for the data; for work that can't go ahead without it.
+     *
+     * @return the loaded data.
+     * @throws IllegalStateException if loading failed.
+     */
+    public T await() {
+
+        try {
+            return Uninterruptibles.getUninterruptibly(task);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to load " + name, e.getCause());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link LeagueWeekResults} view over one league-week's rows of a memory mapped columnar file.  Every getter
+ * is an absolute read from the mapping, so scanning allocates nothing and is safe from any thread.
+ *
+ * @author John Daniel
+ */
+final class ColumnarLeagueWeekResults implements LeagueWeekResults {
+
+    private final ByteBuffer buffer;
+    private final ColumnarResultsFormat.Layout layout;
+    private final int firstRow;
+    private final int rowCount;
+    private final int teamCount;
+
+    ColumnarLeagueWeekResults(final ByteBuffer buffer, final ColumnarResultsFormat.Layout layout,
+                              final int firstRow, final int rowCount, final int teamCount) {
+
+        this.buffer = buffer;
+        this.layout = layout;
+        this.firstRow = firstRow;
+        this.rowCount = rowCount;
+        this.teamCount = teamCount;
+    }
+
+    @Override
+    public int getTeamCount() {
+        return teamCount;
+    }
+
+    @Override
+    public int getPlayerCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getPlayerId(final int index) {
+        return buffer.getInt(layout.playerIdOffset + (firstRow + index) * 4);
+    }
+
+    @Override
+    public int getFranchiseId(final int index) {
+        return buffer.getShort(layout.franchiseOffset + (firstRow + index) * 2);
+    }
+
+    @Override
+    public double getScore(final int index) {
+        return buffer.getDouble(layout.scoreOffset + (firstRow + index) * 8);
+    }
+
+    @Override
+    public boolean isStarter(final int index) {
+        return buffer.get(layout.starterOffset + firstRow + index) != 0;
+    }
+}
@@ -0,0 +1,146 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Offline converter from a directory of MFL {@code <league>week<n>.json} weekly results exports to the
+ * columnar format described in {@link ColumnarResultsFormat}.
+ *
+ * Usage: {@code java ... ColumnarResultsConverter <weeklyResults directory> <output file>}
+ *
+ * @author John Daniel
+ */
+public final class ColumnarResultsConverter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ColumnarResultsConverter.class);
+
+    private static final Pattern FILE_NAME = Pattern.compile("(.+)week(\\d+)\\.json");
+
+    private ColumnarResultsConverter() { }
+
+    public static void main(String[] args) throws IOException {
+
+        if (args.length != 2) {
+            System.err.println("Usage: ColumnarResultsConverter <weeklyResults directory> <output file>");
+            System.exit(1);
+        }
+
+        convert(new File(args[0]), new File(args[1]));
+    }
+
+    /**
+     * Converts every weekly results export in the directory.  Leagues are indexed in name order.
+     *
+     * @param weeklyResultsDirectory the directory holding the {@code <league>week<n>.json} files.
+     * @param output the columnar file to write; replaced if it exists.
+     * @return the number of player rows written.
+     * @throws IOException if an export cannot be read or the output cannot be written.
+     */
+    public static int convert(final File weeklyResultsDirectory, final File output) throws IOException {
+
+        // league name -> week -> results
+        final Map<String, Map<Integer, LeagueWeekResults>> leagues = new TreeMap<>();
+        int maxWeek = 0;
+        int rowCount = 0;
+
+        final File[] files = weeklyResultsDirectory.listFiles();
+        if (files == null) {
+            throw new IOException("Not a directory: " + weeklyResultsDirectory);
+        }
+
+        for (File file : files) {
+
+            final Matcher matcher = FILE_NAME.matcher(file.getName());
+            if (!matcher.matches()) {
+                continue;
+            }
+
+            final int week = Integer.parseInt(matcher.group(2));
+            final LeagueWeekResultsBuilder builder = new LeagueWeekResultsBuilder();
+            MflJsonDecoder.decodeWeeklyResults(new FileInputStream(file), builder);
+            final LeagueWeekResults results = builder.build();
+
+            Map<Integer, LeagueWeekResults> weeks = leagues.get(matcher.group(1));
+            if (weeks == null) {
+                weeks = new TreeMap<>();
+                leagues.put(matcher.group(1), weeks);
+            }
+            weeks.put(week, results);
+
+            maxWeek = Math.max(maxWeek, week);
+            rowCount += results.getPlayerCount();
+        }
+
+        final List<byte[]> names = new ArrayList<>();
+        int namesEnd = ColumnarResultsFormat.headerBytes();
+        for (String name : leagues.keySet()) {
+            final byte[] encoded = ColumnarResultsFormat.encodeName(name);
+            names.add(encoded);
+            namesEnd += 2 + encoded.length;
+        }
+
+        final ColumnarResultsFormat.Layout layout =
+                new ColumnarResultsFormat.Layout(namesEnd, leagues.size(), maxWeek, rowCount);
+        final ByteBuffer buffer = ByteBuffer.allocate(layout.totalBytes);
+
+        buffer.putInt(ColumnarResultsFormat.MAGIC)
+              .putInt(ColumnarResultsFormat.VERSION)
+              .putInt(leagues.size())
+              .putInt(maxWeek)
+              .putInt(rowCount);
+        for (byte[] name : names) {
+            buffer.putShort((short) name.length).put(name);
+        }
+
+        int row = 0;
+        int league = 0;
+        for (Map<Integer, LeagueWeekResults> weeks : leagues.values()) {
+
+            for (int week = 1; week <= maxWeek; week++) {
+
+                final LeagueWeekResults results = weeks.containsKey(week) ? weeks.get(week) : LeagueWeekResults.EMPTY;
+
+                final int entry = layout.indexEntry(league, week, maxWeek);
+                buffer.putInt(entry, row)
+                      .putInt(entry + 4, results.getPlayerCount())
+                      .putInt(entry + 8, results.getTeamCount());
+
+                for (int i = 0; i < results.getPlayerCount(); i++, row++) {
+                    buffer.putDouble(layout.scoreOffset + row * 8, results.getScore(i));
+                    buffer.putInt(layout.playerIdOffset + row * 4, results.getPlayerId(i));
+                    buffer.putShort(layout.leagueOffset + row * 2, (short) league);
+                    buffer.putShort(layout.franchiseOffset + row * 2, (short) results.getFranchiseId(i));
+                    buffer.put(layout.weekOffset + row, (byte) week);
+                    buffer.put(layout.starterOffset + row, (byte) (results.isStarter(i) ? 1 : 0));
+                }
+            }
+            league++;
+        }
+
+        buffer.clear();
+        try (FileChannel channel = FileChannel.open(output.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        LOG.info("Wrote {} rows for {} leagues and {} weeks to {}", rowCount, leagues.size(), maxWeek, output);
+        return rowCount;
+    }
+}
@@ -0,0 +1,85 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Layout of the fixed width, columnar weekly results file written by {@link ColumnarResultsConverter} and
+ * memory mapped by {@link ColumnarWeeklyResults}.  All values are big endian.
+ *
+ * <pre>
+ * header   int magic, int version, int leagueCount, int maxWeek, int rowCount
+ * leagues  leagueCount x (short nameLength, UTF-8 name)
+ * index    leagueCount x maxWeek x (int firstRow, int rowCount, int teamCount)
+ * padding  to an 8 byte boundary
+ * columns  rowCount doubles  score
+ *          rowCount ints     playerId
+ *          rowCount shorts   league index
+ *          rowCount shorts   franchise id
+ *          rowCount bytes    week
+ *          rowCount bytes    1 if the player started, 0 if benched
+ * </pre>
+ *
+ * Rows are ordered by league, then week, then as they appeared in the export.
+ *
+ * @author John Daniel
+ */
+final class ColumnarResultsFormat {
+
+    static final int MAGIC = 0x5A575231; // "ZWR1"
+    static final int VERSION = 1;
+
+    static final int INDEX_ENTRY_BYTES = 12;
+
+    private ColumnarResultsFormat() { }
+
+    /**
+     * The byte offsets of each column, derived from the header values.
+     */
+    static final class Layout {
+
+        final int indexOffset;
+        final int scoreOffset;
+        final int playerIdOffset;
+        final int leagueOffset;
+        final int franchiseOffset;
+        final int weekOffset;
+        final int starterOffset;
+        final int totalBytes;
+
+        Layout(final int namesEndOffset, final int leagueCount, final int maxWeek, final int rowCount) {
+
+            indexOffset = namesEndOffset;
+            final int indexEnd = indexOffset + leagueCount * maxWeek * INDEX_ENTRY_BYTES;
+
+            scoreOffset = (indexEnd + 7) & ~7;
+            playerIdOffset = scoreOffset + rowCount * 8;
+            leagueOffset = playerIdOffset + rowCount * 4;
+            franchiseOffset = leagueOffset + rowCount * 2;
+            weekOffset = franchiseOffset + rowCount * 2;
+            starterOffset = weekOffset + rowCount;
+            totalBytes = starterOffset + rowCount;
+        }
+
+        int indexEntry(final int league, final int week, final int maxWeek) {
+            return indexOffset + (league * maxWeek + week - 1) * INDEX_ENTRY_BYTES;
+        }
+    }
+
+    static int headerBytes() {
+        return 5 * 4;
+    }
+
+    static byte[] encodeName(final String name) {
+        return name.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static String readName(final ByteBuffer buffer, final int offset, final int length) {
+
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,124 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+
+/**
+ * {@link WeeklyResultsSource} backed by a memory mapped columnar file (see {@link ColumnarResultsFormat}),
+ * generated offline by {@link ColumnarResultsConverter}.  Nothing is parsed and no per-player objects are
+ * created: the OS pages the columns in and out, so several seasons can stay hot at a fraction of the heap.
+ *
+ * Enabled with {@code weeklyResults.backend=columnar} and {@code weeklyResults.columnar.path}.
+ *
+ * @author John Daniel
+ */
+@Component
+@Lazy
+@ConditionalOnProperty(name = "weeklyResults.backend", havingValue = "columnar")
+public class ColumnarWeeklyResults implements WeeklyResultsSource {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ColumnarWeeklyResults.class);
+
+    @Value("${weeklyResults.columnar.path}")
+    private String path;
+
+    private int maxWeek;
+
+    // league name -> views indexed by week, all over the one mapping.
+    private Map<String, LeagueWeekResults[]> leagueWeeks;
+
+    @PostConstruct
+    private void postConstruct() throws IOException {
+        open(new File(path));
+    }
+
+    /**
+     * Maps the file and builds a view for every league-week in it.
+     *
+     * @param file the columnar file.
+     * @throws IOException if the file cannot be mapped or is not a supported columnar file.
+     */
+    void open(final File file) throws IOException {
+
+        final MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // the mapping stays valid once the channel is closed.
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.getInt(0) != ColumnarResultsFormat.MAGIC || buffer.getInt(4) != ColumnarResultsFormat.VERSION) {
+            throw new IOException(file + " is not a version " + ColumnarResultsFormat.VERSION + " columnar results file");
+        }
+
+        final int leagueCount = buffer.getInt(8);
+        maxWeek = buffer.getInt(12);
+        final int rowCount = buffer.getInt(16);
+
+        final String[] names = new String[leagueCount];
+        int offset = ColumnarResultsFormat.headerBytes();
+        for (int i = 0; i < leagueCount; i++) {
+            final int length = buffer.getShort(offset);
+            names[i] = ColumnarResultsFormat.readName(buffer, offset + 2, length);
+            offset += 2 + length;
+        }
+
+        final ColumnarResultsFormat.Layout layout = new ColumnarResultsFormat.Layout(offset, leagueCount, maxWeek, rowCount);
+        if (layout.totalBytes != buffer.capacity()) {
+            throw new IOException(file + " is truncated or corrupt");
+        }
+
+        final Map<String, LeagueWeekResults[]> views = new HashMap<>();
+        final ByteBuffer readOnly = buffer.asReadOnlyBuffer();
+        for (int league = 0; league < leagueCount; league++) {
+
+            final LeagueWeekResults[] weeks = new LeagueWeekResults[maxWeek + 1];
+            weeks[0] = LeagueWeekResults.EMPTY;
+
+            for (int week = 1; week <= maxWeek; week++) {
+                final int entry = layout.indexEntry(league, week, maxWeek);
+                final int rows = buffer.getInt(entry + 4);
+                weeks[week] = rows == 0 && buffer.getInt(entry + 8) == 0
+                        ? LeagueWeekResults.EMPTY
+                        : new ColumnarLeagueWeekResults(readOnly, layout,
+                                buffer.getInt(entry), rows, buffer.getInt(entry + 8));
+            }
+            views.put(names[league], weeks);
+        }
+
+        leagueWeeks = views;
+        LOG.info("Mapped {} weekly result rows for {} leagues from {}", rowCount, leagueCount, file);
+    }
+
+    @Override
+    public LeagueWeekResults getResults(final League league, final int week) {
+
+        if (week < FIRST_WEEK || week > LAST_WEEK || week > maxWeek) {
+            return LeagueWeekResults.EMPTY;
+        }
+
+        final LeagueWeekResults[] weeks = leagueWeeks.get(league.getName());
+        return weeks == null ? LeagueWeekResults.EMPTY : weeks[week];
+    }
+
+    /**
+     * The file is mapped before the results are handed out, so they can always be read.
+     */
+    @Override
+    public void awaitResults() { }
+}
@@ -0,0 +1,304 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.stereotype.Component;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
+
+/**
+ * Watches the {@code weeklyResults/} and {@code scores/} directories under {@code data.location} and tells the
+ * {@link ExportChangeListener}s exactly which league-weeks and position-weeks changed.  A file counts as changed
+ * when the CRC-32 of its contents does, so rewriting a file with the same contents is ignored.  Events are
+ * collected until the directories have been quiet for {@code data.watch.quietMillis}, so a file written in pieces
+ * is only read once.
+ *
+ * The checksums the changes are measured against are taken before the {@link WeeklyResultsRepository} reads the
+ * exports, so nothing written while it loads is missed.  The listeners are resolved when the first change is
+ * published, so creating the watcher never creates them.
+ *
+ * Only runs with {@code data.watch=true}, and only when {@code data.location} is a directory on disk.
+ *
+ * @author John Daniel
+ */
+@Component
+@ConditionalOnProperty(name = "data.watch", havingValue = "true")
+public class DataDirectoryWatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DataDirectoryWatcher.class);
+
+    @Inject
+    @Lazy
+    private List<ExportChangeListener> exportChangeListeners;
+
+    @javax.annotation.Resource
+    private List<League> propertyBasedLeagues;
+
+    @Value("${data.location:classpath:data/}")
+    private String dataLocation;
+
+    @Value("${data.watch.quietMillis:500}")
+    private long quietMillis;
+
+    // every export the reports read, by absolute path, and the CRC-32 of its contents when last read.
+    private final Map<Path, WatchedExport> watchedExports = new HashMap<>();
+    private final Map<Path, Long> checksums = new HashMap<>();
+
+    private final CountDownLatch firstScan = new CountDownLatch(1);
+
+    private WatchService watchService;
+    private Thread watcher;
+
+    public DataDirectoryWatcher() { }
+
+    /**
+     * Starts watching a directory other than the configured one.
+     *
+     * @param directory the data directory.
+     * @param leagues the leagues whose {@code weeklyResults} to watch.
+     * @param exportChangeListeners who to tell about changes.
+     * @param quietMillis how long the directories must be quiet before changes are read.
+     */
+    public DataDirectoryWatcher(final File directory, final List<League> leagues,
+                                final List<ExportChangeListener> exportChangeListeners, final long quietMillis) {
+
+        this.dataLocation = directory.toURI().toString();
+        this.propertyBasedLeagues = leagues;
+        this.exportChangeListeners = exportChangeListeners;
+        this.quietMillis = quietMillis;
+        postConstruct();
+    }
+
+    @PostConstruct
+    private void postConstruct() {
+
+        checkNotNull(exportChangeListeners, "exportChangeListeners cannot be null");
+        checkNotNull(propertyBasedLeagues, "propertyBasedLeagues cannot be null");
+
+        final File directory;
+        try {
+            directory = new DefaultResourceLoader().getResource(dataLocation).getFile().getAbsoluteFile();
+        } catch (IOException e) {
+            LOG.warn("Not watching {}, it isn't a directory on disk: {}", dataLocation, e.getMessage());
+            firstScan.countDown();
+            return;
+        }
+
+        for (int week = WeeklyResultsSource.FIRST_WEEK; week <= WeeklyResultsSource.LAST_WEEK; week++) {
+            for (League league : propertyBasedLeagues) {
+                final String path = DataLocationExports.weeklyResultsPath(league, week);
+                watchedExports.put(resolve(directory, path), new WatchedExport(path, league, null, week));
+            }
+            for (Position position : Position.values()) {
+                if (PlayerScoreRankings.getLeagueStarterLimit(position) > 0) {
+                    final String path = DataLocationExports.playerScoresPath(position, week);
+                    watchedExports.put(resolve(directory, path), new WatchedExport(path, null, position, week));
+                }
+            }
+        }
+
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            for (String subdirectory : new String[] {"weeklyResults", "scores"}) {
+                final Path path = new File(directory, subdirectory).toPath();
+                if (Files.isDirectory(path)) {
+                    path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                                  StandardWatchEventKinds.ENTRY_MODIFY);
+                }
+            }
+        } catch (IOException e) {
+            LOG.warn("Not watching {}: {}", directory, e.getMessage());
+            firstScan.countDown();
+            return;
+        }
+
+        watcher = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                watch();
+            }
+        }, "watch-data");
+        watcher.setDaemon(true);
+        watcher.start();
+
+        LOG.info("Watching {} exports under {}", watchedExports.size(), directory);
+    }
+
+    @PreDestroy
+    private void preDestroy() {
+
+        if (watcher != null) {
+            watcher.interrupt();
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                LOG.debug("Failed to close the watch service: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void watch() {
+
+        // the first scan only records checksums.  The directories are already registered, so anything written
+        // while it runs still raises an event.
+        detectChanges(watchedExports.keySet());
+        firstScan.countDown();
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+
+                final Set<Path> touched = new HashSet<>();
+                WatchKey key = watchService.take();
+                while (key != null) {
+                    collect(key, touched);
+                    key = watchService.poll(quietMillis, TimeUnit.MILLISECONDS);
+                }
+
+                final ExportChanges changes = detectChanges(touched);
+                if (!changes.isEmpty()) {
+                    publish(changes);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            LOG.debug("Stopped watching exports");
+        }
+    }
+
+    /**
+     * Waits for the checksums of the exports as they were when watching started, after which changes are seen.
+     * Returns straight away if nothing is being watched.
+     *
+     * @return whether the first scan finished in time.
+     */
+    public boolean awaitFirstScan(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return firstScan.await(timeout, unit);
+    }
+
+    private void collect(final WatchKey key, final Set<Path> touched) {
+
+        final Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                touched.addAll(watchedExports.keySet());
+            } else {
+                touched.add(directory.resolve((Path) event.context()));
+            }
+        }
+        key.reset();
+    }
+
+    /**
+     * Checksums the given files and picks out the watched exports whose contents changed.
+     *
+     * @param touched the files that may have changed.
+     * @return the changed exports.
+     */
+    ExportChanges detectChanges(final Collection<Path> touched) {
+
+        final SetMultimap<League, Integer> weeklyResults = LinkedHashMultimap.create();
+        final SetMultimap<Position, Integer> playerScores = LinkedHashMultimap.create();
+        final Map<String, Long> changedChecksums = new HashMap<>();
+
+        for (Path path : touched) {
+
+            // a file seen for the first time counts as changed; it is either new or this is the first scan.
+            final WatchedExport export = watchedExports.get(path);
+            final Long checksum = export == null ? null : checksum(path);
+            if (checksum == null || checksum.equals(checksums.put(path, checksum))) {
+                continue;
+            }
+
+            if (export.league != null) {
+                weeklyResults.put(export.league, export.week);
+            } else {
+                playerScores.put(export.position, export.week);
+            }
+            changedChecksums.put(export.path, checksum);
+        }
+        return new ExportChanges(weeklyResults, playerScores, changedChecksums);
+    }
+
+    private void publish(final ExportChanges changes) {
+
+        final Stopwatch stopwatch = Stopwatch.createStarted();
+        for (ExportChangeListener listener : exportChangeListeners) {
+            try {
+                listener.exportsChanged(changes);
+            } catch (RuntimeException e) {
+                LOG.error("{} failed to apply changed exports", listener.getClass().getSimpleName(), e);
+            }
+        }
+
+        LOG.info("Applied {} changed league-weeks and {} changed position-weeks in {}",
+                changes.getWeeklyResults().size(), changes.getPlayerScores().size(), stopwatch);
+    }
+
+    private static Long checksum(final Path path) {
+
+        try {
+            final CRC32 crc = new CRC32();
+            crc.update(Files.readAllBytes(path));
+            return crc.getValue();
+        } catch (IOException e) {
+            // deleted, or still being moved into place; whatever replaces it raises its own event.
+            return null;
+        }
+    }
+
+    private static Path resolve(final File directory, final String relativePath) {
+        return new File(directory, relativePath).toPath();
+    }
+
+    private static final class WatchedExport {
+
+        private final String path;
+        private final League league;
+        private final Position position;
+        private final int week;
+
+        WatchedExport(final String path, final League league, final Position position, final int week) {
+
+            this.path = path;
+            this.league = league;
+            this.position = position;
+            this.week = week;
+        }
+    }
+}
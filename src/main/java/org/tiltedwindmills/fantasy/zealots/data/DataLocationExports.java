@@ -0,0 +1,79 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+
+/**
+ * {@link MflExports} read from snapshot files under {@code data.location}:
+ * <ul>
+ *     <li>{@code weeklyResults/<league>week<n>.json}</li>
+ *     <li>{@code scores/<position>_week<n>.json}</li>
+ *     <li>{@code mfl_players.json}</li>
+ * </ul>
+ *
+ * @author John Daniel
+ */
+@Component
+@ConditionalOnProperty(name = "data.source", havingValue = "files", matchIfMissing = true)
+public class DataLocationExports implements MflExports {
+
+    /** The path of the {@code players} export, relative to the data location. */
+    public static final String PLAYERS_PATH = "mfl_players.json";
+
+    private static final ResourceLoader RESOURCE_LOADER = new DefaultResourceLoader();
+
+    @Value("${data.location:classpath:data/}")
+    private String dataLocation;
+
+    public DataLocationExports() { }
+
+    /**
+     * Reads the snapshots of a season other than the configured one.
+     *
+     * @param dataLocation the season's data location.
+     */
+    public DataLocationExports(final String dataLocation) {
+        this.dataLocation = dataLocation;
+    }
+
+    @Override
+    public InputStream openWeeklyResults(final League league, final int week) throws IOException {
+        return open(weeklyResultsPath(league, week));
+    }
+
+    @Override
+    public InputStream openPlayerScores(final Position position, final int week) throws IOException {
+        return open(playerScoresPath(position, week));
+    }
+
+    @Override
+    public InputStream openPlayers() throws IOException {
+        return open(PLAYERS_PATH);
+    }
+
+    /**
+     * @return the path of a league-week's {@code weeklyResults} export, relative to the data location.
+     */
+    public static String weeklyResultsPath(final League league, final int week) {
+        return "weeklyResults/" + league.getName() + "week" + week + ".json";
+    }
+
+    /**
+     * @return the path of a position-week's {@code playerScores} export, relative to the data location.
+     */
+    public static String playerScoresPath(final Position position, final int week) {
+        return "scores/" + position.getType() + "_week" + week + ".json";
+    }
+
+    private InputStream open(final String path) throws IOException {
+        return RESOURCE_LOADER.getResource(dataLocation + path).getInputStream();
+    }
+}
@@ -0,0 +1,19 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+/**
+ * Thrown when a report needs data that is still loading in the background.  The web layer answers it with a
+ * {@code 503 Service Unavailable}, so clients know to retry.
+ *
+ * @author John Daniel
+ */
+public class DataNotReadyException extends RuntimeException {
+
+    private static final long serialVersionUID = 4920536470825342518L;
+
+    /**
+     * @param message what is still loading.
+     */
+    public DataNotReadyException(final String message) {
+        super(message);
+    }
+}
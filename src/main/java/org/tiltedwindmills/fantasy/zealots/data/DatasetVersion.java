@@ -0,0 +1,241 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Identifies the data the configured season's reports are built from: a hash of the league configuration and the
+ * CRC-32 of every export the reports read.  Two responses with the same version were built from the same data,
+ * so the version can serve as an ETag.  Every export is read once, in the background at startup; after that only
+ * the checksums of changed exports are replaced, taken from the changes where the watcher has already worked them
+ * out, and the version is hashed again from the checksums.  Listens last, once the reports have taken the changes
+ * in.
+ *
+ * The application's start time is hashed too, so a new deployment never matches the ETags of the last one.
+ *
+ * @author John Daniel
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class DatasetVersion implements ExportChangeListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DatasetVersion.class);
+
+    private static final String PLAYERS_KEY = "players";
+
+    // a CRC-32 is never negative, so this tells an export that couldn't be read apart from any contents.
+    private static final long MISSING = -1;
+
+    @Inject
+    private MflExports mflExports;
+
+    @javax.annotation.Resource
+    private List<League> propertyBasedLeagues;
+
+    @Value("${season:2015}")
+    private int season;
+
+    @Value("${seasons:}")
+    private String seasons;
+
+    private final long startedMillis = System.currentTimeMillis();
+
+    // the CRC-32 of every export the reports read, by its path relative to the data location; guarded by this.
+    private final Map<String, Long> checksums = new LinkedHashMap<>();
+
+    private volatile BackgroundLoad<String> version;
+
+    public DatasetVersion() { }
+
+    /**
+     * Versions a dataset other than the configured one.
+     *
+     * @param mflExports where the exports come from.
+     * @param leagues the leagues the reports cover.
+     * @param season the season the exports belong to.
+     */
+    public DatasetVersion(final MflExports mflExports, final List<League> leagues, final int season) {
+
+        this.mflExports = mflExports;
+        this.propertyBasedLeagues = leagues;
+        this.season = season;
+        this.seasons = "";
+        postConstruct();
+    }
+
+    @PostConstruct
+    private void postConstruct() {
+
+        checkNotNull(mflExports, "mflExports cannot be null");
+        checkNotNull(propertyBasedLeagues, "propertyBasedLeagues cannot be null");
+
+        version = BackgroundLoad.start("dataset version", new Callable<String>() {
+
+            @Override
+            public String call() {
+                return hash(null);
+            }
+        });
+    }
+
+    /**
+     * @return the current version, or {@code null} while it is still being worked out.
+     */
+    public String get() {
+
+        final BackgroundLoad<String> current = version;
+        return current.isReady() ? current.get() : null;
+    }
+
+    /**
+     * Waits for the current version to be worked out.
+     *
+     * @return the current version.
+     */
+    public String await() {
+        return version.await();
+    }
+
+    /**
+     * Works the version out again with the changed exports' checksums.  Until it is done, requests still get the
+     * old version.
+     */
+    @Override
+    public void exportsChanged(final ExportChanges changes) {
+        version = BackgroundLoad.of("dataset version", hash(changes));
+    }
+
+    /**
+     * Brings the checksums up to date and hashes them.
+     *
+     * @param changes the exports that changed, or {@code null} for none.
+     */
+    private synchronized String hash(final ExportChanges changes) {
+
+        final Stopwatch stopwatch = Stopwatch.createStarted();
+
+        // whichever call comes first reads every export, which takes in any change made before it too.
+        if (checksums.isEmpty()) {
+            checksumAll();
+
+        } else if (changes != null) {
+            for (Map.Entry<League, Integer> changed : changes.getWeeklyResults().entries()) {
+
+                final String path = DataLocationExports.weeklyResultsPath(changed.getKey(), changed.getValue());
+                final Long known = changes.getChecksums().get(path);
+                checksums.put(path, known != null
+                        ? known : checksum(openWeeklyResults(changed.getKey(), changed.getValue())));
+            }
+            for (Map.Entry<Position, Integer> changed : changes.getPlayerScores().entries()) {
+
+                final String path = DataLocationExports.playerScoresPath(changed.getKey(), changed.getValue());
+                final Long known = changes.getChecksums().get(path);
+                checksums.put(path, known != null
+                        ? known : checksum(openPlayerScores(changed.getKey(), changed.getValue())));
+            }
+        }
+
+        final Hasher hasher = Hashing.murmur3_128().newHasher();
+        hasher.putLong(startedMillis);
+        hasher.putInt(season);
+        hasher.putString(seasons, StandardCharsets.UTF_8);
+        for (League league : propertyBasedLeagues) {
+            hasher.putString(league.getName() + ':' + league.getId() + ':' + league.getServerId(),
+                             StandardCharsets.UTF_8);
+        }
+
+        for (Map.Entry<String, Long> export : checksums.entrySet()) {
+            hasher.putString(export.getKey(), StandardCharsets.UTF_8);
+            hasher.putLong(export.getValue());
+        }
+
+        final String hash = hasher.hash().toString();
+        LOG.info("Dataset version is {}, worked out in {}", hash, stopwatch);
+        return hash;
+    }
+
+    private void checksumAll() {
+
+        for (int week = WeeklyResultsSource.FIRST_WEEK; week <= WeeklyResultsSource.LAST_WEEK; week++) {
+            for (League league : propertyBasedLeagues) {
+                checksums.put(DataLocationExports.weeklyResultsPath(league, week),
+                              checksum(openWeeklyResults(league, week)));
+            }
+            for (Position position : Position.values()) {
+                if (PlayerScoreRankings.getLeagueStarterLimit(position) > 0) {
+                    checksums.put(DataLocationExports.playerScoresPath(position, week),
+                                  checksum(openPlayerScores(position, week)));
+                }
+            }
+        }
+        checksums.put(PLAYERS_KEY, checksum(openPlayers()));
+    }
+
+    private static long checksum(final InputStream export) {
+
+        if (export == null) {
+            return MISSING;
+        }
+        final CRC32 crc = new CRC32();
+        try (InputStream in = new CheckedInputStream(export, crc)) {
+            ByteStreams.copy(in, ByteStreams.nullOutputStream());
+            return crc.getValue();
+        } catch (IOException e) {
+            LOG.debug("Failed to read an export for the dataset version: {}", e.getMessage());
+            return MISSING;
+        }
+    }
+
+    private InputStream openWeeklyResults(final League league, final int week) {
+
+        try {
+            return mflExports.openWeeklyResults(league, week);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private InputStream openPlayerScores(final Position position, final int week) {
+
+        try {
+            return mflExports.openPlayerScores(position, week);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private InputStream openPlayers() {
+
+        try {
+            return mflExports.openPlayers();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+/**
+ * Told by the {@link DataDirectoryWatcher} when exports change under {@code data.location}, so in-memory copies and
+ * the aggregates built from them can be brought up to date without reading everything again.  Listeners are called
+ * one after the other in {@code @Order}, so data is refreshed before the reports built on it.
+ *
+ * @author John Daniel
+ */
+public interface ExportChangeListener {
+
+    /**
+     * @param changes the exports whose contents changed.
+     */
+    void exportsChanged(ExportChanges changes);
+}
@@ -0,0 +1,69 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.SetMultimap;
+
+/**
+ * The exports whose contents changed since they were last read: league-weeks of {@code weeklyResults} and
+ * position-weeks of {@code playerScores}.  Where the new contents have already been checksummed, the CRC-32 of each
+ * changed export is passed along, so listeners that only need to tell contents apart never read it again.
+ *
+ * @author John Daniel
+ */
+public final class ExportChanges {
+
+    private final ImmutableSetMultimap<League, Integer> weeklyResults;
+    private final ImmutableSetMultimap<Position, Integer> playerScores;
+    private final ImmutableMap<String, Long> checksums;
+
+    /**
+     * @param weeklyResults the changed weeks of each league.
+     * @param playerScores the changed weeks of each position.
+     */
+    public ExportChanges(final SetMultimap<League, Integer> weeklyResults,
+                         final SetMultimap<Position, Integer> playerScores) {
+        this(weeklyResults, playerScores, Collections.<String, Long>emptyMap());
+    }
+
+    /**
+     * @param weeklyResults the changed weeks of each league.
+     * @param playerScores the changed weeks of each position.
+     * @param checksums the CRC-32 of the changed exports' contents, by their path relative to the data location;
+     *          exports left out have not been checksummed.
+     */
+    public ExportChanges(final SetMultimap<League, Integer> weeklyResults,
+                         final SetMultimap<Position, Integer> playerScores, final Map<String, Long> checksums) {
+
+        this.weeklyResults = ImmutableSetMultimap.copyOf(weeklyResults);
+        this.playerScores = ImmutableSetMultimap.copyOf(playerScores);
+        this.checksums = ImmutableMap.copyOf(checksums);
+    }
+
+    public ImmutableSetMultimap<League, Integer> getWeeklyResults() {
+        return weeklyResults;
+    }
+
+    public ImmutableSetMultimap<Position, Integer> getPlayerScores() {
+        return playerScores;
+    }
+
+    /**
+     * @return the CRC-32 of each changed export's new contents that is known, by its path relative to the data
+     *          location, as given by {@link DataLocationExports#weeklyResultsPath} and
+     *          {@link DataLocationExports#playerScoresPath}.
+     */
+    public ImmutableMap<String, Long> getChecksums() {
+        return checksums;
+    }
+
+    public boolean isEmpty() {
+        return weeklyResults.isEmpty() && playerScores.isEmpty();
+    }
+}
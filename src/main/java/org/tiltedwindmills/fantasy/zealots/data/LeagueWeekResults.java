@@ -0,0 +1,28 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+/**
+ * One league's results for one week: the number of teams that played and, for every rostered player, the MFL
+ * id, owning franchise, score and whether they started.  Players are addressed by index so a scan allocates
+ * nothing, whichever backend the results came from.
+ *
+ * @author John Daniel
+ */
+public interface LeagueWeekResults {
+
+    LeagueWeekResults EMPTY = new ArrayLeagueWeekResults(0, new int[0], new int[0], new double[0], new boolean[0]);
+
+    int getTeamCount();
+
+    int getPlayerCount();
+
+    int getPlayerId(int index);
+
+    /**
+     * @return the MFL franchise id of the team the player was rostered on, e.g. {@code 1} for {@code "0001"}.
+     */
+    int getFranchiseId(int index);
+
+    double getScore(int index);
+
+    boolean isStarter(int index);
+}
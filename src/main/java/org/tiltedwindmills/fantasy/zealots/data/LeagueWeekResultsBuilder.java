@@ -0,0 +1,63 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+import java.util.Arrays;
+
+/**
+ * Collects the players streamed by {@link MflJsonDecoder} straight into growable primitive arrays.
+ *
+ * @author John Daniel
+ */
+final class LeagueWeekResultsBuilder implements WeeklyResultsHandler {
+
+    // a league-week is usually 12 teams with 20-odd rostered players each.
+    private static final int INITIAL_CAPACITY = 256;
+
+    private int teamCount;
+    private int teamStart;
+    private int size;
+    private int[] playerIds = new int[INITIAL_CAPACITY];
+    private int[] franchiseIds = new int[INITIAL_CAPACITY];
+    private double[] scores = new double[INITIAL_CAPACITY];
+    private boolean[] starters = new boolean[INITIAL_CAPACITY];
+
+    @Override
+    public void startTeam() {
+
+        teamCount++;
+        teamStart = size;
+    }
+
+    @Override
+    public void player(final int playerId, final double score, final boolean starter) {
+
+        if (size == playerIds.length) {
+            final int capacity = size << 1;
+            playerIds = Arrays.copyOf(playerIds, capacity);
+            franchiseIds = Arrays.copyOf(franchiseIds, capacity);
+            scores = Arrays.copyOf(scores, capacity);
+            starters = Arrays.copyOf(starters, capacity);
+        }
+
+        playerIds[size] = playerId;
+        scores[size] = score;
+        starters[size] = starter;
+        size++;
+    }
+
+    @Override
+    public void endTeam(final int franchiseId) {
+
+        // the franchise id can come after the players in the export, so fill it in once the team is done.
+        Arrays.fill(franchiseIds, teamStart, size, franchiseId);
+    }
+
+    LeagueWeekResults build() {
+
+        if (teamCount == 0 && size == 0) {
+            return LeagueWeekResults.EMPTY;
+        }
+
+        return new ArrayLeagueWeekResults(teamCount, Arrays.copyOf(playerIds, size), Arrays.copyOf(franchiseIds, size),
+                Arrays.copyOf(scores, size), Arrays.copyOf(starters, size));
+    }
+}
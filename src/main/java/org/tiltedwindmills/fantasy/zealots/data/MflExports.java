@@ -0,0 +1,39 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+
+/**
+ * Where the raw MFL JSON exports come from.  The implementation is picked with the {@code data.source}
+ * property: {@code files} reads snapshots under {@code data.location}, {@code live} fetches from MFL through an
+ * on-disk cache.
+ *
+ * @author John Daniel
+ */
+public interface MflExports {
+
+    /**
+     * @param league the configured {@code League}.
+     * @param week the week.
+     * @return the {@code weeklyResults} export for the league-week.
+     * @throws IOException if the export is missing or cannot be fetched.
+     */
+    InputStream openWeeklyResults(League league, int week) throws IOException;
+
+    /**
+     * @param position the position.
+     * @param week the week.
+     * @return the {@code playerScores} export ranking every player at the position for the week.
+     * @throws IOException if the export is missing or cannot be fetched.
+     */
+    InputStream openPlayerScores(Position position, int week) throws IOException;
+
+    /**
+     * @return the {@code players} export listing every player MFL knows about.
+     * @throws IOException if the export is missing or cannot be fetched.
+     */
+    InputStream openPlayers() throws IOException;
+}
@@ -0,0 +1,320 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Token level decoder for the MFL weekly results and player scores exports.  Rather than binding the whole
+ * {@code WeeklyResultsResponse} / {@code PlayerScoresResponse} graph, it streams out just the fields the
+ * reports read, so decoding a file allocates next to nothing beyond the parser itself.
+ *
+ * Like the {@code ACCEPT_SINGLE_VALUE_AS_ARRAY} object mappers it replaces, a single object is accepted
+ * wherever MFL normally sends an array, and unknown properties are skipped.
+ *
+ * @author John Daniel
+ */
+public final class MflJsonDecoder {
+
+    // JsonFactory is thread-safe and caches its symbol tables, so every decode shares the one instance.
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final char[] STARTER = "starter".toCharArray();
+
+    private MflJsonDecoder() { }
+
+    /**
+     * Streams a {@code weeklyResults} export into the given handler and closes the stream.
+     *
+     * @param inputStream the export.
+     * @param handler receives every rostered player, grouped by team.
+     * @throws IOException if the stream cannot be read or is not valid JSON.
+     */
+    public static void decodeWeeklyResults(final InputStream inputStream, final WeeklyResultsHandler handler)
+            throws IOException {
+
+        try (InputStream in = inputStream; JsonParser parser = JSON_FACTORY.createParser(in)) {
+
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return;
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+                final String field = parser.getCurrentName();
+                parser.nextToken();
+
+                if ("weeklyResults".equals(field) && parser.getCurrentToken() == JsonToken.START_OBJECT) {
+                    readWeeklyResults(parser, handler);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the player ids of a {@code playerScores} export, in the order MFL ranked them, and closes the stream.
+     *
+     * @param inputStream the export.
+     * @param limit the most ids to read; the rest of the file is not decoded.
+     * @return the ranked player ids, at most {@code limit} of them.
+     * @throws IOException if the stream cannot be read or is not valid JSON.
+     */
+    public static int[] decodeRankedPlayerIds(final InputStream inputStream, final int limit) throws IOException {
+
+        final RankedIds rankedIds = new RankedIds(limit);
+
+        try (InputStream in = inputStream; JsonParser parser = JSON_FACTORY.createParser(in)) {
+
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return new int[0];
+            }
+
+            while (!rankedIds.isFull() && parser.nextToken() == JsonToken.FIELD_NAME) {
+
+                final String field = parser.getCurrentName();
+                parser.nextToken();
+
+                if ("playerScores".equals(field) && parser.getCurrentToken() == JsonToken.START_OBJECT) {
+                    readPlayerScores(parser, rankedIds);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        return rankedIds.toArray();
+    }
+
+    private static void readWeeklyResults(final JsonParser parser, final WeeklyResultsHandler handler)
+            throws IOException {
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+            final String field = parser.getCurrentName();
+            parser.nextToken();
+
+            if ("matchup".equals(field)) {
+                readElements(parser, Element.MATCHUP, handler);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readPlayerScores(final JsonParser parser, final RankedIds rankedIds) throws IOException {
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+            final String field = parser.getCurrentName();
+            parser.nextToken();
+
+            if (!"playerScore".equals(field)) {
+                parser.skipChildren();
+                continue;
+            }
+
+            final boolean array = parser.getCurrentToken() == JsonToken.START_ARRAY;
+            JsonToken token = array ? parser.nextToken() : parser.getCurrentToken();
+
+            while (token == JsonToken.START_OBJECT && !rankedIds.isFull()) {
+
+                rankedIds.add(readIdField(parser));
+                token = array ? parser.nextToken() : null;
+            }
+
+            // either the limit was reached or this wasn't a list of objects; nothing more is needed.
+            return;
+        }
+    }
+
+    /**
+     * Reads a single object, or every object in an array, at the given level of the weekly results tree.
+     */
+    private static void readElements(final JsonParser parser, final Element element, final WeeklyResultsHandler handler)
+            throws IOException {
+
+        if (parser.getCurrentToken() == JsonToken.START_OBJECT) {
+            readElement(parser, element, handler);
+
+        } else if (parser.getCurrentToken() == JsonToken.START_ARRAY) {
+
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (parser.getCurrentToken() == JsonToken.START_OBJECT) {
+                    readElement(parser, element, handler);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+        } else {
+            parser.skipChildren();
+        }
+    }
+
+    private static void readElement(final JsonParser parser, final Element element, final WeeklyResultsHandler handler)
+            throws IOException {
+
+        switch (element) {
+            case MATCHUP:
+                readMatchup(parser, handler);
+                break;
+
+            case FRANCHISE:
+                readFranchise(parser, handler);
+                break;
+
+            case PLAYER:
+                readPlayer(parser, handler);
+                break;
+
+            default:
+                parser.skipChildren();
+                break;
+        }
+    }
+
+    private static void readMatchup(final JsonParser parser, final WeeklyResultsHandler handler) throws IOException {
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+            final String field = parser.getCurrentName();
+            parser.nextToken();
+
+            if ("franchise".equals(field)) {
+                readElements(parser, Element.FRANCHISE, handler);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readFranchise(final JsonParser parser, final WeeklyResultsHandler handler) throws IOException {
+
+        int franchiseId = 0;
+        handler.startTeam();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+            final String field = parser.getCurrentName();
+            parser.nextToken();
+
+            if ("player".equals(field)) {
+                readElements(parser, Element.PLAYER, handler);
+            } else if ("id".equals(field)) {
+                franchiseId = parser.getValueAsInt();
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        handler.endTeam(franchiseId);
+    }
+
+    private static void readPlayer(final JsonParser parser, final WeeklyResultsHandler handler) throws IOException {
+
+        int playerId = 0;
+        double score = 0.0;
+        boolean starter = false;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+            final String field = parser.getCurrentName();
+            parser.nextToken();
+
+            if ("id".equals(field)) {
+                playerId = parser.getValueAsInt();
+            } else if ("score".equals(field)) {
+                score = parser.getValueAsDouble();
+            } else if ("status".equals(field)) {
+                starter = isStarter(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        handler.player(playerId, score, starter);
+    }
+
+    /**
+     * Reads the {@code id} of the current object and skips the rest of it.
+     */
+    private static int readIdField(final JsonParser parser) throws IOException {
+
+        int id = 0;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+            final String field = parser.getCurrentName();
+            parser.nextToken();
+
+            if ("id".equals(field)) {
+                id = parser.getValueAsInt();
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        return id;
+    }
+
+    // compares the status in place rather than materializing a String for every player.
+    private static boolean isStarter(final JsonParser parser) throws IOException {
+
+        if (parser.getCurrentToken() != JsonToken.VALUE_STRING || parser.getTextLength() != STARTER.length) {
+            return false;
+        }
+
+        final char[] text = parser.getTextCharacters();
+        final int offset = parser.getTextOffset();
+        for (int i = 0; i < STARTER.length; i++) {
+            if (text[offset + i] != STARTER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Growable list of ids capped at the requested limit.
+     */
+    private static final class RankedIds {
+
+        private final int limit;
+        private int[] ids;
+        private int size;
+
+        RankedIds(final int limit) {
+
+            this.limit = Math.max(0, limit);
+            this.ids = new int[Math.min(this.limit, 64)];
+        }
+
+        boolean isFull() {
+            return size == limit;
+        }
+
+        void add(final int id) {
+
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, (int) Math.min(limit, ids.length * 2L));
+            }
+            ids[size++] = id;
+        }
+
+        int[] toArray() {
+            return size == ids.length ? ids : Arrays.copyOf(ids, size);
+        }
+    }
+
+    private enum Element {
+        MATCHUP,
+        FRANCHISE,
+        PLAYER
+    }
+}
@@ -0,0 +1,102 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+import java.util.Collection;
+
+import org.tiltedwindmills.fantasy.mfl.model.Player;
+
+/**
+ * Read-only lookup of MFL {@code Player}s by their numeric id.  The players are held in an open addressed
+ * table keyed by a primitive {@code int}, so resolving a player is a constant time probe with no boxing
+ * instead of a scan over the whole MFL player file.
+ *
+ * @author John Daniel
+ */
+public final class PlayerRegistry {
+
+    // keep the table at most half full so probe sequences stay short.
+    private static final int LOAD_FACTOR_DIVISOR = 2;
+
+    private final int[] ids;
+    private final Player[] players;
+    private final int mask;
+    private final int size;
+
+    /**
+     * Builds the registry from the given players.  Null entries are ignored and when an id appears more than
+     * once the first {@code Player} wins, matching the previous {@code Iterables.find} behavior.
+     *
+     * @param source the {@code Player}s to index.
+     */
+    public PlayerRegistry(final Collection<Player> source) {
+
+        int capacity = 16;
+        final int expected = source == null ? 0 : source.size();
+        while (capacity < expected * LOAD_FACTOR_DIVISOR) {
+            capacity <<= 1;
+        }
+
+        this.ids = new int[capacity];
+        this.players = new Player[capacity];
+        this.mask = capacity - 1;
+
+        int count = 0;
+        if (source != null) {
+            for (Player player : source) {
+                if (player != null && put(player)) {
+                    count++;
+                }
+            }
+        }
+        this.size = count;
+    }
+
+    /**
+     * Finds the {@code Player} with the given MFL id.
+     *
+     * @param playerId the MFL player id.
+     * @return the matching {@code Player}, or {@code null} when the id is unknown.
+     */
+    public Player get(final int playerId) {
+
+        int slot = slot(playerId);
+        while (players[slot] != null) {
+            if (ids[slot] == playerId) {
+                return players[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    public boolean contains(final int playerId) {
+        return get(playerId) != null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private boolean put(final Player player) {
+
+        final int playerId = player.getId();
+
+        int slot = slot(playerId);
+        while (players[slot] != null) {
+            if (ids[slot] == playerId) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        ids[slot] = playerId;
+        players[slot] = player;
+        return true;
+    }
+
+    private int slot(final int playerId) {
+
+        // MFL ids are clustered, so spread them before masking.
+        final int hash = playerId * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,105 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+import java.io.IOException;
+
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+import org.tiltedwindmills.fantasy.zealots.metrics.ReportMetrics;
+
+import com.google.common.io.CountingInputStream;
+
+/**
+ * Decodes the weekly {@code playerScores} exports, which rank every player at a position by their score for the
+ * week, from whichever {@link MflExports} is active.
+ *
+ * @author John Daniel
+ */
+@Component
+public class PlayerScoreRankings {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PlayerScoreRankings.class);
+
+    @Inject
+    private MflExports mflExports;
+
+    @Inject
+    private ReportMetrics reportMetrics;
+
+    public PlayerScoreRankings() { }
+
+    /**
+     * @param mflExports where to read the exports from, when not the active {@link MflExports}.
+     * @param reportMetrics where to record the reads.
+     */
+    public PlayerScoreRankings(final MflExports mflExports, final ReportMetrics reportMetrics) {
+        this.mflExports = mflExports;
+        this.reportMetrics = reportMetrics;
+    }
+
+    /**
+     * Gets the ids of the highest scoring players at a position for a week, best first.
+     *
+     * @param position the position.
+     * @param week the week.
+     * @param limit the most players to return.
+     * @return the ranked player ids; empty if the export is missing.
+     */
+    public int[] getRankedPlayerIds(final Position position, final int week, final int limit) {
+
+        try {
+            final long opening = System.nanoTime();
+            final CountingInputStream export = new CountingInputStream(mflExports.openPlayerScores(position, week));
+            final long decoding = System.nanoTime();
+            reportMetrics.record(ReportMetrics.Stage.OPEN, decoding - opening);
+
+            final int[] rankedPlayerIds = MflJsonDecoder.decodeRankedPlayerIds(export, limit);
+            reportMetrics.record(ReportMetrics.Stage.DECODE, System.nanoTime() - decoding);
+            reportMetrics.recordParsed(export.getCount());
+            return rankedPlayerIds;
+
+        } catch (IOException e) {
+            LOG.error("Failed to load week {} {} scores: {}", week, position.getType(), e.getMessage());
+        }
+
+        return new int[0];
+    }
+
+    /**
+     * How far down a position's weekly ranking still counts as a starter across the league.
+     *
+     * @param position the position.
+     * @return the number of starters, or {@code -1} for positions that aren't ranked.
+     */
+    public static int getLeagueStarterLimit(final Position position) {
+
+        int limit = -1;
+
+        switch (position) {
+            case QUARTERBACK:
+            case TIGHT_END:
+            case KICKER:
+                limit = 12;
+                break;
+
+            case RUNNING_BACK:
+                limit = 24;
+                break;
+
+            case WIDE_RECEIVER:
+            case DEFENSIVE_BACK:
+            case LINEBACKER:
+            case DEFENSIVE_LINEMAN:
+                limit = 36;
+                break;
+
+            default:
+                break;
+        }
+
+        return limit;
+    }
+}
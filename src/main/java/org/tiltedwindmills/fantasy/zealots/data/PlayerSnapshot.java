@@ -0,0 +1,269 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tiltedwindmills.fantasy.mfl.model.Player;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+import org.tiltedwindmills.fantasy.mfl.model.players.PlayerResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.ByteStreams;
+
+/**
+ * A compact binary copy of the {@code players} export, so startup doesn't have to bind the whole JSON again.
+ * The header records the length and CRC-32 of the export it was made from; when the export changes the snapshot
+ * is stale, the JSON is decoded instead and the snapshot rewritten.  All values are big endian.
+ *
+ * <pre>
+ * header   int magic, int version, int sourceLength, int sourceCrc, int playerCount
+ * players  playerCount x (int id, string name, string position, string team)
+ * string   short length (-1 for null), UTF-8 bytes
+ * </pre>
+ *
+ * Only the fields the reports use are kept.
+ *
+ * @author John Daniel
+ */
+public final class PlayerSnapshot {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PlayerSnapshot.class);
+
+    static final int MAGIC = 0x5A504C31; // "ZPL1"
+    static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 5 * 4;
+    private static final int NULL_LENGTH = -1;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private PlayerSnapshot() { }
+
+    /**
+     * @param directory where the snapshots are kept.
+     * @param season the season the players belong to.
+     * @return the season's snapshot file.
+     */
+    public static File file(final String directory, final int season) {
+        return new File(directory, "players_" + season + ".zpl");
+    }
+
+    /**
+     * Reads the players from the snapshot if it matches the current export, or else from the export itself,
+     * refreshing the snapshot.  If the export can't be read, whatever snapshot there is gets used.
+     *
+     * @param exports where the {@code players} export comes from.
+     * @param snapshotFile the snapshot.
+     * @return the {@code Player}s, or an empty {@code List} if neither can be read.
+     */
+    public static List<Player> load(final MflExports exports, final File snapshotFile) {
+
+        byte[] json = null;
+        try (InputStream playersInputStream = exports.openPlayers()) {
+            json = ByteStreams.toByteArray(playersInputStream);
+        } catch (IOException e) {
+            LOG.error("Failed to load MFL players: {}", e.getMessage());
+        }
+
+        final int sourceCrc = json == null ? 0 : crc(json);
+        final List<Player> snapshot = read(snapshotFile, json == null ? null : json.length, sourceCrc);
+        if (snapshot != null) {
+            LOG.debug("Read {} players from {}", snapshot.size(), snapshotFile);
+            return snapshot;
+        }
+
+        if (json == null) {
+            LOG.debug("No players found.");
+            return new ArrayList<Player>();
+        }
+
+        final List<Player> players = decode(json);
+        if (!players.isEmpty()) {
+            try {
+                write(snapshotFile, players, json.length, sourceCrc);
+            } catch (IOException e) {
+                LOG.warn("Failed to write the player snapshot {}: {}", snapshotFile, e.getMessage());
+            }
+        }
+        return players;
+    }
+
+    /**
+     * Reads a snapshot.
+     *
+     * @param snapshotFile the snapshot.
+     * @param sourceLength the length of the current export, or {@code null} to accept any snapshot.
+     * @param sourceCrc the CRC-32 of the current export.
+     * @return the players, or {@code null} if the snapshot is missing, unreadable or stale.
+     */
+    static List<Player> read(final File snapshotFile, final Integer sourceLength, final int sourceCrc) {
+
+        if (!snapshotFile.isFile()) {
+            return null;
+        }
+
+        final ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+
+            buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                continue;
+            }
+            buffer.flip();
+
+        } catch (IOException e) {
+            LOG.warn("Failed to read the player snapshot {}: {}", snapshotFile, e.getMessage());
+            return null;
+        }
+
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            LOG.info("{} is not a version {} player snapshot", snapshotFile, VERSION);
+            return null;
+        }
+
+        final int length = buffer.getInt();
+        final int crc = buffer.getInt();
+        if (sourceLength != null && (length != sourceLength || crc != sourceCrc)) {
+            LOG.info("Player snapshot {} is stale", snapshotFile);
+            return null;
+        }
+
+        try {
+            final int playerCount = buffer.getInt();
+            final List<Player> players = new ArrayList<>(playerCount);
+            for (int i = 0; i < playerCount; i++) {
+
+                final Player player = new Player();
+                player.setId(buffer.getInt());
+                player.setName(readString(buffer));
+                final String position = readString(buffer);
+                player.setPosition(position == null ? null : Position.fromValue(position));
+                player.setTeam(readString(buffer));
+                players.add(player);
+            }
+            return players;
+
+        } catch (RuntimeException e) {
+            LOG.warn("Player snapshot {} is truncated: {}", snapshotFile, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Writes a snapshot, replacing any earlier one in a single move so readers never see half a file.
+     *
+     * @param snapshotFile the snapshot.
+     * @param source the players.
+     * @param sourceLength the length of the export the players came from.
+     * @param sourceCrc the CRC-32 of the export.
+     * @throws IOException if the snapshot can't be written.
+     */
+    static void write(final File snapshotFile, final List<Player> source, final int sourceLength,
+                      final int sourceCrc) throws IOException {
+
+        final List<Player> players = new ArrayList<>(source.size());
+        for (Player player : source) {
+            if (player != null) {
+                players.add(player);
+            }
+        }
+
+        final List<byte[][]> strings = new ArrayList<>(players.size());
+        int size = HEADER_BYTES;
+        for (Player player : players) {
+
+            final byte[][] fields = {
+                encode(player.getName()),
+                encode(player.getPosition() == null ? null : player.getPosition().getType()),
+                encode(player.getTeam())
+            };
+            strings.add(fields);
+
+            size += 4;
+            for (byte[] field : fields) {
+                size += 2 + (field == null ? 0 : field.length);
+            }
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(sourceLength).putInt(sourceCrc).putInt(players.size());
+        for (int i = 0; i < players.size(); i++) {
+            buffer.putInt(players.get(i).getId());
+            for (byte[] field : strings.get(i)) {
+                buffer.putShort((short) (field == null ? NULL_LENGTH : field.length));
+                if (field != null) {
+                    buffer.put(field);
+                }
+            }
+        }
+        buffer.flip();
+
+        final File parent = snapshotFile.getAbsoluteFile().getParentFile();
+        Files.createDirectories(parent.toPath());
+        final File temporary = File.createTempFile(snapshotFile.getName(), ".tmp", parent);
+        try (FileChannel channel = FileChannel.open(temporary.toPath(), StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(temporary.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+
+        LOG.debug("Wrote {} players to {}", players.size(), snapshotFile);
+    }
+
+    private static List<Player> decode(final byte[] json) {
+
+        try {
+            final PlayerResponse playerResponse = OBJECT_MAPPER.readValue(json, PlayerResponse.class);
+            if (playerResponse != null && playerResponse.getWrapper() != null
+                    && playerResponse.getWrapper().getPlayers() != null) {
+
+                LOG.debug("Found {} players", playerResponse.getWrapper().getPlayers().size());
+                return playerResponse.getWrapper().getPlayers();
+            }
+
+        } catch (IOException e) {
+            LOG.error("Failed to decode MFL players: {}", e.getMessage());
+        }
+
+        return Collections.emptyList();
+    }
+
+    private static int crc(final byte[] bytes) {
+
+        final CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] encode(final String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+
+        final int length = buffer.getShort();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+
+        final String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                                         StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,69 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+import java.io.IOException;
+
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.zealots.metrics.ReportMetrics;
+
+import com.google.common.io.CountingInputStream;
+
+/**
+ * Decodes the MFL {@code weeklyResults} exports from whichever {@link MflExports} is active.
+ *
+ * @author John Daniel
+ */
+@Component
+public class WeeklyResultsFiles {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WeeklyResultsFiles.class);
+
+    @Inject
+    private MflExports mflExports;
+
+    @Inject
+    private ReportMetrics reportMetrics;
+
+    public WeeklyResultsFiles() { }
+
+    /**
+     * @param mflExports where to read the exports from, when not the active {@link MflExports}.
+     * @param reportMetrics where to record the reads.
+     */
+    public WeeklyResultsFiles(final MflExports mflExports, final ReportMetrics reportMetrics) {
+        this.mflExports = mflExports;
+        this.reportMetrics = reportMetrics;
+    }
+
+    /**
+     * Decodes one league-week export.
+     *
+     * @param league the configured {@code League}.
+     * @param week the week.
+     * @return the results, or {@link LeagueWeekResults#EMPTY} if the export is missing or unreadable.
+     */
+    public LeagueWeekResults read(final League league, final int week) {
+
+        try {
+            final long opening = System.nanoTime();
+            final CountingInputStream export = new CountingInputStream(mflExports.openWeeklyResults(league, week));
+            final long decoding = System.nanoTime();
+            reportMetrics.record(ReportMetrics.Stage.OPEN, decoding - opening);
+
+            final LeagueWeekResultsBuilder builder = new LeagueWeekResultsBuilder();
+            MflJsonDecoder.decodeWeeklyResults(export, builder);
+            reportMetrics.record(ReportMetrics.Stage.DECODE, System.nanoTime() - decoding);
+            reportMetrics.recordParsed(export.getCount());
+            return builder.build();
+
+        } catch (IOException e) {
+            LOG.error("Failed to load week {} results for {}: {}", week, league.getName(), e.getMessage());
+        }
+
+        return LeagueWeekResults.EMPTY;
+    }
+}
@@ -0,0 +1,19 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+/**
+ * Receives the rostered players of a weekly results export as {@link MflJsonDecoder} streams them.  Every
+ * team's players are delivered between a {@link #startTeam()} and {@link #endTeam(int)} pair.
+ *
+ * @author John Daniel
+ */
+public interface WeeklyResultsHandler {
+
+    void startTeam();
+
+    void player(int playerId, double score, boolean starter);
+
+    /**
+     * @param franchiseId the MFL franchise id, e.g. {@code 1} for franchise {@code "0001"}.
+     */
+    void endTeam(int franchiseId);
+}
@@ -0,0 +1,199 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.zealots.aggregation.AggregationEngine;
+import org.tiltedwindmills.fantasy.zealots.aggregation.LeagueWeekAggregator;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * In-memory copy of every configured league's weekly results exports.  Each
+ * {@code <data.location>/weeklyResults/<league>week<n>.json} file is parsed once, in parallel at startup, and kept as an
+ * immutable {@link LeagueWeekResults} so report requests never touch the classpath or Jackson again; a league-week
+ * whose export changes is read again on its own.  Lazy, so nothing is parsed when no report reads from it, and
+ * loaded on its own thread so the server doesn't wait for it; until it is done {@link #getResults} throws
+ * {@link DataNotReadyException}.
+ *
+ * @author John Daniel
+ */
+@Component
+@Lazy
+@ConditionalOnProperty(name = "weeklyResults.backend", havingValue = "json", matchIfMissing = true)
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class WeeklyResultsRepository implements WeeklyResultsSource, ExportChangeListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WeeklyResultsRepository.class);
+
+    // how often to say the load is still waiting for the data directory watcher.
+    private static final long FIRST_SCAN_LOG_SECONDS = 10;
+
+    @Inject
+    private WeeklyResultsFiles weeklyResultsFiles;
+
+    @javax.annotation.Resource
+    private List<League> propertyBasedLeagues;
+
+    @javax.annotation.Resource
+    private AggregationEngine aggregationEngine;
+
+    // when watching, the load waits for the watcher's checksums so any export changed while it reads is seen.
+    @Autowired(required = false)
+    private DataDirectoryWatcher dataDirectoryWatcher;
+
+    /**
+     * Parses each league-week on its own fork-join task; the merge just slots the results into place.
+     */
+    private final LeagueWeekAggregator<Map<String, LeagueWeekResults[]>> ingestingAggregator =
+            new LeagueWeekAggregator<Map<String, LeagueWeekResults[]>>() {
+
+        @Override
+        public Map<String, LeagueWeekResults[]> newPartial() {
+            return new HashMap<>();
+        }
+
+        @Override
+        public void accumulate(final Map<String, LeagueWeekResults[]> partial, final League league, final int week) {
+
+            LOG.debug("Loading week {} for {}", week, league.getName());
+
+            final LeagueWeekResults[] leagueWeeks = new LeagueWeekResults[LAST_WEEK + 1];
+            leagueWeeks[week] = weeklyResultsFiles.read(league, week);
+            partial.put(league.getName(), leagueWeeks);
+        }
+
+        @Override
+        public void merge(final Map<String, LeagueWeekResults[]> result, final Map<String, LeagueWeekResults[]> partial) {
+
+            for (Map.Entry<String, LeagueWeekResults[]> entry : partial.entrySet()) {
+
+                LeagueWeekResults[] leagueWeeks = result.get(entry.getKey());
+                if (leagueWeeks == null) {
+                    leagueWeeks = new LeagueWeekResults[LAST_WEEK + 1];
+                    Arrays.fill(leagueWeeks, LeagueWeekResults.EMPTY);
+                    result.put(entry.getKey(), leagueWeeks);
+                }
+
+                // a partial only holds the one week it loaded; the rest of its slots are null.
+                for (int week = FIRST_WEEK; week <= LAST_WEEK; week++) {
+                    if (entry.getValue()[week] != null) {
+                        leagueWeeks[week] = entry.getValue()[week];
+                    }
+                }
+            }
+        }
+    };
+
+    // league name -> results indexed by week.  Built once at startup; after that only changed league-weeks are
+    // swapped in.
+    private BackgroundLoad<Map<String, AtomicReferenceArray<LeagueWeekResults>>> snapshot;
+
+    public WeeklyResultsRepository() { }
+
+    /**
+     * Loads a season other than the configured one straight away.
+     *
+     * @param weeklyResultsFiles where to read the season's exports from.
+     * @param leagues the season's leagues.
+     * @param aggregationEngine the engine to parse the league-weeks on.
+     */
+    public WeeklyResultsRepository(final WeeklyResultsFiles weeklyResultsFiles, final List<League> leagues,
+                                   final AggregationEngine aggregationEngine) {
+
+        this.weeklyResultsFiles = weeklyResultsFiles;
+        this.propertyBasedLeagues = leagues;
+        this.aggregationEngine = aggregationEngine;
+        postConstruct();
+        snapshot.await();
+    }
+
+    @PostConstruct
+    private void postConstruct() {
+
+        checkNotNull(weeklyResultsFiles, "weeklyResultsFiles cannot be null");
+        checkNotNull(aggregationEngine, "aggregationEngine cannot be null");
+        snapshot = BackgroundLoad.start("weekly results",
+                new Callable<Map<String, AtomicReferenceArray<LeagueWeekResults>>>() {
+
+            @Override
+            public Map<String, AtomicReferenceArray<LeagueWeekResults>> call() throws InterruptedException {
+
+                if (dataDirectoryWatcher != null) {
+                    while (!dataDirectoryWatcher.awaitFirstScan(FIRST_SCAN_LOG_SECONDS, TimeUnit.SECONDS)) {
+                        LOG.info("Waiting for the data directory's checksums before loading the weekly results");
+                    }
+                }
+                return load();
+            }
+        });
+    }
+
+    @Override
+    public LeagueWeekResults getResults(final League league, final int week) {
+
+        if (week < FIRST_WEEK || week > LAST_WEEK) {
+            return LeagueWeekResults.EMPTY;
+        }
+
+        final AtomicReferenceArray<LeagueWeekResults> leagueWeeks = snapshot.get().get(league.getName());
+        return leagueWeeks == null ? LeagueWeekResults.EMPTY : leagueWeeks.get(week);
+    }
+
+    @Override
+    public void awaitResults() {
+        snapshot.await();
+    }
+
+    /**
+     * Reads the changed league-weeks again and swaps them in; nothing else is read.
+     */
+    @Override
+    public void exportsChanged(final ExportChanges changes) {
+
+        final Map<String, AtomicReferenceArray<LeagueWeekResults>> results = snapshot.await();
+        for (Map.Entry<League, Integer> changed : changes.getWeeklyResults().entries()) {
+
+            final AtomicReferenceArray<LeagueWeekResults> leagueWeeks = results.get(changed.getKey().getName());
+            if (leagueWeeks != null) {
+                LOG.debug("Reloading week {} for {}", changed.getValue(), changed.getKey().getName());
+                leagueWeeks.set(changed.getValue(), weeklyResultsFiles.read(changed.getKey(), changed.getValue()));
+            }
+        }
+    }
+
+    private Map<String, AtomicReferenceArray<LeagueWeekResults>> load() {
+
+        final long start = System.currentTimeMillis();
+
+        final Map<String, LeagueWeekResults[]> loaded =
+                aggregationEngine.aggregate(propertyBasedLeagues, FIRST_WEEK, LAST_WEEK, ingestingAggregator);
+
+        LOG.info("Loaded weekly results for {} leagues in {} ms",
+                propertyBasedLeagues.size(), System.currentTimeMillis() - start);
+        final ImmutableMap.Builder<String, AtomicReferenceArray<LeagueWeekResults>> builder = ImmutableMap.builder();
+        for (Map.Entry<String, LeagueWeekResults[]> entry : loaded.entrySet()) {
+            builder.put(entry.getKey(), new AtomicReferenceArray<>(entry.getValue()));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,31 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+import org.tiltedwindmills.fantasy.mfl.model.League;
+
+/**
+ * Where the reports read weekly results from.  Which implementation is active is chosen with the
+ * {@code weeklyResults.backend} property.
+ *
+ * @author John Daniel
+ */
+public interface WeeklyResultsSource {
+
+    int FIRST_WEEK = 1;
+    int LAST_WEEK = 13;
+
+    /**
+     * Gets the results for the given league and week.
+     *
+     * @param league the configured {@code League}.
+     * @param week the week, between {@link #FIRST_WEEK} and {@link #LAST_WEEK}.
+     * @return the results, or {@link LeagueWeekResults#EMPTY} when there are none.
+     */
+    LeagueWeekResults getResults(League league, int week);
+
+    /**
+     * Waits until results can be read; for work that can't go ahead without them.
+     *
+     * @throws IllegalStateException if the results failed to load.
+     */
+    void awaitResults();
+}
@@ -0,0 +1,283 @@
+package org.tiltedwindmills.fantasy.zealots.factstore;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.mfl.model.Player;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+import org.tiltedwindmills.fantasy.zealots.aggregation.ReportPositions;
+import org.tiltedwindmills.fantasy.zealots.data.BackgroundLoad;
+import org.tiltedwindmills.fantasy.zealots.data.LeagueWeekResults;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerRegistry;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerScoreRankings;
+import org.tiltedwindmills.fantasy.zealots.data.WeeklyResultsFiles;
+import org.tiltedwindmills.fantasy.zealots.data.WeeklyResultsSource;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Stopwatch;
+import com.google.common.hash.Hashing;
+
+/**
+ * Creates the fact store schema and bulk loads a season of MFL exports into it.  A season is only loaded once for
+ * the same leagues: the {@code fact_load} row records a hash of the configured league names, so a restart against
+ * the same database reuses the facts without parsing anything, while adding or dropping a league loads the season
+ * again.  The whole load is one transaction, so a load that died half way leaves nothing behind.
+ *
+ * @author John Daniel
+ */
+@Component
+@ConditionalOnProperty(name = "reports.backend", havingValue = "h2")
+public class FactStoreLoader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FactStoreLoader.class);
+
+    static final String STARTER = "starter";
+    static final String NON_STARTER = "nonstarter";
+
+    private static final String[] SCHEMA = {
+        "CREATE TABLE IF NOT EXISTS fact_load ("
+                + "season INT PRIMARY KEY, player_rows INT NOT NULL, rank_rows INT NOT NULL, "
+                + "loaded_at TIMESTAMP NOT NULL)",
+
+        // stores loaded before the league hash was kept have none, so they are loaded again.
+        "ALTER TABLE fact_load ADD COLUMN IF NOT EXISTS leagues_hash VARCHAR(32)",
+
+        "CREATE TABLE IF NOT EXISTS league_week ("
+                + "season INT NOT NULL, league VARCHAR(64) NOT NULL, week INT NOT NULL, teams INT NOT NULL)",
+
+        // position is the folded report position, or null when the player isn't in the player database.
+        "CREATE TABLE IF NOT EXISTS player_result ("
+                + "season INT NOT NULL, league VARCHAR(64) NOT NULL, week INT NOT NULL, franchise INT NOT NULL, "
+                + "player INT NOT NULL, position VARCHAR(32), status VARCHAR(10) NOT NULL, score DOUBLE NOT NULL)",
+
+        "CREATE TABLE IF NOT EXISTS player_rank ("
+                + "season INT NOT NULL, position VARCHAR(32) NOT NULL, week INT NOT NULL, rank_index INT NOT NULL, "
+                + "player INT NOT NULL)",
+
+        "CREATE INDEX IF NOT EXISTS league_week_league ON league_week (season, league, week)",
+        "CREATE INDEX IF NOT EXISTS player_result_position_week ON player_result (season, position, week)",
+        "CREATE INDEX IF NOT EXISTS player_result_league_week ON player_result (season, league, week)",
+        "CREATE INDEX IF NOT EXISTS player_result_player ON player_result (season, player)",
+        "CREATE INDEX IF NOT EXISTS player_rank_position_week ON player_rank (season, position, week)"
+    };
+
+    private static final String[] FACT_TABLES = {"fact_load", "league_week", "player_result", "player_rank"};
+
+    @Inject
+    private JdbcTemplate jdbcTemplate;
+
+    @Inject
+    private PlatformTransactionManager transactionManager;
+
+    @Inject
+    private WeeklyResultsFiles weeklyResultsFiles;
+
+    @Inject
+    private PlayerScoreRankings playerScoreRankings;
+
+    @javax.annotation.Resource
+    private List<League> propertyBasedLeagues;
+
+    @javax.annotation.Resource
+    private BackgroundLoad<PlayerRegistry> playerRegistry;
+
+    @Value("${season:2015}")
+    private int season;
+
+    public FactStoreLoader() { }
+
+    /**
+     * Loads a season into a fact store outside of Spring, straight away.
+     *
+     * @param jdbcTemplate the fact store.
+     * @param transactionManager the fact store's transactions.
+     * @param weeklyResultsFiles where to read the weekly results from.
+     * @param playerScoreRankings where to read the score rankings from.
+     * @param leagues the season's leagues.
+     * @param playerRegistry the players.
+     * @param season the season.
+     */
+    public FactStoreLoader(final JdbcTemplate jdbcTemplate, final PlatformTransactionManager transactionManager,
+                           final WeeklyResultsFiles weeklyResultsFiles, final PlayerScoreRankings playerScoreRankings,
+                           final List<League> leagues, final BackgroundLoad<PlayerRegistry> playerRegistry,
+                           final int season) {
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionManager = transactionManager;
+        this.weeklyResultsFiles = weeklyResultsFiles;
+        this.playerScoreRankings = playerScoreRankings;
+        this.propertyBasedLeagues = leagues;
+        this.playerRegistry = playerRegistry;
+        this.season = season;
+        postConstruct();
+    }
+
+    @PostConstruct
+    private void postConstruct() {
+
+        checkNotNull(jdbcTemplate, "jdbcTemplate cannot be null");
+        checkNotNull(transactionManager, "transactionManager cannot be null");
+        checkNotNull(weeklyResultsFiles, "weeklyResultsFiles cannot be null");
+        checkNotNull(playerScoreRankings, "playerScoreRankings cannot be null");
+        checkNotNull(playerRegistry, "playerRegistry cannot be null");
+
+        for (String statement : SCHEMA) {
+            jdbcTemplate.execute(statement);
+        }
+
+        final String leaguesHash = leaguesHash();
+        final Integer loaded = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM fact_load WHERE season = ? AND leagues_hash = ?", Integer.class,
+                season, leaguesHash);
+
+        if (loaded != null && loaded > 0) {
+            LOG.info("Fact store already holds season {}", season);
+        } else {
+            new TransactionTemplate(transactionManager).execute(new TransactionCallbackWithoutResult() {
+
+                @Override
+                protected void doInTransactionWithoutResult(final TransactionStatus status) {
+                    load(leaguesHash);
+                }
+            });
+        }
+    }
+
+    public int getSeason() {
+        return season;
+    }
+
+    // the facts are keyed by league name, so the same names in any order are the same facts.
+    private String leaguesHash() {
+
+        final List<String> leagueNames = new ArrayList<>(propertyBasedLeagues.size());
+        for (League league : propertyBasedLeagues) {
+            leagueNames.add(league.getName());
+        }
+        Collections.sort(leagueNames);
+        return Hashing.murmur3_128().hashString(Joiner.on('\n').join(leagueNames), StandardCharsets.UTF_8).toString();
+    }
+
+    private void load(final String leaguesHash) {
+
+        // the fact store is filled once per season, so this waits for the players rather than skipping them.
+        final PlayerRegistry players = playerRegistry.await();
+        final Stopwatch stopwatch = Stopwatch.createStarted();
+
+        // clear out the season as loaded for other leagues.
+        for (String table : FACT_TABLES) {
+            jdbcTemplate.update("DELETE FROM " + table + " WHERE season = ?", season);
+        }
+
+        int playerRows = 0;
+        for (League league : propertyBasedLeagues) {
+            for (int week = WeeklyResultsSource.FIRST_WEEK; week <= WeeklyResultsSource.LAST_WEEK; week++) {
+                playerRows += loadLeagueWeek(league, week, players);
+            }
+        }
+
+        int rankRows = 0;
+        for (Position position : Position.values()) {
+            if (PlayerScoreRankings.getLeagueStarterLimit(position) > 0) {
+                for (int week = WeeklyResultsSource.FIRST_WEEK; week <= WeeklyResultsSource.LAST_WEEK; week++) {
+                    rankRows += loadRanking(position, week);
+                }
+            }
+        }
+
+        jdbcTemplate.update("INSERT INTO fact_load (season, leagues_hash, player_rows, rank_rows, loaded_at) "
+                + "VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP)", season, leaguesHash, playerRows, rankRows);
+
+        LOG.info("Loaded {} player results and {} rankings for season {} in {}",
+                playerRows, rankRows, season, stopwatch);
+    }
+
+    private int loadLeagueWeek(final League league, final int week, final PlayerRegistry players) {
+
+        final String leagueName = league.getName();
+        final LeagueWeekResults results = weeklyResultsFiles.read(league, week);
+
+        jdbcTemplate.update("INSERT INTO league_week (season, league, week, teams) VALUES (?, ?, ?, ?)",
+                season, leagueName, week, results.getTeamCount());
+
+        jdbcTemplate.batchUpdate("INSERT INTO player_result "
+                + "(season, league, week, franchise, player, position, status, score) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", new BatchPreparedStatementSetter() {
+
+            @Override
+            public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+
+                final Player player = players.get(results.getPlayerId(i));
+
+                ps.setInt(1, season);
+                ps.setString(2, leagueName);
+                ps.setInt(3, week);
+                ps.setInt(4, results.getFranchiseId(i));
+                ps.setInt(5, results.getPlayerId(i));
+                if (player == null) {
+                    ps.setNull(6, Types.VARCHAR);
+                } else {
+                    ps.setString(6, ReportPositions.fold(player.getPosition()).name());
+                }
+                ps.setString(7, results.isStarter(i) ? STARTER : NON_STARTER);
+                ps.setDouble(8, results.getScore(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return results.getPlayerCount();
+            }
+        });
+
+        return results.getPlayerCount();
+    }
+
+    private int loadRanking(final Position position, final int week) {
+
+        // keep the whole ranking, the reports pick how deep to look.
+        final int[] rankedPlayerIds = playerScoreRankings.getRankedPlayerIds(position, week, Integer.MAX_VALUE);
+
+        jdbcTemplate.batchUpdate("INSERT INTO player_rank (season, position, week, rank_index, player) "
+                + "VALUES (?, ?, ?, ?, ?)", new BatchPreparedStatementSetter() {
+
+            @Override
+            public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+
+                ps.setInt(1, season);
+                ps.setString(2, position.name());
+                ps.setInt(3, week);
+                ps.setInt(4, i);
+                ps.setInt(5, rankedPlayerIds[i]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rankedPlayerIds.length;
+            }
+        });
+
+        return rankedPlayerIds.length;
+    }
+}
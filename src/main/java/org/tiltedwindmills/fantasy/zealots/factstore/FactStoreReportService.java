@@ -0,0 +1,378 @@
+package org.tiltedwindmills.fantasy.zealots.factstore;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+import org.tiltedwindmills.fantasy.zealots.aggregation.PositionCountTotals;
+import org.tiltedwindmills.fantasy.zealots.aggregation.PositionScoreTotals;
+import org.tiltedwindmills.fantasy.zealots.aggregation.ScoreCube;
+import org.tiltedwindmills.fantasy.zealots.data.BackgroundLoad;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerRegistry;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerScoreRankings;
+import org.tiltedwindmills.fantasy.zealots.data.WeeklyResultsSource;
+import org.tiltedwindmills.fantasy.zealots.model.PlayerScoreBreakdown;
+import org.tiltedwindmills.fantasy.zealots.model.PlayerUsage;
+import org.tiltedwindmills.fantasy.zealots.model.RosterUsage;
+import org.tiltedwindmills.fantasy.zealots.reports.ReportService;
+import org.tiltedwindmills.fantasy.zealots.reports.StarterTiers;
+import org.tiltedwindmills.fantasy.zealots.reports.StarterWeekRanker;
+
+import com.google.common.primitives.Ints;
+
+/**
+ * {@link ReportService} that answers every report with an indexed SQL aggregation over the fact store.  Groups of
+ * leagues are sliced from its {@link #scoreCube()}.
+ *
+ * @author John Daniel
+ */
+@Service
+@ConditionalOnProperty(name = "reports.backend", havingValue = "h2")
+public class FactStoreReportService implements ReportService {
+
+    private static final String TEAMS_SQL =
+            "SELECT COALESCE(SUM(teams), 0) FROM league_week "
+            + "WHERE season = :season AND league IN (:leagues) AND week BETWEEN :firstWeek AND :lastWeek";
+
+    private static final String POSITION_SCORING_SQL =
+            "SELECT position, COUNT(*), SUM(score), MIN(score), MAX(score), VAR_POP(score) FROM player_result "
+            + "WHERE season = :season AND league IN (:leagues) AND week BETWEEN :firstWeek AND :lastWeek "
+            + "AND status = '" + FactStoreLoader.STARTER + "' AND position IS NOT NULL "
+            + "GROUP BY position";
+
+    private static final String POSITION_COUNT_SQL =
+            "SELECT position, COUNT(*) FROM player_result "
+            + "WHERE season = :season AND league IN (:leagues) AND week BETWEEN :firstWeek AND :lastWeek "
+            + "AND position IS NOT NULL "
+            + "GROUP BY position";
+
+    private static final String UNKNOWN_PLAYERS_SQL =
+            "SELECT DISTINCT player FROM player_result "
+            + "WHERE season = :season AND league IN (:leagues) AND week BETWEEN :firstWeek AND :lastWeek "
+            + "AND position IS NULL";
+
+    private static final String STARTER_WEEKS_SQL =
+            "SELECT week, player FROM player_rank "
+            + "WHERE season = :season AND position = :position AND week BETWEEN :firstWeek AND :lastWeek "
+            + "AND rank_index < :depth "
+            + "ORDER BY week, rank_index";
+
+    private static final String CUBE_TEAMS_SQL =
+            "SELECT league, week, teams FROM league_week "
+            + "WHERE season = :season AND league IN (:leagues) AND week BETWEEN :firstWeek AND :lastWeek";
+
+    private static final String CUBE_SQL =
+            "SELECT league, week, position, status, COUNT(*), SUM(score) FROM player_result "
+            + "WHERE season = :season AND league IN (:leagues) AND week BETWEEN :firstWeek AND :lastWeek "
+            + "AND position IS NOT NULL "
+            + "GROUP BY league, week, position, status "
+            + "ORDER BY league, week";
+
+    private static final String CUBE_UNKNOWN_PLAYERS_SQL =
+            "SELECT DISTINCT league, week, player FROM player_result "
+            + "WHERE season = :season AND league IN (:leagues) AND week BETWEEN :firstWeek AND :lastWeek "
+            + "AND position IS NULL";
+
+    private static final String LEAGUE_WEEKS_SQL =
+            "SELECT COUNT(*) FROM league_week "
+            + "WHERE season = :season AND league IN (:leagues) AND week BETWEEN :firstWeek AND :lastWeek "
+            + "AND teams > 0";
+
+    // a row per team: rostered weeks, started weeks and points as a starter, most starts first.
+    private static final String ROSTER_USAGE_COLUMNS =
+            "SELECT league, franchise, player, COUNT(*), "
+            + "SUM(CASE WHEN status = '" + FactStoreLoader.STARTER + "' THEN 1 ELSE 0 END) AS started, "
+            + "SUM(CASE WHEN status = '" + FactStoreLoader.STARTER + "' THEN score ELSE 0 END) AS points "
+            + "FROM player_result ";
+
+    private static final String ROSTER_USAGE_ORDER = "ORDER BY started DESC, COUNT(*) DESC, points DESC";
+
+    private static final String PLAYER_USAGE_SQL =
+            ROSTER_USAGE_COLUMNS
+            + "WHERE season = :season AND player = :player AND league IN (:leagues) "
+            + "AND week BETWEEN :firstWeek AND :lastWeek "
+            + "GROUP BY league, franchise, player " + ROSTER_USAGE_ORDER;
+
+    private static final String TEAM_USAGE_SQL =
+            ROSTER_USAGE_COLUMNS
+            + "WHERE season = :season AND league IN (:leagues) AND week BETWEEN :firstWeek AND :lastWeek "
+            + "AND franchise = :franchise "
+            + "GROUP BY league, franchise, player " + ROSTER_USAGE_ORDER;
+
+    @Inject
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Inject
+    private FactStoreLoader factStoreLoader;
+
+    @javax.annotation.Resource
+    private List<League> propertyBasedLeagues;
+
+    @javax.annotation.Resource
+    private BackgroundLoad<PlayerRegistry> playerRegistry;
+
+    public FactStoreReportService() { }
+
+    /**
+     * Reports on a fact store outside of Spring.
+     *
+     * @param namedParameterJdbcTemplate the fact store.
+     * @param factStoreLoader the loader that filled it.
+     * @param leagues the season's leagues.
+     * @param playerRegistry the players.
+     */
+    public FactStoreReportService(final NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                  final FactStoreLoader factStoreLoader, final List<League> leagues,
+                                  final BackgroundLoad<PlayerRegistry> playerRegistry) {
+
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.factStoreLoader = factStoreLoader;
+        this.propertyBasedLeagues = leagues;
+        this.playerRegistry = playerRegistry;
+        postConstruct();
+    }
+
+    @PostConstruct
+    private void postConstruct() {
+
+        checkNotNull(namedParameterJdbcTemplate, "namedParameterJdbcTemplate cannot be null");
+        checkNotNull(factStoreLoader, "factStoreLoader cannot be null");
+        checkNotNull(playerRegistry, "playerRegistry cannot be null");
+    }
+
+    @Override
+    public PositionScoreTotals positionScoring(final int firstWeek, final int lastWeek) {
+
+        checkWeeks(firstWeek, lastWeek);
+
+        final PositionScoreTotals totals = new PositionScoreTotals();
+        final List<String> leagueNames = leagueNames();
+        if (leagueNames.isEmpty()) {
+            return totals;
+        }
+
+        final MapSqlParameterSource parameters = slice(leagueNames, firstWeek, lastWeek);
+
+        totals.addTeams(namedParameterJdbcTemplate.queryForObject(TEAMS_SQL, parameters, Integer.class));
+        namedParameterJdbcTemplate.query(POSITION_SCORING_SQL, parameters, new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                totals.addScores(Position.valueOf(rs.getString(1)), rs.getLong(2), rs.getDouble(3), rs.getDouble(4),
+                                 rs.getDouble(5), rs.getDouble(6));
+            }
+        });
+
+        return totals;
+    }
+
+    @Override
+    public PositionCountTotals positionCount() {
+
+        final PositionCountTotals totals = new PositionCountTotals();
+        final List<String> leagueNames = leagueNames();
+        if (leagueNames.isEmpty()) {
+            return totals;
+        }
+
+        final MapSqlParameterSource parameters = slice(leagueNames, ROSTER_WEEK, ROSTER_WEEK);
+
+        totals.addTeams(namedParameterJdbcTemplate.queryForObject(TEAMS_SQL, parameters, Integer.class));
+        namedParameterJdbcTemplate.query(POSITION_COUNT_SQL, parameters, new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                totals.add(Position.valueOf(rs.getString(1)), rs.getInt(2));
+            }
+        });
+
+        final List<Integer> unknownPlayers =
+                namedParameterJdbcTemplate.queryForList(UNKNOWN_PLAYERS_SQL, parameters, Integer.class);
+        for (Integer playerId : unknownPlayers) {
+            totals.addUnknownPlayer(playerId);
+        }
+
+        return totals;
+    }
+
+    /**
+     * The week range is just another indexed predicate here, so ranges are filtered in SQL rather than through
+     * running totals.
+     */
+    @Override
+    public List<PlayerScoreBreakdown> starterWeeks(final Position position, final StarterTiers tiers,
+                                                   final int depth, final int limit,
+                                                   final int firstWeek, final int lastWeek) {
+
+        checkWeeks(firstWeek, lastWeek);
+        final int starterDepth = depth > 0 ? depth : PlayerScoreRankings.getLeagueStarterLimit(position);
+        if (starterDepth <= 0) {
+            return new ArrayList<>();
+        }
+
+        final MapSqlParameterSource parameters = new MapSqlParameterSource("season", factStoreLoader.getSeason())
+                .addValue("position", position.name())
+                .addValue("firstWeek", firstWeek)
+                .addValue("lastWeek", lastWeek)
+                .addValue("depth", starterDepth);
+
+        // rows come back ordered by week then rank, so each week's ranking is rebuilt in order.
+        final Map<Integer, List<Integer>> rankingsByWeek = new TreeMap<>();
+        namedParameterJdbcTemplate.query(STARTER_WEEKS_SQL, parameters, new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+
+                List<Integer> ranking = rankingsByWeek.get(rs.getInt(1));
+                if (ranking == null) {
+                    ranking = new ArrayList<>();
+                    rankingsByWeek.put(rs.getInt(1), ranking);
+                }
+                ranking.add(rs.getInt(2));
+            }
+        });
+
+        final List<int[]> weeklyRankings = new ArrayList<>(rankingsByWeek.size());
+        for (List<Integer> ranking : rankingsByWeek.values()) {
+            weeklyRankings.add(Ints.toArray(ranking));
+        }
+
+        return StarterWeekRanker.rank(weeklyRankings, tiers, starterDepth, limit, playerRegistry.get());
+    }
+
+    /**
+     * Each cell of the cube is a group of one aggregate query, so the cube is built without reading a player row
+     * into memory.
+     */
+    @Override
+    public ScoreCube scoreCube() {
+
+        final List<String> leagueNames = leagueNames();
+        final Map<String, Integer> leagueIndexes = new HashMap<>();
+        for (int i = 0; i < leagueNames.size(); i++) {
+            leagueIndexes.put(leagueNames.get(i), i);
+        }
+
+        final ScoreCube.Builder cube = new ScoreCube.Builder();
+        if (!leagueNames.isEmpty()) {
+
+            final MapSqlParameterSource parameters =
+                    slice(leagueNames, WeeklyResultsSource.FIRST_WEEK, WeeklyResultsSource.LAST_WEEK);
+            namedParameterJdbcTemplate.query(CUBE_TEAMS_SQL, parameters, new RowCallbackHandler() {
+
+                @Override
+                public void processRow(final ResultSet rs) throws SQLException {
+                    cube.addTeams(leagueIndexes.get(rs.getString(1)), rs.getInt(2), rs.getInt(3));
+                }
+            });
+            namedParameterJdbcTemplate.query(CUBE_SQL, parameters, new RowCallbackHandler() {
+
+                @Override
+                public void processRow(final ResultSet rs) throws SQLException {
+                    cube.add(leagueIndexes.get(rs.getString(1)), rs.getInt(2), Position.valueOf(rs.getString(3)),
+                             FactStoreLoader.STARTER.equals(rs.getString(4)), rs.getLong(5), rs.getDouble(6));
+                }
+            });
+            namedParameterJdbcTemplate.query(CUBE_UNKNOWN_PLAYERS_SQL, parameters, new RowCallbackHandler() {
+
+                @Override
+                public void processRow(final ResultSet rs) throws SQLException {
+                    cube.addUnknownPlayer(leagueIndexes.get(rs.getString(1)), rs.getInt(2), rs.getInt(3));
+                }
+            });
+        }
+
+        return ScoreCube.of(leagueNames, WeeklyResultsSource.FIRST_WEEK, WeeklyResultsSource.LAST_WEEK, cube);
+    }
+
+    @Override
+    public PlayerUsage playerUsage(final int playerId, final int firstWeek, final int lastWeek) {
+
+        checkWeeks(firstWeek, lastWeek);
+        final PlayerRegistry players = playerRegistry.get();
+        final MapSqlParameterSource parameters = slice(leagueNames(), firstWeek, lastWeek).addValue("player", playerId);
+
+        final int leagueWeeks = namedParameterJdbcTemplate.queryForObject(LEAGUE_WEEKS_SQL, parameters, Integer.class);
+        return new PlayerUsage(playerId, players.get(playerId), leagueWeeks,
+                               rosterUsage(PLAYER_USAGE_SQL, parameters, players));
+    }
+
+    @Override
+    public List<RosterUsage> franchiseUsage(final int firstWeek, final int lastWeek) {
+
+        checkWeeks(firstWeek, lastWeek);
+        final PlayerRegistry players = playerRegistry.get();
+
+        // each league has its own configured franchise, so each is a query of its own.
+        final List<RosterUsage> usages = new ArrayList<>();
+        for (League league : propertyBasedLeagues) {
+
+            final Integer franchise = league.getFranchiseId() == null ? null : Ints.tryParse(league.getFranchiseId());
+            if (franchise != null) {
+                final MapSqlParameterSource parameters = slice(Collections.singletonList(league.getName()),
+                        firstWeek, lastWeek).addValue("franchise", franchise);
+                usages.addAll(rosterUsage(TEAM_USAGE_SQL, parameters, players));
+            }
+        }
+        return usages;
+    }
+
+    private List<RosterUsage> rosterUsage(final String sql, final MapSqlParameterSource parameters,
+                                          final PlayerRegistry players) {
+
+        final List<RosterUsage> usages = new ArrayList<>();
+        namedParameterJdbcTemplate.query(sql, parameters, new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                usages.add(new RosterUsage(rs.getString(1), rs.getInt(2), rs.getInt(3), players.get(rs.getInt(3)),
+                                           rs.getInt(4), rs.getInt(5), rs.getDouble(6)));
+            }
+        });
+        return usages;
+    }
+
+    private static void checkWeeks(final int firstWeek, final int lastWeek) {
+
+        checkArgument(WeeklyResultsSource.FIRST_WEEK <= firstWeek && firstWeek <= lastWeek
+                && lastWeek <= WeeklyResultsSource.LAST_WEEK,
+                "weeks %s to %s are not a range within weeks %s to %s",
+                firstWeek, lastWeek, WeeklyResultsSource.FIRST_WEEK, WeeklyResultsSource.LAST_WEEK);
+    }
+
+    private MapSqlParameterSource slice(final Collection<String> leagueNames, final int firstWeek, final int lastWeek) {
+
+        return new MapSqlParameterSource("season", factStoreLoader.getSeason())
+                .addValue("leagues", leagueNames)
+                .addValue("firstWeek", firstWeek)
+                .addValue("lastWeek", lastWeek);
+    }
+
+    private List<String> leagueNames() {
+
+        final List<String> leagueNames = new ArrayList<>(propertyBasedLeagues.size());
+        for (League league : propertyBasedLeagues) {
+            leagueNames.add(league.getName());
+        }
+        return leagueNames;
+    }
+}
@@ -0,0 +1,365 @@
+package org.tiltedwindmills.fantasy.zealots.live;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.zealots.data.WeeklyResultsSource;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.util.concurrent.RateLimiter;
+
+/**
+ * Downloads a whole season of weekly results into the live cache.  Each MFL server gets its own queue, worked
+ * by at most {@code mfl.bulk.perServerConcurrency} requests at a time and throttled to
+ * {@code mfl.bulk.perServerRequestsPerSecond}, while the servers themselves all run side by side.  A refresh
+ * therefore takes about as long as the busiest server instead of the sum of every request.  League-weeks already
+ * fresh in the cache are skipped without taking a permit, and failed requests are retried with exponential
+ * backoff.  The season is refreshed at startup and every {@code mfl.bulk.refreshIntervalMillis} after that, so
+ * the current weeks are fetched ahead of the reports that read them.
+ *
+ * @author John Daniel
+ */
+@Component
+@ConditionalOnProperty(name = "data.source", havingValue = "live")
+public class BulkFetchScheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BulkFetchScheduler.class);
+
+    /**
+     * Told about every finished league-week of a refresh.
+     */
+    public interface ProgressListener {
+
+        /**
+         * @param league the league that was fetched.
+         * @param week the week that was fetched.
+         * @param succeeded whether the fetch eventually succeeded.
+         * @param finished how many league-weeks have finished so far, including this one.
+         * @param total how many league-weeks the refresh covers.
+         */
+        void fetched(League league, int week, boolean succeeded, int finished, int total);
+    }
+
+    /**
+     * The outcome of a refresh.
+     */
+    public static final class Result {
+
+        private final int fetched;
+        private final int failed;
+        private final int retries;
+        private final long elapsedMillis;
+
+        Result(final int fetched, final int failed, final int retries, final long elapsedMillis) {
+            this.fetched = fetched;
+            this.failed = failed;
+            this.retries = retries;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getFetched() {
+            return fetched;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        public int getRetries() {
+            return retries;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+
+    /**
+     * Hands out a server's permits to fetch.
+     */
+    interface Throttle {
+
+        /**
+         * Blocks until the next request to the server may go out.
+         */
+        void acquire();
+    }
+
+    @Inject
+    private LiveMflExports mflExports;
+
+    @javax.annotation.Resource
+    private List<League> propertyBasedLeagues;
+
+    @Value("${mfl.bulk.perServerConcurrency:2}")
+    private int perServerConcurrency;
+
+    @Value("${mfl.bulk.perServerRequestsPerSecond:4}")
+    private double perServerRequestsPerSecond;
+
+    @Value("${mfl.bulk.maxAttempts:4}")
+    private int maxAttempts;
+
+    @Value("${mfl.bulk.initialBackoffMillis:500}")
+    private long initialBackoffMillis;
+
+    private ExecutorService workers;
+
+    @PostConstruct
+    private void postConstruct() {
+
+        checkNotNull(mflExports, "mflExports cannot be null");
+        checkArgument(perServerConcurrency > 0, "mfl.bulk.perServerConcurrency must be positive");
+        checkArgument(perServerRequestsPerSecond > 0, "mfl.bulk.perServerRequestsPerSecond must be positive");
+        checkArgument(maxAttempts > 0, "mfl.bulk.maxAttempts must be positive");
+
+        // workers only ever wait on MFL, so the pool grows with the number of servers being refreshed.
+        workers = Executors.newCachedThreadPool();
+    }
+
+    @PreDestroy
+    private void preDestroy() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Refreshes the configured season in the background, at startup and every {@code mfl.bulk.refreshIntervalMillis}
+     * after that.
+     */
+    @Scheduled(fixedDelayString = "${mfl.bulk.refreshIntervalMillis:3600000}")
+    public void refreshScheduled() {
+
+        try {
+            refreshSeason(null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Fetches every configured league's regular season.
+     *
+     * @param listener told about each league-week as it finishes; may be {@code null}.
+     * @return the outcome.
+     * @throws InterruptedException if interrupted while waiting for the refresh to finish.
+     */
+    public Result refreshSeason(final ProgressListener listener) throws InterruptedException {
+        return refresh(propertyBasedLeagues, WeeklyResultsSource.FIRST_WEEK, WeeklyResultsSource.LAST_WEEK, listener);
+    }
+
+    /**
+     * Fetches the weekly results for every league-week in the given range, blocking until they have all
+     * succeeded or run out of attempts.
+     *
+     * @param leagues the leagues to fetch.
+     * @param firstWeek the first week to fetch.
+     * @param lastWeek the last week to fetch.
+     * @param listener told about each league-week as it finishes; may be {@code null}.
+     * @return the outcome.
+     * @throws InterruptedException if interrupted while waiting for the refresh to finish.
+     */
+    public Result refresh(final List<League> leagues, final int firstWeek, final int lastWeek,
+                          final ProgressListener listener) throws InterruptedException {
+
+        final Stopwatch stopwatch = Stopwatch.createStarted();
+
+        final Map<Integer, Queue<LeagueWeek>> queues = new LinkedHashMap<>();
+        for (League league : leagues) {
+            Queue<LeagueWeek> queue = queues.get(league.getServerId());
+            if (queue == null) {
+                queue = new ConcurrentLinkedQueue<>();
+                queues.put(league.getServerId(), queue);
+            }
+            for (int week = firstWeek; week <= lastWeek; week++) {
+                queue.add(new LeagueWeek(league, week));
+            }
+        }
+
+        final Refresh refresh = new Refresh(leagues.size() * Math.max(0, lastWeek - firstWeek + 1), listener);
+        LOG.info("Fetching {} league-weeks from {} MFL servers", refresh.total, queues.size());
+
+        final List<Runnable> serverWorkers = new ArrayList<>();
+        for (Map.Entry<Integer, Queue<LeagueWeek>> entry : queues.entrySet()) {
+
+            final Throttle throttle = newThrottle(entry.getKey());
+            final int workerCount = Math.min(perServerConcurrency, entry.getValue().size());
+            for (int i = 0; i < workerCount; i++) {
+                serverWorkers.add(new ServerWorker(entry.getKey(), entry.getValue(), throttle, refresh));
+            }
+        }
+
+        final CountDownLatch done = new CountDownLatch(serverWorkers.size());
+        for (final Runnable worker : serverWorkers) {
+            workers.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        worker.run();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+        }
+        done.await();
+
+        final Result result = new Result(refresh.fetched.get(), refresh.failed.get(), refresh.retries.get(),
+                stopwatch.elapsed(TimeUnit.MILLISECONDS));
+
+        LOG.info("Fetched {} league-weeks ({} failed, {} retries) in {}",
+                result.getFetched(), result.getFailed(), result.getRetries(), stopwatch);
+        return result;
+    }
+
+    /**
+     * @param serverId the MFL server.
+     * @return a throttle to {@code mfl.bulk.perServerRequestsPerSecond}, for one refresh of one server.
+     */
+    Throttle newThrottle(final int serverId) {
+
+        final RateLimiter rateLimiter = RateLimiter.create(perServerRequestsPerSecond);
+        return new Throttle() {
+
+            @Override
+            public void acquire() {
+                rateLimiter.acquire();
+            }
+        };
+    }
+
+    /**
+     * One of the workers draining a server's queue.  The workers of a server share its throttle.
+     */
+    private final class ServerWorker implements Runnable {
+
+        private final int serverId;
+        private final Queue<LeagueWeek> queue;
+        private final Throttle throttle;
+        private final Refresh refresh;
+
+        ServerWorker(final int serverId, final Queue<LeagueWeek> queue, final Throttle throttle,
+                     final Refresh refresh) {
+            this.serverId = serverId;
+            this.queue = queue;
+            this.throttle = throttle;
+            this.refresh = refresh;
+        }
+
+        @Override
+        public void run() {
+
+            LeagueWeek leagueWeek;
+            while ((leagueWeek = queue.poll()) != null && !Thread.currentThread().isInterrupted()) {
+                refresh.finished(leagueWeek, fetch(leagueWeek));
+            }
+        }
+
+        private boolean fetch(final LeagueWeek leagueWeek) {
+
+            // only requests that reach MFL count against its rate.
+            if (mflExports.isWeeklyResultsCached(leagueWeek.league, leagueWeek.week)) {
+                return true;
+            }
+
+            long backoffMillis = initialBackoffMillis;
+            for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+
+                throttle.acquire();
+                try {
+                    // the response is in the cache by the time the stream is handed back, so it isn't read here.
+                    mflExports.openWeeklyResults(leagueWeek.league, leagueWeek.week).close();
+                    return true;
+
+                } catch (IOException e) {
+                    LOG.debug("Attempt {} at week {} for {} on server {} failed: {}",
+                            attempt, leagueWeek.week, leagueWeek.league.getName(), serverId, e.getMessage());
+                }
+
+                if (attempt < maxAttempts) {
+                    refresh.retries.incrementAndGet();
+                    try {
+                        // jitter so workers that failed together don't all come back together.
+                        Thread.sleep(backoffMillis + ThreadLocalRandom.current().nextLong(backoffMillis / 2 + 1));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                    backoffMillis *= 2;
+                }
+            }
+
+            LOG.warn("Giving up on week {} for {}", leagueWeek.week, leagueWeek.league.getName());
+            return false;
+        }
+    }
+
+    /**
+     * Progress of a single refresh, shared by all of its workers.
+     */
+    private static final class Refresh {
+
+        private final int total;
+        private final ProgressListener listener;
+        private final AtomicInteger fetched = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger retries = new AtomicInteger();
+        private final AtomicInteger finished = new AtomicInteger();
+
+        Refresh(final int total, final ProgressListener listener) {
+            this.total = total;
+            this.listener = listener;
+        }
+
+        void finished(final LeagueWeek leagueWeek, final boolean succeeded) {
+
+            (succeeded ? fetched : failed).incrementAndGet();
+            final int count = finished.incrementAndGet();
+
+            // log roughly every tenth of the way through.
+            if (total >= 10 && count % (total / 10) == 0) {
+                LOG.info("Fetched {} of {} league-weeks", count, total);
+            }
+
+            if (listener != null) {
+                listener.fetched(leagueWeek.league, leagueWeek.week, succeeded, count, total);
+            }
+        }
+    }
+
+    private static final class LeagueWeek {
+
+        private final League league;
+        private final int week;
+
+        LeagueWeek(final League league, final int week) {
+            this.league = league;
+            this.week = week;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package org.tiltedwindmills.fantasy.zealots.live;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+import org.tiltedwindmills.fantasy.zealots.data.DataLocationExports;
+import org.tiltedwindmills.fantasy.zealots.data.MflExports;
+import org.tiltedwindmills.fantasy.zealots.metrics.HitCounter;
+import org.tiltedwindmills.fantasy.zealots.metrics.ReportMetrics;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * {@link MflExports} fetched live from the MFL export API and kept in an {@link MflResponseCache}.
+ * <p>
+ * The cache uses the same layout as {@code data.location}, so a warmed cache directory can also be served as a
+ * plain snapshot.  Results and scores for weeks up to {@code mfl.lastCompletedWeek} can't change any more and
+ * are fetched once; later weeks and the player list are refreshed when their time to live runs out.
+ *
+ * @author John Daniel
+ */
+@Component
+@ConditionalOnProperty(name = "data.source", havingValue = "live")
+public class LiveMflExports implements MflExports {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LiveMflExports.class);
+
+    @Value("${mfl.exportUrl:http://www{serverId}.myfantasyleague.com/{season}/export}")
+    private String exportUrl;
+
+    @Value("${season:2015}")
+    private int season;
+
+    @Value("${mfl.lastCompletedWeek:13}")
+    private int lastCompletedWeek;
+
+    // player scores depend on a league's scoring rules, so they are all fetched from this league.
+    @Value("${leagues.${mfl.scoringLeague:zealots1}.serverid}")
+    private int scoringServerId;
+
+    @Value("${leagues.${mfl.scoringLeague:zealots1}.leagueid}")
+    private int scoringLeagueId;
+
+    @Value("${mfl.cache.location:./mfl-cache}")
+    private String cacheLocation;
+
+    @Value("${mfl.cache.currentWeekTtlSeconds:300}")
+    private long currentWeekTtlSeconds;
+
+    @Value("${mfl.cache.playersTtlSeconds:86400}")
+    private long playersTtlSeconds;
+
+    @Value("${mfl.timeoutMillis:10000}")
+    private int timeoutMillis;
+
+    @Inject
+    private ReportMetrics reportMetrics;
+
+    private MflResponseCache cache;
+    private HitCounter cacheCounter;
+
+    @PostConstruct
+    private void postConstruct() {
+
+        checkNotNull(reportMetrics, "reportMetrics cannot be null");
+        cacheCounter = reportMetrics.cache("mflResponses");
+        cache = new MflResponseCache(new File(cacheLocation));
+        LOG.info("Fetching MFL exports from {}, cached in {}", exportUrl, cacheLocation);
+    }
+
+    @Override
+    public InputStream openWeeklyResults(final League league, final int week) throws IOException {
+
+        final String url = exportUrl(league.getServerId())
+                + "?TYPE=weeklyResults&L=" + league.getId() + "&W=" + week + "&JSON=1";
+
+        return fetch(DataLocationExports.weeklyResultsPath(league, week), weekTtlMillis(week), url);
+    }
+
+    /**
+     * @param league the configured {@code League}.
+     * @param week the week.
+     * @return whether the league-week's results can be served from the cache without going to MFL.
+     */
+    public boolean isWeeklyResultsCached(final League league, final int week) {
+        return cache.isFresh(DataLocationExports.weeklyResultsPath(league, week), weekTtlMillis(week));
+    }
+
+    @Override
+    public InputStream openPlayerScores(final Position position, final int week) throws IOException {
+
+        final String url = exportUrl(scoringServerId)
+                + "?TYPE=playerScores&L=" + scoringLeagueId + "&W=" + week
+                + "&POSITION=" + position.getType().replace("+", "%2B") + "&JSON=1";
+
+        return fetch(DataLocationExports.playerScoresPath(position, week), weekTtlMillis(week), url);
+    }
+
+    @Override
+    public InputStream openPlayers() throws IOException {
+
+        final String url = exportUrl(scoringServerId) + "?TYPE=players&DETAILS=1&JSON=1";
+
+        return fetch(DataLocationExports.PLAYERS_PATH, TimeUnit.SECONDS.toMillis(playersTtlSeconds), url);
+    }
+
+    private long weekTtlMillis(final int week) {
+
+        return week <= lastCompletedWeek
+                ? MflResponseCache.NEVER_EXPIRES
+                : TimeUnit.SECONDS.toMillis(currentWeekTtlSeconds);
+    }
+
+    private String exportUrl(final int serverId) {
+
+        return exportUrl.replace("{serverId}", String.valueOf(serverId))
+                        .replace("{season}", String.valueOf(season));
+    }
+
+    private InputStream fetch(final String key, final long ttlMillis, final String url) throws IOException {
+
+        cacheCounter.lookup();
+        return new ByteArrayInputStream(cache.get(key, ttlMillis, new Callable<byte[]>() {
+
+            @Override
+            public byte[] call() throws IOException {
+
+                cacheCounter.miss();
+                return download(url);
+            }
+        }));
+    }
+
+    private byte[] download(final String url) throws IOException {
+
+        final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(timeoutMillis);
+        connection.setReadTimeout(timeoutMillis);
+
+        try {
+            final int status = connection.getResponseCode();
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("MFL returned " + status + " for " + url);
+            }
+
+            try (InputStream in = connection.getInputStream()) {
+                return ByteStreams.toByteArray(in);
+            }
+
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.tiltedwindmills.fantasy.zealots.live;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * On-disk cache of MFL responses.  Every response lives in its own file under the cache directory, so a
+ * restart picks up where the last run left off, and each lookup carries its own time to live.
+ * <p>
+ * Concurrent lookups of the same key that miss the cache share one upstream fetch: the first caller runs it and
+ * the rest wait for its result.  When a refresh fails and an expired copy is on disk, the expired copy is served
+ * rather than failing the request.
+ *
+ * @author John Daniel
+ */
+public final class MflResponseCache {
+
+    /** Time to live for responses that can never change, such as the results of a completed week. */
+    public static final long NEVER_EXPIRES = -1;
+
+    private static final Logger LOG = LoggerFactory.getLogger(MflResponseCache.class);
+
+    private final File directory;
+    private final ConcurrentMap<String, FutureTask<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    public MflResponseCache(final File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Gets a response, fetching it from upstream if the cached copy is missing or older than {@code ttlMillis}.
+     *
+     * @param key the cache key, a relative path such as {@code weeklyResults/zealots1week3.json}.
+     * @param ttlMillis how long a cached copy stays fresh, or {@link #NEVER_EXPIRES}.
+     * @param fetcher fetches the response from upstream.
+     * @return the response body.
+     * @throws IOException if there is no usable cached copy and the fetch fails.
+     */
+    public byte[] get(final String key, final long ttlMillis, final Callable<byte[]> fetcher) throws IOException {
+
+        final File file = new File(directory, key);
+        if (isFresh(file, ttlMillis)) {
+            return Files.readAllBytes(file.toPath());
+        }
+
+        final FutureTask<byte[]> task = new FutureTask<>(new Callable<byte[]>() {
+
+            @Override
+            public byte[] call() throws Exception {
+                return refresh(key, file, fetcher);
+            }
+        });
+
+        FutureTask<byte[]> running = inFlight.putIfAbsent(key, task);
+        if (running == null) {
+            running = task;
+            try {
+                task.run();
+            } finally {
+                inFlight.remove(key, task);
+            }
+        } else {
+            LOG.trace("Joining in-flight fetch of {}", key);
+        }
+
+        try {
+            return running.get();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for " + key, e);
+
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to fetch " + key, e.getCause());
+        }
+    }
+
+    /**
+     * @param key the cache key.
+     * @param ttlMillis how long a cached copy stays fresh, or {@link #NEVER_EXPIRES}.
+     * @return whether {@link #get} would answer from the cache without fetching.
+     */
+    public boolean isFresh(final String key, final long ttlMillis) {
+        return isFresh(new File(directory, key), ttlMillis);
+    }
+
+    private byte[] refresh(final String key, final File file, final Callable<byte[]> fetcher) throws Exception {
+
+        final byte[] body;
+        try {
+            LOG.debug("Fetching {} from MFL", key);
+            body = fetcher.call();
+
+        } catch (Exception e) {
+            if (file.isFile()) {
+                LOG.warn("Failed to refresh {}, serving the cached copy: {}", key, e.getMessage());
+                return Files.readAllBytes(file.toPath());
+            }
+            throw e;
+        }
+
+        // write next to the target and rename, so readers never see a half written response.
+        Files.createDirectories(file.getParentFile().toPath());
+        final File temporary = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+        try {
+            Files.write(temporary.toPath(), body);
+            Files.move(temporary.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+
+        return body;
+    }
+
+    private static boolean isFresh(final File file, final long ttlMillis) {
+
+        if (!file.isFile()) {
+            return false;
+        }
+        return ttlMillis == NEVER_EXPIRES || System.currentTimeMillis() - file.lastModified() < ttlMillis;
+    }
+}
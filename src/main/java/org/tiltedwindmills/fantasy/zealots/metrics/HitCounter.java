@@ -0,0 +1,45 @@
+package org.tiltedwindmills.fantasy.zealots.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lookups against one of the report caches, and how many of them had to load the value.
+ *
+ * @author John Daniel
+ */
+public final class HitCounter {
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    HitCounter() { }
+
+    /**
+     * Counts a lookup, whether or not it hits.
+     */
+    public void lookup() {
+        lookups.incrementAndGet();
+    }
+
+    /**
+     * Counts a lookup that had to load the value; called from the cache's loader.
+     */
+    public void miss() {
+        misses.incrementAndGet();
+    }
+
+    public long getLookups() {
+        return lookups.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the lookups that were served from the cache.
+     */
+    public long getHits() {
+        return Math.max(0, lookups.get() - misses.get());
+    }
+}
@@ -0,0 +1,183 @@
+package org.tiltedwindmills.fantasy.zealots.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counters along the report hot paths, published under {@code zealots.*} by the actuator's {@code /metrics}
+ * endpoint.  Recording only updates atomic counters, so it allocates nothing and is cheap enough to leave on;
+ * the {@code Metric}s are only built when the endpoint is read.
+ *
+ * @author John Daniel
+ */
+@Component
+public class ReportMetrics implements PublicMetrics {
+
+    private static final String PREFIX = "zealots.";
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * Where a report request spends its time.
+     */
+    public enum Stage {
+
+        /** Opening an export, which for live data includes fetching it from MFL. */
+        OPEN,
+
+        /** Decoding an opened export. */
+        DECODE,
+
+        /** A report controller working out its model, loading whatever isn't cached yet. */
+        AGGREGATE,
+
+        /** Rendering a report view. */
+        RENDER
+    }
+
+    /**
+     * How many times a stage ran, for how long in total and at most.
+     */
+    private static final class StageTimer {
+
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(final long nanos) {
+
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+    }
+
+    private final StageTimer[] stages = new StageTimer[Stage.values().length];
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong filesParsed = new AtomicLong();
+    private final AtomicLong bytesParsed = new AtomicLong();
+    private final AtomicLong unknownPlayers = new AtomicLong();
+
+    // sorted so the endpoint lists the caches in a stable order.
+    private final ConcurrentMap<String, HitCounter> caches = new ConcurrentSkipListMap<>();
+
+    public ReportMetrics() {
+
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new StageTimer();
+        }
+    }
+
+    /**
+     * @param stage the stage.
+     * @param nanos how long it took, from {@code System.nanoTime()}.
+     */
+    public void record(final Stage stage, final long nanos) {
+        stages[stage.ordinal()].record(nanos);
+    }
+
+    /**
+     * Counts a request to one of the report endpoints.
+     */
+    public void recordRequest() {
+        requests.incrementAndGet();
+    }
+
+    /**
+     * Counts a report request turned away because too many reports were already waiting.
+     */
+    public void recordRejected() {
+        rejected.incrementAndGet();
+    }
+
+    /**
+     * Counts an export that was decoded.
+     *
+     * @param bytes the size of the export.
+     */
+    public void recordParsed(final long bytes) {
+
+        filesParsed.incrementAndGet();
+        bytesParsed.addAndGet(bytes);
+    }
+
+    /**
+     * @param count rostered player ids that weren't found in the player list.
+     */
+    public void recordUnknownPlayers(final int count) {
+        unknownPlayers.addAndGet(count);
+    }
+
+    /**
+     * Gets the counter for a cache, shared by every cache registered under the same name (e.g. one per season).
+     * Look it up once and keep it; the lookup itself isn't meant for the hot path.
+     *
+     * @param name the cache's name in the metrics.
+     * @return the cache's counter.
+     */
+    public HitCounter cache(final String name) {
+
+        final HitCounter counter = new HitCounter();
+        final HitCounter existing = caches.putIfAbsent(name, counter);
+        return existing == null ? counter : existing;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+
+        final List<Metric<?>> metrics = new ArrayList<>();
+
+        for (Stage stage : Stage.values()) {
+
+            final StageTimer timer = stages[stage.ordinal()];
+            final long count = timer.count.get();
+            final double totalMillis = timer.totalNanos.get() / NANOS_PER_MILLI;
+            final String name = PREFIX + "stage." + stage.name().toLowerCase(Locale.US) + ".";
+
+            metrics.add(new Metric<Long>(name + "count", count));
+            metrics.add(new Metric<Double>(name + "totalMillis", totalMillis));
+            metrics.add(new Metric<Double>(name + "meanMillis", count == 0 ? 0 : totalMillis / count));
+            metrics.add(new Metric<Double>(name + "maxMillis", timer.maxNanos.get() / NANOS_PER_MILLI));
+        }
+
+        final long requestCount = requests.get();
+        metrics.add(new Metric<Long>(PREFIX + "requests", requestCount));
+        metrics.add(new Metric<Long>(PREFIX + "requests.rejected", rejected.get()));
+        metrics.add(new Metric<Long>(PREFIX + "files.parsed", filesParsed.get()));
+        metrics.add(new Metric<Long>(PREFIX + "bytes.parsed", bytesParsed.get()));
+        metrics.add(new Metric<Double>(PREFIX + "files.parsedPerRequest",
+                requestCount == 0 ? 0 : (double) filesParsed.get() / requestCount));
+        metrics.add(new Metric<Double>(PREFIX + "bytes.parsedPerRequest",
+                requestCount == 0 ? 0 : (double) bytesParsed.get() / requestCount));
+        metrics.add(new Metric<Long>(PREFIX + "players.unknown", unknownPlayers.get()));
+
+        for (Map.Entry<String, HitCounter> cache : caches.entrySet()) {
+
+            final HitCounter counter = cache.getValue();
+            final long lookups = counter.getLookups();
+            final String name = PREFIX + "cache." + cache.getKey() + ".";
+
+            metrics.add(new Metric<Long>(name + "hits", counter.getHits()));
+            metrics.add(new Metric<Long>(name + "misses", counter.getMisses()));
+            metrics.add(new Metric<Double>(name + "hitRatio", lookups == 0 ? 0 : (double) counter.getHits() / lookups));
+        }
+
+        return metrics;
+    }
+}
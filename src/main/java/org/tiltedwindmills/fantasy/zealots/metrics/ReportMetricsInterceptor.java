@@ -0,0 +1,90 @@
+package org.tiltedwindmills.fantasy.zealots.metrics;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+/**
+ * Times the report requests.  Everything up to the controller returning its model counts as
+ * {@link ReportMetrics.Stage#AGGREGATE}, and rendering the view afterwards as {@link ReportMetrics.Stage#RENDER}.
+ * A report worked out on the report executor is timed from the original request to the dispatch that renders it,
+ * and counted as one request.
+ *
+ * @author John Daniel
+ */
+@Component
+public class ReportMetricsInterceptor extends HandlerInterceptorAdapter {
+
+    private static final String STARTED_ATTRIBUTE = ReportMetricsInterceptor.class.getName() + ".STARTED";
+
+    // the handler's and the view's start times.  The whole request runs on one thread, and reusing the array keeps
+    // the timing from allocating.
+    private static final ThreadLocal<long[]> STARTED = new ThreadLocal<long[]>() {
+
+        @Override
+        protected long[] initialValue() {
+            return new long[2];
+        }
+    };
+
+    @Inject
+    private ReportMetrics reportMetrics;
+
+    @PostConstruct
+    private void postConstruct() {
+        checkNotNull(reportMetrics, "reportMetrics cannot be null");
+    }
+
+    @Override
+    public final boolean preHandle(final HttpServletRequest request, final HttpServletResponse response,
+                                   final Object handler) {
+
+        final long[] started = STARTED.get();
+        started[1] = 0;
+
+        // the dispatch back from the report executor carries on timing the request it started on.
+        final Long asyncStarted = (Long) request.getAttribute(STARTED_ATTRIBUTE);
+        if (asyncStarted != null) {
+            request.removeAttribute(STARTED_ATTRIBUTE);
+            started[0] = asyncStarted;
+            return true;
+        }
+
+        started[0] = System.nanoTime();
+        reportMetrics.recordRequest();
+        return true;
+    }
+
+    @Override
+    public final void afterConcurrentHandlingStarted(final HttpServletRequest request,
+                                                     final HttpServletResponse response, final Object handler) {
+        request.setAttribute(STARTED_ATTRIBUTE, STARTED.get()[0]);
+    }
+
+    @Override
+    public final void postHandle(final HttpServletRequest request, final HttpServletResponse response,
+                                 final Object handler, final ModelAndView modelAndView) {
+
+        final long[] started = STARTED.get();
+        started[1] = System.nanoTime();
+        reportMetrics.record(ReportMetrics.Stage.AGGREGATE, started[1] - started[0]);
+    }
+
+    @Override
+    public final void afterCompletion(final HttpServletRequest request, final HttpServletResponse response,
+                                      final Object handler, final Exception ex) {
+
+        // postHandle is skipped when the controller throws, and then nothing was rendered.
+        final long[] started = STARTED.get();
+        if (started[1] != 0) {
+            reportMetrics.record(ReportMetrics.Stage.RENDER, System.nanoTime() - started[1]);
+        }
+    }
+}
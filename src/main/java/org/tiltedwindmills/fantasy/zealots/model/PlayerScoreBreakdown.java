@@ -1,55 +1,110 @@
 package org.tiltedwindmills.fantasy.zealots.model;
 
+import java.util.Arrays;
+
 import org.springframework.beans.BeanUtils;
 import org.tiltedwindmills.fantasy.mfl.model.Player;
 
+import com.google.common.collect.Ordering;
+
 public final class PlayerScoreBreakdown extends Player {
 
     private static final long serialVersionUID = 7144247203994035108L;
 
-    private int top12Finishes;
-    private int top24Finishes;
-    private int top36Finishes;
+    // the original tiers and weights: a top 12 finish is worth 5, top 24 is 3 and top 36 is 1.
+    private static final int[] DEFAULT_CUTOFFS = {12, 24, 36};
+    private static final int[] DEFAULT_WEIGHTS = {5, 3, 1};
+
+    /**
+     * Best first: by grade, then finishes in each tier from the top down, then name.
+     */
+    public static final Ordering<PlayerScoreBreakdown> BY_TOP_FINISHES = new Ordering<PlayerScoreBreakdown>() {
+
+        @Override
+        public int compare(PlayerScoreBreakdown left, PlayerScoreBreakdown right) {
+            int gradeDiff = right.getGrade() - left.getGrade();
+            if (gradeDiff != 0) {
+                return gradeDiff;
+            }
+            for (int tier = 0; tier < Math.min(left.tierFinishes.length, right.tierFinishes.length); tier++) {
+                int tierDiff = right.tierFinishes[tier] - left.tierFinishes[tier];
+                if (tierDiff != 0) {
+                    return tierDiff;
+                }
+            }
+
+            return left.getName().compareTo(right.getName());
+        }
+    };
+
+    private final int[] tierFinishes;
+    private final int[] weights;
 
     public PlayerScoreBreakdown(final Player player) {
+        this(player, new int[DEFAULT_CUTOFFS.length], DEFAULT_WEIGHTS);
+    }
+
+    /**
+     * @param player the player.
+     * @param tierFinishes how many weeks the player finished in each tier, best tier first.
+     * @param weights what a finish in each tier adds to the grade.
+     */
+    public PlayerScoreBreakdown(final Player player, final int[] tierFinishes, final int[] weights) {
+
+        // only the player's own properties; the finishes are set below.
+        BeanUtils.copyProperties(player, this, Player.class);
+        this.tierFinishes = tierFinishes;
+        this.weights = weights;
+    }
 
-        BeanUtils.copyProperties(player, this);
+    /**
+     * @return a breakdown of the same player and finishes that can be changed without changing this one.
+     */
+    public PlayerScoreBreakdown copy() {
+        return new PlayerScoreBreakdown(this, getTierFinishes(), weights);
+    }
+
+    public int[] getTierFinishes() {
+        return Arrays.copyOf(tierFinishes, tierFinishes.length);
     }
 
     public int getTop12Finishes() {
-        return top12Finishes;
+        return getTierFinishes(0);
     }
 
     public void setTop12Finishes(int top12Finishes) {
-        this.top12Finishes = top12Finishes;
+        this.tierFinishes[0] = top12Finishes;
     }
 
     public int getTop24Finishes() {
-        return top24Finishes;
+        return getTierFinishes(1);
     }
 
     public void setTop24Finishes(int top24Finishes) {
-        this.top24Finishes = top24Finishes;
+        this.tierFinishes[1] = top24Finishes;
     }
 
     public int getTop36Finishes() {
-        return top36Finishes;
+        return getTierFinishes(2);
     }
 
     public void setTop36Finishes(int top36Finishes) {
-        this.top36Finishes = top36Finishes;
+        this.tierFinishes[2] = top36Finishes;
     }
 
+    /**
+     * @param finishingPosition where the player finished the week, from {@code 1} for the best score.
+     */
     public void addTopFinish(int finishingPosition) {
 
-        if (finishingPosition > 0 && finishingPosition <= 12) {
-            this.top12Finishes++;
+        if (finishingPosition > 0 && finishingPosition <= DEFAULT_CUTOFFS[0]) {
+            this.tierFinishes[0]++;
 
-        } else if (finishingPosition > 12 && finishingPosition <= 24) {
-            this.top24Finishes++;
+        } else if (finishingPosition > DEFAULT_CUTOFFS[0] && finishingPosition <= DEFAULT_CUTOFFS[1]) {
+            this.tierFinishes[1]++;
 
-        } else if (finishingPosition > 24 && finishingPosition <= 36) {
-            this.top36Finishes++;
+        } else if (finishingPosition > DEFAULT_CUTOFFS[1] && finishingPosition <= DEFAULT_CUTOFFS[2]) {
+            this.tierFinishes[2]++;
 
         }
 
@@ -57,6 +112,15 @@ public final class PlayerScoreBreakdown extends Player {
     }
 
     public int getGrade() {
-        return 5 * top12Finishes + 3 * top24Finishes + 1 * top36Finishes;
+
+        int grade = 0;
+        for (int tier = 0; tier < tierFinishes.length; tier++) {
+            grade += weights[tier] * tierFinishes[tier];
+        }
+        return grade;
+    }
+
+    private int getTierFinishes(final int tier) {
+        return tier < tierFinishes.length ? tierFinishes[tier] : 0;
     }
 }
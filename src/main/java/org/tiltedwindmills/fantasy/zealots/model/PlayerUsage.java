@@ -0,0 +1,92 @@
+package org.tiltedwindmills.fantasy.zealots.model;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.tiltedwindmills.fantasy.mfl.model.Player;
+
+/**
+ * How widely one player was rostered and started across every league over a range of weeks, with a
+ * {@link RosterUsage} for each team that rostered them.
+ *
+ * @author John Daniel
+ */
+public final class PlayerUsage {
+
+    private final int playerId;
+    private final Player player;
+    private final int leagueWeeks;
+    private final List<RosterUsage> teams;
+    private final int rosteredWeeks;
+    private final int startedWeeks;
+    private final double starterPoints;
+
+    /**
+     * @param playerId the MFL player id.
+     * @param player the player, or {@code null} if they aren't in the player database.
+     * @param leagueWeeks how many league-weeks had results in the range.
+     * @param teams every team that rostered the player in the range.
+     */
+    public PlayerUsage(final int playerId, final Player player, final int leagueWeeks,
+                       final List<RosterUsage> teams) {
+
+        this.playerId = playerId;
+        this.player = player;
+        this.leagueWeeks = leagueWeeks;
+        this.teams = Collections.unmodifiableList(teams);
+
+        int rostered = 0;
+        int started = 0;
+        double points = 0;
+        for (RosterUsage team : teams) {
+            rostered += team.getRosteredWeeks();
+            started += team.getStartedWeeks();
+            points += team.getStarterPoints();
+        }
+        this.rosteredWeeks = rostered;
+        this.startedWeeks = started;
+        this.starterPoints = points;
+    }
+
+    public int getPlayerId() {
+        return playerId;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public int getLeagueWeeks() {
+        return leagueWeeks;
+    }
+
+    public List<RosterUsage> getTeams() {
+        return teams;
+    }
+
+    public int getRosteredWeeks() {
+        return rosteredWeeks;
+    }
+
+    public int getStartedWeeks() {
+        return startedWeeks;
+    }
+
+    public double getStarterPoints() {
+        return starterPoints;
+    }
+
+    /**
+     * @return the percentage of league-weeks in which the player was on a roster.
+     */
+    public double getOwnershipPercent() {
+        return leagueWeeks == 0 ? 0 : 100.0 * rosteredWeeks / leagueWeeks;
+    }
+
+    /**
+     * @return the percentage of league-weeks in which the player was started.
+     */
+    public double getStartPercent() {
+        return leagueWeeks == 0 ? 0 : 100.0 * startedWeeks / leagueWeeks;
+    }
+}
@@ -0,0 +1,69 @@
+package org.tiltedwindmills.fantasy.zealots.model;
+
+import org.tiltedwindmills.fantasy.mfl.model.Player;
+
+/**
+ * How one team used one player over a range of weeks: how many weeks the player was on the roster, how many of
+ * those they started, and the points they scored as a starter.
+ *
+ * @author John Daniel
+ */
+public final class RosterUsage {
+
+    private final String league;
+    private final int franchiseId;
+    private final int playerId;
+    private final Player player;
+    private final int rosteredWeeks;
+    private final int startedWeeks;
+    private final double starterPoints;
+
+    /**
+     * @param league the configured name of the league.
+     * @param franchiseId the team's MFL franchise id, e.g. {@code 1} for {@code "0001"}.
+     * @param playerId the MFL player id.
+     * @param player the player, or {@code null} if they aren't in the player database.
+     * @param rosteredWeeks how many weeks the team rostered the player.
+     * @param startedWeeks how many of those weeks the team started the player.
+     * @param starterPoints the points the player scored in the weeks they started.
+     */
+    public RosterUsage(final String league, final int franchiseId, final int playerId, final Player player,
+                       final int rosteredWeeks, final int startedWeeks, final double starterPoints) {
+
+        this.league = league;
+        this.franchiseId = franchiseId;
+        this.playerId = playerId;
+        this.player = player;
+        this.rosteredWeeks = rosteredWeeks;
+        this.startedWeeks = startedWeeks;
+        this.starterPoints = starterPoints;
+    }
+
+    public String getLeague() {
+        return league;
+    }
+
+    public int getFranchiseId() {
+        return franchiseId;
+    }
+
+    public int getPlayerId() {
+        return playerId;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public int getRosteredWeeks() {
+        return rosteredWeeks;
+    }
+
+    public int getStartedWeeks() {
+        return startedWeeks;
+    }
+
+    public double getStarterPoints() {
+        return starterPoints;
+    }
+}
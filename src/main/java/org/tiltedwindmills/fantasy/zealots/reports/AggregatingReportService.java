@@ -0,0 +1,572 @@
+package org.tiltedwindmills.fantasy.zealots.reports;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.mfl.model.Player;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+import org.tiltedwindmills.fantasy.zealots.aggregation.AggregationEngine;
+import org.tiltedwindmills.fantasy.zealots.aggregation.LeagueWeekAggregator;
+import org.tiltedwindmills.fantasy.zealots.aggregation.PositionCountTotals;
+import org.tiltedwindmills.fantasy.zealots.aggregation.WeeklyPositionScores;
+import org.tiltedwindmills.fantasy.zealots.aggregation.PositionScoreTotals;
+import org.tiltedwindmills.fantasy.zealots.aggregation.ScoreCube;
+import org.tiltedwindmills.fantasy.zealots.data.BackgroundLoad;
+import org.tiltedwindmills.fantasy.zealots.data.ExportChangeListener;
+import org.tiltedwindmills.fantasy.zealots.data.ExportChanges;
+import org.tiltedwindmills.fantasy.zealots.data.LeagueWeekResults;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerRegistry;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerScoreRankings;
+import org.tiltedwindmills.fantasy.zealots.data.WeeklyResultsSource;
+import org.tiltedwindmills.fantasy.zealots.metrics.HitCounter;
+import org.tiltedwindmills.fantasy.zealots.metrics.ReportMetrics;
+import org.tiltedwindmills.fantasy.zealots.model.PlayerScoreBreakdown;
+import org.tiltedwindmills.fantasy.zealots.model.PlayerUsage;
+import org.tiltedwindmills.fantasy.zealots.model.RosterUsage;
+
+import com.google.common.base.Objects;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.AtomicLongMap;
+
+/**
+ * {@link ReportService} that aggregates the in-memory weekly results on the {@link AggregationEngine}.  Scores and
+ * starter finishes are kept as running totals through each week, so any range of weeks is answered by
+ * subtracting two of them.  Roster counts and the per-team roll-ups are slices of a {@link ScoreCube} of the whole
+ * season.
+ *
+ * @author John Daniel
+ */
+@Service
+@ConditionalOnProperty(name = "reports.backend", havingValue = "memory", matchIfMissing = true)
+@Order(0)
+public class AggregatingReportService implements ReportService, ExportChangeListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AggregatingReportService.class);
+
+    @Inject
+    private WeeklyResultsSource weeklyResultsSource;
+
+    @Inject
+    private PlayerScoreRankings playerScoreRankings;
+
+    @javax.annotation.Resource
+    private List<League> propertyBasedLeagues;
+
+    @javax.annotation.Resource
+    private BackgroundLoad<PlayerRegistry> playerRegistry;
+
+    @javax.annotation.Resource
+    private AggregationEngine aggregationEngine;
+
+    @Inject
+    private ReportMetrics reportMetrics;
+
+    private static final int SEASON_WEEKS = WeeklyResultsSource.LAST_WEEK - WeeklyResultsSource.FIRST_WEEK + 1;
+
+    // tiers, depth and position all come from the request, so only keep the most recently used variants.
+    private static final int STARTER_WEEK_VARIANTS = 64;
+
+    /**
+     * Fills in each league-week's block of the {@link ScoreCube} and totals each week of the season separately, so
+     * the weeks can be turned into {@link WeeklyPositionScores}, in one pass over the weekly results.
+     */
+    private final LeagueWeekAggregator<ScoringPartial> scoringAggregator = new LeagueWeekAggregator<ScoringPartial>() {
+
+        @Override
+        public ScoringPartial newPartial() {
+            return new ScoringPartial();
+        }
+
+        @Override
+        public void accumulate(final ScoringPartial partial, final League league, final int week) {
+
+            partial.weeks[week - WeeklyResultsSource.FIRST_WEEK] = new PositionScoreTotals();
+            mapWeeklyScoresForLeagueWeek(partial.weeks[week - WeeklyResultsSource.FIRST_WEEK], league, week);
+            mapScoreCubeForLeagueWeek(partial.cube, league, week);
+        }
+
+        @Override
+        public void merge(final ScoringPartial result, final ScoringPartial partial) {
+
+            result.cube.merge(partial.cube);
+
+            // a partial only holds the one week it scored; the rest of its slots are null.
+            for (int i = 0; i < SEASON_WEEKS; i++) {
+                if (partial.weeks[i] != null) {
+                    if (result.weeks[i] == null) {
+                        result.weeks[i] = new PositionScoreTotals();
+                    }
+                    result.weeks[i].merge(partial.weeks[i]);
+                }
+            }
+        }
+    };
+
+    private final LeagueWeekAggregator<RosterIndex.Postings> rosterIndexAggregator =
+            new LeagueWeekAggregator<RosterIndex.Postings>() {
+
+        @Override
+        public RosterIndex.Postings newPartial() {
+            return new RosterIndex.Postings();
+        }
+
+        @Override
+        public void accumulate(final RosterIndex.Postings partial, final League league, final int week) {
+
+            LOG.trace("Indexing week {} for {}", week, league.getName());
+            partial.add(propertyBasedLeagues.indexOf(league), week, weeklyResultsSource.getResults(league, week));
+        }
+
+        @Override
+        public void merge(final RosterIndex.Postings result, final RosterIndex.Postings partial) {
+            result.merge(partial);
+        }
+    };
+
+    // bumped for a position whenever its scores change.  The rankings and starter weeks are cached under the
+    // generation they were loaded for, so a load still reading the old exports is stored where no request looks.
+    private final AtomicLongMap<Position> rankingsGenerations = AtomicLongMap.create();
+
+    // every player's weekly rank at a position, indexed by week.  Kept whole so any tiers, depth or limit can be
+    // ranked without reading the score exports again.  A ranking of an old generation is never asked for again, so
+    // it is the first to go once every position has a current one.
+    private final LoadingCache<RankingsKey, List<int[]>> weeklyRankings =
+            CacheBuilder.newBuilder().maximumSize(Position.values().length)
+                    .build(new CacheLoader<RankingsKey, List<int[]>>() {
+
+        @Override
+        public List<int[]> load(final RankingsKey key) {
+
+            weeklyRankingsCounter.miss();
+            final List<int[]> rankings = new ArrayList<>();
+            for (int week = WeeklyResultsSource.FIRST_WEEK; week <= WeeklyResultsSource.LAST_WEEK; week++) {
+                LOG.debug("Loading week {} for {}", week, key.position);
+                rankings.add(playerScoreRankings.getRankedPlayerIds(key.position, week, Integer.MAX_VALUE));
+            }
+            return rankings;
+        }
+    });
+
+    // the season's score cube and each week's score totals, with the ranges of weeks built from them.  Worked out
+    // together on first use, then only the weeks whose exports change are read again.  Both are published as one
+    // snapshot, so no request sees one taken from newer exports than the other.
+    private final Object scoringLock = new Object();
+    private volatile Scoring scoring;
+
+    private final LoadingCache<StarterWeeksKey, StarterWeekPrefixes> starterWeekPrefixes =
+            CacheBuilder.newBuilder().maximumSize(STARTER_WEEK_VARIANTS)
+                    .build(new CacheLoader<StarterWeeksKey, StarterWeekPrefixes>() {
+
+        @Override
+        public StarterWeekPrefixes load(final StarterWeeksKey key) {
+
+            starterWeeksCounter.miss();
+            weeklyRankingsCounter.lookup();
+            return new StarterWeekPrefixes(weeklyRankings.getUnchecked(key.rankings),
+                    WeeklyResultsSource.FIRST_WEEK, key.tiers, key.depth);
+        }
+    });
+
+    // who rostered whom, built in the background as soon as the weekly results are loaded, then updated a week at a
+    // time as their results change.  Requests never build it; until it is ready they get a DataNotReadyException.
+    private final Object rosterIndexLock = new Object();
+    private volatile BackgroundLoad<RosterIndex> rosterIndex;
+
+    private HitCounter weeklyRankingsCounter;
+    private HitCounter positionScoringCounter;
+    private HitCounter starterWeeksCounter;
+    private HitCounter rosterIndexCounter;
+    private HitCounter scoreCubeCounter;
+
+    public AggregatingReportService() { }
+
+    /**
+     * Reports on a season other than the configured one.
+     *
+     * @param weeklyResultsSource the season's weekly results.
+     * @param playerScoreRankings the season's weekly player rankings.
+     * @param leagues the season's leagues.
+     * @param playerRegistry the season's players.
+     * @param aggregationEngine the engine to aggregate on.
+     * @param reportMetrics where to count cache hits and misses.
+     */
+    public AggregatingReportService(final WeeklyResultsSource weeklyResultsSource,
+                                    final PlayerScoreRankings playerScoreRankings, final List<League> leagues,
+                                    final BackgroundLoad<PlayerRegistry> playerRegistry,
+                                    final AggregationEngine aggregationEngine,
+                                    final ReportMetrics reportMetrics) {
+
+        this.weeklyResultsSource = weeklyResultsSource;
+        this.playerScoreRankings = playerScoreRankings;
+        this.propertyBasedLeagues = leagues;
+        this.playerRegistry = playerRegistry;
+        this.aggregationEngine = aggregationEngine;
+        this.reportMetrics = reportMetrics;
+        postConstruct();
+        rosterIndex.await();
+    }
+
+    @PostConstruct
+    private void postConstruct() {
+
+        checkNotNull(weeklyResultsSource, "weeklyResultsSource cannot be null");
+        checkNotNull(playerScoreRankings, "playerScoreRankings cannot be null");
+        checkNotNull(playerRegistry, "playerRegistry cannot be null");
+        checkNotNull(aggregationEngine, "aggregationEngine cannot be null");
+        checkNotNull(reportMetrics, "reportMetrics cannot be null");
+
+        weeklyRankingsCounter = reportMetrics.cache("weeklyRankings");
+        positionScoringCounter = reportMetrics.cache("positionScoring");
+        starterWeeksCounter = reportMetrics.cache("starterWeeks");
+        rosterIndexCounter = reportMetrics.cache("rosterIndex");
+        scoreCubeCounter = reportMetrics.cache("scoreCube");
+
+        rosterIndex = BackgroundLoad.start("roster index", new Callable<RosterIndex>() {
+
+            @Override
+            public RosterIndex call() {
+
+                weeklyResultsSource.awaitResults();
+                rosterIndexCounter.miss();
+                return RosterIndex.of(leagueNames(), aggregationEngine.aggregate(propertyBasedLeagues,
+                        WeeklyResultsSource.FIRST_WEEK, WeeklyResultsSource.LAST_WEEK, rosterIndexAggregator));
+            }
+        });
+    }
+
+    @Override
+    public PositionScoreTotals positionScoring(final int firstWeek, final int lastWeek) {
+
+        // every request gets its own totals, so concurrent requests can't see each other's scores.
+        return scoring(positionScoringCounter).weeklyScores.between(firstWeek, lastWeek);
+    }
+
+    @Override
+    public PositionCountTotals positionCount() {
+        return scoreCube().positionCount(ROSTER_WEEK, ROSTER_WEEK);
+    }
+
+    @Override
+    public ScoreCube scoreCube() {
+        return scoring(scoreCubeCounter).cube;
+    }
+
+    @Override
+    public List<PlayerScoreBreakdown> starterWeeks(final Position position, final StarterTiers tiers,
+                                                   final int depth, final int limit,
+                                                   final int firstWeek, final int lastWeek) {
+
+        if (position == Position.UNKNOWN) {
+            return new ArrayList<>();
+        }
+
+        final PlayerRegistry players = playerRegistry.get();
+        final int starterDepth = depth > 0 ? depth : PlayerScoreRankings.getLeagueStarterLimit(position);
+        starterWeeksCounter.lookup();
+        final StarterWeekPrefixes prefixes =
+                starterWeekPrefixes.getUnchecked(new StarterWeeksKey(rankingsKey(position), tiers, starterDepth));
+
+        return StarterWeekRanker.select(prefixes.between(firstWeek, lastWeek), tiers, limit, players);
+    }
+
+    @Override
+    public PlayerUsage playerUsage(final int playerId, final int firstWeek, final int lastWeek) {
+
+        checkWeeks(firstWeek, lastWeek);
+        return rosterIndex().playerUsage(playerId, firstWeek, lastWeek, playerRegistry.get());
+    }
+
+    @Override
+    public List<RosterUsage> franchiseUsage(final int firstWeek, final int lastWeek) {
+
+        checkWeeks(firstWeek, lastWeek);
+        final RosterIndex index = rosterIndex();
+        final PlayerRegistry players = playerRegistry.get();
+
+        final List<RosterUsage> usages = new ArrayList<>();
+        for (int i = 0; i < propertyBasedLeagues.size(); i++) {
+
+            final String franchiseId = propertyBasedLeagues.get(i).getFranchiseId();
+            final Integer franchise = franchiseId == null ? null : Ints.tryParse(franchiseId);
+            if (franchise != null) {
+                usages.addAll(index.teamUsage(i, franchise, firstWeek, lastWeek, players));
+            }
+        }
+        return usages;
+    }
+
+
+    /**
+     * Totals and indexes just the weeks whose weekly results changed, and moves the positions whose scores changed
+     * on to a new generation, so their rankings and starter weeks are read again when next asked for.  Loads of the
+     * old generation may still be running, and Guava stores whatever they return, but only under the old
+     * generation's keys, which no request asks for any more.
+     */
+    @Override
+    public void exportsChanged(final ExportChanges changes) {
+
+        if (!changes.getWeeklyResults().isEmpty()) {
+
+            // only the changed weeks are read again; the rest of the cube, totals and index are kept as they are.
+            final Set<Integer> weeks = ImmutableSortedSet.copyOf(changes.getWeeklyResults().values());
+            synchronized (scoringLock) {
+
+                final Scoring current = scoring;
+                if (current != null) {
+
+                    final ScoringPartial changed = new ScoringPartial();
+                    for (int week : weeks) {
+                        scoringAggregator.merge(changed, aggregationEngine.aggregate(propertyBasedLeagues, week, week,
+                                                                                     scoringAggregator));
+                    }
+                    final PositionScoreTotals[] weeklyTotals = current.weeklyTotals.clone();
+                    for (int week : weeks) {
+                        weeklyTotals[week - WeeklyResultsSource.FIRST_WEEK] =
+                                changed.weeks[week - WeeklyResultsSource.FIRST_WEEK];
+                    }
+                    scoring = new Scoring(current.cube.withWeeks(weeks, changed.cube), weeklyTotals);
+                }
+            }
+
+            synchronized (rosterIndexLock) {
+
+                final RosterIndex.Postings changed = new RosterIndex.Postings();
+                for (int week : weeks) {
+                    changed.merge(aggregationEngine.aggregate(propertyBasedLeagues, week, week, rosterIndexAggregator));
+                }
+                rosterIndexCounter.miss();
+                rosterIndex = BackgroundLoad.of("roster index", rosterIndex.await().withWeeks(weeks, changed));
+            }
+        }
+
+        // the new generations go first, so every request from here on reads the changed scores; what was cached
+        // under the old ones is then dropped to free it.
+        for (Position position : changes.getPlayerScores().keySet()) {
+            rankingsGenerations.incrementAndGet(position);
+        }
+
+        final List<RankingsKey> staleRankings = new ArrayList<>();
+        for (RankingsKey key : weeklyRankings.asMap().keySet()) {
+            if (isStale(key)) {
+                staleRankings.add(key);
+            }
+        }
+        weeklyRankings.invalidateAll(staleRankings);
+
+        final List<StarterWeeksKey> staleStarterWeeks = new ArrayList<>();
+        for (StarterWeeksKey key : starterWeekPrefixes.asMap().keySet()) {
+            if (isStale(key.rankings)) {
+                staleStarterWeeks.add(key);
+            }
+        }
+        starterWeekPrefixes.invalidateAll(staleStarterWeeks);
+    }
+
+    private RankingsKey rankingsKey(final Position position) {
+        return new RankingsKey(position, rankingsGenerations.get(position));
+    }
+
+    private boolean isStale(final RankingsKey key) {
+        return key.generation < rankingsGenerations.get(key.position);
+    }
+
+    private Scoring scoring(final HitCounter counter) {
+
+        counter.lookup();
+        Scoring current = scoring;
+        if (current == null) {
+            synchronized (scoringLock) {
+                if (scoring == null) {
+                    counter.miss();
+                    final ScoringPartial season = aggregationEngine.aggregate(propertyBasedLeagues,
+                            WeeklyResultsSource.FIRST_WEEK, WeeklyResultsSource.LAST_WEEK, scoringAggregator);
+                    scoring = new Scoring(ScoreCube.of(leagueNames(), WeeklyResultsSource.FIRST_WEEK,
+                            WeeklyResultsSource.LAST_WEEK, season.cube), season.weeks);
+                }
+                current = scoring;
+            }
+        }
+        return current;
+    }
+
+    private RosterIndex rosterIndex() {
+
+        rosterIndexCounter.lookup();
+        return rosterIndex.get();
+    }
+
+    private List<String> leagueNames() {
+
+        final List<String> leagueNames = new ArrayList<>(propertyBasedLeagues.size());
+        for (League league : propertyBasedLeagues) {
+            leagueNames.add(league.getName());
+        }
+        return leagueNames;
+    }
+
+    private static void checkWeeks(final int firstWeek, final int lastWeek) {
+
+        checkArgument(WeeklyResultsSource.FIRST_WEEK <= firstWeek && firstWeek <= lastWeek
+                && lastWeek <= WeeklyResultsSource.LAST_WEEK,
+                "weeks %s to %s are not a range within weeks %s to %s",
+                firstWeek, lastWeek, WeeklyResultsSource.FIRST_WEEK, WeeklyResultsSource.LAST_WEEK);
+    }
+
+    private static WeeklyPositionScores toWeeklyScores(final PositionScoreTotals[] weeks) {
+
+        final List<PositionScoreTotals> weeklyTotals = new ArrayList<>(SEASON_WEEKS);
+        for (PositionScoreTotals week : weeks) {
+            weeklyTotals.add(week == null ? new PositionScoreTotals() : week);
+        }
+        return new WeeklyPositionScores(WeeklyResultsSource.FIRST_WEEK, weeklyTotals);
+    }
+
+    private void mapWeeklyScoresForLeagueWeek(final PositionScoreTotals totals, final League league, int week) {
+
+        LOG.trace("Scoring week {} for {}", week, league.getName());
+
+        final LeagueWeekResults results = weeklyResultsSource.getResults(league, week);
+        final PlayerRegistry players = playerRegistry.get();
+
+        totals.addTeams(results.getTeamCount());
+
+        for (int i = 0; i < results.getPlayerCount(); i++) {
+
+            if (results.isStarter(i)) {
+
+                final Player player = players.get(results.getPlayerId(i));
+                if (player == null) {
+                    LOG.warn("Count not find player in database for ID {}", results.getPlayerId(i));
+                    continue;
+                }
+
+                LOG.trace("Adding {} score of {} to map for {}",
+                        player.getPosition(), results.getScore(i), player.getName());
+                totals.addScore(player.getPosition(), results.getScore(i));
+            }
+        }
+    }
+
+    private void mapScoreCubeForLeagueWeek(final ScoreCube.Builder cube, final League league, final int week) {
+
+        LOG.trace("Counting week {} for {}", week, league.getName());
+
+        final LeagueWeekResults results = weeklyResultsSource.getResults(league, week);
+        final PlayerRegistry players = playerRegistry.get();
+        final int leagueIndex = propertyBasedLeagues.indexOf(league);
+
+        cube.addTeams(leagueIndex, week, results.getTeamCount());
+
+        for (int i = 0; i < results.getPlayerCount(); i++) {
+
+            final Player player = players.get(results.getPlayerId(i));
+
+            if (player == null) {
+                LOG.debug("Count not find player in database for ID {}", results.getPlayerId(i));
+                cube.addUnknownPlayer(leagueIndex, week, results.getPlayerId(i));
+            }
+            else {
+                LOG.trace("Adding {} week for {}", player.getPosition(), player.getName());
+                cube.add(leagueIndex, week, player.getPosition(), results.isStarter(i), results.getScore(i));
+            }
+        }
+    }
+
+    /**
+     * Some league-weeks' blocks of the cube, and the totals of the weeks they were in; a week with no results is
+     * left null.
+     */
+    private static final class ScoringPartial {
+
+        private final ScoreCube.Builder cube = new ScoreCube.Builder();
+        private final PositionScoreTotals[] weeks = new PositionScoreTotals[SEASON_WEEKS];
+    }
+
+    /**
+     * The score cube and weekly score totals of one set of exports, never changed once published.
+     */
+    private static final class Scoring {
+
+        private final ScoreCube cube;
+        private final PositionScoreTotals[] weeklyTotals;
+        private final WeeklyPositionScores weeklyScores;
+
+        Scoring(final ScoreCube cube, final PositionScoreTotals[] weeklyTotals) {
+            this.cube = cube;
+            this.weeklyTotals = weeklyTotals;
+            this.weeklyScores = toWeeklyScores(weeklyTotals);
+        }
+    }
+
+    private static final class RankingsKey {
+
+        private final Position position;
+        private final long generation;
+
+        RankingsKey(final Position position, final long generation) {
+            this.position = position;
+            this.generation = generation;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+
+            if (!(obj instanceof RankingsKey)) {
+                return false;
+            }
+            final RankingsKey other = (RankingsKey) obj;
+            return position == other.position && generation == other.generation;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(position, generation);
+        }
+    }
+
+    private static final class StarterWeeksKey {
+
+        private final RankingsKey rankings;
+        private final StarterTiers tiers;
+        private final int depth;
+
+        StarterWeeksKey(final RankingsKey rankings, final StarterTiers tiers, final int depth) {
+            this.rankings = rankings;
+            this.tiers = tiers;
+            this.depth = depth;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+
+            if (!(obj instanceof StarterWeeksKey)) {
+                return false;
+            }
+            final StarterWeeksKey other = (StarterWeeksKey) obj;
+            return rankings.equals(other.rankings) && tiers.equals(other.tiers) && depth == other.depth;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(rankings, tiers, depth);
+        }
+    }
+}
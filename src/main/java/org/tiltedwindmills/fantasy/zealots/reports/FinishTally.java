@@ -0,0 +1,208 @@
+package org.tiltedwindmills.fantasy.zealots.reports;
+
+import java.util.Arrays;
+
+/**
+ * Per-player tier finish counts keyed by MFL player id.  Players get a dense slot the first time they are seen,
+ * found through an open addressed {@code int} table, and their counts live in one flat {@code int[]}, so
+ * tallying a season is a probe and an increment per ranked player with no boxing or list scans.
+ *
+ * @author John Daniel
+ */
+final class FinishTally {
+
+    private final int tierCount;
+
+    // open addressed player id -> slot + 1, zero marks an empty bucket.
+    private int[] keys;
+    private int[] slots;
+    private int mask;
+
+    private int[] playerIds;
+    private int[] ranked;
+    private int[] lastRanks;
+    private int[] counts;
+    private int size;
+
+    FinishTally(final int tierCount, final int expectedPlayers) {
+
+        this.tierCount = tierCount;
+
+        int capacity = 16;
+        while (capacity < expectedPlayers * 2) {
+            capacity <<= 1;
+        }
+        keys = new int[capacity];
+        slots = new int[capacity];
+        mask = capacity - 1;
+
+        playerIds = new int[Math.max(16, expectedPlayers)];
+        ranked = new int[playerIds.length];
+        lastRanks = new int[playerIds.length];
+        counts = new int[playerIds.length * tierCount];
+    }
+
+    private FinishTally(final FinishTally other) {
+
+        tierCount = other.tierCount;
+        keys = other.keys.clone();
+        slots = other.slots.clone();
+        mask = other.mask;
+        playerIds = Arrays.copyOf(other.playerIds, other.size);
+        ranked = Arrays.copyOf(other.ranked, other.size);
+        lastRanks = Arrays.copyOf(other.lastRanks, other.size);
+        counts = Arrays.copyOf(other.counts, other.size * tierCount);
+        size = other.size;
+    }
+
+    /**
+     * Records that a player was ranked, with a finish in {@code tier} or none when {@code tier} is negative.
+     *
+     * @param playerId the player.
+     * @param rank the player's index in the ranking.
+     * @param tier the tier of the finish.
+     * @return the player's slot.
+     */
+    int add(final int playerId, final int rank, final int tier) {
+
+        final int slot = slot(playerId);
+        ranked[slot]++;
+        lastRanks[slot] = rank;
+        if (tier >= 0) {
+            counts[slot * tierCount + tier]++;
+        }
+        return slot;
+    }
+
+    /**
+     * @return an independent copy of the tally so far, to be passed to {@link #since} once more is added.
+     */
+    FinishTally copy() {
+        return new FinishTally(this);
+    }
+
+    /**
+     * Works out what was added to this tally after {@code earlier} was copied from it.  Slots only ever grow at
+     * the end, so the two tallies line up slot for slot and the difference is a subtraction per count.
+     *
+     * @param earlier a {@link #copy} of this tally.
+     * @param slotOrder this tally's slots in the order the difference should hold them; slots with nothing
+     *          ranked since are skipped.
+     * @return the finishes added since, holding only the players ranked since.
+     */
+    FinishTally since(final FinishTally earlier, final int[] slotOrder) {
+
+        final FinishTally difference = new FinishTally(tierCount, slotOrder.length);
+        for (int slot : slotOrder) {
+
+            final boolean before = slot < earlier.size;
+            final int rankedSince = ranked[slot] - earlier.ranked(slot);
+            if (rankedSince == 0) {
+                continue;
+            }
+
+            final int differenceSlot = difference.slot(playerIds[slot]);
+            difference.ranked[differenceSlot] = rankedSince;
+            difference.lastRanks[differenceSlot] = lastRanks[slot];
+            for (int tier = 0; tier < tierCount; tier++) {
+                difference.counts[differenceSlot * tierCount + tier] =
+                        count(slot, tier) - (before ? earlier.count(slot, tier) : 0);
+            }
+        }
+        return difference;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int tierCount() {
+        return tierCount;
+    }
+
+    int playerId(final int slot) {
+        return playerIds[slot];
+    }
+
+    /**
+     * @return how many times the player in a slot has been ranked; none for slots not taken yet.
+     */
+    int ranked(final int slot) {
+        return slot < size ? ranked[slot] : 0;
+    }
+
+    /**
+     * @return the player's index in the ranking they were last ranked in.
+     */
+    int lastRank(final int slot) {
+        return lastRanks[slot];
+    }
+
+    int count(final int slot, final int tier) {
+        return counts[slot * tierCount + tier];
+    }
+
+    int[] counts(final int slot) {
+        return Arrays.copyOfRange(counts, slot * tierCount, (slot + 1) * tierCount);
+    }
+
+    int grade(final int slot, final int[] weights) {
+
+        int grade = 0;
+        for (int tier = 0; tier < tierCount; tier++) {
+            grade += weights[tier] * counts[slot * tierCount + tier];
+        }
+        return grade;
+    }
+
+    private int slot(final int playerId) {
+
+        int bucket = bucket(playerId);
+        while (slots[bucket] != 0) {
+            if (keys[bucket] == playerId) {
+                return slots[bucket] - 1;
+            }
+            bucket = (bucket + 1) & mask;
+        }
+
+        if (size == playerIds.length) {
+            final int capacity = Math.max(16, size * 2);
+            playerIds = Arrays.copyOf(playerIds, capacity);
+            ranked = Arrays.copyOf(ranked, capacity);
+            lastRanks = Arrays.copyOf(lastRanks, capacity);
+            counts = Arrays.copyOf(counts, capacity * tierCount);
+        }
+        playerIds[size] = playerId;
+
+        keys[bucket] = playerId;
+        slots[bucket] = ++size;
+
+        if (size * 2 > keys.length) {
+            rehash();
+        }
+        return size - 1;
+    }
+
+    private void rehash() {
+
+        keys = new int[keys.length * 2];
+        slots = new int[keys.length];
+        mask = keys.length - 1;
+
+        for (int slot = 0; slot < size; slot++) {
+            int bucket = bucket(playerIds[slot]);
+            while (slots[bucket] != 0) {
+                bucket = (bucket + 1) & mask;
+            }
+            keys[bucket] = playerIds[slot];
+            slots[bucket] = slot + 1;
+        }
+    }
+
+    private int bucket(final int playerId) {
+
+        // MFL ids are clustered, so spread them before masking.
+        final int hash = playerId * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,197 @@
+package org.tiltedwindmills.fantasy.zealots.reports;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+import org.tiltedwindmills.fantasy.zealots.aggregation.PositionCountTotals;
+import org.tiltedwindmills.fantasy.zealots.aggregation.PositionScoreTotals;
+import org.tiltedwindmills.fantasy.zealots.aggregation.ScoreCube;
+import org.tiltedwindmills.fantasy.zealots.data.DataNotReadyException;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerScoreRankings;
+import org.tiltedwindmills.fantasy.zealots.data.WeeklyResultsSource;
+import org.tiltedwindmills.fantasy.zealots.metrics.HitCounter;
+import org.tiltedwindmills.fantasy.zealots.metrics.ReportMetrics;
+import org.tiltedwindmills.fantasy.zealots.model.PlayerScoreBreakdown;
+import org.tiltedwindmills.fantasy.zealots.model.PlayerUsage;
+import org.tiltedwindmills.fantasy.zealots.model.RosterUsage;
+
+import com.google.common.base.Stopwatch;
+
+/**
+ * {@link ReportService} that answers the reports the pages link to from a snapshot built ahead of time: position
+ * scoring, position counts, the score cube and the configured franchise's rosters for the whole season, and the
+ * default starter weeks of every position.  The snapshot is rebuilt by {@link #refresh()} in the background and
+ * swapped in once complete, so requests always get the last complete one straight away.  Each request gets its
+ * own copy of the mutable results, so nothing a caller does to one can change the snapshot.  Anything else, and
+ * everything until the first snapshot is built, is passed through to the wrapped service.
+ *
+ * @author John Daniel
+ */
+public class PrecomputedReportService implements ReportService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PrecomputedReportService.class);
+
+    private final ReportService reportService;
+    private final HitCounter precomputedCounter;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * @param reportService computes the reports.
+     * @param reportMetrics where to count how many requests the snapshot answers.
+     */
+    public PrecomputedReportService(final ReportService reportService, final ReportMetrics reportMetrics) {
+
+        this.reportService = checkNotNull(reportService, "reportService cannot be null");
+        this.precomputedCounter = checkNotNull(reportMetrics, "reportMetrics cannot be null").cache("precomputed");
+    }
+
+    /**
+     * Builds a new snapshot and swaps it in.  A refresh that fails, or finds the data still loading, leaves the
+     * previous snapshot, if any, in place and returns; the caller's next refresh tries again.  Refreshes run one at
+     * a time, so a snapshot never replaces a newer one.
+     */
+    public synchronized void refresh() {
+
+        try {
+            final Stopwatch stopwatch = Stopwatch.createStarted();
+            snapshot = new Snapshot(reportService);
+            LOG.info("Precomputed reports in {}", stopwatch);
+
+        } catch (DataNotReadyException e) {
+            LOG.info("{} the reports: {}", snapshot == null ? "Not yet precomputing" : "Keeping the previous",
+                     e.getMessage());
+
+        } catch (RuntimeException e) {
+            LOG.error("Failed to precompute reports", e);
+        }
+    }
+
+    public boolean isPrecomputed() {
+        return snapshot != null;
+    }
+
+    @Override
+    public PositionScoreTotals positionScoring(final int firstWeek, final int lastWeek) {
+
+        final Snapshot current = snapshot;
+        precomputedCounter.lookup();
+        if (current != null && firstWeek == WeeklyResultsSource.FIRST_WEEK
+                && lastWeek == WeeklyResultsSource.LAST_WEEK) {
+            return current.positionScoring.copy();
+        }
+
+        precomputedCounter.miss();
+        return reportService.positionScoring(firstWeek, lastWeek);
+    }
+
+    @Override
+    public PositionCountTotals positionCount() {
+
+        final Snapshot current = snapshot;
+        precomputedCounter.lookup();
+        if (current != null) {
+            final PositionCountTotals copy = new PositionCountTotals();
+            copy.merge(current.positionCount);
+            return copy;
+        }
+
+        precomputedCounter.miss();
+        return reportService.positionCount();
+    }
+
+    @Override
+    public List<PlayerScoreBreakdown> starterWeeks(final Position position, final StarterTiers tiers,
+                                                   final int depth, final int limit,
+                                                   final int firstWeek, final int lastWeek) {
+
+        final Snapshot current = snapshot;
+        precomputedCounter.lookup();
+
+        // the top rows of a ranking are the start of the whole ranking, so any limit is a slice of the snapshot.
+        final List<PlayerScoreBreakdown> ranked = current == null ? null : current.starterWeeks.get(position);
+        if (ranked != null && StarterTiers.DEFAULT.equals(tiers)
+                && (depth == 0 || depth == PlayerScoreRankings.getLeagueStarterLimit(position))
+                && firstWeek == WeeklyResultsSource.FIRST_WEEK && lastWeek == WeeklyResultsSource.LAST_WEEK) {
+            final List<PlayerScoreBreakdown> copy = new ArrayList<>();
+            for (PlayerScoreBreakdown row : limit > 0 && limit < ranked.size() ? ranked.subList(0, limit) : ranked) {
+                copy.add(row.copy());
+            }
+            return copy;
+        }
+
+        precomputedCounter.miss();
+        return reportService.starterWeeks(position, tiers, depth, limit, firstWeek, lastWeek);
+    }
+
+    @Override
+    public ScoreCube scoreCube() {
+
+        final Snapshot current = snapshot;
+        precomputedCounter.lookup();
+        if (current != null) {
+            return current.scoreCube;
+        }
+
+        precomputedCounter.miss();
+        return reportService.scoreCube();
+    }
+
+    @Override
+    public PlayerUsage playerUsage(final int playerId, final int firstWeek, final int lastWeek) {
+        return reportService.playerUsage(playerId, firstWeek, lastWeek);
+    }
+
+    @Override
+    public List<RosterUsage> franchiseUsage(final int firstWeek, final int lastWeek) {
+
+        final Snapshot current = snapshot;
+        precomputedCounter.lookup();
+        if (current != null && firstWeek == WeeklyResultsSource.FIRST_WEEK
+                && lastWeek == WeeklyResultsSource.LAST_WEEK) {
+            return current.franchiseUsage;
+        }
+
+        precomputedCounter.miss();
+        return reportService.franchiseUsage(firstWeek, lastWeek);
+    }
+
+    /**
+     * One complete set of precomputed reports; never changed once built, and never handed out.  The cube and the
+     * franchise's rosters are immutable, so they are shared.
+     */
+    private static final class Snapshot {
+
+        private final PositionScoreTotals positionScoring;
+        private final PositionCountTotals positionCount;
+        private final ScoreCube scoreCube;
+        private final List<RosterUsage> franchiseUsage;
+        private final Map<Position, List<PlayerScoreBreakdown>> starterWeeks = new EnumMap<>(Position.class);
+
+        Snapshot(final ReportService reportService) {
+
+            positionScoring = reportService.positionScoring(WeeklyResultsSource.FIRST_WEEK,
+                                                            WeeklyResultsSource.LAST_WEEK);
+            positionCount = reportService.positionCount();
+            scoreCube = reportService.scoreCube();
+            franchiseUsage = Collections.unmodifiableList(reportService.franchiseUsage(
+                    WeeklyResultsSource.FIRST_WEEK, WeeklyResultsSource.LAST_WEEK));
+
+            for (Position position : Position.values()) {
+                if (PlayerScoreRankings.getLeagueStarterLimit(position) > 0) {
+                    starterWeeks.put(position, Collections.unmodifiableList(reportService.starterWeeks(
+                            position, StarterTiers.DEFAULT, 0, 0,
+                            WeeklyResultsSource.FIRST_WEEK, WeeklyResultsSource.LAST_WEEK)));
+                }
+            }
+        }
+    }
+}
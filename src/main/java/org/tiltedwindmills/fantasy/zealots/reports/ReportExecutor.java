@@ -0,0 +1,115 @@
+package org.tiltedwindmills.fantasy.zealots.reports;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tiltedwindmills.fantasy.zealots.metrics.HitCounter;
+import org.tiltedwindmills.fantasy.zealots.metrics.ReportMetrics;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Works out reports off the request threads, on a fixed pool of its own, so slow reports can't use up the
+ * server's connector threads.  Requests for a report that is already being worked out share that computation
+ * rather than starting another, so a burst of identical requests costs one computation.  Only so many reports
+ * can wait for a thread; beyond that, requests are turned away with a {@link ReportsBusyException} instead of
+ * piling up.
+ *
+ * @author John Daniel
+ */
+public class ReportExecutor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReportExecutor.class);
+
+    private final ThreadPoolExecutor executor;
+    private final ReportMetrics reportMetrics;
+    private final HitCounter inFlightCounter;
+
+    // the reports being worked out or waiting for a thread, by key.  Removed as soon as each completes.
+    private final ConcurrentMap<Object, ListenableFuture<?>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param threads how many reports to work out at once.
+     * @param queueDepth how many more reports can wait for a thread.
+     * @param reportMetrics where to count shared and rejected reports.
+     */
+    public ReportExecutor(final int threads, final int queueDepth, final ReportMetrics reportMetrics) {
+
+        checkArgument(threads > 0, "threads must be positive");
+        checkArgument(queueDepth > 0, "queueDepth must be positive");
+
+        this.reportMetrics = checkNotNull(reportMetrics, "reportMetrics cannot be null");
+        this.inFlightCounter = reportMetrics.cache("inFlightReports");
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueDepth),
+                new ThreadFactoryBuilder().setNameFormat("report-%d").setDaemon(true).build());
+
+        LOG.info("Working out reports on {} threads, with up to {} more waiting", threads, queueDepth);
+    }
+
+    /**
+     * Works out a report, or joins the computation of an identical one already under way.
+     *
+     * @param key identifies the report, including every parameter it depends on.  Equal keys must be for
+     *          computations of the same type.
+     * @param computation works out the report.
+     * @return the report, once worked out.
+     * @throws ReportsBusyException if too many reports are already waiting.
+     */
+    public <V> ListenableFuture<V> submit(final Object key, final Callable<V> computation) {
+
+        inFlightCounter.lookup();
+
+        final ListenableFutureTask<V> task = ListenableFutureTask.create(computation);
+        for (;;) {
+            @SuppressWarnings("unchecked")
+            final ListenableFuture<V> existing = (ListenableFuture<V>) inFlight.putIfAbsent(key, task);
+            if (existing == null) {
+                break;
+            }
+            if (!existing.isDone()) {
+                return existing;
+            }
+            // finished, but not yet removed; a new request gets a fresh computation.
+            inFlight.remove(key, existing);
+        }
+
+        inFlightCounter.miss();
+        task.addListener(new Runnable() {
+
+            @Override
+            public void run() {
+                inFlight.remove(key, task);
+            }
+        }, MoreExecutors.directExecutor());
+
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, task);
+            reportMetrics.recordRejected();
+            throw new ReportsBusyException(executor.getQueue().size() + " reports already waiting");
+        }
+        return task;
+    }
+
+    /**
+     * Stops the report threads.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,76 @@
+package org.tiltedwindmills.fantasy.zealots.reports;
+
+import java.util.List;
+
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+import org.tiltedwindmills.fantasy.zealots.aggregation.PositionCountTotals;
+import org.tiltedwindmills.fantasy.zealots.aggregation.PositionScoreTotals;
+import org.tiltedwindmills.fantasy.zealots.aggregation.ScoreCube;
+import org.tiltedwindmills.fantasy.zealots.model.PlayerScoreBreakdown;
+import org.tiltedwindmills.fantasy.zealots.model.PlayerUsage;
+import org.tiltedwindmills.fantasy.zealots.model.RosterUsage;
+
+/**
+ * Computes the reports behind the controllers.  The implementation is picked with the {@code reports.backend}
+ * property: {@code memory} aggregates the loaded weekly results, {@code h2} runs SQL against the fact store.
+ *
+ * @author John Daniel
+ */
+public interface ReportService {
+
+    // week 13 seems good for roster counts since generally all the owners will still care.
+    int ROSTER_WEEK = 13;
+
+    /**
+     * @param firstWeek the first week to include, no earlier than {@code WeeklyResultsSource.FIRST_WEEK}.
+     * @param lastWeek the last week to include, no later than {@code WeeklyResultsSource.LAST_WEEK}.
+     * @return the total starter score per position across every league for the weeks, and the number of teams
+     *          those scores came from.
+     * @throws IllegalArgumentException if the weeks are not a range within the regular season.
+     */
+    PositionScoreTotals positionScoring(int firstWeek, int lastWeek);
+
+    /**
+     * @return the number of rostered players per position across every league in week 13.
+     */
+    PositionCountTotals positionCount();
+
+    /**
+     * @param position the position to rank.
+     * @param tiers the finishing tiers and their weights.
+     * @param depth how far down each week's ranking counts as a starter, or {@code 0} for the position's
+     *          league-wide starter count.
+     * @param limit the most players to return, or {@code 0} for all of them.
+     * @param firstWeek the first week to include, no earlier than {@code WeeklyResultsSource.FIRST_WEEK}.
+     * @param lastWeek the last week to include, no later than {@code WeeklyResultsSource.LAST_WEEK}.
+     * @return the players who finished as a weekly starter at the position during the weeks, best first.
+     * @throws IllegalArgumentException if the weeks are not a range within the regular season.
+     */
+    List<PlayerScoreBreakdown> starterWeeks(Position position, StarterTiers tiers, int depth, int limit,
+                                            int firstWeek, int lastWeek);
+
+    /**
+     * @return every rostered player's count and score by league, week, position and status, for the whole
+     *          season.  Never changed once returned.
+     */
+    ScoreCube scoreCube();
+
+    /**
+     * @param playerId the MFL player id.
+     * @param firstWeek the first week to include, no earlier than {@code WeeklyResultsSource.FIRST_WEEK}.
+     * @param lastWeek the last week to include, no later than {@code WeeklyResultsSource.LAST_WEEK}.
+     * @return how often the player was rostered and started across every league for the weeks, with a row per
+     *          team that rostered them, most starts first.
+     * @throws IllegalArgumentException if the weeks are not a range within the regular season.
+     */
+    PlayerUsage playerUsage(int playerId, int firstWeek, int lastWeek);
+
+    /**
+     * @param firstWeek the first week to include, no earlier than {@code WeeklyResultsSource.FIRST_WEEK}.
+     * @param lastWeek the last week to include, no later than {@code WeeklyResultsSource.LAST_WEEK}.
+     * @return a row per player the configured franchise rostered in each league for the weeks, by league and
+     *          then most starts first.
+     * @throws IllegalArgumentException if the weeks are not a range within the regular season.
+     */
+    List<RosterUsage> franchiseUsage(int firstWeek, int lastWeek);
+}
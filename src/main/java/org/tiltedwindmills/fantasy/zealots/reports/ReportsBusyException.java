@@ -0,0 +1,19 @@
+package org.tiltedwindmills.fantasy.zealots.reports;
+
+/**
+ * Thrown when too many reports are already waiting to be worked out.  The web layer answers it with a
+ * {@code 503 Service Unavailable}, so clients know to retry.
+ *
+ * @author John Daniel
+ */
+public class ReportsBusyException extends RuntimeException {
+
+    private static final long serialVersionUID = -3316872470180536511L;
+
+    /**
+     * @param message why the report was turned away.
+     */
+    public ReportsBusyException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,405 @@
+package org.tiltedwindmills.fantasy.zealots.reports;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.tiltedwindmills.fantasy.zealots.data.LeagueWeekResults;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerRegistry;
+import org.tiltedwindmills.fantasy.zealots.model.PlayerUsage;
+import org.tiltedwindmills.fantasy.zealots.model.RosterUsage;
+
+/**
+ * Every rostered player of every league-week, indexed by player and by team, so who rostered a player, or whom a
+ * team rostered, is a binary search and a walk over that player's or team's postings rather than a scan of the
+ * weekly results.  A posting is one player on one team in one week, packed into an int with the player's score
+ * alongside; each player's postings are kept together, ordered by league, franchise and week.
+ *
+ * @author John Daniel
+ */
+final class RosterIndex {
+
+    // a posting, from the top bit down: league index, franchise id, week, and whether the player started.
+    private static final int WEEK_SHIFT = 1;
+    private static final int FRANCHISE_SHIFT = 9;
+    private static final int LEAGUE_SHIFT = 21;
+    private static final int MAX_WEEK = (1 << (FRANCHISE_SHIFT - WEEK_SHIFT)) - 1;
+    private static final int MAX_FRANCHISE = (1 << (LEAGUE_SHIFT - FRANCHISE_SHIFT)) - 1;
+    private static final int MAX_LEAGUES = 1 << (Integer.SIZE - 1 - LEAGUE_SHIFT);
+
+    private static final Comparator<RosterUsage> MOST_STARTED = new Comparator<RosterUsage>() {
+
+        @Override
+        public int compare(final RosterUsage left, final RosterUsage right) {
+
+            if (left.getStartedWeeks() != right.getStartedWeeks()) {
+                return right.getStartedWeeks() - left.getStartedWeeks();
+            }
+            if (left.getRosteredWeeks() != right.getRosteredWeeks()) {
+                return right.getRosteredWeeks() - left.getRosteredWeeks();
+            }
+            return Double.compare(right.getStarterPoints(), left.getStarterPoints());
+        }
+    };
+
+    private final List<String> leagueNames;
+
+    // bit n is set if the league has results for week n.
+    private final long[] leagueWeeks;
+
+    // the distinct player ids in order, and where each one's postings start.
+    private final int[] playerIds;
+    private final int[] playerOffsets;
+
+    private final int[] postings;
+    private final int[] postingPlayerIds;
+    private final double[] scores;
+
+    // every posting's slot, ordered by league, franchise and week.
+    private final int[] byTeam;
+
+    private RosterIndex(final List<String> leagueNames, final Postings unordered) {
+
+        this.leagueNames = new ArrayList<>(leagueNames);
+        this.leagueWeeks = Arrays.copyOf(unordered.leagueWeeks, leagueNames.size());
+
+        final int size = unordered.size;
+
+        // ordering the packed postings, with their arrival order in the low half, orders them by team and week.
+        final long[] ordered = new long[size];
+        for (int i = 0; i < size; i++) {
+            ordered[i] = (long) unordered.postings[i] << Integer.SIZE | i;
+        }
+        Arrays.sort(ordered);
+
+        final int[] sortedIds = Arrays.copyOf(unordered.playerIds, size);
+        Arrays.sort(sortedIds);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || sortedIds[i] != sortedIds[i - 1]) {
+                sortedIds[distinct++] = sortedIds[i];
+            }
+        }
+        playerIds = Arrays.copyOf(sortedIds, distinct);
+
+        playerOffsets = new int[distinct + 1];
+        for (int i = 0; i < size; i++) {
+            playerOffsets[Arrays.binarySearch(playerIds, unordered.playerIds[i]) + 1]++;
+        }
+        for (int i = 0; i < distinct; i++) {
+            playerOffsets[i + 1] += playerOffsets[i];
+        }
+
+        // dealing the ordered postings out to their players keeps each player's postings in team and week order.
+        postings = new int[size];
+        postingPlayerIds = new int[size];
+        scores = new double[size];
+        byTeam = new int[size];
+        final int[] next = Arrays.copyOf(playerOffsets, distinct);
+        for (int i = 0; i < size; i++) {
+
+            final int arrival = (int) ordered[i];
+            final int slot = next[Arrays.binarySearch(playerIds, unordered.playerIds[arrival])]++;
+            postings[slot] = unordered.postings[arrival];
+            postingPlayerIds[slot] = unordered.playerIds[arrival];
+            scores[slot] = unordered.scores[arrival];
+            byTeam[i] = slot;
+        }
+    }
+
+    /**
+     * Orders a season's postings into an index.
+     *
+     * @param leagueNames the configured names of the leagues, by the indexes the postings were added under.
+     * @param postings every league-week's postings.
+     * @return the index.
+     */
+    static RosterIndex of(final List<String> leagueNames, final Postings postings) {
+        return new RosterIndex(leagueNames, postings);
+    }
+
+    /**
+     * @return the number of league-weeks with results in the range.
+     */
+    int leagueWeeks(final int firstWeek, final int lastWeek) {
+
+        final long weeks = weekMask(firstWeek, lastWeek);
+        int count = 0;
+        for (long leagueWeekMask : leagueWeeks) {
+            count += Long.bitCount(leagueWeekMask & weeks);
+        }
+        return count;
+    }
+
+    /**
+     * @param playerId the MFL player id.
+     * @param firstWeek the first week to include.
+     * @param lastWeek the last week to include.
+     * @param players names the player.
+     * @return how the player was used, with a row per team that rostered them, most starts first.
+     */
+    PlayerUsage playerUsage(final int playerId, final int firstWeek, final int lastWeek,
+                            final PlayerRegistry players) {
+
+        final List<RosterUsage> teams = new ArrayList<>();
+        final int player = Arrays.binarySearch(playerIds, playerId);
+        if (player >= 0) {
+
+            // the postings are in team order, so each team's weeks are a run.
+            int from = playerOffsets[player];
+            final int end = playerOffsets[player + 1];
+            while (from < end) {
+                int to = from + 1;
+                while (to < end && team(postings[to]) == team(postings[from])) {
+                    to++;
+                }
+                final RosterUsage usage = usage(postings[from], playerId, players, from, to, firstWeek, lastWeek);
+                if (usage.getRosteredWeeks() > 0) {
+                    teams.add(usage);
+                }
+                from = to;
+            }
+        }
+
+        Collections.sort(teams, MOST_STARTED);
+        return new PlayerUsage(playerId, players.get(playerId), leagueWeeks(firstWeek, lastWeek), teams);
+    }
+
+    /**
+     * @param leagueIndex the league, by the index its postings were added under.
+     * @param franchiseId the team's MFL franchise id.
+     * @param firstWeek the first week to include.
+     * @param lastWeek the last week to include.
+     * @param players names the players.
+     * @return a row per player the team rostered in the weeks, most starts first.
+     */
+    List<RosterUsage> teamUsage(final int leagueIndex, final int franchiseId, final int firstWeek,
+                                final int lastWeek, final PlayerRegistry players) {
+
+        final List<RosterUsage> usages = new ArrayList<>();
+        if (leagueIndex >= leagueNames.size() || franchiseId < 0 || franchiseId > MAX_FRANCHISE) {
+            return usages;
+        }
+
+        final int team = leagueIndex << (LEAGUE_SHIFT - FRANCHISE_SHIFT) | franchiseId;
+        final long weeks = weekMask(firstWeek, lastWeek);
+
+        // a posting's slot is among its player's, so ordering the team's slots in the weeks groups them by player.
+        int[] slots = new int[16];
+        int size = 0;
+        for (int i = firstByTeam(team); i < byTeam.length && team(postings[byTeam[i]]) == team; i++) {
+            if ((weeks & 1L << week(postings[byTeam[i]])) != 0) {
+                if (size == slots.length) {
+                    slots = Arrays.copyOf(slots, size * 2);
+                }
+                slots[size++] = byTeam[i];
+            }
+        }
+        Arrays.sort(slots, 0, size);
+
+        // each player's weeks on the team: rostered, started, and points as a starter.
+        int from = 0;
+        while (from < size) {
+
+            final int playerId = postingPlayerIds[slots[from]];
+            int to = from;
+            int started = 0;
+            double points = 0;
+            while (to < size && postingPlayerIds[slots[to]] == playerId) {
+                if (isStarter(postings[slots[to]])) {
+                    started++;
+                    points += scores[slots[to]];
+                }
+                to++;
+            }
+            usages.add(new RosterUsage(leagueNames.get(leagueIndex), franchiseId, playerId, players.get(playerId),
+                                       to - from, started, points));
+            from = to;
+        }
+        Collections.sort(usages, MOST_STARTED);
+        return usages;
+    }
+
+    /**
+     * Replaces some weeks' postings in every league, keeping every other week's as they are, so a changed week
+     * costs ordering the postings again rather than reading the whole season.
+     *
+     * @param weeks the weeks to replace.
+     * @param replacements every league's postings for those weeks.
+     * @return the updated index; this one is left unchanged.
+     */
+    RosterIndex withWeeks(final Collection<Integer> weeks, final Postings replacements) {
+
+        long replaced = 0;
+        for (int week : weeks) {
+            checkArgument(week >= 0 && week < Long.SIZE, "cannot index week %s", week);
+            replaced |= 1L << week;
+        }
+
+        final Postings kept = new Postings();
+        kept.ensureCapacity(postings.length + replacements.size);
+        for (int slot = 0; slot < postings.length; slot++) {
+            if ((replaced & 1L << week(postings[slot])) == 0) {
+                kept.append(postingPlayerIds[slot], postings[slot], scores[slot]);
+            }
+        }
+        for (int league = 0; league < leagueWeeks.length; league++) {
+            kept.leagueWeek(league, leagueWeeks[league] & ~replaced);
+        }
+        kept.merge(replacements);
+        return new RosterIndex(leagueNames, kept);
+    }
+
+    private RosterUsage usage(final int posting, final int playerId, final PlayerRegistry players,
+                              final int from, final int to, final int firstWeek, final int lastWeek) {
+
+        int rostered = 0;
+        int started = 0;
+        double points = 0;
+        for (int slot = from; slot < to; slot++) {
+            final int week = week(postings[slot]);
+            if (week >= firstWeek && week <= lastWeek) {
+                rostered++;
+                if (isStarter(postings[slot])) {
+                    started++;
+                    points += scores[slot];
+                }
+            }
+        }
+        return new RosterUsage(leagueNames.get(posting >>> LEAGUE_SHIFT), franchise(posting), playerId,
+                               players.get(playerId), rostered, started, points);
+    }
+
+    // the first position in byTeam of the team's postings, or where they would be.
+    private int firstByTeam(final int team) {
+
+        int low = 0;
+        int high = byTeam.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (team(postings[byTeam[mid]]) < team) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long weekMask(final int firstWeek, final int lastWeek) {
+
+        long mask = 0;
+        for (int week = Math.max(firstWeek, 0); week <= Math.min(lastWeek, Long.SIZE - 1); week++) {
+            mask |= 1L << week;
+        }
+        return mask;
+    }
+
+    private static int team(final int posting) {
+        return posting >>> FRANCHISE_SHIFT;
+    }
+
+    private static int franchise(final int posting) {
+        return (posting >>> FRANCHISE_SHIFT) & MAX_FRANCHISE;
+    }
+
+    private static int week(final int posting) {
+        return (posting >>> WEEK_SHIFT) & MAX_WEEK;
+    }
+
+    private static boolean isStarter(final int posting) {
+        return (posting & 1) != 0;
+    }
+
+    /**
+     * The postings of some league-weeks in the order they were read.  Each league-week's postings are gathered
+     * on their own aggregation thread, then merged and ordered into a {@link RosterIndex}.
+     */
+    static final class Postings {
+
+        private int[] playerIds = new int[64];
+        private int[] postings = new int[64];
+        private double[] scores = new double[64];
+        private int size;
+
+        private long[] leagueWeeks = new long[0];
+
+        /**
+         * Adds every player rostered in one league-week.
+         *
+         * @param leagueIndex the league's index among the configured leagues.
+         * @param week the week.
+         * @param results the league-week's results.
+         */
+        void add(final int leagueIndex, final int week, final LeagueWeekResults results) {
+
+            checkArgument(leagueIndex >= 0 && leagueIndex < MAX_LEAGUES, "cannot index more than %s leagues",
+                          MAX_LEAGUES);
+            checkArgument(week >= 0 && week < Long.SIZE, "cannot index week %s", week);
+
+            if (results.getTeamCount() > 0) {
+                leagueWeek(leagueIndex, 1L << week);
+            }
+
+            ensureCapacity(size + results.getPlayerCount());
+            for (int i = 0; i < results.getPlayerCount(); i++) {
+
+                final int franchiseId = results.getFranchiseId(i);
+                checkArgument(franchiseId >= 0 && franchiseId <= MAX_FRANCHISE, "cannot index franchise %s",
+                              franchiseId);
+
+                append(results.getPlayerId(i), leagueIndex << LEAGUE_SHIFT | franchiseId << FRANCHISE_SHIFT
+                        | week << WEEK_SHIFT | (results.isStarter(i) ? 1 : 0), results.getScore(i));
+            }
+        }
+
+        /**
+         * Adds another set of postings.
+         *
+         * @param other the other postings, which are left unchanged.
+         */
+        void merge(final Postings other) {
+
+            ensureCapacity(size + other.size);
+            System.arraycopy(other.playerIds, 0, playerIds, size, other.size);
+            System.arraycopy(other.postings, 0, postings, size, other.size);
+            System.arraycopy(other.scores, 0, scores, size, other.size);
+            size += other.size;
+
+            for (int league = 0; league < other.leagueWeeks.length; league++) {
+                leagueWeek(league, other.leagueWeeks[league]);
+            }
+        }
+
+        private void append(final int playerId, final int posting, final double score) {
+
+            playerIds[size] = playerId;
+            postings[size] = posting;
+            scores[size] = score;
+            size++;
+        }
+
+        private void leagueWeek(final int leagueIndex, final long weeks) {
+
+            if (leagueIndex >= leagueWeeks.length) {
+                leagueWeeks = Arrays.copyOf(leagueWeeks, leagueIndex + 1);
+            }
+            leagueWeeks[leagueIndex] |= weeks;
+        }
+
+        private void ensureCapacity(final int capacity) {
+
+            if (capacity > postings.length) {
+                final int grown = Math.max(capacity, postings.length * 2);
+                playerIds = Arrays.copyOf(playerIds, grown);
+                postings = Arrays.copyOf(postings, grown);
+                scores = Arrays.copyOf(scores, grown);
+            }
+        }
+    }
+}
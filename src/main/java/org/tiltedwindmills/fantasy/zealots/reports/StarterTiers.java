@@ -0,0 +1,137 @@
+package org.tiltedwindmills.fantasy.zealots.reports;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The finishing tiers the starter weeks report buckets weekly ranks into, and what a finish in each tier is
+ * worth.  Tiers are given by their deepest rank, best tier first, so the default {@code 12, 24, 36} means a
+ * top 12, a 13-24 and a 25-36 finish.
+ *
+ * @author John Daniel
+ */
+public final class StarterTiers {
+
+    public static final StarterTiers DEFAULT = new StarterTiers(new int[] {12, 24, 36}, new int[] {5, 3, 1});
+
+    private final int[] cutoffs;
+    private final int[] weights;
+
+    /**
+     * @param cutoffs the deepest rank in each tier, strictly increasing.
+     * @param weights what a finish in each tier adds to a player's grade, one per tier.
+     * @throws IllegalArgumentException if the cutoffs and weights don't describe a set of tiers.
+     */
+    public StarterTiers(final int[] cutoffs, final int[] weights) {
+
+        checkArgument(cutoffs.length > 0, "at least one tier is required");
+        checkArgument(cutoffs.length == weights.length, "need one weight per tier, got %s tiers and %s weights",
+                cutoffs.length, weights.length);
+        for (int tier = 0; tier < cutoffs.length; tier++) {
+            checkArgument(cutoffs[tier] > (tier == 0 ? 0 : cutoffs[tier - 1]),
+                    "tier cutoffs must be positive and increasing: %s", Arrays.toString(cutoffs));
+        }
+
+        this.cutoffs = Arrays.copyOf(cutoffs, cutoffs.length);
+        this.weights = Arrays.copyOf(weights, weights.length);
+    }
+
+    /**
+     * Builds tiers from optional request parameters, falling back to {@link #DEFAULT} for whatever is missing.
+     *
+     * @param cutoffs the tier cutoffs, or {@code null}.
+     * @param weights the tier weights, or {@code null}.
+     * @return the tiers.
+     * @throws IllegalArgumentException if the cutoffs and weights don't describe a set of tiers.
+     */
+    public static StarterTiers of(final int[] cutoffs, final int[] weights) {
+
+        if (cutoffs == null && weights == null) {
+            return DEFAULT;
+        }
+        return new StarterTiers(cutoffs == null ? DEFAULT.cutoffs : cutoffs,
+                                weights == null ? DEFAULT.weights : weights);
+    }
+
+    public int getTierCount() {
+        return cutoffs.length;
+    }
+
+    public int getDeepestCutoff() {
+        return cutoffs[cutoffs.length - 1];
+    }
+
+    /**
+     * Checks a requested ranking depth, and these tiers, against the deepest any weekly ranking is counted.
+     *
+     * @param depth how deep each week's ranking counts, or {@code 0} for the position's default.
+     * @param maxDepth the deepest allowed.
+     * @throws IllegalArgumentException if the depth is negative, or it or the deepest tier is over the maximum.
+     */
+    public void checkDepth(final int depth, final int maxDepth) {
+
+        checkArgument(depth >= 0 && depth <= maxDepth, "depth %s is not between 0 and %s", depth, maxDepth);
+        checkArgument(getDeepestCutoff() <= maxDepth, "tiers go deeper than %s", maxDepth);
+    }
+
+    public int[] getWeights() {
+        return Arrays.copyOf(weights, weights.length);
+    }
+
+    /**
+     * @return a column heading for each tier, best first, e.g. {@code Top 12}, {@code 13-24} and {@code 25-36}.
+     */
+    public List<String> getLabels() {
+
+        final List<String> labels = new ArrayList<>(cutoffs.length);
+        labels.add("Top " + cutoffs[0]);
+        for (int tier = 1; tier < cutoffs.length; tier++) {
+            labels.add(cutoffs[tier - 1] + 1 == cutoffs[tier]
+                    ? String.valueOf(cutoffs[tier]) : (cutoffs[tier - 1] + 1) + "-" + cutoffs[tier]);
+        }
+        return labels;
+    }
+
+    /**
+     * Maps each index of a weekly ranking to its tier.  The player at index {@code i} finished {@code i + 1}th, so
+     * the best tier covers indexes {@code 0} to {@code cutoffs[0] - 1}, just as its label says.
+     *
+     * @param depth how many ranking indexes to map.
+     * @return the tier for each index, or {@code -1} where the index is outside every tier.
+     */
+    int[] tiersByIndex(final int depth) {
+
+        final int[] tiers = new int[depth];
+        int tier = 0;
+        for (int index = 0; index < depth; index++) {
+            while (tier < cutoffs.length && index + 1 > cutoffs[tier]) {
+                tier++;
+            }
+            tiers[index] = tier == cutoffs.length ? -1 : tier;
+        }
+        return tiers;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+
+        if (!(obj instanceof StarterTiers)) {
+            return false;
+        }
+        final StarterTiers other = (StarterTiers) obj;
+        return Arrays.equals(cutoffs, other.cutoffs) && Arrays.equals(weights, other.weights);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(cutoffs) + Arrays.hashCode(weights);
+    }
+
+    @Override
+    public String toString() {
+        return "tiers " + Arrays.toString(cutoffs) + " weighted " + Arrays.toString(weights);
+    }
+}
@@ -0,0 +1,102 @@
+package org.tiltedwindmills.fantasy.zealots.reports;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A position's starter finishes tallied through each week of the season for one set of tiers and depth.  The
+ * tally for any range of weeks is the difference of two of them, so ranking a range never walks the weekly
+ * rankings again.  The players in a range's tally are ordered by when they were first ranked within the range, as
+ * if the range had been tallied on its own, so complete ties come out the same either way.
+ *
+ * @author John Daniel
+ */
+final class StarterWeekPrefixes {
+
+    // a player's sort key packs the week, their rank that week and their slot, in that order.
+    private static final int WEEK_SHIFT = 48;
+    private static final int RANK_SHIFT = 24;
+    private static final long SLOT_MASK = (1L << RANK_SHIFT) - 1;
+
+    private final int firstWeek;
+
+    // element n is a copy of the tally after the first n weeks, so element 0 is empty.
+    private final List<FinishTally> tallies;
+
+    /**
+     * @param weeklyRankings each week's player ids, best first, in week order; {@code null} weeks are skipped.
+     * @param firstWeek the week of the first ranking.
+     * @param tiers the finishing tiers.
+     * @param depth how far down each week's ranking counts as a starter.
+     */
+    StarterWeekPrefixes(final List<int[]> weeklyRankings, final int firstWeek, final StarterTiers tiers,
+                        final int depth) {
+
+        this.firstWeek = firstWeek;
+
+        final int[] tiersByIndex = tiers.tiersByIndex(Math.max(0, depth));
+        final FinishTally tally = new FinishTally(tiers.getTierCount(), 256);
+
+        tallies = new ArrayList<>(weeklyRankings.size() + 1);
+        tallies.add(tally.copy());
+        for (int[] ranking : weeklyRankings) {
+            if (ranking != null) {
+                for (int i = 0; i < Math.min(ranking.length, tiersByIndex.length); i++) {
+                    tally.add(ranking[i], i, tiersByIndex[i]);
+                }
+            }
+            tallies.add(tally.copy());
+        }
+    }
+
+    /**
+     * @param from the first week to include.
+     * @param to the last week to include.
+     * @return the finishes in those weeks.
+     * @throws IllegalArgumentException if the range is empty or outside the season.
+     */
+    FinishTally between(final int from, final int to) {
+
+        final int lastWeek = firstWeek + tallies.size() - 2;
+        checkArgument(firstWeek <= from && from <= to && to <= lastWeek,
+                "weeks %s to %s are not a range within weeks %s to %s", from, to, firstWeek, lastWeek);
+
+        final int first = from - firstWeek + 1;
+        final int last = to - firstWeek + 1;
+        final FinishTally earlier = tallies.get(first - 1);
+        final FinishTally later = tallies.get(last);
+
+        // key each player ranked in the range by the first tally in it to rank them, then their rank that week.
+        final long[] keys = new long[later.size()];
+        int ranked = 0;
+        for (int slot = 0; slot < later.size(); slot++) {
+
+            final int before = earlier.ranked(slot);
+            if (later.ranked(slot) == before) {
+                continue;
+            }
+
+            int low = first;
+            int high = last;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (tallies.get(middle).ranked(slot) > before) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            keys[ranked++] = (long) low << WEEK_SHIFT | (long) tallies.get(low).lastRank(slot) << RANK_SHIFT | slot;
+        }
+        Arrays.sort(keys, 0, ranked);
+
+        final int[] slotOrder = new int[ranked];
+        for (int i = 0; i < ranked; i++) {
+            slotOrder[i] = (int) (keys[i] & SLOT_MASK);
+        }
+        return later.since(earlier, slotOrder);
+    }
+}
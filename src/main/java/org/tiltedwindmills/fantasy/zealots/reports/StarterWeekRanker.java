@@ -0,0 +1,134 @@
+package org.tiltedwindmills.fantasy.zealots.reports;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tiltedwindmills.fantasy.mfl.model.Player;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerRegistry;
+import org.tiltedwindmills.fantasy.zealots.model.PlayerScoreBreakdown;
+
+/**
+ * Turns a position's weekly rankings into the starter weeks report.  Finishes are tallied in a
+ * {@link FinishTally}, players are graded straight from its counts, and when only the top {@code limit} rows
+ * are wanted they are picked with a bounded heap instead of sorting every player.  Breakdowns are only built
+ * for the rows that are returned.
+ *
+ * @author John Daniel
+ */
+public final class StarterWeekRanker {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StarterWeekRanker.class);
+
+    private StarterWeekRanker() { }
+
+    /**
+     * Ranks the players who finished as a weekly starter.
+     *
+     * @param weeklyRankings each week's player ids, best first; {@code null} weeks are skipped.
+     * @param tiers the finishing tiers and their weights.
+     * @param depth how far down each week's ranking counts as a starter.
+     * @param limit the most rows to return, or {@code 0} for every player.
+     * @param playerRegistry resolves the ranked players; players it doesn't know are left out.
+     * @return the breakdowns, best first.
+     */
+    public static List<PlayerScoreBreakdown> rank(final Iterable<int[]> weeklyRankings, final StarterTiers tiers,
+                                                  final int depth, final int limit,
+                                                  final PlayerRegistry playerRegistry) {
+
+        final int[] tiersByIndex = tiers.tiersByIndex(Math.max(0, depth));
+        final FinishTally tally = new FinishTally(tiers.getTierCount(), 256);
+
+        for (int[] ranking : weeklyRankings) {
+            if (ranking != null) {
+                for (int i = 0; i < Math.min(ranking.length, tiersByIndex.length); i++) {
+                    tally.add(ranking[i], i, tiersByIndex[i]);
+                }
+            }
+        }
+
+        return select(tally, tiers, limit, playerRegistry);
+    }
+
+    /**
+     * Picks and orders the best {@code limit} players of a tally.
+     */
+    static List<PlayerScoreBreakdown> select(final FinishTally tally, final StarterTiers tiers, final int limit,
+                                             final PlayerRegistry playerRegistry) {
+
+        final int[] weights = tiers.getWeights();
+        final int[] grades = new int[tally.size()];
+        final Player[] players = new Player[tally.size()];
+
+        int known = 0;
+        for (int slot = 0; slot < tally.size(); slot++) {
+            players[slot] = playerRegistry.get(tally.playerId(slot));
+            if (players[slot] == null) {
+                LOG.warn("Count not find player in database for ID {}", tally.playerId(slot));
+            } else {
+                grades[slot] = tally.grade(slot, weights);
+                known++;
+            }
+        }
+
+        final Comparator<Integer> bestFirst = new Comparator<Integer>() {
+
+            @Override
+            public int compare(final Integer left, final Integer right) {
+
+                final int gradeDiff = grades[right] - grades[left];
+                if (gradeDiff != 0) {
+                    return gradeDiff;
+                }
+                for (int tier = 0; tier < tally.tierCount(); tier++) {
+                    final int tierDiff = tally.count(right, tier) - tally.count(left, tier);
+                    if (tierDiff != 0) {
+                        return tierDiff;
+                    }
+                }
+                final int nameDiff = players[left].getName().compareTo(players[right].getName());
+                if (nameDiff != 0) {
+                    return nameDiff;
+                }
+
+                // complete ties keep the order players were first ranked in, like the stable sort this replaced.
+                return left - right;
+            }
+        };
+
+        final List<Integer> selected;
+        if (limit > 0 && limit < known) {
+
+            // keep the best limit players seen so far, with the weakest of them on top to be replaced.
+            final PriorityQueue<Integer> heap = new PriorityQueue<>(limit + 1, Collections.reverseOrder(bestFirst));
+            for (int slot = 0; slot < tally.size(); slot++) {
+                if (players[slot] != null) {
+                    heap.add(slot);
+                    if (heap.size() > limit) {
+                        heap.poll();
+                    }
+                }
+            }
+            selected = new ArrayList<>(heap);
+
+        } else {
+            selected = new ArrayList<>(known);
+            for (int slot = 0; slot < tally.size(); slot++) {
+                if (players[slot] != null) {
+                    selected.add(slot);
+                }
+            }
+        }
+        Collections.sort(selected, bestFirst);
+
+        final List<PlayerScoreBreakdown> breakdowns = new ArrayList<>(selected.size());
+        for (int slot : selected) {
+            breakdowns.add(new PlayerScoreBreakdown(players[slot], tally.counts(slot), weights));
+        }
+        return breakdowns;
+    }
+}
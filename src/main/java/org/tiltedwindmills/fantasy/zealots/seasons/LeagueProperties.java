@@ -0,0 +1,106 @@
+package org.tiltedwindmills.fantasy.zealots.seasons;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.PropertyResolver;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.zealots.aggregation.LeagueGroups;
+
+import com.google.common.base.Splitter;
+
+/**
+ * Builds the configured {@code League}s from {@code leagues.<key>.*} properties, as found in
+ * {@code application.properties} and the {@code zealots_<season>.properties} files, and their groups from the
+ * {@code leagueGroups.*} properties.
+ *
+ * @author John Daniel
+ */
+public final class LeagueProperties {
+
+    private static final String LEAGUE_PROPERTY_PREFIX = "leagues.";
+    private static final String SERVER_ID_PROPERTY_SUFFIX = ".serverid";
+    private static final String FRANCHISE_ID_PROPERTY_SUFFIX = ".franchiseId";
+    private static final String LEAGUE_ID_PROPERTY_SUFFIX = ".leagueid";
+    private static final String LEAGUE_NAME_PROPERTY_SUFFIX = ".name";
+
+    private static final String GROUPS_PROPERTY = "leagueGroups";
+    private static final String DEFAULT_GROUP_PROPERTY = GROUPS_PROPERTY + ".default";
+    private static final String DEFAULT_GROUP = "standard";
+
+    private static final Splitter LIST_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+
+    private static final Logger LOG = LoggerFactory.getLogger(LeagueProperties.class);
+
+    private LeagueProperties() { }
+
+    /**
+     * @param leagueKeys the keys of the leagues to build, as listed in the {@code leagues} property.
+     * @param properties where the {@code leagues.<key>.*} properties are found.
+     * @return the {@code League}s, in the order of their keys.
+     * @throws IllegalStateException if a league is missing its MFL id, server or name.
+     */
+    public static List<League> read(final List<String> leagueKeys, final PropertyResolver properties) {
+
+        final List<League> propertyLeagues = new ArrayList<League>();
+
+        if (leagueKeys != null) {
+            for (String leagueKey : leagueKeys) {
+
+                final Integer mflId =
+                        properties.getRequiredProperty(LEAGUE_PROPERTY_PREFIX + leagueKey + LEAGUE_ID_PROPERTY_SUFFIX,
+                                                       Integer.class);
+
+                final Integer serverId =
+                        properties.getRequiredProperty(LEAGUE_PROPERTY_PREFIX + leagueKey + SERVER_ID_PROPERTY_SUFFIX,
+                                                       Integer.class);
+
+                final String leagueName =
+                        properties.getRequiredProperty(
+                                LEAGUE_PROPERTY_PREFIX + leagueKey + LEAGUE_NAME_PROPERTY_SUFFIX);
+
+                final String franchiseId =
+                        properties.getProperty(
+                                LEAGUE_PROPERTY_PREFIX + leagueKey + FRANCHISE_ID_PROPERTY_SUFFIX);
+
+                // construct the league based on the discovered properties.
+                final League league = new League();
+                //league.setName(leagueName);
+                league.setName(leagueKey);
+                league.setId(mflId);
+                league.setServerId(serverId);
+                league.setFranchiseId(franchiseId);
+
+                // add the skeleton League to our bean.
+                propertyLeagues.add(league);
+
+                LOG.debug("Found configured league '{}', using ({}, {}, {})", leagueKey, mflId, serverId, franchiseId);
+            }
+        }
+
+        return propertyLeagues;
+    }
+
+    /**
+     * Reads the groups listed in {@code leagueGroups}, each group's league keys from
+     * {@code leagueGroups.<group>}.  Every other league is in {@code leagueGroups.default}, or {@code standard}.
+     *
+     * @param properties where the {@code leagueGroups.*} properties are found.
+     * @return the groups.
+     * @throws IllegalStateException if a listed group has no leagues property.
+     * @throws IllegalArgumentException if a league is in more than one group.
+     */
+    public static LeagueGroups readGroups(final PropertyResolver properties) {
+
+        final Map<String, List<String>> leaguesByGroup = new LinkedHashMap<>();
+        for (String group : LIST_SPLITTER.split(properties.getProperty(GROUPS_PROPERTY, ""))) {
+            leaguesByGroup.put(group, LIST_SPLITTER.splitToList(
+                    properties.getRequiredProperty(GROUPS_PROPERTY + "." + group)));
+        }
+        return new LeagueGroups(leaguesByGroup, properties.getProperty(DEFAULT_GROUP_PROPERTY, DEFAULT_GROUP));
+    }
+}
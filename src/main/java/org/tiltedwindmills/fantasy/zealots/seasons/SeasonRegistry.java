@@ -0,0 +1,358 @@
+package org.tiltedwindmills.fantasy.zealots.seasons;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertiesPropertySource;
+import org.springframework.core.env.PropertyResolver;
+import org.springframework.core.env.PropertySourcesPropertyResolver;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.mfl.model.Player;
+import org.tiltedwindmills.fantasy.zealots.aggregation.AggregationEngine;
+import org.tiltedwindmills.fantasy.zealots.data.BackgroundLoad;
+import org.tiltedwindmills.fantasy.zealots.data.DataLocationExports;
+import org.tiltedwindmills.fantasy.zealots.data.ExportChangeListener;
+import org.tiltedwindmills.fantasy.zealots.data.ExportChanges;
+import org.tiltedwindmills.fantasy.zealots.data.MflExports;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerRegistry;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerScoreRankings;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerSnapshot;
+import org.tiltedwindmills.fantasy.zealots.data.WeeklyResultsFiles;
+import org.tiltedwindmills.fantasy.zealots.data.WeeklyResultsRepository;
+import org.tiltedwindmills.fantasy.zealots.metrics.HitCounter;
+import org.tiltedwindmills.fantasy.zealots.metrics.ReportMetrics;
+import org.tiltedwindmills.fantasy.zealots.reports.AggregatingReportService;
+import org.tiltedwindmills.fantasy.zealots.reports.PrecomputedReportService;
+import org.tiltedwindmills.fantasy.zealots.reports.ReportService;
+
+import com.google.common.base.Splitter;
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * The seasons the reports can be asked about.  The configured {@code season} is served by the application's own
+ * beans.  Every other season listed in {@code seasons} is loaded the first time it is asked for, from:
+ * <ul>
+ *     <li>{@code seasons.<season>.leagues}, a properties file defining the season's {@code leagues} (by default
+ *     {@code classpath:zealots_<season>.properties});</li>
+ *     <li>{@code seasons.<season>.data.location}, the season's export snapshots (by default
+ *     {@code <data.location><season>/}).</li>
+ * </ul>
+ * Loaded seasons are immutable, and only the {@code seasons.maxLoaded} most recently used are kept in memory.
+ *
+ * @author John Daniel
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class SeasonRegistry implements ExportChangeListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SeasonRegistry.class);
+
+    private static final ResourceLoader RESOURCE_LOADER = new DefaultResourceLoader();
+    private static final Splitter LIST_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+
+    /**
+     * One season's leagues and the reports over them.
+     */
+    public static final class Season {
+
+        private final int year;
+        private final List<League> leagues;
+        private final ReportService reports;
+
+        Season(final int year, final List<League> leagues, final ReportService reports) {
+            this.year = year;
+            this.leagues = leagues;
+            this.reports = reports;
+        }
+
+        public int getYear() {
+            return year;
+        }
+
+        public List<League> getLeagues() {
+            return leagues;
+        }
+
+        public ReportService getReports() {
+            return reports;
+        }
+    }
+
+    @Inject
+    private ReportService reportService;
+
+    @Inject
+    private Environment environment;
+
+    @javax.annotation.Resource
+    private List<League> propertyBasedLeagues;
+
+    @javax.annotation.Resource
+    private BackgroundLoad<PlayerRegistry> playerRegistry;
+
+    @javax.annotation.Resource
+    private AggregationEngine aggregationEngine;
+
+    @Inject
+    private ReportMetrics reportMetrics;
+
+    @Value("${season:2015}")
+    private int season;
+
+    @Value("${seasons:}")
+    private String seasons;
+
+    @Value("${seasons.maxLoaded:2}")
+    private int maxLoaded;
+
+    @Value("${data.location:classpath:data/}")
+    private String dataLocation;
+
+    @Value("${players.snapshot.directory:./player-snapshots}")
+    private String playerSnapshotDirectory;
+
+    private PrecomputedReportService precomputedReports;
+    private Season configuredSeason;
+    private SortedSet<Integer> availableSeasons;
+    private LoadingCache<Integer, Season> loadedSeasons;
+    private ExecutorService loader;
+    private HitCounter seasonsCounter;
+
+    @PostConstruct
+    private void postConstruct() {
+
+        checkNotNull(reportService, "reportService cannot be null");
+        checkNotNull(reportMetrics, "reportMetrics cannot be null");
+        checkArgument(maxLoaded > 0, "seasons.maxLoaded must be positive");
+
+        precomputedReports = new PrecomputedReportService(reportService, reportMetrics);
+        configuredSeason = new Season(season, propertyBasedLeagues, precomputedReports);
+
+        final ImmutableSortedSet.Builder<Integer> builder = ImmutableSortedSet.naturalOrder();
+        builder.add(season);
+        for (String listed : LIST_SPLITTER.split(seasons)) {
+            builder.add(Integer.valueOf(listed));
+        }
+        availableSeasons = builder.build();
+
+        loadedSeasons = CacheBuilder.newBuilder()
+                .maximumSize(maxLoaded)
+                .removalListener(new RemovalListener<Integer, Season>() {
+
+                    @Override
+                    public void onRemoval(final RemovalNotification<Integer, Season> notification) {
+                        LOG.info("Evicted season {}", notification.getKey());
+                    }
+                })
+                .build(new CacheLoader<Integer, Season>() {
+
+                    @Override
+                    public Season load(final Integer year) {
+
+                        seasonsCounter.miss();
+                        return loadSeason(year);
+                    }
+                });
+
+        // loading more seasons at once than stay loaded would only have them evict one another; the parsing itself
+        // runs on the aggregation engine.
+        loader = Executors.newFixedThreadPool(maxLoaded);
+        seasonsCounter = reportMetrics.cache("seasons");
+
+        LOG.info("Serving seasons {}, keeping at most {} besides {} loaded", availableSeasons, maxLoaded, season);
+    }
+
+    @PreDestroy
+    private void preDestroy() {
+        loader.shutdownNow();
+    }
+
+    /**
+     * Rebuilds the configured season's precomputed reports, at startup and every
+     * {@code reports.precompute.intervalMillis} after that.  Requests keep getting the previous reports meanwhile.
+     */
+    @Scheduled(fixedDelayString = "${reports.precompute.intervalMillis:300000}")
+    public void precomputeReports() {
+        precomputedReports.refresh();
+    }
+
+    /**
+     * Tries the configured season's first precomputed reports every {@code reports.precompute.retryMillis} until
+     * the data has loaded, rather than waiting a whole interval; after that, does nothing.
+     */
+    @Scheduled(fixedDelayString = "${reports.precompute.retryMillis:5000}")
+    public void precomputeFirstReports() {
+
+        if (!precomputedReports.isPrecomputed()) {
+            precomputedReports.refresh();
+        }
+    }
+
+    /**
+     * Rebuilds the configured season's precomputed reports once the data and reports below them have taken in the
+     * changed exports.
+     */
+    @Override
+    public void exportsChanged(final ExportChanges changes) {
+        precomputedReports.refresh();
+    }
+
+    /**
+     * @return the configured season, which is always loaded.
+     */
+    public int getDefaultSeason() {
+        return season;
+    }
+
+    /**
+     * @return every season that can be asked for, oldest first.
+     */
+    public SortedSet<Integer> getSeasons() {
+        return availableSeasons;
+    }
+
+    /**
+     * Gets a season, loading it if it isn't in memory.
+     *
+     * @param year the season.
+     * @return the season.
+     * @throws IllegalArgumentException if the season isn't one of {@link #getSeasons}.
+     */
+    public Season get(final int year) {
+
+        checkArgument(availableSeasons.contains(year), "season %s is not one of %s", year, availableSeasons);
+        if (year == season) {
+            return configuredSeason;
+        }
+
+        seasonsCounter.lookup();
+        try {
+            return loadedSeasons.getUnchecked(year);
+        } catch (UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    /**
+     * Gets several seasons at once, loading whichever aren't in memory side by side.
+     *
+     * @param years the seasons.
+     * @return the seasons, each once, in the order first asked for.
+     * @throws IllegalArgumentException if any season isn't one of {@link #getSeasons}.
+     */
+    public List<Season> get(final Collection<Integer> years) {
+
+        final Set<Integer> distinct = new LinkedHashSet<>(years);
+        for (int year : distinct) {
+            checkArgument(availableSeasons.contains(year), "season %s is not one of %s", year, availableSeasons);
+        }
+        if (distinct.size() == 1) {
+            return Collections.singletonList(get(distinct.iterator().next()));
+        }
+
+        final List<Future<Season>> loads = new ArrayList<>(distinct.size());
+        for (final int year : distinct) {
+            loads.add(loader.submit(new Callable<Season>() {
+
+                @Override
+                public Season call() {
+                    return get(year);
+                }
+            }));
+        }
+
+        final List<Season> result = new ArrayList<>(distinct.size());
+        try {
+            for (Future<Season> load : loads) {
+                result.add(load.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading seasons " + years, e);
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+        return result;
+    }
+
+    private Season loadSeason(final int year) {
+
+        final Stopwatch stopwatch = Stopwatch.createStarted();
+
+        final List<League> leagues = readLeagues(year);
+        final MflExports exports = new DataLocationExports(
+                environment.getProperty("seasons." + year + ".data.location", dataLocation + year + "/"));
+
+        // older seasons may not have their own player list; today's covers everyone still playing.
+        final List<Player> players = PlayerSnapshot.load(exports, PlayerSnapshot.file(playerSnapshotDirectory, year));
+        final BackgroundLoad<PlayerRegistry> seasonPlayers =
+                players.isEmpty() ? playerRegistry : BackgroundLoad.of("players", new PlayerRegistry(players));
+
+        final WeeklyResultsRepository weeklyResults =
+                new WeeklyResultsRepository(new WeeklyResultsFiles(exports, reportMetrics), leagues, aggregationEngine);
+        final ReportService reports = new AggregatingReportService(weeklyResults,
+                new PlayerScoreRankings(exports, reportMetrics), leagues, seasonPlayers, aggregationEngine,
+                reportMetrics);
+
+        LOG.info("Loaded season {} ({} leagues) in {}", year, leagues.size(), stopwatch);
+        return new Season(year, leagues, reports);
+    }
+
+    private List<League> readLeagues(final int year) {
+
+        final String location =
+                environment.getProperty("seasons." + year + ".leagues", "classpath:zealots_" + year + ".properties");
+
+        final Properties properties;
+        try {
+            properties = PropertiesLoaderUtils.loadProperties(RESOURCE_LOADER.getResource(location));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read the leagues for season " + year + " from " + location, e);
+        }
+
+        final MutablePropertySources sources = new MutablePropertySources();
+        sources.addLast(new PropertiesPropertySource(location, properties));
+        final PropertyResolver resolver = new PropertySourcesPropertyResolver(sources);
+
+        return LeagueProperties.read(LIST_SPLITTER.splitToList(resolver.getRequiredProperty("leagues")), resolver);
+    }
+}
@@ -0,0 +1,274 @@
+package org.tiltedwindmills.fantasy.zealots;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.ModelAndView;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+import org.tiltedwindmills.fantasy.zealots.aggregation.AggregationEngine;
+import org.tiltedwindmills.fantasy.zealots.data.BackgroundLoad;
+import org.tiltedwindmills.fantasy.zealots.data.DataLocationExports;
+import org.tiltedwindmills.fantasy.zealots.data.ExportChangeListener;
+import org.tiltedwindmills.fantasy.zealots.data.ExportChanges;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerRegistry;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerScoreRankings;
+import org.tiltedwindmills.fantasy.zealots.data.WeeklyResultsFiles;
+import org.tiltedwindmills.fantasy.zealots.data.WeeklyResultsRepository;
+import org.tiltedwindmills.fantasy.zealots.metrics.ReportMetrics;
+import org.tiltedwindmills.fantasy.zealots.model.PlayerScoreBreakdown;
+import org.tiltedwindmills.fantasy.zealots.reports.AggregatingReportService;
+import org.tiltedwindmills.fantasy.zealots.reports.ReportExecutor;
+import org.tiltedwindmills.fantasy.zealots.reports.StarterTiers;
+import org.tiltedwindmills.fantasy.zealots.seasons.SeasonRegistry;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableSetMultimap;
+
+/**
+ * Hammers the report endpoints from many threads at once and checks every response matches the result of the
+ * same request against reports worked out serially, on a single thread.
+ */
+public class ReportConcurrencyTest {
+
+    private static final int CLIENTS = 16;
+    private static final int REQUESTS_PER_CLIENT = 20;
+
+    private SyntheticDataset dataset;
+    private File dataDirectory;
+    private AggregationEngine aggregationEngine;
+    private AggregationEngine serialEngine;
+    private BackgroundLoad<PlayerRegistry> playerRegistry;
+    private ReportMetrics reportMetrics;
+    private WeeklyResultsFiles weeklyResultsFiles;
+    private PlayerScoreRankings playerScoreRankings;
+    private WeeklyResultsRepository weeklyResultsRepository;
+    private AggregatingReportService reportService;
+    private SeasonRegistry seasonRegistry;
+    private WeeklyResultsController weeklyResultsController;
+    private RosteredPlayersController rosteredPlayersController;
+    private ReportExecutor reportExecutor;
+    private ReportExecutor serialExecutor;
+    private WeeklyResultsController serialWeeklyResultsController;
+    private RosteredPlayersController serialRosteredPlayersController;
+
+    @Before
+    public void setUp() throws Exception {
+
+        dataset = SyntheticDataset.ofLeagues(12, WeeklyResultsRepository.LAST_WEEK);
+        dataDirectory = Files.createTempDirectory("zealots-concurrency").toFile();
+        final String dataLocation = dataset.writeTo(dataDirectory);
+
+        aggregationEngine = new AggregationEngine(4);
+        playerRegistry = BackgroundLoad.of("players", new PlayerRegistry(dataset.getPlayers()));
+
+        final DataLocationExports mflExports = new DataLocationExports();
+        ReflectionTestUtils.setField(mflExports, "dataLocation", dataLocation);
+
+        reportMetrics = new ReportMetrics();
+
+        weeklyResultsFiles = new WeeklyResultsFiles();
+        ReflectionTestUtils.setField(weeklyResultsFiles, "mflExports", mflExports);
+        ReflectionTestUtils.setField(weeklyResultsFiles, "reportMetrics", reportMetrics);
+
+        playerScoreRankings = new PlayerScoreRankings();
+        ReflectionTestUtils.setField(playerScoreRankings, "mflExports", mflExports);
+        ReflectionTestUtils.setField(playerScoreRankings, "reportMetrics", reportMetrics);
+
+        weeklyResultsRepository = newWeeklyResultsRepository(aggregationEngine);
+        reportService = newReportService(weeklyResultsRepository, aggregationEngine);
+        seasonRegistry = newSeasonRegistry(reportService);
+
+        reportExecutor = new ReportExecutor(4, CLIENTS, reportMetrics);
+        final DeferredReports deferredReports = new DeferredReports(reportExecutor, TimeUnit.SECONDS.toMillis(30));
+        weeklyResultsController = wire(new WeeklyResultsController(), seasonRegistry, deferredReports);
+        rosteredPlayersController = wire(new RosteredPlayersController(), seasonRegistry, deferredReports);
+
+        // the baseline: the same reports, aggregated and rendered one at a time on a single thread.
+        serialEngine = new AggregationEngine(1);
+        serialExecutor = new ReportExecutor(1, 1, reportMetrics);
+        final SeasonRegistry serialSeasons =
+                newSeasonRegistry(newReportService(newWeeklyResultsRepository(serialEngine), serialEngine));
+        final DeferredReports serialReports = new DeferredReports(serialExecutor, TimeUnit.SECONDS.toMillis(30));
+        serialWeeklyResultsController = wire(new WeeklyResultsController(), serialSeasons, serialReports);
+        serialRosteredPlayersController = wire(new RosteredPlayersController(), serialSeasons, serialReports);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+
+        reportExecutor.shutdown();
+        serialExecutor.shutdown();
+        aggregationEngine.shutdown();
+        serialEngine.shutdown();
+        SyntheticDataset.delete(dataDirectory);
+    }
+
+    @Test
+    public void concurrentRequestsReturnTheSameResultsAsSerialReports() throws Exception {
+
+        final Map<String, Object> expectedScoring =
+                modelOf(serialWeeklyResultsController.home(null, null, null, null));
+        final Map<String, Object> expectedCount = modelOf(serialRosteredPlayersController.positionCount(null, null));
+        @SuppressWarnings("unchecked")
+        final List<Map<String, Object>> seasons = (List<Map<String, Object>>) expectedScoring.get("seasons");
+        assertTrue((Double) seasons.get(0).get("teams") > 0);
+
+        final ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            final List<Future<Integer>> results = new ArrayList<>();
+
+            for (int client = 0; client < CLIENTS; client++) {
+                final boolean scoring = client % 2 == 0;
+                results.add(clients.submit(new Callable<Integer>() {
+
+                    @Override
+                    public Integer call() throws Exception {
+
+                        for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                            if (scoring) {
+                                assertEquals(expectedScoring, positionScoring());
+                            } else {
+                                assertEquals(expectedCount, positionCount());
+                            }
+                        }
+                        return REQUESTS_PER_CLIENT;
+                    }
+                }));
+            }
+
+            int completed = 0;
+            for (Future<Integer> result : results) {
+                completed += result.get(2, TimeUnit.MINUTES);
+            }
+            assertEquals(CLIENTS * REQUESTS_PER_CLIENT, completed);
+
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    @Test
+    public void changedExportsAreAppliedWithoutReloadingTheRest() throws Exception {
+
+        final Map<String, Object> before = positionScoring();
+        reportService.starterWeeks(Position.WIDE_RECEIVER, StarterTiers.DEFAULT, 0, 0, 1, 13);
+
+        final League league = dataset.getLeagues().get(0);
+        Files.write(new File(dataDirectory, DataLocationExports.weeklyResultsPath(league, 3)).toPath(),
+                    dataset.weeklyResultsJson(1, 3).getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(dataDirectory, DataLocationExports.playerScoresPath(Position.WIDE_RECEIVER, 5)).toPath(),
+                    dataset.playerScoresJson(Position.TIGHT_END, 5).getBytes(StandardCharsets.UTF_8));
+
+        final ExportChanges changes = new ExportChanges(ImmutableSetMultimap.of(league, 3),
+                                                        ImmutableSetMultimap.of(Position.WIDE_RECEIVER, 5));
+        for (ExportChangeListener listener : new ExportChangeListener[] {
+                weeklyResultsRepository, reportService, seasonRegistry}) {
+            listener.exportsChanged(changes);
+        }
+        assertFalse(before.equals(positionScoring()));
+
+        // totalled from scratch, the changed exports give exactly the same figures.
+        final AggregatingReportService reloaded =
+                newReportService(newWeeklyResultsRepository(aggregationEngine), aggregationEngine);
+        for (int[] weeks : new int[][] {{1, 13}, {1, 2}, {3, 3}, {2, 9}}) {
+            assertEquals(reloaded.positionScoring(weeks[0], weeks[1]).getPositionScores(),
+                         reportService.positionScoring(weeks[0], weeks[1]).getPositionScores());
+        }
+        assertEquals(reloaded.positionCount().getPositionCounts(), reportService.positionCount().getPositionCounts());
+        assertEquals(reloaded.positionCount().getTeams(), reportService.positionCount().getTeams());
+        assertEquals(reloaded.scoreCube().positionCount(1, 13).getPositionCounts(),
+                     reportService.scoreCube().positionCount(1, 13).getPositionCounts());
+        assertEquals(playerIds(reloaded.starterWeeks(Position.WIDE_RECEIVER, StarterTiers.DEFAULT, 0, 0, 1, 13)),
+                     playerIds(reportService.starterWeeks(Position.WIDE_RECEIVER, StarterTiers.DEFAULT, 0, 0, 1, 13)));
+    }
+
+    private WeeklyResultsRepository newWeeklyResultsRepository(final AggregationEngine engine) {
+        return new WeeklyResultsRepository(weeklyResultsFiles, dataset.getLeagues(), engine);
+    }
+
+    private AggregatingReportService newReportService(final WeeklyResultsRepository weeklyResultsSource,
+                                                      final AggregationEngine engine) {
+
+        final AggregatingReportService service = new AggregatingReportService();
+        ReflectionTestUtils.setField(service, "weeklyResultsSource", weeklyResultsSource);
+        ReflectionTestUtils.setField(service, "playerScoreRankings", playerScoreRankings);
+        ReflectionTestUtils.setField(service, "propertyBasedLeagues", dataset.getLeagues());
+        ReflectionTestUtils.setField(service, "playerRegistry", playerRegistry);
+        ReflectionTestUtils.setField(service, "aggregationEngine", engine);
+        ReflectionTestUtils.setField(service, "reportMetrics", reportMetrics);
+        ReflectionTestUtils.invokeMethod(service, "postConstruct");
+        return service;
+    }
+
+    private SeasonRegistry newSeasonRegistry(final AggregatingReportService service) {
+
+        final SeasonRegistry registry = new SeasonRegistry();
+        ReflectionTestUtils.setField(registry, "reportService", service);
+        ReflectionTestUtils.setField(registry, "propertyBasedLeagues", dataset.getLeagues());
+        ReflectionTestUtils.setField(registry, "season", 2015);
+        ReflectionTestUtils.setField(registry, "seasons", "");
+        ReflectionTestUtils.setField(registry, "maxLoaded", 1);
+        ReflectionTestUtils.setField(registry, "reportMetrics", reportMetrics);
+        ReflectionTestUtils.invokeMethod(registry, "postConstruct");
+        return registry;
+    }
+
+    private <T> T wire(final T controller, final SeasonRegistry registry, final DeferredReports deferredReports) {
+
+        ReflectionTestUtils.setField(controller, "seasonRegistry", registry);
+        ReflectionTestUtils.setField(controller, "deferredReports", deferredReports);
+        if (controller instanceof RosteredPlayersController) {
+            ReflectionTestUtils.setField(controller, "reportMetrics", reportMetrics);
+        }
+        return controller;
+    }
+
+    private static List<Integer> playerIds(final List<PlayerScoreBreakdown> ranked) {
+
+        final List<Integer> ids = new ArrayList<>();
+        for (PlayerScoreBreakdown breakdown : ranked) {
+            ids.add(breakdown.getId());
+        }
+        return ids;
+    }
+
+    private Map<String, Object> positionScoring() throws Exception {
+        return modelOf(weeklyResultsController.home(null, null, null, null));
+    }
+
+    private Map<String, Object> positionCount() throws Exception {
+        return modelOf(rosteredPlayersController.positionCount(null, null));
+    }
+
+    private static Map<String, Object> modelOf(final DeferredResult<ModelAndView> deferred) throws Exception {
+
+        final Stopwatch waited = Stopwatch.createStarted();
+        while (!deferred.hasResult()) {
+            assertTrue("timed out waiting for the report", waited.elapsed(TimeUnit.SECONDS) < 30);
+            Thread.sleep(1);
+        }
+        if (deferred.getResult() instanceof Exception) {
+            throw (Exception) deferred.getResult();
+        }
+        return ((ModelAndView) deferred.getResult()).getModel();
+    }
+}
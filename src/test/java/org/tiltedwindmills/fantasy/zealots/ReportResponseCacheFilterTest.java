@@ -0,0 +1,226 @@
+package org.tiltedwindmills.fantasy.zealots;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+import org.tiltedwindmills.fantasy.zealots.data.DataLocationExports;
+import org.tiltedwindmills.fantasy.zealots.data.DatasetVersion;
+import org.tiltedwindmills.fantasy.zealots.data.ExportChanges;
+import org.tiltedwindmills.fantasy.zealots.data.MflExports;
+import org.tiltedwindmills.fantasy.zealots.metrics.ReportMetrics;
+
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.io.ByteStreams;
+
+public class ReportResponseCacheFilterTest {
+
+    private static final String PAGE = "<html><body>position scoring</body></html>";
+
+    private final RenderingChain chain = new RenderingChain();
+
+    private final League league = new League();
+    private String weekThree = "week 3";
+    private int weeklyResultsReads;
+    private DatasetVersion datasetVersion;
+    private ReportResponseCacheFilter filter;
+
+    @Before
+    public void setUp() {
+
+        league.setName("zealots1");
+        datasetVersion = new DatasetVersion(new MflExports() {
+
+            @Override
+            public InputStream openWeeklyResults(final League league, final int week) {
+
+                weeklyResultsReads++;
+                return new ByteArrayInputStream((week == 3 ? weekThree : "week " + week)
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+
+            @Override
+            public InputStream openPlayerScores(final Position position, final int week) throws IOException {
+                throw new IOException("no scores");
+            }
+
+            @Override
+            public InputStream openPlayers() {
+                return new ByteArrayInputStream("[]".getBytes(StandardCharsets.UTF_8));
+            }
+        }, Collections.singletonList(league), 2015);
+        datasetVersion.await();
+
+        filter = new ReportResponseCacheFilter(datasetVersion, new ReportMetrics(), 1 << 20);
+    }
+
+    @Test
+    public void pagesAreRenderedOnceAndServedGzipped() throws Exception {
+
+        final MockHttpServletResponse first = get("gzip, deflate", null);
+        final MockHttpServletResponse second = get("gzip, deflate", null);
+
+        assertEquals(1, chain.renders);
+        for (MockHttpServletResponse response : new MockHttpServletResponse[] {first, second}) {
+            assertEquals(200, response.getStatus());
+            assertEquals("gzip", response.getHeader("Content-Encoding"));
+            assertEquals("text/html;charset=UTF-8", response.getContentType());
+            assertEquals(PAGE, gunzip(response.getContentAsByteArray()));
+        }
+        assertEquals(first.getHeader("ETag"), second.getHeader("ETag"));
+    }
+
+    @Test
+    public void clientsWithoutGzipGetThePlainPage() throws Exception {
+
+        get("gzip", null);
+        final MockHttpServletResponse plain = get(null, null);
+
+        assertEquals(1, chain.renders);
+        assertNull(plain.getHeader("Content-Encoding"));
+        assertArrayEquals(PAGE.getBytes(StandardCharsets.UTF_8), plain.getContentAsByteArray());
+    }
+
+    @Test
+    public void revalidationsAreAnsweredWithoutRendering() throws Exception {
+
+        final String etag = get(null, null).getHeader("ETag");
+        final MockHttpServletResponse revalidated = get("gzip", etag);
+
+        assertEquals(1, chain.renders);
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, revalidated.getStatus());
+        assertEquals(0, revalidated.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void errorsAreNotCached() throws Exception {
+
+        chain.status = HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+        assertEquals(HttpServletResponse.SC_SERVICE_UNAVAILABLE, get("gzip", null).getStatus());
+
+        chain.status = HttpServletResponse.SC_OK;
+        assertEquals(PAGE, gunzip(get("gzip", null).getContentAsByteArray()));
+        assertEquals(2, chain.renders);
+    }
+
+    @Test
+    public void changedExportsChangeTheVersion() throws Exception {
+
+        final String etag = get("gzip", null).getHeader("ETag");
+        final int reads = weeklyResultsReads;
+
+        weekThree = "week 3, corrected";
+        datasetVersion.exportsChanged(new ExportChanges(ImmutableSetMultimap.of(league, 3),
+                                                        ImmutableSetMultimap.<Position, Integer>of()));
+        assertEquals("only the changed export is read again", reads + 1, weeklyResultsReads);
+
+        final MockHttpServletResponse changed = get("gzip", etag);
+        assertEquals(200, changed.getStatus());
+        assertFalse(etag.equals(changed.getHeader("ETag")));
+        assertEquals(2, chain.renders);
+    }
+
+    @Test
+    public void checksumsThatComeWithTheChangesAreUsedAsTheyAre() {
+
+        final String version = datasetVersion.get();
+        final int reads = weeklyResultsReads;
+
+        datasetVersion.exportsChanged(new ExportChanges(ImmutableSetMultimap.of(league, 3),
+                ImmutableSetMultimap.<Position, Integer>of(),
+                Collections.singletonMap(DataLocationExports.weeklyResultsPath(league, 3), 42L)));
+
+        assertEquals(reads, weeklyResultsReads);
+        assertFalse(version.equals(datasetVersion.get()));
+    }
+
+    @Test
+    public void asyncRendersAreCachedOnceDispatched() throws Exception {
+
+        final MockHttpServletRequest request = request("gzip", null);
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // the controller hands its report to the report executor, and the page is rendered on the async dispatch.
+        filter.doFilter(request, response, new FilterChain() {
+
+            @Override
+            public void doFilter(final ServletRequest request, final ServletResponse response) {
+                ((MockHttpServletRequest) request).setAsyncStarted(true);
+            }
+        });
+        assertEquals(0, response.getContentAsByteArray().length);
+
+        request.setAsyncStarted(false);
+        filter.doFilter(request, response, chain);
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertEquals(PAGE, gunzip(response.getContentAsByteArray()));
+        assertEquals(PAGE, gunzip(get("gzip", null).getContentAsByteArray()));
+        assertEquals(1, chain.renders);
+    }
+
+    private MockHttpServletResponse get(final String acceptEncoding, final String ifNoneMatch) throws Exception {
+
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(acceptEncoding, ifNoneMatch), response, chain);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(final String acceptEncoding, final String ifNoneMatch) {
+
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/positionScoring");
+        request.setQueryString("from=1&to=13");
+        if (acceptEncoding != null) {
+            request.addHeader("Accept-Encoding", acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return request;
+    }
+
+    private static String gunzip(final byte[] gzipped) throws IOException {
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            return new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Stands in for the controller and view, writing the page the way Thymeleaf does.
+     */
+    private static final class RenderingChain implements FilterChain {
+
+        private int renders;
+        private int status = HttpServletResponse.SC_OK;
+
+        @Override
+        public void doFilter(final ServletRequest request, final ServletResponse response) throws IOException {
+
+            renders++;
+            ((HttpServletResponse) response).setStatus(status);
+            response.setContentType("text/html;charset=UTF-8");
+            response.getWriter().write(PAGE);
+            response.flushBuffer();
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package org.tiltedwindmills.fantasy.zealots;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.mfl.model.Player;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+import org.tiltedwindmills.fantasy.zealots.aggregation.LeagueGroups;
+import org.tiltedwindmills.fantasy.zealots.aggregation.PositionCountTotals;
+import org.tiltedwindmills.fantasy.zealots.aggregation.PositionScoreTotals;
+import org.tiltedwindmills.fantasy.zealots.aggregation.ScoreCube;
+import org.tiltedwindmills.fantasy.zealots.metrics.ReportMetrics;
+import org.tiltedwindmills.fantasy.zealots.model.PlayerScoreBreakdown;
+import org.tiltedwindmills.fantasy.zealots.model.PlayerUsage;
+import org.tiltedwindmills.fantasy.zealots.model.RosterUsage;
+import org.tiltedwindmills.fantasy.zealots.reports.ReportService;
+import org.tiltedwindmills.fantasy.zealots.reports.StarterTiers;
+import org.tiltedwindmills.fantasy.zealots.seasons.SeasonRegistry;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ReportsApiControllerTest {
+
+    private static final int RANKED_PLAYERS = 30;
+    private static final int MAX_PAGE_SIZE = 20;
+    private static final int MAX_DEPTH = 50;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ReportsApiController controller = new ReportsApiController();
+    private MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Before
+    public void setUp() {
+
+        final SeasonRegistry seasonRegistry = new SeasonRegistry();
+        ReflectionTestUtils.setField(seasonRegistry, "reportService", new FixedReports());
+        ReflectionTestUtils.setField(seasonRegistry, "propertyBasedLeagues", Arrays.asList(new League(), new League()));
+        ReflectionTestUtils.setField(seasonRegistry, "season", 2015);
+        ReflectionTestUtils.setField(seasonRegistry, "seasons", "");
+        ReflectionTestUtils.setField(seasonRegistry, "maxLoaded", 1);
+        ReflectionTestUtils.setField(seasonRegistry, "reportMetrics", new ReportMetrics());
+        ReflectionTestUtils.invokeMethod(seasonRegistry, "postConstruct");
+
+        ReflectionTestUtils.setField(controller, "seasonRegistry", seasonRegistry);
+        ReflectionTestUtils.setField(controller, "maxPageSize", MAX_PAGE_SIZE);
+        ReflectionTestUtils.setField(controller, "maxDepth", MAX_DEPTH);
+        ReflectionTestUtils.setField(controller, "leagueGroups", new LeagueGroups(
+                Collections.singletonMap("ppr", Collections.singletonList("zealotsppr1")), "standard"));
+    }
+
+    @Test
+    public void positionScoringIsWrittenPerSeason() throws Exception {
+
+        controller.positionScoring(null, null, null, response);
+
+        final Map<String, Object> season = onlySeason(read());
+        assertEquals(2015, season.get("season"));
+        assertEquals(24, season.get("teams"));
+        assertEquals(2, season.get("leagueCount"));
+        assertEquals(Collections.singletonMap("WR", 1234.5), season.get("positionScores"));
+
+        @SuppressWarnings("unchecked")
+        final Map<String, Object> receivers =
+                (Map<String, Object>) ((Map<String, Object>) season.get("scoreDistributions")).get("WR");
+        assertEquals(1, receivers.get("starters"));
+        assertEquals(1234.5, receivers.get("median"));
+        assertEquals(0.0, receivers.get("standardDeviation"));
+    }
+
+    @Test
+    public void positionCountIsWrittenPerSeason() throws Exception {
+
+        controller.positionCount(Collections.singletonList(2015), response);
+
+        final Map<String, Object> season = onlySeason(read());
+        assertEquals(24, season.get("teams"));
+        assertEquals(1, season.get("unknownPlayers"));
+        assertEquals(Collections.singletonMap("QB", 30), season.get("positionCounts"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void starterWeeksArePagedWithTheChosenFields() throws Exception {
+
+        controller.starterWeeks("WR", null, null, 0, 10, 5, null, null, null, Arrays.asList("rank", "id"), response);
+
+        final Map<String, Object> page = read();
+        assertEquals("WR", page.get("position"));
+        assertEquals(10, page.get("offset"));
+
+        final List<Map<String, Object>> players = (List<Map<String, Object>>) page.get("players");
+        assertEquals(5, players.size());
+        for (int i = 0; i < players.size(); i++) {
+            assertEquals(2, players.get(i).size());
+            assertEquals(11 + i, players.get(i).get("rank"));
+            assertEquals(1010 + i, players.get(i).get("id"));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void pagesAreNeverLargerThanTheLargestPage() throws Exception {
+
+        controller.starterWeeks("WR", null, null, 0, 0, 0, null, null, null, null, response);
+        assertEquals(MAX_PAGE_SIZE, ((List<Object>) read().get("players")).size());
+
+        response = new MockHttpServletResponse();
+        controller.starterWeeks("WR", null, null, 0, 5, RANKED_PLAYERS, null, null, null, null, response);
+        assertEquals(MAX_PAGE_SIZE, ((List<Object>) read().get("players")).size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void pagesFarPastTheEndAreEmpty() throws Exception {
+
+        controller.starterWeeks("WR", null, null, 0, Integer.MAX_VALUE, 10, null, null, null, null, response);
+        assertTrue(((List<Object>) read().get("players")).isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void everyPositionIsWrittenInTurn() throws Exception {
+
+        controller.allStarterWeeks(null, null, 0, RANKED_PLAYERS - 1, 0, null, null, null, null, response);
+
+        final List<Map<String, Object>> positions = (List<Map<String, Object>>) read().get("positions");
+        assertFalse(positions.isEmpty());
+        for (Map<String, Object> position : positions) {
+
+            final List<Map<String, Object>> players = (List<Map<String, Object>>) position.get("players");
+            assertEquals(1, players.size());
+            assertEquals(RANKED_PLAYERS, players.get(0).get("rank"));
+            assertEquals(Arrays.asList(0, 0, 0), players.get(0).get("tierFinishes"));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void playerUsageIsWrittenWithEachTeam() throws Exception {
+
+        controller.playerUsage(1000, null, null, null, response);
+
+        final Map<String, Object> usage = read();
+        assertEquals(1000, usage.get("id"));
+        assertEquals(20, usage.get("leagueWeeks"));
+        assertEquals(13, usage.get("rosteredWeeks"));
+        assertEquals(65.0, usage.get("ownershipPercent"));
+        assertEquals(30.0, usage.get("startPercent"));
+
+        final List<Map<String, Object>> teams = (List<Map<String, Object>>) usage.get("teams");
+        assertEquals(2, teams.size());
+        assertEquals("Alpha", teams.get(0).get("league"));
+        assertEquals(4, teams.get(0).get("franchiseId"));
+        assertEquals(5, teams.get(0).get("startedWeeks"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void franchiseUsageIsGroupedByLeague() throws Exception {
+
+        controller.franchiseUsage(null, null, null, response);
+
+        final List<Map<String, Object>> leagues = (List<Map<String, Object>>) read().get("leagues");
+        assertEquals(2, leagues.size());
+        assertEquals("Alpha", leagues.get(0).get("league"));
+        assertEquals(2, ((List<?>) leagues.get(0).get("players")).size());
+        assertEquals("Beta", leagues.get(1).get("league"));
+        assertEquals(1, ((List<?>) leagues.get(1).get("players")).size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void cubeIsRolledUpToTheDimensionsAskedFor() throws Exception {
+
+        controller.cube(null, null, null, null, null, Arrays.asList("starter"), Arrays.asList("group", "position"),
+                        response);
+
+        final Map<String, Object> cube = read();
+        assertEquals(Arrays.asList("group", "position"), cube.get("by"));
+
+        final List<Map<String, Object>> cells = (List<Map<String, Object>>) cube.get("cells");
+        assertEquals(3, cells.size());
+        assertEquals("ppr", cells.get(0).get("group"));
+        assertEquals("RB", cells.get(0).get("position"));
+        assertEquals(1, cells.get(0).get("count"));
+        assertEquals(12, cells.get(0).get("teams"));
+        assertEquals("standard", cells.get(2).get("group"));
+        assertEquals("WR", cells.get(2).get("position"));
+        assertEquals(2, cells.get(2).get("count"));
+        assertEquals(30.0, cells.get(2).get("sum"));
+        assertEquals(15.0, cells.get(2).get("mean"));
+        assertFalse(cells.get(2).containsKey("season"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownLeagueGroupsAreRejected() throws Exception {
+        controller.cube(null, Arrays.asList("dynasty"), null, null, null, null, null, response);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownFieldsAreRejected() throws Exception {
+        controller.starterWeeks("WR", null, null, 0, 0, 0, null, null, null, Arrays.asList("salary"), response);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void depthsDeeperThanTheDeepestAreRejected() throws Exception {
+        controller.starterWeeks("WR", null, null, 2000000000, 0, 0, null, null, null, null, response);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tiersDeeperThanTheDeepestAreRejected() throws Exception {
+        controller.allStarterWeeks(new int[] {12, MAX_DEPTH + 1}, new int[] {2, 1}, 0, 0, 0, null, null, null, null,
+                                   response);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownSeasonsAreRejectedBeforeAnythingIsWritten() throws Exception {
+        controller.positionScoring(Arrays.asList(2015, 1999), null, null, response);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> read() throws Exception {
+
+        assertEquals("application/json", response.getContentType());
+        return objectMapper.readValue(response.getContentAsByteArray(), Map.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> onlySeason(final Map<String, Object> json) {
+
+        final List<Map<String, Object>> seasons = (List<Map<String, Object>>) json.get("seasons");
+        assertEquals(1, seasons.size());
+        return seasons.get(0);
+    }
+
+    /**
+     * The same reports every time, with every position ranking the same players.
+     */
+    private static final class FixedReports implements ReportService {
+
+        @Override
+        public PositionScoreTotals positionScoring(final int firstWeek, final int lastWeek) {
+
+            final PositionScoreTotals totals = new PositionScoreTotals();
+            totals.addTeams(24);
+            totals.addScore(Position.WIDE_RECEIVER, 1234.5);
+            return totals;
+        }
+
+        @Override
+        public PositionCountTotals positionCount() {
+
+            final PositionCountTotals totals = new PositionCountTotals();
+            totals.addTeams(24);
+            totals.add(Position.QUARTERBACK, 30);
+            totals.addUnknownPlayer(99);
+            return totals;
+        }
+
+        @Override
+        public List<PlayerScoreBreakdown> starterWeeks(final Position position, final StarterTiers tiers,
+                                                       final int depth, final int limit,
+                                                       final int firstWeek, final int lastWeek) {
+
+            final List<PlayerScoreBreakdown> ranked = new ArrayList<>();
+            for (int i = 0; i < (limit == 0 ? RANKED_PLAYERS : Math.min(limit, RANKED_PLAYERS)); i++) {
+                final Player player = new Player();
+                player.setId(1000 + i);
+                player.setName("Player " + i);
+                player.setPosition(position);
+                ranked.add(new PlayerScoreBreakdown(player));
+            }
+            return ranked;
+        }
+
+        @Override
+        public ScoreCube scoreCube() {
+
+            final ScoreCube.Builder cube = new ScoreCube.Builder();
+            cube.addTeams(0, 1, 12);
+            cube.add(0, 1, Position.WIDE_RECEIVER, true, 10.0);
+            cube.add(0, 1, Position.WIDE_RECEIVER, true, 20.0);
+            cube.add(0, 1, Position.WIDE_RECEIVER, false, 5.0);
+            cube.addTeams(1, 1, 12);
+            cube.add(1, 1, Position.RUNNING_BACK, true, 8.0);
+            cube.add(1, 1, Position.WIDE_RECEIVER, true, 11.0);
+            return ScoreCube.of(Arrays.asList("zealots1", "zealotsppr1"), 1, 13, cube);
+        }
+
+        @Override
+        public PlayerUsage playerUsage(final int playerId, final int firstWeek, final int lastWeek) {
+
+            return new PlayerUsage(playerId, null, 20, Arrays.asList(
+                    new RosterUsage("Alpha", 4, playerId, null, 8, 5, 60.0),
+                    new RosterUsage("Beta", 7, playerId, null, 5, 1, 9.5)));
+        }
+
+        @Override
+        public List<RosterUsage> franchiseUsage(final int firstWeek, final int lastWeek) {
+
+            return Arrays.asList(new RosterUsage("Alpha", 1, 1000, null, 13, 13, 200.0),
+                                 new RosterUsage("Alpha", 1, 1001, null, 13, 2, 20.0),
+                                 new RosterUsage("Beta", 1, 1000, null, 13, 13, 210.0));
+        }
+    }
+}
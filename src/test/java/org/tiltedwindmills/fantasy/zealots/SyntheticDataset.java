@@ -0,0 +1,245 @@
+package org.tiltedwindmills.fantasy.zealots;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.mfl.model.Player;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+
+/**
+ * Writes MFL shaped {@code weeklyResults}, {@code scores} and {@code players} exports for a made up set of
+ * leagues into a directory, so tests can run the reports against a known dataset via {@code data.location}.
+ *
+ * @author John Daniel
+ */
+public final class SyntheticDataset {
+
+    public static final Position[] POSITIONS = {
+        Position.QUARTERBACK, Position.RUNNING_BACK, Position.WIDE_RECEIVER, Position.TIGHT_END, Position.KICKER,
+        Position.DEFENSIVE_TACKLE, Position.DEFENSIVE_END, Position.LINEBACKER, Position.CORNERBACK, Position.SAFETY
+    };
+
+    private static final int FIRST_PLAYER_ID = 1000;
+
+    private final int leagueCount;
+    private final int weeks;
+    private final int teamsPerLeague;
+    private final int rosterSize;
+    private final int startersPerTeam;
+    private final int playerPool;
+    private final long seed;
+
+    private final List<League> leagues = new ArrayList<>();
+    private final List<Player> players = new ArrayList<>();
+
+    public SyntheticDataset(final int leagueCount, final int weeks, final int teamsPerLeague, final int rosterSize,
+                            final int startersPerTeam, final int playerPool, final long seed) {
+
+        this.leagueCount = leagueCount;
+        this.weeks = weeks;
+        this.teamsPerLeague = teamsPerLeague;
+        this.rosterSize = rosterSize;
+        this.startersPerTeam = startersPerTeam;
+        this.playerPool = playerPool;
+        this.seed = seed;
+
+        for (int i = 0; i < leagueCount; i++) {
+            final League league = new League();
+            league.setName("synthetic" + i);
+            league.setId(10000 + i);
+            league.setServerId(1 + i % 30);
+            leagues.add(league);
+        }
+
+        for (int i = 0; i < playerPool; i++) {
+            final Player player = new Player();
+            player.setId(FIRST_PLAYER_ID + i);
+            player.setName(String.format(Locale.US, "Player %05d", i));
+            player.setPosition(POSITIONS[i % POSITIONS.length]);
+            players.add(player);
+        }
+    }
+
+    /**
+     * The league sizes the reports are tuned for: 12 teams, 30 man rosters and 20 starters.
+     */
+    public static SyntheticDataset ofLeagues(final int leagueCount, final int weeks) {
+        return new SyntheticDataset(leagueCount, weeks, 12, 30, 20, 2500, 42L);
+    }
+
+    public List<League> getLeagues() {
+        return leagues;
+    }
+
+    public List<Player> getPlayers() {
+        return players;
+    }
+
+    public int getWeeks() {
+        return weeks;
+    }
+
+    /**
+     * Writes every export under the given directory.
+     *
+     * @param directory the directory to use as {@code data.location}.
+     * @return the {@code file:} location of the directory, with a trailing slash.
+     */
+    public String writeTo(final File directory) throws IOException {
+
+        final File weeklyResults = new File(directory, "weeklyResults");
+        final File scores = new File(directory, "scores");
+        Files.createDirectories(weeklyResults.toPath());
+        Files.createDirectories(scores.toPath());
+
+        for (int week = 1; week <= weeks; week++) {
+
+            for (int league = 0; league < leagueCount; league++) {
+
+                final File file = new File(weeklyResults, leagues.get(league).getName() + "week" + week + ".json");
+                try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+                    writer.write(weeklyResultsJson(league, week));
+                }
+            }
+
+            for (Position position : scoredPositions()) {
+
+                final File file = new File(scores, position.getType() + "_week" + week + ".json");
+                try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+                    writer.write(playerScoresJson(position, week));
+                }
+            }
+        }
+
+        try (Writer writer = Files.newBufferedWriter(new File(directory, "mfl_players.json").toPath(),
+                                                     StandardCharsets.UTF_8)) {
+            writer.write(playersJson());
+        }
+
+        return directory.toURI().toString().replaceFirst("/?$", "/");
+    }
+
+    /**
+     * @return a {@code weeklyResults} export for the given league index and week.
+     */
+    public String weeklyResultsJson(final int league, final int week) {
+
+        final Random random = new Random(seed * 31 + league * 1009L + week);
+        final StringBuilder json = new StringBuilder(teamsPerLeague * rosterSize * 80);
+
+        json.append("{\"version\":\"1.0\",\"weeklyResults\":{\"week\":\"").append(week).append("\",\"matchup\":[");
+
+        for (int team = 0; team < teamsPerLeague; team++) {
+
+            if (team % 2 == 0) {
+                json.append(team == 0 ? "" : "]},").append("{\"franchise\":[");
+            } else {
+                json.append(',');
+            }
+
+            json.append("{\"id\":\"").append(String.format(Locale.US, "%04d", team + 1)).append("\",\"player\":[");
+            for (int slot = 0; slot < rosterSize; slot++) {
+
+                final int playerId = FIRST_PLAYER_ID + random.nextInt(playerPool);
+                final double score = Math.round(random.nextDouble() * 400) / 10.0;
+
+                json.append(slot == 0 ? "" : ",")
+                    .append("{\"id\":\"").append(playerId)
+                    .append("\",\"status\":\"").append(slot < startersPerTeam ? "starter" : "nonstarter")
+                    .append("\",\"score\":\"").append(score).append("\"}");
+            }
+            json.append("]}");
+        }
+
+        json.append(teamsPerLeague == 0 ? "" : "]}").append("]}}");
+        return json.toString();
+    }
+
+    /**
+     * @return a {@code playerScores} export ranking the position's players for the week.
+     */
+    public String playerScoresJson(final Position position, final int week) {
+
+        final List<Player> positionPlayers = new ArrayList<>();
+        for (Player player : players) {
+            if (player.getPosition() == position
+                || (position == Position.DEFENSIVE_BACK && isDefensiveBack(player.getPosition()))
+                || (position == Position.DEFENSIVE_LINEMAN && isDefensiveLineman(player.getPosition()))) {
+                positionPlayers.add(player);
+            }
+        }
+
+        final Random random = new Random(seed * 17 + position.ordinal() * 101L + week);
+        final StringBuilder json = new StringBuilder(positionPlayers.size() * 40);
+        json.append("{\"playerScores\":{\"week\":\"").append(week).append("\",\"playerScore\":[");
+
+        // shuffle for the ranking; scores are descending as MFL sends them.
+        Collections.shuffle(positionPlayers, random);
+        for (int i = 0; i < positionPlayers.size(); i++) {
+            json.append(i == 0 ? "" : ",")
+                .append("{\"id\":\"").append(positionPlayers.get(i).getId())
+                .append("\",\"score\":\"").append(positionPlayers.size() - i).append("\"}");
+        }
+
+        json.append("]}}");
+        return json.toString();
+    }
+
+    /**
+     * @return a {@code players} export listing the whole player pool.
+     */
+    public String playersJson() {
+
+        final StringBuilder json = new StringBuilder(players.size() * 60);
+        json.append("{\"version\":\"1.0\",\"players\":{\"player\":[");
+        for (int i = 0; i < players.size(); i++) {
+            final Player player = players.get(i);
+            json.append(i == 0 ? "" : ",")
+                .append("{\"position\":\"").append(player.getPosition().getType())
+                .append("\",\"name\":\"").append(player.getName())
+                .append("\",\"id\":\"").append(player.getId()).append("\"}");
+        }
+
+        json.append("]}}");
+        return json.toString();
+    }
+
+    /**
+     * Deletes a directory written by {@link #writeTo(File)}, or any other file tree.
+     */
+    public static void delete(final File file) {
+
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static Position[] scoredPositions() {
+
+        return new Position[] {
+            Position.QUARTERBACK, Position.RUNNING_BACK, Position.WIDE_RECEIVER, Position.TIGHT_END, Position.KICKER,
+            Position.DEFENSIVE_LINEMAN, Position.LINEBACKER, Position.DEFENSIVE_BACK
+        };
+    }
+
+    private static boolean isDefensiveBack(final Position position) {
+        return position == Position.CORNERBACK || position == Position.SAFETY;
+    }
+
+    private static boolean isDefensiveLineman(final Position position) {
+        return position == Position.DEFENSIVE_TACKLE || position == Position.DEFENSIVE_END;
+    }
+}
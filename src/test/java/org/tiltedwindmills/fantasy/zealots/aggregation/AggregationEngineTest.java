@@ -0,0 +1,90 @@
+package org.tiltedwindmills.fantasy.zealots.aggregation;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+
+public class AggregationEngineTest {
+
+    private static final int LEAGUES = 61;
+    private static final int WEEKS = 13;
+
+    @Test
+    public void parallelResultMatchesSerialResultExactly() {
+
+        final List<League> leagues = leagues(LEAGUES);
+
+        final AggregationEngine serialEngine = new AggregationEngine(1);
+        final AggregationEngine parallelEngine = new AggregationEngine(8);
+        try {
+            final double[] serial = serialEngine.aggregate(leagues, 1, WEEKS, new ScoreSummingAggregator());
+            final double[] parallel = parallelEngine.aggregate(leagues, 1, WEEKS, new ScoreSummingAggregator());
+
+            assertEquals(LEAGUES * WEEKS, (long) serial[1]);
+            assertEquals(serial[1], parallel[1], 0.0);
+            assertEquals(Double.doubleToLongBits(serial[0]), Double.doubleToLongBits(parallel[0]));
+
+        } finally {
+            serialEngine.shutdown();
+            parallelEngine.shutdown();
+        }
+    }
+
+    @Test
+    public void emptyWeekRangeProducesEmptyResult() {
+
+        final AggregationEngine engine = new AggregationEngine(4);
+        try {
+            final double[] result = engine.aggregate(leagues(3), 5, 4, new ScoreSummingAggregator());
+            assertEquals(0.0, result[1], 0.0);
+
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    static List<League> leagues(final int count) {
+
+        final List<League> leagues = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final League league = new League();
+            league.setName("zealots" + i);
+            league.setId(10000 + i);
+            leagues.add(league);
+        }
+        return leagues;
+    }
+
+    /**
+     * Sums a deterministic set of awkward doubles per league-week; slot 0 is the score, slot 1 the count.
+     */
+    private static final class ScoreSummingAggregator implements LeagueWeekAggregator<double[]> {
+
+        @Override
+        public double[] newPartial() {
+            return new double[2];
+        }
+
+        @Override
+        public void accumulate(final double[] partial, final League league, final int week) {
+
+            final Random random = new Random(league.getId() * 31L + week);
+            for (int i = 0; i < 240; i++) {
+                partial[0] += random.nextDouble() * 40.0;
+            }
+            partial[1]++;
+        }
+
+        @Override
+        public void merge(final double[] result, final double[] partial) {
+
+            result[0] += partial[0];
+            result[1] += partial[1];
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.tiltedwindmills.fantasy.zealots.aggregation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.Test;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+import org.tiltedwindmills.fantasy.zealots.aggregation.ScoreCube.Dimension;
+import org.tiltedwindmills.fantasy.zealots.aggregation.ScoreCube.Status;
+
+public class CubeRollupTest {
+
+    private static final LeagueGroups GROUPS =
+            new LeagueGroups(Collections.singletonMap("ppr", Collections.singletonList("zealotsppr1")), "standard");
+
+    private static final List<String> EVERY_GROUP = Collections.emptyList();
+    private static final List<Position> EVERY_POSITION = Collections.emptyList();
+    private static final List<Status> EVERY_STATUS = Collections.emptyList();
+
+    @Test
+    public void nothingToBreakDownByGivesAGrandTotal() {
+
+        final List<CubeRollup.Cell> cells =
+                rollUp(EnumSet.noneOf(Dimension.class), EVERY_GROUP, 1, 3, EVERY_POSITION, EVERY_STATUS);
+
+        assertEquals(1, cells.size());
+        final CubeRollup.Cell total = cells.get(0);
+        assertNull(total.getSeason());
+        assertNull(total.getPosition());
+        assertEquals(10, total.getCount());
+        assertEquals(136.5, total.getSum(), 1e-9);
+        assertEquals(46, total.getTeams());
+        assertEquals(13.65, total.getMean(), 1e-9);
+    }
+
+    @Test
+    public void startersAreBrokenDownByLeagueGroup() {
+
+        final List<CubeRollup.Cell> cells = rollUp(EnumSet.of(Dimension.LEAGUE_GROUP), EVERY_GROUP, 1, 3,
+                                                   EVERY_POSITION, Collections.singletonList(Status.STARTER));
+
+        assertEquals(2, cells.size());
+        assertEquals("ppr", cells.get(0).getGroup());
+        assertEquals(2, cells.get(0).getCount());
+        assertEquals(48.0, cells.get(0).getSum(), 1e-9);
+        assertEquals(12, cells.get(0).getTeams());
+        assertEquals("standard", cells.get(1).getGroup());
+        assertEquals(6, cells.get(1).getCount());
+        assertEquals(82.5, cells.get(1).getSum(), 1e-9);
+        assertEquals(34, cells.get(1).getTeams());
+    }
+
+    @Test
+    public void positionsAreFoldedAndCountEveryTeamInTheSlice() {
+
+        final List<CubeRollup.Cell> cells = rollUp(EnumSet.of(Dimension.POSITION, Dimension.STATUS), EVERY_GROUP,
+                1, 3, Collections.singletonList(Position.CORNERBACK), EVERY_STATUS);
+
+        assertEquals(1, cells.size());
+        assertEquals(Position.DEFENSIVE_BACK, cells.get(0).getPosition());
+        assertEquals(Status.STARTER, cells.get(0).getStatus());
+        assertEquals(2, cells.get(0).getCount());
+        assertEquals(46, cells.get(0).getTeams());
+        assertEquals(13.0 / 46, cells.get(0).getPerTeam(), 1e-9);
+    }
+
+    @Test
+    public void weeksAndGroupsNarrowTheSlice() {
+
+        final List<CubeRollup.Cell> cells = rollUp(EnumSet.of(Dimension.WEEK, Dimension.LEAGUE), Arrays.asList(
+                "standard"), 2, 2, EVERY_POSITION, EVERY_STATUS);
+
+        assertEquals(2, cells.size());
+        assertEquals("zealots1", cells.get(0).getLeague());
+        assertEquals(Integer.valueOf(2), cells.get(0).getWeek());
+        assertEquals(2, cells.get(0).getCount());
+        assertEquals("zealots2", cells.get(1).getLeague());
+        assertEquals(10, cells.get(1).getTeams());
+    }
+
+    @Test
+    public void seasonsAreADimensionOfTheirOwn() {
+
+        final CubeRollup bySeason = new CubeRollup(EnumSet.of(Dimension.SEASON), GROUPS, EVERY_GROUP, 1, 3,
+                                                   EVERY_POSITION, EVERY_STATUS);
+        bySeason.add(2015, ScoreCubeTest.cube());
+        bySeason.add(2014, ScoreCubeTest.cube());
+
+        final CubeRollup together = new CubeRollup(EnumSet.noneOf(Dimension.class), GROUPS, EVERY_GROUP, 1, 3,
+                                                   EVERY_POSITION, EVERY_STATUS);
+        together.add(2015, ScoreCubeTest.cube());
+        together.add(2014, ScoreCubeTest.cube());
+
+        assertEquals(Integer.valueOf(2014), bySeason.getCells().get(0).getSeason());
+        assertEquals(Integer.valueOf(2015), bySeason.getCells().get(1).getSeason());
+        assertEquals(10, bySeason.getCells().get(0).getCount());
+        assertEquals(20, together.getCells().get(0).getCount());
+        assertEquals(92, together.getCells().get(0).getTeams());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void weeksOutsideTheCubeAreRejected() {
+        rollUp(EnumSet.noneOf(Dimension.class), EVERY_GROUP, 1, 4, EVERY_POSITION, EVERY_STATUS);
+    }
+
+    private static List<CubeRollup.Cell> rollUp(final EnumSet<Dimension> by, final Collection<String> groups,
+                                                final int firstWeek, final int lastWeek,
+                                                final Collection<Position> positions,
+                                                final Collection<Status> statuses) {
+
+        final CubeRollup rollup = new CubeRollup(by, GROUPS, groups, firstWeek, lastWeek, positions, statuses);
+        rollup.add(2015, ScoreCubeTest.cube());
+        return rollup.getCells();
+    }
+}
@@ -0,0 +1,101 @@
+package org.tiltedwindmills.fantasy.zealots.aggregation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+
+public class PositionStatsTest {
+
+    @Test
+    public void keepsEveryStatisticInOnePass() {
+
+        final double[] scores = {12.5, 3.0, 27.25, 8.0, 14.75};
+        final PositionStats stats = new PositionStats();
+        for (double score : scores) {
+            stats.add(Position.WIDE_RECEIVER, score);
+        }
+
+        double sum = 0;
+        for (double score : scores) {
+            sum += score;
+        }
+        final double mean = sum / scores.length;
+        double squaredDeviations = 0;
+        for (double score : scores) {
+            squaredDeviations += (score - mean) * (score - mean);
+        }
+
+        assertEquals(scores.length, stats.getCount(Position.WIDE_RECEIVER));
+        assertEquals(sum, stats.getSum(Position.WIDE_RECEIVER), 1e-9);
+        assertEquals(3.0, stats.getMin(Position.WIDE_RECEIVER), 0);
+        assertEquals(27.25, stats.getMax(Position.WIDE_RECEIVER), 0);
+        assertEquals(mean, stats.getMean(Position.WIDE_RECEIVER), 1e-9);
+        assertEquals(squaredDeviations / scores.length, stats.getVariance(Position.WIDE_RECEIVER), 1e-9);
+
+        assertFalse(stats.contains(Position.QUARTERBACK));
+        assertTrue(Double.isNaN(stats.getMean(Position.QUARTERBACK)));
+        assertFalse(stats.getSums().containsKey(Position.QUARTERBACK));
+    }
+
+    @Test
+    public void foldsDefensivePositions() {
+
+        final PositionStats stats = new PositionStats();
+        stats.add(Position.CORNERBACK, 4);
+        stats.add(Position.SAFETY, 6);
+        stats.add(Position.DEFENSIVE_END, 5);
+        stats.add(Position.DEFENSIVE_TACKLE, 1);
+
+        assertEquals(2, stats.getCount(Position.DEFENSIVE_BACK));
+        assertEquals(10, stats.getSum(Position.DEFENSIVE_BACK), 0);
+        assertEquals(6, stats.getSum(Position.DEFENSIVE_LINEMAN), 0);
+        assertFalse(stats.contains(Position.CORNERBACK));
+        assertFalse(stats.contains(Position.DEFENSIVE_END));
+    }
+
+    @Test
+    public void mergedPartialsMatchASinglePass() {
+
+        final Random random = new Random(5);
+        final PositionStats single = new PositionStats();
+        final PositionStats merged = new PositionStats();
+
+        for (int partial = 0; partial < 8; partial++) {
+            final PositionStats stats = new PositionStats();
+            for (int i = 0; i < 50 + partial * 20; i++) {
+                final Position position = i % 3 == 0 ? Position.QUARTERBACK : Position.RUNNING_BACK;
+                final double score = Math.round(random.nextDouble() * 4000) / 100.0;
+                single.add(position, score);
+                stats.add(position, score);
+            }
+            merged.merge(stats);
+        }
+
+        for (Position position : new Position[] {Position.QUARTERBACK, Position.RUNNING_BACK}) {
+            assertEquals(single.getCount(position), merged.getCount(position));
+            assertEquals(single.getSum(position), merged.getSum(position), 1e-6);
+            assertEquals(single.getMin(position), merged.getMin(position), 0);
+            assertEquals(single.getMax(position), merged.getMax(position), 0);
+            assertEquals(single.getMean(position), merged.getMean(position), 1e-9);
+            assertEquals(single.getVariance(position), merged.getVariance(position), 1e-6);
+        }
+    }
+
+    @Test
+    public void groupsAddTheirCountAndSum() {
+
+        final PositionStats stats = new PositionStats();
+        stats.add(Position.TIGHT_END, 30, 30);
+        stats.add(Position.TIGHT_END, 1);
+
+        assertEquals(31, stats.getCount(Position.TIGHT_END));
+        assertEquals(31, stats.getSum(Position.TIGHT_END), 0);
+        assertEquals(0, stats.getVariance(Position.TIGHT_END), 0);
+        assertEquals(Integer.valueOf(31), stats.getCounts().get(Position.TIGHT_END));
+    }
+}
@@ -0,0 +1,119 @@
+package org.tiltedwindmills.fantasy.zealots.aggregation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class QuantileSketchTest {
+
+    private static final double[] FRACTIONS = {0.1, 0.25, 0.5, 0.75, 0.9, 0.99};
+
+    @Test
+    public void smallStreamsAreExact() {
+
+        final QuantileSketch sketch = new QuantileSketch();
+        for (int score = 1; score <= 99; score++) {
+            sketch.update(score);
+        }
+
+        assertEquals(99, sketch.getCount());
+        assertEquals(1, sketch.quantile(0), 0);
+        assertEquals(50, sketch.quantile(0.5), 0);
+        assertEquals(90, sketch.quantile(0.9), 0);
+        assertEquals(99, sketch.quantile(1), 0);
+    }
+
+    @Test
+    public void largeStreamsStayWithinTheRankErrorInBoundedMemory() {
+
+        final Random random = new Random(3);
+        final double[] scores = new double[200000];
+        final QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = random.nextGaussian() * 8 + 12;
+            sketch.update(scores[i]);
+        }
+
+        assertWithinRankError(scores, sketch, 0.02);
+    }
+
+    @Test
+    public void mergedPartialsMatchTheWholeStream() {
+
+        final Random random = new Random(7);
+        final double[] scores = new double[120000];
+        final QuantileSketch merged = new QuantileSketch();
+        for (int league = 0; league < 60; league++) {
+
+            final QuantileSketch partial = new QuantileSketch();
+            for (int i = 0; i < 2000; i++) {
+                final double score = Math.round(random.nextDouble() * random.nextDouble() * 4500) / 100.0;
+                scores[league * 2000 + i] = score;
+                partial.update(score);
+            }
+            merged.merge(partial);
+        }
+
+        assertEquals(scores.length, merged.getCount());
+        assertWithinRankError(scores, merged, 0.02);
+    }
+
+    @Test
+    public void copiesHaveTheSameQuantilesAndShareNothing() {
+
+        final Random random = new Random(11);
+        final QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < 50000; i++) {
+            sketch.update(random.nextGaussian() * 8 + 12);
+        }
+
+        final QuantileSketch copy = sketch.copy();
+        for (double fraction : FRACTIONS) {
+            assertEquals(sketch.quantile(fraction), copy.quantile(fraction), 0);
+        }
+
+        final double median = sketch.quantile(0.5);
+        for (int i = 0; i < 50000; i++) {
+            copy.update(1000);
+        }
+        assertEquals(50000, sketch.getCount());
+        assertEquals(median, sketch.quantile(0.5), 0);
+    }
+
+    @Test
+    public void emptySketchesHaveNoQuantiles() {
+        assertTrue(Double.isNaN(new QuantileSketch().quantile(0.5)));
+    }
+
+    private static void assertWithinRankError(final double[] scores, final QuantileSketch sketch,
+                                              final double rankError) {
+
+        final double[] sorted = scores.clone();
+        Arrays.sort(sorted);
+        for (double fraction : FRACTIONS) {
+
+            final double estimate = sketch.quantile(fraction);
+            final double rank = (double) lowerBound(sorted, estimate) / sorted.length;
+            assertEquals("rank of the " + fraction + " quantile", fraction, rank, rankError);
+        }
+    }
+
+    private static int lowerBound(final double[] sorted, final double value) {
+
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
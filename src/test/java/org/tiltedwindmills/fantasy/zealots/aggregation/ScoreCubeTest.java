@@ -0,0 +1,141 @@
+package org.tiltedwindmills.fantasy.zealots.aggregation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.Test;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+import org.tiltedwindmills.fantasy.zealots.aggregation.ScoreCube.Status;
+
+public class ScoreCubeTest {
+
+    private static final List<String> LEAGUES = Arrays.asList("zealots1", "zealots2", "zealotsppr1");
+
+    @Test
+    public void cellsAreFoldedIntoReportPositions() {
+
+        final ScoreCube cube = cube();
+
+        assertEquals(2, cube.getCount(0, 1, Position.DEFENSIVE_BACK, Status.STARTER));
+        assertEquals(13.0, cube.getSum(0, 1, Position.DEFENSIVE_BACK, Status.STARTER), 0);
+        assertEquals(0, cube.getCount(0, 1, Position.CORNERBACK, Status.STARTER));
+        assertEquals(1, cube.getCount(0, 1, Position.WIDE_RECEIVER, Status.BENCH));
+        assertEquals(12, cube.getTeams(0, 1));
+    }
+
+    @Test
+    public void positionCountIsASliceOfTheCube() {
+
+        final PositionCountTotals counts = cube().positionCount(2, 2);
+
+        assertEquals(22, counts.getTeams());
+        assertEquals(Integer.valueOf(3), counts.getPositionCounts().get(Position.WIDE_RECEIVER));
+        assertFalse(counts.getPositionCounts().containsKey(Position.DEFENSIVE_BACK));
+        assertEquals(EnumSet.of(Position.WIDE_RECEIVER, Position.QUARTERBACK),
+                     EnumSet.copyOf(counts.getPositionCounts().keySet()));
+        assertEquals(Arrays.asList(7, 99), Arrays.asList(counts.getUnknownPlayers().toArray()));
+    }
+
+    @Test
+    public void leagueWeeksCanBeAddedInAnyOrder() {
+
+        final ScoreCube.Builder interleaved = new ScoreCube.Builder();
+        interleaved.add(2, 1, Position.WIDE_RECEIVER, true, 30.0);
+        interleaved.add(0, 1, Position.WIDE_RECEIVER, true, 1.5);
+        interleaved.addTeams(2, 1, 12);
+        interleaved.add(0, 1, Position.WIDE_RECEIVER, true, 20.0);
+        interleaved.addUnknownPlayer(1, 2, 99);
+        interleaved.addUnknownPlayer(1, 2, 99);
+        final ScoreCube cube = ScoreCube.of(LEAGUES, 1, 3, interleaved);
+
+        assertEquals(2, cube.getCount(0, 1, Position.WIDE_RECEIVER, Status.STARTER));
+        assertEquals(21.5, cube.getSum(0, 1, Position.WIDE_RECEIVER, Status.STARTER), 0);
+        assertEquals(12, cube.getTeams(2, 1));
+        assertEquals(Collections.singleton(99), cube.positionCount(2, 2).getUnknownPlayers());
+    }
+
+    @Test
+    public void replacedWeeksAreClearedAndTheRestKept() {
+
+        final ScoreCube cube = cube();
+
+        // week 2 now only has zealots1, with one starting quarterback; week 3 gains a team in zealotsppr1.
+        final ScoreCube.Builder replacements = new ScoreCube.Builder();
+        replacements.addTeams(0, 2, 10);
+        replacements.add(0, 2, Position.QUARTERBACK, true, 17.0);
+        replacements.addTeams(2, 3, 8);
+        final ScoreCube replaced = cube.withWeeks(Arrays.asList(2, 3), replacements);
+
+        assertEquals(10, replaced.positionCount(2, 2).getTeams());
+        assertEquals(EnumSet.of(Position.QUARTERBACK),
+                     EnumSet.copyOf(replaced.positionCount(2, 2).getPositionCounts().keySet()));
+        assertEquals(Collections.emptySet(), replaced.positionCount(2, 2).getUnknownPlayers());
+        assertEquals(8, replaced.getTeams(2, 3));
+        assertEquals(0, replaced.getTeams(0, 3));
+
+        // week 1 is untouched, and so is the cube it was made from.
+        assertEquals(cube.positionCount(1, 1).getPositionCounts(), replaced.positionCount(1, 1).getPositionCounts());
+        assertEquals(cube.positionCount(1, 1).getTeams(), replaced.positionCount(1, 1).getTeams());
+        assertEquals(22, cube.positionCount(2, 2).getTeams());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void replacementsOutsideTheReplacedWeeksAreRejected() {
+
+        final ScoreCube.Builder replacements = new ScoreCube.Builder();
+        replacements.addTeams(0, 1, 12);
+        cube().withWeeks(Collections.singleton(2), replacements);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void weeksOutsideTheCubeAreRejected() {
+        cube().positionCount(0, 2);
+    }
+
+    /**
+     * Three leagues of weeks 1 to 3; zealots2 has no week 1 and zealotsppr1 no week 3.
+     */
+    static ScoreCube cube() {
+
+        final ScoreCube.Builder cube = new ScoreCube.Builder();
+        for (ScoreCube.Builder leagueWeek : leagueWeeks()) {
+            cube.merge(leagueWeek);
+        }
+        return ScoreCube.of(LEAGUES, 1, 3, cube);
+    }
+
+    private static List<ScoreCube.Builder> leagueWeeks() {
+
+        final ScoreCube.Builder league1week1 = new ScoreCube.Builder();
+        league1week1.addTeams(0, 1, 12);
+        league1week1.add(0, 1, Position.CORNERBACK, true, 6.0);
+        league1week1.add(0, 1, Position.SAFETY, true, 7.0);
+        league1week1.add(0, 1, Position.WIDE_RECEIVER, false, 4.0);
+        league1week1.add(0, 1, Position.WIDE_RECEIVER, true, 21.5);
+
+        final ScoreCube.Builder league1week2 = new ScoreCube.Builder();
+        league1week2.addTeams(0, 2, 12);
+        league1week2.add(0, 2, Position.WIDE_RECEIVER, true, 15.0);
+        league1week2.add(0, 2, Position.QUARTERBACK, true, 24.0);
+        league1week2.addUnknownPlayer(0, 2, 99);
+        league1week2.addUnknownPlayer(0, 2, 7);
+
+        final ScoreCube.Builder league2week2 = new ScoreCube.Builder();
+        league2week2.addTeams(1, 2, 10);
+        league2week2.add(1, 2, Position.WIDE_RECEIVER, true, 9.0);
+        league2week2.add(1, 2, Position.WIDE_RECEIVER, false, 2.0);
+        league2week2.addUnknownPlayer(1, 2, 99);
+
+        final ScoreCube.Builder league3week1 = new ScoreCube.Builder();
+        league3week1.addTeams(2, 1, 12);
+        league3week1.add(2, 1, Position.RUNNING_BACK, true, 18.0);
+        league3week1.add(2, 1, Position.WIDE_RECEIVER, true, 30.0);
+
+        return Arrays.asList(league1week1, league1week2, league2week2, league3week1);
+    }
+}
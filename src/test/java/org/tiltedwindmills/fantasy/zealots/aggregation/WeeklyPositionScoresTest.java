@@ -0,0 +1,116 @@
+package org.tiltedwindmills.fantasy.zealots.aggregation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+
+public class WeeklyPositionScoresTest {
+
+    private static final int WEEKS = 13;
+    private static final Position[] POSITIONS = {
+        Position.QUARTERBACK, Position.RUNNING_BACK, Position.WIDE_RECEIVER, Position.LINEBACKER
+    };
+
+    private static final int SCORES_PER_WEEK = 12;
+
+    // each week's teams and raw scores, by position, to aggregate ranges directly from.
+    private final int[] teams = new int[WEEKS + 1];
+    private final Map<Position, List<List<Double>>> scores = new EnumMap<>(Position.class);
+
+    private WeeklyPositionScores weeklyScores;
+
+    @Before
+    public void setUp() {
+
+        // linebackers only start from week 5, so earlier ranges shouldn't report them at all.  Few enough scores
+        // that a season's fit in a sketch's first level, so percentiles are exact either way.
+        final Random random = new Random(11);
+        final List<PositionScoreTotals> weeklyTotals = new ArrayList<>();
+        for (Position position : POSITIONS) {
+            scores.put(position, new ArrayList<List<Double>>());
+            scores.get(position).add(new ArrayList<Double>());
+        }
+        for (int week = 1; week <= WEEKS; week++) {
+
+            final PositionScoreTotals totals = new PositionScoreTotals();
+            teams[week] = 10 + week % 3;
+            totals.addTeams(teams[week]);
+            for (Position position : POSITIONS) {
+
+                final List<Double> weekScores = new ArrayList<>();
+                if (position != Position.LINEBACKER || week >= 5) {
+                    for (int i = 0; i < SCORES_PER_WEEK; i++) {
+                        final double score = Math.round(random.nextDouble() * 50000) / 100.0;
+                        weekScores.add(score);
+                        totals.addScore(position, score);
+                    }
+                }
+                scores.get(position).add(weekScores);
+            }
+            weeklyTotals.add(totals);
+        }
+        weeklyScores = new WeeklyPositionScores(1, weeklyTotals);
+    }
+
+    @Test
+    public void everyRangeMatchesAggregatingItsScoresDirectly() {
+
+        for (int from = 1; from <= WEEKS; from++) {
+            for (int to = from; to <= WEEKS; to++) {
+
+                final PositionScoreTotals expected = new PositionScoreTotals();
+                for (int week = from; week <= to; week++) {
+                    expected.addTeams(teams[week]);
+                    for (Position position : POSITIONS) {
+                        for (double score : scores.get(position).get(week)) {
+                            expected.addScore(position, score);
+                        }
+                    }
+                }
+
+                final PositionScoreTotals actual = weeklyScores.between(from, to);
+                assertEquals(expected.getTeams(), actual.getTeams());
+                assertEquals(expected.getPositionScores().keySet(), actual.getPositionScores().keySet());
+                for (Position position : expected.getPositionScores().keySet()) {
+
+                    assertEquals(expected.getStats().getCount(position), actual.getStats().getCount(position));
+                    assertEquals(expected.getStats().getSum(position), actual.getStats().getSum(position), 1e-6);
+
+                    final ScoreDistribution want = expected.getScoreDistributions().get(position);
+                    final ScoreDistribution got = actual.getScoreDistributions().get(position);
+                    assertEquals(want.getCount(), got.getCount());
+                    assertEquals(want.getMean(), got.getMean(), 1e-6);
+                    assertEquals(want.getStandardDeviation(), got.getStandardDeviation(), 1e-6);
+                    assertEquals(want.getMin(), got.getMin(), 0);
+                    assertEquals(want.getMax(), got.getMax(), 0);
+                    assertEquals(want.getMedian(), got.getMedian(), 0);
+                    assertEquals(want.getP90(), got.getP90(), 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void positionsWithoutStartersInTheRangeAreLeftOut() {
+        assertFalse(weeklyScores.between(2, 4).getPositionScores().containsKey(Position.LINEBACKER));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsRangesOutsideTheSeason() {
+        weeklyScores.between(10, 14);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsBackwardsRanges() {
+        weeklyScores.between(6, 5);
+    }
+}
@@ -0,0 +1,63 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public class BackgroundLoadTest {
+
+    @Test
+    public void requestsAreTurnedAwayUntilTheLoadFinishes() throws Exception {
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final BackgroundLoad<String> load = BackgroundLoad.start("players", new Callable<String>() {
+
+            @Override
+            public String call() throws Exception {
+                release.await();
+                return "loaded";
+            }
+        });
+
+        assertFalse(load.isReady());
+        try {
+            load.get();
+            fail("expected DataNotReadyException");
+        } catch (DataNotReadyException e) {
+            assertEquals("players still loading", e.getMessage());
+        }
+
+        release.countDown();
+        assertEquals("loaded", load.await());
+        assertTrue(load.isReady());
+        assertEquals("loaded", load.get());
+    }
+
+    @Test
+    public void alreadyLoadedValuesAreReady() {
+
+        final BackgroundLoad<String> load = BackgroundLoad.of("players", "loaded");
+        assertTrue(load.isReady());
+        assertEquals("loaded", load.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void failedLoadsAreReportedToEveryCaller() {
+
+        final BackgroundLoad<String> load = BackgroundLoad.start("players", new Callable<String>() {
+
+            @Override
+            public String call() {
+                throw new IllegalArgumentException("unreadable");
+            }
+        });
+
+        load.await();
+    }
+}
@@ -0,0 +1,72 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.zealots.SyntheticDataset;
+
+public class ColumnarWeeklyResultsTest {
+
+    private SyntheticDataset dataset;
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+
+        dataset = SyntheticDataset.ofLeagues(5, 4);
+        directory = Files.createTempDirectory("zealots-columnar").toFile();
+        dataset.writeTo(directory);
+    }
+
+    @After
+    public void tearDown() {
+        SyntheticDataset.delete(directory);
+    }
+
+    @Test
+    public void mappedColumnsMatchTheJsonExports() throws Exception {
+
+        final File columnarFile = new File(directory, "results.zwr");
+        final int rows = ColumnarResultsConverter.convert(new File(directory, "weeklyResults"), columnarFile);
+        assertEquals(5 * 4 * 12 * 30, rows);
+
+        final ColumnarWeeklyResults columnar = new ColumnarWeeklyResults();
+        columnar.open(columnarFile);
+
+        for (int leagueIndex = 0; leagueIndex < dataset.getLeagues().size(); leagueIndex++) {
+
+            final League league = dataset.getLeagues().get(leagueIndex);
+            for (int week = 1; week <= dataset.getWeeks(); week++) {
+
+                final LeagueWeekResultsBuilder builder = new LeagueWeekResultsBuilder();
+                MflJsonDecoder.decodeWeeklyResults(new ByteArrayInputStream(
+                        dataset.weeklyResultsJson(leagueIndex, week).getBytes(StandardCharsets.UTF_8)), builder);
+                final LeagueWeekResults expected = builder.build();
+                final LeagueWeekResults actual = columnar.getResults(league, week);
+
+                assertEquals(expected.getTeamCount(), actual.getTeamCount());
+                assertEquals(expected.getPlayerCount(), actual.getPlayerCount());
+                for (int i = 0; i < expected.getPlayerCount(); i++) {
+                    assertEquals(expected.getPlayerId(i), actual.getPlayerId(i));
+                    assertEquals(expected.getFranchiseId(i), actual.getFranchiseId(i));
+                    assertEquals(Double.doubleToLongBits(expected.getScore(i)), Double.doubleToLongBits(actual.getScore(i)));
+                    assertEquals(expected.isStarter(i), actual.isStarter(i));
+                }
+            }
+        }
+
+        final League unknown = new League();
+        unknown.setName("unknown");
+        assertSame(LeagueWeekResults.EMPTY, columnar.getResults(unknown, 1));
+        assertSame(LeagueWeekResults.EMPTY, columnar.getResults(dataset.getLeagues().get(0), 5));
+    }
+}
@@ -0,0 +1,108 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+import org.tiltedwindmills.fantasy.zealots.SyntheticDataset;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
+
+public class DataDirectoryWatcherTest {
+
+    private static final long QUIET_MILLIS = 100;
+
+    private final BlockingQueue<ExportChanges> published = new LinkedBlockingQueue<>();
+
+    private SyntheticDataset dataset;
+    private File directory;
+    private DataDirectoryWatcher watcher;
+
+    @Before
+    public void setUp() throws Exception {
+
+        dataset = SyntheticDataset.ofLeagues(2, 2);
+        directory = Files.createTempDirectory("zealots-watch").toFile();
+        dataset.writeTo(directory);
+
+        watcher = new DataDirectoryWatcher(directory, dataset.getLeagues(),
+                Collections.<ExportChangeListener>singletonList(new ExportChangeListener() {
+
+            @Override
+            public void exportsChanged(final ExportChanges changes) {
+                published.add(changes);
+            }
+        }), QUIET_MILLIS);
+        assertTrue(watcher.awaitFirstScan(10, TimeUnit.SECONDS));
+    }
+
+    @After
+    public void tearDown() {
+
+        ReflectionTestUtils.invokeMethod(watcher, "preDestroy");
+        SyntheticDataset.delete(directory);
+    }
+
+    @Test
+    public void onlyExportsWhoseContentsChangedArePublished() throws Exception {
+
+        final League changedLeague = dataset.getLeagues().get(0);
+        final League rewrittenLeague = dataset.getLeagues().get(1);
+
+        write(DataLocationExports.weeklyResultsPath(changedLeague, 2), dataset.weeklyResultsJson(1, 2));
+        write(DataLocationExports.weeklyResultsPath(rewrittenLeague, 1), dataset.weeklyResultsJson(1, 1));
+        write(DataLocationExports.playerScoresPath(Position.WIDE_RECEIVER, 1),
+              dataset.playerScoresJson(Position.TIGHT_END, 1));
+
+        // the writes may be spread over more than one quiet period.
+        final SetMultimap<League, Integer> weeklyResults = LinkedHashMultimap.create();
+        final SetMultimap<Position, Integer> playerScores = LinkedHashMultimap.create();
+        final Map<String, Long> checksums = new HashMap<>();
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+        while (weeklyResults.isEmpty() || playerScores.isEmpty()) {
+
+            final ExportChanges changes =
+                    published.poll(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+            if (changes == null) {
+                break;
+            }
+            weeklyResults.putAll(changes.getWeeklyResults());
+            playerScores.putAll(changes.getPlayerScores());
+            checksums.putAll(changes.getChecksums());
+        }
+
+        assertEquals(ImmutableSetMultimap.of(changedLeague, 2), ImmutableSetMultimap.copyOf(weeklyResults));
+        assertEquals(ImmutableSetMultimap.of(Position.WIDE_RECEIVER, 1), ImmutableSetMultimap.copyOf(playerScores));
+        assertEquals(ImmutableSet.of(DataLocationExports.weeklyResultsPath(changedLeague, 2),
+                                     DataLocationExports.playerScoresPath(Position.WIDE_RECEIVER, 1)),
+                     checksums.keySet());
+
+        // writing the same contents again is not a change.
+        write(DataLocationExports.weeklyResultsPath(changedLeague, 2), dataset.weeklyResultsJson(1, 2));
+        assertNull(published.poll(QUIET_MILLIS * 10, TimeUnit.MILLISECONDS));
+    }
+
+    private void write(final String relativePath, final String json) throws IOException {
+        Files.write(new File(directory, relativePath).toPath(), json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,76 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class MflJsonDecoderTest {
+
+    private static final String WEEKLY_RESULTS = "{\"version\":\"1.0\",\"weeklyResults\":{\"week\":\"13\",\"matchup\":["
+            + "{\"franchise\":[{\"id\":\"0001\",\"score\":\"101.5\",\"player\":["
+            + "{\"id\":\"9431\",\"status\":\"starter\",\"score\":\"24.5\",\"shouldStart\":\"1\"},"
+            + "{\"id\":\"10271\",\"status\":\"nonstarter\",\"score\":\"3.25\"}]},"
+            + "{\"id\":\"0002\",\"player\":{\"id\":\"7401\",\"status\":\"starter\",\"score\":17}}]},"
+            + "{\"franchise\":{\"id\":\"0003\",\"player\":[]}}]}}";
+
+    @Test
+    public void streamsTeamsAndPlayersIncludingSingleValueArrays() throws IOException {
+
+        final LeagueWeekResultsBuilder builder = new LeagueWeekResultsBuilder();
+        MflJsonDecoder.decodeWeeklyResults(stream(WEEKLY_RESULTS), builder);
+        final LeagueWeekResults results = builder.build();
+
+        assertEquals(3, results.getTeamCount());
+        assertEquals(3, results.getPlayerCount());
+
+        assertEquals(9431, results.getPlayerId(0));
+        assertEquals(24.5, results.getScore(0), 0.0);
+        assertTrue(results.isStarter(0));
+
+        assertEquals(10271, results.getPlayerId(1));
+        assertFalse(results.isStarter(1));
+
+        assertEquals(7401, results.getPlayerId(2));
+        assertEquals(17.0, results.getScore(2), 0.0);
+        assertTrue(results.isStarter(2));
+    }
+
+    @Test
+    public void emptyDocumentDecodesToNothing() throws IOException {
+
+        final LeagueWeekResultsBuilder builder = new LeagueWeekResultsBuilder();
+        MflJsonDecoder.decodeWeeklyResults(stream("{\"error\":\"no results\"}"), builder);
+
+        assertEquals(0, builder.build().getTeamCount());
+    }
+
+    @Test
+    public void readsRankedPlayerIdsUpToTheLimit() throws IOException {
+
+        final String json = "{\"playerScores\":{\"week\":\"1\",\"playerScore\":["
+                + "{\"id\":\"1\",\"score\":\"30\"},{\"score\":\"25\",\"id\":\"2\"},{\"id\":\"3\"},{\"id\":\"4\"}]}}";
+
+        assertArrayEquals(new int[] {1, 2, 3}, MflJsonDecoder.decodeRankedPlayerIds(stream(json), 3));
+        assertArrayEquals(new int[] {1, 2, 3, 4}, MflJsonDecoder.decodeRankedPlayerIds(stream(json), 12));
+    }
+
+    @Test
+    public void readsSinglePlayerScoreObject() throws IOException {
+
+        final String json = "{\"playerScores\":{\"playerScore\":{\"id\":\"9431\",\"score\":\"30\"}}}";
+
+        assertArrayEquals(new int[] {9431}, MflJsonDecoder.decodeRankedPlayerIds(stream(json), 12));
+    }
+
+    private static InputStream stream(final String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
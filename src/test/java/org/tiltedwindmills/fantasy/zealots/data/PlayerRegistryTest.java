@@ -0,0 +1,60 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.tiltedwindmills.fantasy.mfl.model.Player;
+
+public class PlayerRegistryTest {
+
+    @Test
+    public void findsEveryIndexedPlayer() {
+
+        final List<Player> players = new ArrayList<>();
+        for (int id = 1000; id < 15000; id += 7) {
+            players.add(player(id, "Player " + id));
+        }
+
+        final PlayerRegistry playerRegistry = new PlayerRegistry(players);
+
+        assertEquals(players.size(), playerRegistry.size());
+        for (Player player : players) {
+            assertSame(player, playerRegistry.get(player.getId()));
+        }
+        assertNull(playerRegistry.get(1001));
+        assertFalse(playerRegistry.contains(99999));
+    }
+
+    @Test
+    public void keepsFirstPlayerForDuplicateIdsAndSkipsNulls() {
+
+        final Player first = player(9431, "First");
+        final PlayerRegistry playerRegistry =
+                new PlayerRegistry(Arrays.asList(first, null, player(9431, "Second")));
+
+        assertEquals(1, playerRegistry.size());
+        assertSame(first, playerRegistry.get(9431));
+    }
+
+    @Test
+    public void handlesEmptySource() {
+
+        assertEquals(0, new PlayerRegistry(null).size());
+        assertNull(new PlayerRegistry(new ArrayList<Player>()).get(0));
+    }
+
+    static Player player(final int id, final String name) {
+
+        final Player player = new Player();
+        player.setId(id);
+        player.setName(name);
+        return player;
+    }
+}
@@ -0,0 +1,148 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.mfl.model.Player;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+import org.tiltedwindmills.fantasy.zealots.SyntheticDataset;
+
+public class PlayerSnapshotTest {
+
+    private static final byte[] JSON = "{\"players\":{\"player\":[]}}".getBytes(StandardCharsets.UTF_8);
+
+    private File directory;
+    private File snapshotFile;
+
+    @Before
+    public void setUp() throws Exception {
+
+        directory = Files.createTempDirectory("zealots-players").toFile();
+        snapshotFile = PlayerSnapshot.file(new File(directory, "snapshots").getPath(), 2015);
+    }
+
+    @After
+    public void tearDown() {
+        SyntheticDataset.delete(directory);
+    }
+
+    @Test
+    public void playersSurviveTheRoundTrip() throws Exception {
+
+        PlayerSnapshot.write(snapshotFile, players(), JSON.length, crc(JSON));
+
+        // nulls in the export are dropped.
+        final List<Player> players = Arrays.asList(players().get(0), players().get(2));
+        final List<Player> read = PlayerSnapshot.read(snapshotFile, JSON.length, crc(JSON));
+        assertNotNull(read);
+        assertEquals(2, read.size());
+        for (int i = 0; i < read.size(); i++) {
+            assertEquals(players.get(i).getId(), read.get(i).getId());
+            assertEquals(players.get(i).getName(), read.get(i).getName());
+            assertEquals(players.get(i).getPosition(), read.get(i).getPosition());
+            assertEquals(players.get(i).getTeam(), read.get(i).getTeam());
+        }
+    }
+
+    @Test
+    public void snapshotOfAnotherExportIsStale() throws Exception {
+
+        PlayerSnapshot.write(snapshotFile, players(), JSON.length, crc(JSON));
+
+        assertNull(PlayerSnapshot.read(snapshotFile, JSON.length, crc(JSON) + 1));
+        assertNull(PlayerSnapshot.read(snapshotFile, JSON.length + 1, crc(JSON)));
+        assertEquals(2, PlayerSnapshot.read(snapshotFile, null, 0).size());
+    }
+
+    @Test
+    public void otherFilesAreNotSnapshots() throws Exception {
+
+        Files.createDirectories(snapshotFile.getParentFile().toPath());
+        Files.write(snapshotFile.toPath(), JSON);
+
+        assertNull(PlayerSnapshot.read(snapshotFile, null, 0));
+        assertNull(PlayerSnapshot.read(new File(directory, "missing.zpl"), null, 0));
+    }
+
+    @Test
+    public void loadUsesTheSnapshotOfTheCurrentExport() throws Exception {
+
+        PlayerSnapshot.write(snapshotFile, players(), JSON.length, crc(JSON));
+
+        final List<Player> loaded = PlayerSnapshot.load(exports(JSON), snapshotFile);
+        assertEquals(2, loaded.size());
+        assertEquals(9431, loaded.get(0).getId());
+    }
+
+    @Test
+    public void loadFallsBackToAnySnapshotWhenTheExportIsMissing() throws Exception {
+
+        PlayerSnapshot.write(snapshotFile, players(), JSON.length + 100, 0);
+
+        assertEquals(2, PlayerSnapshot.load(exports(null), snapshotFile).size());
+        assertEquals(0, PlayerSnapshot.load(exports(null), new File(directory, "missing.zpl")).size());
+    }
+
+    private static List<Player> players() {
+
+        final Player first = new Player();
+        first.setId(9431);
+        first.setName("Brees, Drew");
+        first.setPosition(Position.QUARTERBACK);
+        first.setTeam("NOS");
+
+        // everything but the id is optional, and names aren't always ASCII.
+        final Player second = new Player();
+        second.setId(12625);
+        second.setName("Gonz\u00e1lez, Zane");
+
+        return Arrays.asList(first, null, second);
+    }
+
+    private static int crc(final byte[] bytes) {
+
+        final CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    private static MflExports exports(final byte[] players) {
+
+        return new MflExports() {
+
+            @Override
+            public InputStream openWeeklyResults(final League league, final int week) throws IOException {
+                throw new IOException("not used");
+            }
+
+            @Override
+            public InputStream openPlayerScores(final Position position, final int week) throws IOException {
+                throw new IOException("not used");
+            }
+
+            @Override
+            public InputStream openPlayers() throws IOException {
+
+                if (players == null) {
+                    throw new IOException("no players export");
+                }
+                return new ByteArrayInputStream(players);
+            }
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package org.tiltedwindmills.fantasy.zealots.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.zealots.SyntheticDataset;
+import org.tiltedwindmills.fantasy.zealots.aggregation.AggregationEngine;
+import org.tiltedwindmills.fantasy.zealots.metrics.ReportMetrics;
+
+public class WeeklyResultsRepositoryTest {
+
+    private static final int WEEKS = 8;
+
+    private File directory;
+    private AggregationEngine aggregationEngine;
+    private SyntheticDataset dataset;
+    private WeeklyResultsFiles weeklyResultsFiles;
+
+    @Before
+    public void setUp() throws Exception {
+
+        directory = Files.createTempDirectory("zealots-repository").toFile();
+        dataset = SyntheticDataset.ofLeagues(1, WEEKS);
+        weeklyResultsFiles = new WeeklyResultsFiles(new DataLocationExports(dataset.writeTo(directory)),
+                                                    new ReportMetrics());
+
+        // enough league-weeks to be split across the pool, so every week is parsed into a partial of its own.
+        aggregationEngine = new AggregationEngine(4);
+    }
+
+    @After
+    public void tearDown() {
+
+        aggregationEngine.shutdown();
+        SyntheticDataset.delete(directory);
+    }
+
+    @Test
+    public void everyWeekOfALeagueSurvivesTheParallelMerge() {
+
+        final WeeklyResultsRepository repository =
+                new WeeklyResultsRepository(weeklyResultsFiles, dataset.getLeagues(), aggregationEngine);
+
+        final League league = dataset.getLeagues().get(0);
+        for (int week = 1; week <= WEEKS; week++) {
+
+            final LeagueWeekResults expected = weeklyResultsFiles.read(league, week);
+            final LeagueWeekResults loaded = repository.getResults(league, week);
+
+            assertTrue("week " + week + " was lost in the merge", loaded.getPlayerCount() > 0);
+            assertEquals(expected.getTeamCount(), loaded.getTeamCount());
+            assertEquals(expected.getPlayerCount(), loaded.getPlayerCount());
+            for (int i = 0; i < expected.getPlayerCount(); i++) {
+                assertEquals(expected.getPlayerId(i), loaded.getPlayerId(i));
+                assertEquals(expected.getScore(i), loaded.getScore(i), 0);
+            }
+        }
+        assertEquals(0, repository.getResults(league, WEEKS + 1).getPlayerCount());
+    }
+}
@@ -0,0 +1,295 @@
+package org.tiltedwindmills.fantasy.zealots.factstore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+import org.tiltedwindmills.fantasy.zealots.SyntheticDataset;
+import org.tiltedwindmills.fantasy.zealots.aggregation.AggregationEngine;
+import org.tiltedwindmills.fantasy.zealots.aggregation.PositionCountTotals;
+import org.tiltedwindmills.fantasy.zealots.aggregation.PositionStats;
+import org.tiltedwindmills.fantasy.zealots.aggregation.ScoreCube;
+import org.tiltedwindmills.fantasy.zealots.data.BackgroundLoad;
+import org.tiltedwindmills.fantasy.zealots.data.DataLocationExports;
+import org.tiltedwindmills.fantasy.zealots.data.MflExports;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerRegistry;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerScoreRankings;
+import org.tiltedwindmills.fantasy.zealots.data.WeeklyResultsFiles;
+import org.tiltedwindmills.fantasy.zealots.data.WeeklyResultsRepository;
+import org.tiltedwindmills.fantasy.zealots.data.WeeklyResultsSource;
+import org.tiltedwindmills.fantasy.zealots.metrics.ReportMetrics;
+import org.tiltedwindmills.fantasy.zealots.model.PlayerScoreBreakdown;
+import org.tiltedwindmills.fantasy.zealots.model.PlayerUsage;
+import org.tiltedwindmills.fantasy.zealots.model.RosterUsage;
+import org.tiltedwindmills.fantasy.zealots.reports.AggregatingReportService;
+import org.tiltedwindmills.fantasy.zealots.reports.ReportService;
+import org.tiltedwindmills.fantasy.zealots.reports.StarterTiers;
+
+/**
+ * Runs the fact store against an in-memory H2 database and checks it reports exactly what the in-memory
+ * aggregation does over the same exports.
+ */
+public class FactStoreReportServiceTest {
+
+    private static final int SEASON = 2015;
+    private static final int WEEKS = WeeklyResultsSource.LAST_WEEK;
+    private static final double DELTA = 1e-6;
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private SyntheticDataset dataset;
+    private File directory;
+    private AggregationEngine aggregationEngine;
+    private BackgroundLoad<PlayerRegistry> playerRegistry;
+    private ReportMetrics reportMetrics;
+    private CountingExports exports;
+    private PlayerScoreRankings playerScoreRankings;
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+
+    private ReportService aggregating;
+    private FactStoreReportService factStore;
+
+    @Before
+    public void setUp() throws Exception {
+
+        dataset = SyntheticDataset.ofLeagues(3, WEEKS);
+        for (int i = 0; i < dataset.getLeagues().size(); i++) {
+            dataset.getLeagues().get(i).setFranchiseId(String.format(Locale.US, "%04d", 3 + i));
+        }
+        directory = Files.createTempDirectory("zealots-facts").toFile();
+        exports = new CountingExports(new DataLocationExports(dataset.writeTo(directory)));
+
+        aggregationEngine = new AggregationEngine(4);
+        playerRegistry = BackgroundLoad.of("players", new PlayerRegistry(dataset.getPlayers()));
+        reportMetrics = new ReportMetrics();
+        playerScoreRankings = new PlayerScoreRankings(exports, reportMetrics);
+
+        // a database of its own for each test, kept until the test is done with it.
+        final DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:facts" + DATABASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+
+        aggregating = new AggregatingReportService(
+                new WeeklyResultsRepository(new WeeklyResultsFiles(exports, reportMetrics), dataset.getLeagues(),
+                        aggregationEngine),
+                playerScoreRankings, dataset.getLeagues(), playerRegistry, aggregationEngine, reportMetrics);
+        factStore = factStore(dataset.getLeagues());
+    }
+
+    @After
+    public void tearDown() {
+
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+        aggregationEngine.shutdown();
+        SyntheticDataset.delete(directory);
+    }
+
+    @Test
+    public void positionScoringMatchesTheInMemoryAggregation() {
+
+        for (int[] weeks : new int[][] {{1, WEEKS}, {1, 1}, {4, 9}, {WEEKS, WEEKS}}) {
+
+            final PositionStats expected = aggregating.positionScoring(weeks[0], weeks[1]).getStats();
+            final PositionStats actual = factStore.positionScoring(weeks[0], weeks[1]).getStats();
+
+            assertEquals(aggregating.positionScoring(weeks[0], weeks[1]).getTeams(),
+                         factStore.positionScoring(weeks[0], weeks[1]).getTeams());
+            assertEquals(expected.getCounts(), actual.getCounts());
+            for (Position position : expected.getCounts().keySet()) {
+                assertEquals(expected.getSum(position), actual.getSum(position), DELTA);
+                assertEquals(expected.getMin(position), actual.getMin(position), 0);
+                assertEquals(expected.getMax(position), actual.getMax(position), 0);
+                assertEquals(expected.getVariance(position), actual.getVariance(position), DELTA);
+            }
+        }
+    }
+
+    @Test
+    public void positionCountMatchesTheInMemoryAggregation() {
+
+        final PositionCountTotals expected = aggregating.positionCount();
+        final PositionCountTotals actual = factStore.positionCount();
+
+        assertEquals(expected.getTeams(), actual.getTeams());
+        assertEquals(expected.getPositionCounts(), actual.getPositionCounts());
+        assertEquals(expected.getUnknownPlayers(), actual.getUnknownPlayers());
+    }
+
+    @Test
+    public void starterWeeksMatchTheInMemoryRanking() {
+
+        for (int[] weeks : new int[][] {{1, WEEKS}, {3, 7}}) {
+            for (Position position : new Position[] {Position.WIDE_RECEIVER, Position.DEFENSIVE_BACK}) {
+                assertEquals(playerIds(aggregating.starterWeeks(position, StarterTiers.DEFAULT, 0, 25,
+                                                                weeks[0], weeks[1])),
+                             playerIds(factStore.starterWeeks(position, StarterTiers.DEFAULT, 0, 25,
+                                                              weeks[0], weeks[1])));
+            }
+        }
+    }
+
+    @Test
+    public void scoreCubeMatchesTheInMemoryCube() {
+
+        final ScoreCube expected = aggregating.scoreCube();
+        final ScoreCube actual = factStore.scoreCube();
+
+        assertEquals(expected.getLeagueNames(), actual.getLeagueNames());
+        for (int league = 0; league < expected.getLeagueNames().size(); league++) {
+            for (int week = 1; week <= WEEKS; week++) {
+
+                assertEquals(expected.getTeams(league, week), actual.getTeams(league, week));
+                for (Position position : Position.values()) {
+                    for (ScoreCube.Status status : ScoreCube.Status.values()) {
+                        assertEquals(expected.getCount(league, week, position, status),
+                                     actual.getCount(league, week, position, status));
+                        assertEquals(expected.getSum(league, week, position, status),
+                                     actual.getSum(league, week, position, status), DELTA);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void usageMatchesTheRosterIndex() {
+
+        for (int[] weeks : new int[][] {{1, WEEKS}, {2, 2}, {5, 11}}) {
+
+            final List<RosterUsage> expected = aggregating.franchiseUsage(weeks[0], weeks[1]);
+            final List<RosterUsage> actual = factStore.franchiseUsage(weeks[0], weeks[1]);
+            assertEquals(byTeamAndPlayer(expected), byTeamAndPlayer(actual));
+            assertMostStartedFirst(actual);
+
+            // the configured teams' players, and some nobody rostered.
+            final Set<Integer> playerIds = new TreeSet<>(Arrays.asList(1, 999999));
+            for (RosterUsage usage : expected) {
+                playerIds.add(usage.getPlayerId());
+            }
+            for (int playerId : playerIds) {
+
+                final PlayerUsage expectedPlayer = aggregating.playerUsage(playerId, weeks[0], weeks[1]);
+                final PlayerUsage actualPlayer = factStore.playerUsage(playerId, weeks[0], weeks[1]);
+                assertEquals(expectedPlayer.getLeagueWeeks(), actualPlayer.getLeagueWeeks());
+                assertEquals(byTeamAndPlayer(expectedPlayer.getTeams()), byTeamAndPlayer(actualPlayer.getTeams()));
+                assertMostStartedFirst(actualPlayer.getTeams());
+            }
+        }
+    }
+
+    @Test
+    public void aStoreLoadedForTheSameLeaguesIsNotLoadedAgain() {
+
+        final int reads = exports.weeklyResultsOpened.get();
+        final FactStoreReportService reopened = factStore(dataset.getLeagues());
+
+        assertEquals(reads, exports.weeklyResultsOpened.get());
+        assertEquals(factStore.positionCount().getPositionCounts(), reopened.positionCount().getPositionCounts());
+    }
+
+    @Test
+    public void aStoreLoadedForOtherLeaguesIsLoadedAgain() {
+
+        final List<League> fewer = new ArrayList<>(dataset.getLeagues().subList(0, 2));
+        final int reads = exports.weeklyResultsOpened.get();
+        final FactStoreReportService reloaded = factStore(fewer);
+
+        assertEquals(reads + fewer.size() * WEEKS, exports.weeklyResultsOpened.get());
+        assertEquals(2 * 12 * WEEKS, reloaded.positionScoring(1, WEEKS).getTeams());
+        assertEquals(1, (int) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM fact_load", Integer.class));
+        assertEquals(0, (int) jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM league_week WHERE league = ?", Integer.class,
+                dataset.getLeagues().get(2).getName()));
+    }
+
+    private FactStoreReportService factStore(final List<League> leagues) {
+
+        final FactStoreLoader loader = new FactStoreLoader(jdbcTemplate, transactionManager,
+                new WeeklyResultsFiles(exports, reportMetrics), playerScoreRankings, leagues, playerRegistry, SEASON);
+        return new FactStoreReportService(new NamedParameterJdbcTemplate(jdbcTemplate), loader, leagues,
+                                          playerRegistry);
+    }
+
+    // the order of rows tied on starts, weeks and points is left to each backend, so compare them by team and player.
+    private static Map<String, List<Object>> byTeamAndPlayer(final List<RosterUsage> usages) {
+
+        final Map<String, List<Object>> rows = new TreeMap<>();
+        for (RosterUsage usage : usages) {
+            final String key = usage.getLeague() + "/" + usage.getFranchiseId() + "/" + usage.getPlayerId();
+            assertNull(key, rows.put(key, Arrays.<Object>asList(usage.getRosteredWeeks(), usage.getStartedWeeks(),
+                    Math.round(usage.getStarterPoints() * 100))));
+        }
+        return rows;
+    }
+
+    private static void assertMostStartedFirst(final List<RosterUsage> usages) {
+
+        for (int i = 1; i < usages.size(); i++) {
+            assertTrue(usages.get(i - 1).getStartedWeeks() >= usages.get(i).getStartedWeeks());
+        }
+    }
+
+    private static List<Integer> playerIds(final List<PlayerScoreBreakdown> ranked) {
+
+        final List<Integer> ids = new ArrayList<>();
+        for (PlayerScoreBreakdown breakdown : ranked) {
+            ids.add(breakdown.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Counts the weekly results read, to tell a load from a reuse.
+     */
+    private static final class CountingExports implements MflExports {
+
+        private final MflExports exports;
+        private final AtomicInteger weeklyResultsOpened = new AtomicInteger();
+
+        CountingExports(final MflExports exports) {
+            this.exports = exports;
+        }
+
+        @Override
+        public InputStream openWeeklyResults(final League league, final int week) throws IOException {
+
+            weeklyResultsOpened.incrementAndGet();
+            return exports.openWeeklyResults(league, week);
+        }
+
+        @Override
+        public InputStream openPlayerScores(final Position position, final int week) throws IOException {
+            return exports.openPlayerScores(position, week);
+        }
+
+        @Override
+        public InputStream openPlayers() throws IOException {
+            return exports.openPlayers();
+        }
+    }
+}
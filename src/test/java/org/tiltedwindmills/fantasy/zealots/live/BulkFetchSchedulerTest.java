@@ -0,0 +1,185 @@
+package org.tiltedwindmills.fantasy.zealots.live;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.zealots.SyntheticDataset;
+
+/**
+ * Runs {@link BulkFetchScheduler} against a local stub of the MFL export API that adds latency to every request.
+ * Permits are counted rather than rate limited, so the tests check which requests were throttled, not how long
+ * they took.
+ */
+public class BulkFetchSchedulerTest {
+
+    private static final long LATENCY_MILLIS = 100;
+    private static final int WEEKS = 4;
+
+    private final ConcurrentMap<Integer, AtomicInteger> permits = new ConcurrentHashMap<>();
+
+    private StubMflServer server;
+    private File cacheDirectory;
+    private List<League> leagues;
+
+    @Before
+    public void setUp() throws Exception {
+
+        server = new StubMflServer();
+        server.setLatencyMillis(LATENCY_MILLIS);
+        cacheDirectory = Files.createTempDirectory("zealots-bulk-fetch").toFile();
+
+        // six leagues on server 1, four on server 2 and two on server 3.
+        leagues = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            final League league = new League();
+            league.setName("league" + i);
+            league.setId(1000 + i);
+            league.setServerId(i < 6 ? 1 : i < 10 ? 2 : 3);
+            leagues.add(league);
+        }
+    }
+
+    @After
+    public void tearDown() {
+
+        server.stop();
+        SyntheticDataset.delete(cacheDirectory);
+    }
+
+    @Test
+    public void runsServersInParallelWithinTheirConcurrencyCap() throws Exception {
+
+        final BulkFetchScheduler scheduler = newScheduler(2, 1);
+        final AtomicInteger lastFinished = new AtomicInteger();
+
+        final BulkFetchScheduler.Result result = scheduler.refresh(leagues, 1, WEEKS,
+                new BulkFetchScheduler.ProgressListener() {
+
+            @Override
+            public void fetched(final League league, final int week, final boolean succeeded,
+                                final int finished, final int total) {
+                assertEquals(leagues.size() * WEEKS, total);
+                lastFinished.set(Math.max(lastFinished.get(), finished));
+            }
+        });
+
+        assertEquals(leagues.size() * WEEKS, result.getFetched());
+        assertEquals(0, result.getFailed());
+        assertEquals(leagues.size() * WEEKS, server.totalHits());
+        assertEquals(leagues.size() * WEEKS, lastFinished.get());
+
+        for (int serverId = 1; serverId <= 3; serverId++) {
+            assertTrue("server " + serverId + " saw " + server.maxInFlight(serverId) + " concurrent requests",
+                    server.maxInFlight(serverId) <= 2);
+        }
+        assertTrue("only " + server.maxInFlight() + " requests were ever in flight at once",
+                server.maxInFlight() > 2);
+    }
+
+    @Test
+    public void everyRequestTakesAPermitFromItsOwnServer() throws Exception {
+
+        server.setLatencyMillis(0);
+        final BulkFetchScheduler scheduler = newScheduler(4, 1);
+
+        scheduler.refresh(leagues, 1, 2, null);
+
+        assertEquals(12, permits(1));
+        assertEquals(8, permits(2));
+        assertEquals(4, permits(3));
+        for (int serverId = 1; serverId <= 3; serverId++) {
+            assertEquals(server.serverHits(serverId), permits(serverId));
+        }
+    }
+
+    @Test
+    public void weeksAlreadyCachedTakeNoPermits() throws Exception {
+
+        server.setLatencyMillis(0);
+        final BulkFetchScheduler scheduler = newScheduler(2, 1);
+        scheduler.refresh(leagues.subList(0, 5), 1, 2, null);
+        assertEquals(10, permits(1));
+
+        // completed weeks never expire, so the second refresh is served entirely from the cache.
+        final BulkFetchScheduler.Result result = scheduler.refresh(leagues.subList(0, 5), 1, 2, null);
+
+        assertEquals(10, result.getFetched());
+        assertEquals(10, permits(1));
+        assertEquals(10, server.totalHits());
+    }
+
+    @Test
+    public void retriesFailedRequestsWithBackoff() throws Exception {
+
+        server.setFailuresBeforeSuccess(2);
+        final BulkFetchScheduler scheduler = newScheduler(2, 3);
+
+        final BulkFetchScheduler.Result result = scheduler.refresh(leagues.subList(10, 12), 1, 2, null);
+
+        assertEquals(4, result.getFetched());
+        assertEquals(0, result.getFailed());
+        assertEquals(8, result.getRetries());
+        assertEquals(12, server.totalHits());
+        assertEquals(12, permits(3));
+    }
+
+    @Test
+    public void reportsRequestsThatRunOutOfAttempts() throws Exception {
+
+        server.setStatus(503);
+        final BulkFetchScheduler scheduler = newScheduler(2, 2);
+
+        final BulkFetchScheduler.Result result = scheduler.refresh(leagues.subList(10, 12), 1, 1, null);
+
+        assertEquals(0, result.getFetched());
+        assertEquals(2, result.getFailed());
+        assertEquals(4, server.totalHits());
+    }
+
+    private int permits(final int serverId) {
+
+        final AtomicInteger count = permits.get(serverId);
+        return count == null ? 0 : count.get();
+    }
+
+    private BulkFetchScheduler newScheduler(final int perServerConcurrency, final int maxAttempts) {
+
+        final BulkFetchScheduler scheduler = new BulkFetchScheduler() {
+
+            @Override
+            Throttle newThrottle(final int serverId) {
+
+                permits.putIfAbsent(serverId, new AtomicInteger());
+                final AtomicInteger count = permits.get(serverId);
+                return new Throttle() {
+
+                    @Override
+                    public void acquire() {
+                        count.incrementAndGet();
+                    }
+                };
+            }
+        };
+        ReflectionTestUtils.setField(scheduler, "mflExports", server.newExports(cacheDirectory, 0));
+        ReflectionTestUtils.setField(scheduler, "propertyBasedLeagues", leagues);
+        ReflectionTestUtils.setField(scheduler, "perServerConcurrency", perServerConcurrency);
+        ReflectionTestUtils.setField(scheduler, "perServerRequestsPerSecond", 1000.0);
+        ReflectionTestUtils.setField(scheduler, "maxAttempts", maxAttempts);
+        ReflectionTestUtils.setField(scheduler, "initialBackoffMillis", 10L);
+        ReflectionTestUtils.invokeMethod(scheduler, "postConstruct");
+        return scheduler;
+    }
+}
@@ -0,0 +1,156 @@
+package org.tiltedwindmills.fantasy.zealots.live;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.tiltedwindmills.fantasy.zealots.live.StubMflServer.body;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+import org.tiltedwindmills.fantasy.zealots.SyntheticDataset;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * Runs {@link LiveMflExports} against a local stub of the MFL export API.
+ */
+public class LiveMflExportsTest {
+
+    private static final int CURRENT_WEEK = 14;
+
+    private StubMflServer server;
+    private File cacheDirectory;
+    private League league;
+
+    @Before
+    public void setUp() throws Exception {
+
+        server = new StubMflServer();
+        cacheDirectory = Files.createTempDirectory("zealots-mfl-cache").toFile();
+
+        league = new League();
+        league.setName("zealots1");
+        league.setId(37479);
+        league.setServerId(24);
+    }
+
+    @After
+    public void tearDown() {
+
+        server.stop();
+        SyntheticDataset.delete(cacheDirectory);
+    }
+
+    @Test
+    public void concurrentFetchesOfTheSameResourceShareOneUpstreamCall() throws Exception {
+
+        server.setLatencyMillis(200);
+        final LiveMflExports exports = newExports();
+        final int clients = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+
+        final ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try {
+            final List<Future<String>> bodies = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                bodies.add(pool.submit(new Callable<String>() {
+
+                    @Override
+                    public String call() throws Exception {
+                        start.await();
+                        return read(exports.openWeeklyResults(league, CURRENT_WEEK));
+                    }
+                }));
+            }
+            start.countDown();
+
+            for (Future<String> body : bodies) {
+                assertEquals(body(weeklyResultsQuery(CURRENT_WEEK), 1), body.get(1, TimeUnit.MINUTES));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, server.hits(weeklyResultsQuery(CURRENT_WEEK)));
+    }
+
+    @Test
+    public void completedWeeksAreNeverRefetched() throws Exception {
+
+        final LiveMflExports exports = newExports();
+
+        read(exports.openWeeklyResults(league, 3));
+        assertEquals(body(weeklyResultsQuery(3), 1), read(exports.openWeeklyResults(league, 3)));
+        assertEquals(1, server.hits(weeklyResultsQuery(3)));
+
+        // the current week has a zero TTL here, so every read goes back upstream.
+        read(exports.openWeeklyResults(league, CURRENT_WEEK));
+        assertEquals(body(weeklyResultsQuery(CURRENT_WEEK), 2), read(exports.openWeeklyResults(league, CURRENT_WEEK)));
+        assertEquals(2, server.hits(weeklyResultsQuery(CURRENT_WEEK)));
+    }
+
+    @Test
+    public void cachedResponsesSurviveARestart() throws Exception {
+
+        read(newExports().openPlayerScores(Position.DEFENSIVE_BACK, 2));
+        read(newExports().openPlayers());
+
+        final LiveMflExports restarted = newExports();
+        assertEquals(body("TYPE=playerScores&L=37479&W=2&POSITION=CB+S&JSON=1", 1),
+                read(restarted.openPlayerScores(Position.DEFENSIVE_BACK, 2)));
+        assertEquals(body("TYPE=players&DETAILS=1&JSON=1", 1), read(restarted.openPlayers()));
+
+        assertEquals(1, server.hits("TYPE=playerScores&L=37479&W=2&POSITION=CB+S&JSON=1"));
+        assertEquals(1, server.hits("TYPE=players&DETAILS=1&JSON=1"));
+        assertTrue(new File(cacheDirectory, "scores/CB+S_week2.json").isFile());
+    }
+
+    @Test
+    public void servesTheCachedCopyWhenUpstreamFails() throws Exception {
+
+        final LiveMflExports exports = newExports();
+        final String first = read(exports.openWeeklyResults(league, CURRENT_WEEK));
+
+        server.setStatus(503);
+        assertEquals(first, read(exports.openWeeklyResults(league, CURRENT_WEEK)));
+        assertEquals(2, server.hits(weeklyResultsQuery(CURRENT_WEEK)));
+    }
+
+    @Test(expected = IOException.class)
+    public void failsWhenUpstreamFailsAndNothingIsCached() throws Exception {
+
+        server.setStatus(404);
+        newExports().openWeeklyResults(league, 1);
+    }
+
+    private LiveMflExports newExports() {
+        return server.newExports(cacheDirectory, 0);
+    }
+
+    private static String weeklyResultsQuery(final int week) {
+        return "TYPE=weeklyResults&L=37479&W=" + week + "&JSON=1";
+    }
+
+    private static String read(final InputStream in) throws IOException {
+
+        try (InputStream stream = in) {
+            return new String(ByteStreams.toByteArray(stream), StandardCharsets.UTF_8);
+        }
+    }
+}
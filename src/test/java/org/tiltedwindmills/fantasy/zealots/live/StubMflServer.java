@@ -0,0 +1,193 @@
+package org.tiltedwindmills.fantasy.zealots.live;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.test.util.ReflectionTestUtils;
+import org.tiltedwindmills.fantasy.zealots.metrics.ReportMetrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in for the MFL export API.  Answers every request with a small JSON body naming the query and how
+ * many times it has been served, after an injectable delay.  Requests are expected under
+ * {@code /<serverId>/<season>/export} so the stub can track how many requests each server has in flight.
+ */
+final class StubMflServer {
+
+    static {
+        // otherwise delayed ACKs add ~40ms to every small response and swamp the latency the tests inject.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final ConcurrentMap<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> serverHits = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> maxInFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger allInFlight = new AtomicInteger();
+    private final AtomicInteger maxAllInFlight = new AtomicInteger();
+
+    private volatile int status = 200;
+    private volatile long latencyMillis;
+    private volatile int failuresBeforeSuccess;
+
+    StubMflServer() throws IOException {
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                serve(exchange);
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * @return an {@code mfl.exportUrl} pointing at this stub.
+     */
+    String exportUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/{serverId}/{season}/export";
+    }
+
+    /**
+     * @return a {@code LiveMflExports} for season 2015 that fetches from this stub, with weeks 1-13 completed.
+     */
+    LiveMflExports newExports(final File cacheDirectory, final long currentWeekTtlSeconds) {
+
+        final LiveMflExports exports = new LiveMflExports();
+        ReflectionTestUtils.setField(exports, "exportUrl", exportUrl());
+        ReflectionTestUtils.setField(exports, "season", 2015);
+        ReflectionTestUtils.setField(exports, "lastCompletedWeek", 13);
+        ReflectionTestUtils.setField(exports, "scoringServerId", 24);
+        ReflectionTestUtils.setField(exports, "scoringLeagueId", 37479);
+        ReflectionTestUtils.setField(exports, "cacheLocation", cacheDirectory.getPath());
+        ReflectionTestUtils.setField(exports, "currentWeekTtlSeconds", currentWeekTtlSeconds);
+        ReflectionTestUtils.setField(exports, "playersTtlSeconds", 3600L);
+        ReflectionTestUtils.setField(exports, "timeoutMillis", 5000);
+        ReflectionTestUtils.setField(exports, "reportMetrics", new ReportMetrics());
+        ReflectionTestUtils.invokeMethod(exports, "postConstruct");
+        return exports;
+    }
+
+    void setStatus(final int status) {
+        this.status = status;
+    }
+
+    void setLatencyMillis(final long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * Makes the first {@code failures} requests for every query answer 503 before it is served normally.
+     */
+    void setFailuresBeforeSuccess(final int failures) {
+        this.failuresBeforeSuccess = failures;
+    }
+
+    int hits(final String query) {
+
+        final AtomicInteger count = hits.get(query);
+        return count == null ? 0 : count.get();
+    }
+
+    int totalHits() {
+
+        int total = 0;
+        for (AtomicInteger count : hits.values()) {
+            total += count.get();
+        }
+        return total;
+    }
+
+    int serverHits(final int serverId) {
+
+        final AtomicInteger count = serverHits.get(String.valueOf(serverId));
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * @return the most requests in flight at once across every server.
+     */
+    int maxInFlight() {
+        return maxAllInFlight.get();
+    }
+
+    int maxInFlight(final int serverId) {
+
+        final AtomicInteger max = maxInFlight.get(String.valueOf(serverId));
+        return max == null ? 0 : max.get();
+    }
+
+    static String body(final String query, final int served) {
+        return "{\"query\":\"" + query + "\",\"served\":" + served + "}";
+    }
+
+    void stop() {
+
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void serve(final HttpExchange exchange) throws IOException {
+
+        final String serverId = exchange.getRequestURI().getPath().split("/")[1];
+        final String query = exchange.getRequestURI().getQuery();
+
+        final int count = counter(hits, query).incrementAndGet();
+        counter(serverHits, serverId).incrementAndGet();
+        raise(counter(maxInFlight, serverId), counter(inFlight, serverId).incrementAndGet());
+        raise(maxAllInFlight, allInFlight.incrementAndGet());
+
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            counter(inFlight, serverId).decrementAndGet();
+            allInFlight.decrementAndGet();
+        }
+
+        final int responseStatus = count <= failuresBeforeSuccess ? 503 : status;
+        final byte[] body = body(query, count).getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(responseStatus, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void raise(final AtomicInteger max, final int running) {
+
+        while (true) {
+            final int current = max.get();
+            if (running <= current || max.compareAndSet(current, running)) {
+                break;
+            }
+        }
+    }
+
+    private static AtomicInteger counter(final ConcurrentMap<String, AtomicInteger> counters, final String key) {
+
+        AtomicInteger counter = counters.get(key);
+        if (counter == null) {
+            counters.putIfAbsent(key, new AtomicInteger());
+            counter = counters.get(key);
+        }
+        return counter;
+    }
+}
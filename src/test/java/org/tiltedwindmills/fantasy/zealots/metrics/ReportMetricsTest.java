@@ -0,0 +1,72 @@
+package org.tiltedwindmills.fantasy.zealots.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+
+public class ReportMetricsTest {
+
+    private final ReportMetrics reportMetrics = new ReportMetrics();
+
+    @Test
+    public void stagesKeepTheirCountTotalAndMax() {
+
+        reportMetrics.record(ReportMetrics.Stage.DECODE, TimeUnit.MILLISECONDS.toNanos(2));
+        reportMetrics.record(ReportMetrics.Stage.DECODE, TimeUnit.MILLISECONDS.toNanos(6));
+
+        final Map<String, Number> metrics = metrics();
+        assertEquals(2L, metrics.get("zealots.stage.decode.count"));
+        assertEquals(8.0, metrics.get("zealots.stage.decode.totalMillis").doubleValue(), 1e-9);
+        assertEquals(4.0, metrics.get("zealots.stage.decode.meanMillis").doubleValue(), 1e-9);
+        assertEquals(6.0, metrics.get("zealots.stage.decode.maxMillis").doubleValue(), 1e-9);
+        assertEquals(0L, metrics.get("zealots.stage.render.count"));
+    }
+
+    @Test
+    public void parsedExportsAreAveragedOverRequests() {
+
+        reportMetrics.recordRequest();
+        reportMetrics.recordRequest();
+        reportMetrics.recordParsed(1000);
+        reportMetrics.recordParsed(500);
+        reportMetrics.recordParsed(1500);
+
+        final Map<String, Number> metrics = metrics();
+        assertEquals(3L, metrics.get("zealots.files.parsed"));
+        assertEquals(3000L, metrics.get("zealots.bytes.parsed"));
+        assertEquals(1.5, metrics.get("zealots.files.parsedPerRequest").doubleValue(), 1e-9);
+        assertEquals(1500.0, metrics.get("zealots.bytes.parsedPerRequest").doubleValue(), 1e-9);
+    }
+
+    @Test
+    public void cachesWithTheSameNameShareACounter() {
+
+        final HitCounter counter = reportMetrics.cache("starterWeeks");
+        assertSame(counter, reportMetrics.cache("starterWeeks"));
+
+        for (int i = 0; i < 4; i++) {
+            counter.lookup();
+        }
+        counter.miss();
+
+        final Map<String, Number> metrics = metrics();
+        assertEquals(3L, metrics.get("zealots.cache.starterWeeks.hits"));
+        assertEquals(1L, metrics.get("zealots.cache.starterWeeks.misses"));
+        assertEquals(0.75, metrics.get("zealots.cache.starterWeeks.hitRatio").doubleValue(), 1e-9);
+    }
+
+    private Map<String, Number> metrics() {
+
+        final Map<String, Number> metrics = new HashMap<>();
+        for (Metric<?> metric : reportMetrics.metrics()) {
+            metrics.put(metric.getName(), metric.getValue());
+        }
+        return metrics;
+    }
+}
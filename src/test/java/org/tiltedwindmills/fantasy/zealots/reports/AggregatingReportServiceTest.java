@@ -0,0 +1,110 @@
+package org.tiltedwindmills.fantasy.zealots.reports;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.tiltedwindmills.fantasy.mfl.model.Player;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+import org.tiltedwindmills.fantasy.zealots.SyntheticDataset;
+import org.tiltedwindmills.fantasy.zealots.aggregation.AggregationEngine;
+import org.tiltedwindmills.fantasy.zealots.data.BackgroundLoad;
+import org.tiltedwindmills.fantasy.zealots.data.DataLocationExports;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerRegistry;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerScoreRankings;
+import org.tiltedwindmills.fantasy.zealots.data.WeeklyResultsFiles;
+import org.tiltedwindmills.fantasy.zealots.data.WeeklyResultsRepository;
+import org.tiltedwindmills.fantasy.zealots.data.WeeklyResultsSource;
+import org.tiltedwindmills.fantasy.zealots.metrics.ReportMetrics;
+import org.tiltedwindmills.fantasy.zealots.model.PlayerScoreBreakdown;
+
+public class AggregatingReportServiceTest {
+
+    private static final int WEEKS = WeeklyResultsSource.LAST_WEEK;
+
+    private SyntheticDataset dataset;
+    private File directory;
+    private AggregationEngine aggregationEngine;
+    private PlayerRegistry players;
+    private PlayerScoreRankings playerScoreRankings;
+    private AggregatingReportService reportService;
+
+    @Before
+    public void setUp() throws Exception {
+
+        dataset = SyntheticDataset.ofLeagues(2, WEEKS);
+        directory = Files.createTempDirectory("zealots-aggregating").toFile();
+        final DataLocationExports exports = new DataLocationExports(dataset.writeTo(directory));
+        final ReportMetrics reportMetrics = new ReportMetrics();
+
+        // a few dozen names shared across the pool, so players tie completely and only their order can tell them
+        // apart.
+        final List<Player> renamed = new ArrayList<>();
+        for (Player player : dataset.getPlayers()) {
+            final Player copy = new Player();
+            copy.setId(player.getId());
+            copy.setName("Player " + player.getId() % 30);
+            copy.setPosition(player.getPosition());
+            renamed.add(copy);
+        }
+        players = new PlayerRegistry(renamed);
+
+        aggregationEngine = new AggregationEngine(4);
+        playerScoreRankings = new PlayerScoreRankings(exports, reportMetrics);
+        reportService = new AggregatingReportService(
+                new WeeklyResultsRepository(new WeeklyResultsFiles(exports, reportMetrics), dataset.getLeagues(),
+                        aggregationEngine),
+                playerScoreRankings, dataset.getLeagues(), BackgroundLoad.of("players", players), aggregationEngine,
+                reportMetrics);
+    }
+
+    @After
+    public void tearDown() {
+
+        aggregationEngine.shutdown();
+        SyntheticDataset.delete(directory);
+    }
+
+    @Test
+    public void starterWeekRangesMatchRankingJustThoseWeeks() {
+
+        for (Position position : new Position[] {Position.WIDE_RECEIVER, Position.DEFENSIVE_BACK}) {
+            for (int[] weeks : new int[][] {{1, WEEKS}, {1, 1}, {2, 2}, {3, 7}, {9, WEEKS}}) {
+
+                final List<PlayerScoreBreakdown> actual =
+                        reportService.starterWeeks(position, StarterTiers.DEFAULT, 0, 0, weeks[0], weeks[1]);
+
+                assertFalse(actual.isEmpty());
+                assertEquals(position + " weeks " + weeks[0] + " to " + weeks[1],
+                             playerIds(rankDirectly(position, weeks[0], weeks[1])), playerIds(actual));
+            }
+        }
+    }
+
+    // the range ranked from the score exports alone, as the report was before week ranges were precomputed.
+    private List<PlayerScoreBreakdown> rankDirectly(final Position position, final int from, final int to) {
+
+        final int depth = PlayerScoreRankings.getLeagueStarterLimit(position);
+        final List<int[]> rankings = new ArrayList<>();
+        for (int week = from; week <= to; week++) {
+            rankings.add(playerScoreRankings.getRankedPlayerIds(position, week, depth));
+        }
+        return StarterWeekRanker.rank(rankings, StarterTiers.DEFAULT, depth, 0, players);
+    }
+
+    private static List<Integer> playerIds(final List<PlayerScoreBreakdown> ranked) {
+
+        final List<Integer> ids = new ArrayList<>();
+        for (PlayerScoreBreakdown breakdown : ranked) {
+            ids.add(breakdown.getId());
+        }
+        return ids;
+    }
+}
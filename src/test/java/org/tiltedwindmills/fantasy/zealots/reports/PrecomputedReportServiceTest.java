@@ -0,0 +1,199 @@
+package org.tiltedwindmills.fantasy.zealots.reports;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.tiltedwindmills.fantasy.mfl.model.Player;
+import org.tiltedwindmills.fantasy.mfl.model.Position;
+import org.tiltedwindmills.fantasy.zealots.aggregation.PositionCountTotals;
+import org.tiltedwindmills.fantasy.zealots.aggregation.PositionScoreTotals;
+import org.tiltedwindmills.fantasy.zealots.aggregation.ScoreCube;
+import org.tiltedwindmills.fantasy.zealots.data.DataNotReadyException;
+import org.tiltedwindmills.fantasy.zealots.metrics.ReportMetrics;
+import org.tiltedwindmills.fantasy.zealots.model.PlayerScoreBreakdown;
+import org.tiltedwindmills.fantasy.zealots.model.PlayerUsage;
+import org.tiltedwindmills.fantasy.zealots.model.RosterUsage;
+
+public class PrecomputedReportServiceTest {
+
+    private final CountingReports reports = new CountingReports();
+    private final PrecomputedReportService precomputed = new PrecomputedReportService(reports, new ReportMetrics());
+
+    @Test
+    public void passesThroughUntilTheFirstRefresh() {
+
+        assertFalse(precomputed.isPrecomputed());
+        precomputed.positionCount();
+        precomputed.positionScoring(1, 13);
+        assertEquals(2, reports.calls);
+    }
+
+    @Test
+    public void defaultReportsAreServedFromTheSnapshot() {
+
+        precomputed.refresh();
+        final int refreshCalls = reports.calls;
+
+        final PositionScoreTotals scoring = precomputed.positionScoring(1, 13);
+        final PositionCountTotals counts = precomputed.positionCount();
+        final List<RosterUsage> franchise = precomputed.franchiseUsage(1, 13);
+        final ScoreCube cube = precomputed.scoreCube();
+        final List<PlayerScoreBreakdown> receivers =
+                precomputed.starterWeeks(Position.WIDE_RECEIVER, StarterTiers.DEFAULT, 0, 0, 1, 13);
+
+        assertEquals(scoring.getTeams(), precomputed.positionScoring(1, 13).getTeams());
+        assertEquals(counts.getTeams(), precomputed.positionCount().getTeams());
+        assertSame(franchise, precomputed.franchiseUsage(1, 13));
+        assertSame(cube, precomputed.scoreCube());
+        assertEquals(36, receivers.size());
+        assertEquals(10,
+                precomputed.starterWeeks(Position.WIDE_RECEIVER, StarterTiers.DEFAULT, 36, 10, 1, 13).size());
+        assertEquals(refreshCalls, reports.calls);
+    }
+
+    @Test
+    public void callersCannotChangeTheSnapshot() {
+
+        precomputed.refresh();
+
+        final PositionScoreTotals scoring = precomputed.positionScoring(1, 13);
+        final int teams = scoring.getTeams();
+        scoring.addTeams(100);
+        scoring.addScore(Position.QUARTERBACK, 30);
+        final PositionCountTotals counts = precomputed.positionCount();
+        counts.addUnknownPlayer(7);
+        final List<PlayerScoreBreakdown> receivers =
+                precomputed.starterWeeks(Position.WIDE_RECEIVER, StarterTiers.DEFAULT, 0, 0, 1, 13);
+        receivers.get(0).setTop12Finishes(9);
+        receivers.remove(1);
+
+        assertEquals(teams, precomputed.positionScoring(1, 13).getTeams());
+        assertTrue(precomputed.positionScoring(1, 13).getPositionScores().isEmpty());
+        assertTrue(precomputed.positionCount().getUnknownPlayers().isEmpty());
+        final List<PlayerScoreBreakdown> again =
+                precomputed.starterWeeks(Position.WIDE_RECEIVER, StarterTiers.DEFAULT, 0, 0, 1, 13);
+        assertEquals(0, again.get(0).getTop12Finishes());
+        assertEquals(36, again.size());
+    }
+
+    @Test
+    public void otherVariantsAreComputed() {
+
+        precomputed.refresh();
+        final int refreshCalls = reports.calls;
+
+        precomputed.positionScoring(10, 13);
+        final StarterTiers tiers = StarterTiers.of(new int[] {6, 12}, new int[] {2, 1});
+        precomputed.starterWeeks(Position.WIDE_RECEIVER, tiers, 0, 0, 1, 13);
+        precomputed.starterWeeks(Position.WIDE_RECEIVER, StarterTiers.DEFAULT, 24, 0, 1, 13);
+        precomputed.starterWeeks(Position.UNKNOWN, StarterTiers.DEFAULT, 0, 0, 1, 13);
+        precomputed.franchiseUsage(1, 12);
+        precomputed.playerUsage(1, 1, 13);
+        assertEquals(refreshCalls + 6, reports.calls);
+    }
+
+    @Test
+    public void refreshReturnsWhileDataIsLoadingThenKeepsServingTheLastSnapshot() {
+
+        reports.notReadyCalls = 1;
+        precomputed.refresh();
+        assertFalse(precomputed.isPrecomputed());
+        precomputed.refresh();
+        assertTrue(precomputed.isPrecomputed());
+
+        final int teams = precomputed.positionCount().getTeams();
+        reports.notReadyCalls = 1;
+        precomputed.refresh();
+        assertEquals(teams, precomputed.positionCount().getTeams());
+
+        reports.failing = true;
+        precomputed.refresh();
+        assertEquals(teams, precomputed.positionCount().getTeams());
+
+        reports.failing = false;
+        precomputed.refresh();
+        assertTrue(teams != precomputed.positionCount().getTeams());
+    }
+
+    /**
+     * Builds a new result for every call, starting with the given number of not ready calls.  The totals count the
+     * calls so far as their teams, so results from different calls can be told apart.
+     */
+    private static final class CountingReports implements ReportService {
+
+        private int calls;
+        private int notReadyCalls;
+        private boolean failing;
+
+        @Override
+        public PositionScoreTotals positionScoring(final int firstWeek, final int lastWeek) {
+
+            call();
+            final PositionScoreTotals totals = new PositionScoreTotals();
+            totals.addTeams(calls);
+            return totals;
+        }
+
+        @Override
+        public PositionCountTotals positionCount() {
+
+            call();
+            final PositionCountTotals totals = new PositionCountTotals();
+            totals.addTeams(calls);
+            return totals;
+        }
+
+        @Override
+        public List<PlayerScoreBreakdown> starterWeeks(final Position position, final StarterTiers tiers,
+                                                       final int depth, final int limit,
+                                                       final int firstWeek, final int lastWeek) {
+            call();
+            final List<PlayerScoreBreakdown> ranked = new ArrayList<>();
+            for (int i = 0; i < 36; i++) {
+                final Player player = new Player();
+                player.setId(i);
+                ranked.add(new PlayerScoreBreakdown(player));
+            }
+            return ranked;
+        }
+
+        @Override
+        public ScoreCube scoreCube() {
+
+            call();
+            return ScoreCube.of(new ArrayList<String>(), 1, 13, new ScoreCube.Builder());
+        }
+
+        @Override
+        public PlayerUsage playerUsage(final int playerId, final int firstWeek, final int lastWeek) {
+
+            call();
+            return new PlayerUsage(playerId, null, 0, new ArrayList<RosterUsage>());
+        }
+
+        @Override
+        public List<RosterUsage> franchiseUsage(final int firstWeek, final int lastWeek) {
+
+            call();
+            return new ArrayList<>();
+        }
+
+        private void call() {
+
+            calls++;
+            if (notReadyCalls > 0) {
+                notReadyCalls--;
+                throw new DataNotReadyException("reports still loading");
+            }
+            if (failing) {
+                throw new IllegalStateException("failed");
+            }
+        }
+    }
+}
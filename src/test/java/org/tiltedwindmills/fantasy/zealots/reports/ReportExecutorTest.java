@@ -0,0 +1,117 @@
+package org.tiltedwindmills.fantasy.zealots.reports;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+import org.tiltedwindmills.fantasy.zealots.metrics.ReportMetrics;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+public class ReportExecutorTest {
+
+    private final ReportExecutor reportExecutor = new ReportExecutor(1, 1, new ReportMetrics());
+
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger computations = new AtomicInteger();
+
+    @After
+    public void tearDown() {
+        reportExecutor.shutdown();
+    }
+
+    @Test
+    public void identicalReportsShareOneComputation() throws Exception {
+
+        final ListenableFuture<Integer> first = reportExecutor.submit("positionScoring", blocking());
+        final ListenableFuture<Integer> second = reportExecutor.submit("positionScoring", blocking());
+        assertSame(first, second);
+
+        release.countDown();
+        assertEquals(1, (int) get(first));
+        assertEquals(1, computations.get());
+    }
+
+    @Test
+    public void finishedReportsAreWorkedOutAgain() throws Exception {
+
+        release.countDown();
+        assertEquals(1, (int) get(reportExecutor.submit("positionScoring", blocking())));
+        assertEquals(2, (int) get(reportExecutor.submit("positionScoring", blocking())));
+    }
+
+    @Test
+    public void requestsAreTurnedAwayOnceTheQueueIsFull() throws Exception {
+
+        final ListenableFuture<Integer> running = reportExecutor.submit("positionScoring", blocking());
+        started.await(10, TimeUnit.SECONDS);
+        final ListenableFuture<Integer> waiting = reportExecutor.submit("positionCount", blocking());
+
+        try {
+            reportExecutor.submit("starterWeeks", blocking());
+            fail("expected the report to be turned away");
+        } catch (ReportsBusyException e) {
+            // expected
+        }
+
+        // reports already under way can still be joined.
+        assertSame(running, reportExecutor.submit("positionScoring", blocking()));
+
+        release.countDown();
+        get(running);
+        get(waiting);
+        assertEquals(3, (int) get(reportExecutor.submit("starterWeeks", blocking())));
+    }
+
+    @Test
+    public void failuresReachEveryRequestAndAreNotKept() throws Exception {
+
+        final ListenableFuture<Integer> failed = reportExecutor.submit("positionCount", new Callable<Integer>() {
+
+            @Override
+            public Integer call() {
+                throw new IllegalStateException("no exports");
+            }
+        });
+
+        try {
+            get(failed);
+            fail("expected the report to fail");
+        } catch (ExecutionException e) {
+            assertEquals("no exports", e.getCause().getMessage());
+        }
+
+        release.countDown();
+        assertEquals(1, (int) get(reportExecutor.submit("positionCount", blocking())));
+    }
+
+    /**
+     * A report that counts its computations, and finishes once released.
+     */
+    private Callable<Integer> blocking() {
+
+        return new Callable<Integer>() {
+
+            @Override
+            public Integer call() throws InterruptedException {
+
+                started.countDown();
+                release.await(10, TimeUnit.SECONDS);
+                return computations.incrementAndGet();
+            }
+        };
+    }
+
+    private static <V> V get(final ListenableFuture<V> future) throws Exception {
+        return future.get(10, TimeUnit.SECONDS);
+    }
+}
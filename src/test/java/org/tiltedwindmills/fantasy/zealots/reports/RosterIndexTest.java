@@ -0,0 +1,198 @@
+package org.tiltedwindmills.fantasy.zealots.reports;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.tiltedwindmills.fantasy.mfl.model.Player;
+import org.tiltedwindmills.fantasy.zealots.data.LeagueWeekResults;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerRegistry;
+import org.tiltedwindmills.fantasy.zealots.model.PlayerUsage;
+import org.tiltedwindmills.fantasy.zealots.model.RosterUsage;
+
+public class RosterIndexTest {
+
+    private static final double DELTA = 1e-9;
+
+    private final PlayerRegistry players = new PlayerRegistry(Collections.singletonList(player(100, "Known")));
+
+    @Test
+    public void playerUsageCountsEveryTeamThatRosteredThePlayer() {
+
+        final PlayerUsage usage = index().playerUsage(100, 1, 3, players);
+
+        assertEquals("Known", usage.getPlayer().getName());
+        assertEquals(5, usage.getLeagueWeeks());
+        assertEquals(4, usage.getRosteredWeeks());
+        assertEquals(3, usage.getStartedWeeks());
+        assertEquals(80.0, usage.getOwnershipPercent(), DELTA);
+        assertEquals(60.0, usage.getStartPercent(), DELTA);
+
+        final List<RosterUsage> teams = usage.getTeams();
+        assertEquals(2, teams.size());
+        assertEquals("Alpha", teams.get(0).getLeague());
+        assertEquals(1, teams.get(0).getFranchiseId());
+        assertEquals(3, teams.get(0).getRosteredWeeks());
+        assertEquals(2, teams.get(0).getStartedWeeks());
+        assertEquals(22.0, teams.get(0).getStarterPoints(), DELTA);
+        assertEquals("Beta", teams.get(1).getLeague());
+        assertEquals(12, teams.get(1).getFranchiseId());
+        assertEquals(1, teams.get(1).getStartedWeeks());
+    }
+
+    @Test
+    public void playerUsageIsLimitedToTheWeeks() {
+
+        final PlayerUsage usage = index().playerUsage(100, 2, 2, players);
+
+        assertEquals(2, usage.getLeagueWeeks());
+        assertEquals(1, usage.getRosteredWeeks());
+        assertEquals(1, usage.getTeams().size());
+        assertEquals("Alpha", usage.getTeams().get(0).getLeague());
+    }
+
+    @Test
+    public void unrosteredPlayersHaveNoTeams() {
+
+        final PlayerUsage usage = index().playerUsage(999, 1, 3, players);
+
+        assertNull(usage.getPlayer());
+        assertTrue(usage.getTeams().isEmpty());
+        assertEquals(0.0, usage.getOwnershipPercent(), DELTA);
+    }
+
+    @Test
+    public void teamUsageListsEachPlayerOnceMostStartsFirst() {
+
+        final List<RosterUsage> usages = index().teamUsage(0, 1, 1, 3, players);
+
+        assertEquals(2, usages.size());
+        assertEquals(100, usages.get(0).getPlayerId());
+        assertEquals(2, usages.get(0).getStartedWeeks());
+        assertEquals(200, usages.get(1).getPlayerId());
+        assertEquals(3, usages.get(1).getRosteredWeeks());
+        assertEquals(1, usages.get(1).getStartedWeeks());
+        assertEquals(4.0, usages.get(1).getStarterPoints(), DELTA);
+
+        assertTrue(index().teamUsage(0, 2, 1, 3, players).isEmpty());
+        assertTrue(index().teamUsage(5, 1, 1, 3, players).isEmpty());
+    }
+
+    @Test
+    public void mergedPostingsIndexTheSameAsOneSet() {
+
+        final RosterIndex.Postings alpha = new RosterIndex.Postings();
+        alpha.add(0, 1, results(new int[] {100, 200}, new int[] {1, 1}, new double[] {10, 3},
+                                new boolean[] {true, false}));
+        alpha.add(0, 2, results(new int[] {100, 200}, new int[] {1, 1}, new double[] {12, 4},
+                                new boolean[] {true, true}));
+        final RosterIndex.Postings rest = new RosterIndex.Postings();
+        rest.add(0, 3, results(new int[] {200, 100}, new int[] {1, 1}, new double[] {7, 5},
+                               new boolean[] {false, false}));
+        addBeta(rest);
+        alpha.merge(rest);
+
+        final RosterIndex merged = RosterIndex.of(Arrays.asList("Alpha", "Beta"), alpha);
+        assertEquals(index().playerUsage(100, 1, 3, players).getRosteredWeeks(),
+                     merged.playerUsage(100, 1, 3, players).getRosteredWeeks());
+        assertEquals(index().leagueWeeks(1, 3), merged.leagueWeeks(1, 3));
+        assertEquals(index().teamUsage(0, 1, 1, 3, players).size(), merged.teamUsage(0, 1, 1, 3, players).size());
+    }
+
+    @Test
+    public void replacedWeeksDropTheirOldPostings() {
+
+        // week 3 again, with player 100 gone from Beta and Alpha's week 3 empty.
+        final RosterIndex.Postings week3 = new RosterIndex.Postings();
+        week3.add(1, 3, results(new int[] {300}, new int[] {12}, new double[] {6}, new boolean[] {true}));
+        final RosterIndex original = index();
+        final RosterIndex updated = original.withWeeks(Collections.singleton(3), week3);
+
+        final PlayerUsage usage = updated.playerUsage(100, 1, 3, players);
+        assertEquals(4, usage.getLeagueWeeks());
+        assertEquals(2, usage.getRosteredWeeks());
+        assertEquals(1, usage.getTeams().size());
+        assertEquals(22.0, usage.getTeams().get(0).getStarterPoints(), DELTA);
+
+        final List<RosterUsage> beta = updated.teamUsage(1, 12, 1, 3, players);
+        assertEquals(1, beta.size());
+        assertEquals(2, beta.get(0).getStartedWeeks());
+        assertEquals(7.0, beta.get(0).getStarterPoints(), DELTA);
+
+        // the index it was made from is left as it was.
+        assertEquals(4, original.playerUsage(100, 1, 3, players).getRosteredWeeks());
+    }
+
+    /**
+     * Alpha has three weeks with player 100 on franchise 1; Beta has two, with 100 on franchise 12 in week 3.
+     */
+    private static RosterIndex index() {
+
+        final RosterIndex.Postings postings = new RosterIndex.Postings();
+        postings.add(0, 1, results(new int[] {100, 200}, new int[] {1, 1}, new double[] {10, 3},
+                                   new boolean[] {true, false}));
+        postings.add(0, 2, results(new int[] {100, 200}, new int[] {1, 1}, new double[] {12, 4},
+                                   new boolean[] {true, true}));
+        postings.add(0, 3, results(new int[] {200, 100}, new int[] {1, 1}, new double[] {7, 5},
+                                   new boolean[] {false, false}));
+        addBeta(postings);
+        return RosterIndex.of(Arrays.asList("Alpha", "Beta"), postings);
+    }
+
+    private static void addBeta(final RosterIndex.Postings postings) {
+
+        postings.add(1, 2, results(new int[] {300}, new int[] {12}, new double[] {1}, new boolean[] {true}));
+        postings.add(1, 3, results(new int[] {100, 300}, new int[] {12, 12}, new double[] {9, 2},
+                                   new boolean[] {true, false}));
+    }
+
+    private static Player player(final int id, final String name) {
+
+        final Player player = new Player();
+        player.setId(id);
+        player.setName(name);
+        return player;
+    }
+
+    private static LeagueWeekResults results(final int[] playerIds, final int[] franchiseIds, final double[] scores,
+                                             final boolean[] starters) {
+
+        return new LeagueWeekResults() {
+
+            @Override
+            public int getTeamCount() {
+                return 12;
+            }
+
+            @Override
+            public int getPlayerCount() {
+                return playerIds.length;
+            }
+
+            @Override
+            public int getPlayerId(final int index) {
+                return playerIds[index];
+            }
+
+            @Override
+            public int getFranchiseId(final int index) {
+                return franchiseIds[index];
+            }
+
+            @Override
+            public double getScore(final int index) {
+                return scores[index];
+            }
+
+            @Override
+            public boolean isStarter(final int index) {
+                return starters[index];
+            }
+        };
+    }
+}
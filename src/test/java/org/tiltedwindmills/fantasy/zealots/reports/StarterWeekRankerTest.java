@@ -0,0 +1,188 @@
+package org.tiltedwindmills.fantasy.zealots.reports;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.tiltedwindmills.fantasy.mfl.model.Player;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerRegistry;
+import org.tiltedwindmills.fantasy.zealots.model.PlayerScoreBreakdown;
+
+public class StarterWeekRankerTest {
+
+    private static final int WEEKS = 13;
+    private static final int POOL = 120;
+
+    private PlayerRegistry playerRegistry;
+    private List<int[]> weeklyRankings;
+
+    @Before
+    public void setUp() {
+
+        final List<Player> players = new ArrayList<>();
+        for (int i = 0; i < POOL; i++) {
+            final Player player = new Player();
+            player.setId(5000 + i);
+            player.setName("Player " + (i % 40));
+            players.add(player);
+        }
+        playerRegistry = new PlayerRegistry(players);
+
+        // every week ranks a shuffled pool, with a few ids the registry doesn't know mixed in.
+        final Random random = new Random(7);
+        weeklyRankings = new ArrayList<>();
+        for (int week = 0; week < WEEKS; week++) {
+            final List<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < POOL + 5; i++) {
+                ids.add(5000 + i);
+            }
+            Collections.shuffle(ids, random);
+            final int[] ranking = new int[ids.size()];
+            for (int i = 0; i < ranking.length; i++) {
+                ranking[i] = ids.get(i);
+            }
+            weeklyRankings.add(ranking);
+        }
+    }
+
+    @Test
+    public void defaultTiersMatchTheOriginalBreakdownLoop() {
+
+        for (int depth : new int[] {12, 24, 36}) {
+
+            final List<PlayerScoreBreakdown> expected = legacyRanking(depth);
+            final List<PlayerScoreBreakdown> actual =
+                    StarterWeekRanker.rank(weeklyRankings, StarterTiers.DEFAULT, depth, 0, playerRegistry);
+
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getId(), actual.get(i).getId());
+                assertEquals(expected.get(i).getGrade(), actual.get(i).getGrade());
+                assertArrayEquals(expected.get(i).getTierFinishes(), actual.get(i).getTierFinishes());
+            }
+        }
+    }
+
+    @Test
+    public void topLimitRowsMatchTheStartOfTheFullRanking() {
+
+        final List<PlayerScoreBreakdown> all =
+                StarterWeekRanker.rank(weeklyRankings, StarterTiers.DEFAULT, 36, 0, playerRegistry);
+
+        for (int limit : new int[] {1, 10, 25, all.size(), all.size() + 10}) {
+
+            final List<PlayerScoreBreakdown> top =
+                    StarterWeekRanker.rank(weeklyRankings, StarterTiers.DEFAULT, 36, limit, playerRegistry);
+
+            assertEquals(Math.min(limit, all.size()), top.size());
+            for (int i = 0; i < top.size(); i++) {
+                assertEquals(all.get(i).getId(), top.get(i).getId());
+            }
+        }
+    }
+
+    @Test
+    public void weekRangesMatchRankingJustThoseWeeks() {
+
+        final StarterWeekPrefixes prefixes = new StarterWeekPrefixes(weeklyRankings, 1, StarterTiers.DEFAULT, 36);
+
+        for (int from = 1; from <= WEEKS; from++) {
+            for (int to = from; to <= WEEKS; to++) {
+
+                final List<PlayerScoreBreakdown> expected = StarterWeekRanker.rank(
+                        weeklyRankings.subList(from - 1, to), StarterTiers.DEFAULT, 36, 0, playerRegistry);
+                final List<PlayerScoreBreakdown> actual = StarterWeekRanker.select(
+                        prefixes.between(from, to), StarterTiers.DEFAULT, 0, playerRegistry);
+
+                assertEquals(expected.size(), actual.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals("weeks " + from + " to " + to + " row " + i,
+                                 expected.get(i).getId(), actual.get(i).getId());
+                    assertEquals(expected.get(i).getGrade(), actual.get(i).getGrade());
+                    assertArrayEquals(expected.get(i).getTierFinishes(), actual.get(i).getTierFinishes());
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsWeekRangesOutsideTheSeason() {
+        new StarterWeekPrefixes(weeklyRankings, 1, StarterTiers.DEFAULT, 36).between(0, 4);
+    }
+
+    @Test
+    public void customTiersAndWeightsChangeTheGrades() {
+
+        // the top of each ranking finished first: 5000 has two top 2 finishes, 5001 and 5002 one of each, and 5003
+        // two 3-4 finishes.
+        final List<int[]> rankings = Arrays.asList(
+                new int[] {5000, 5001, 5002, 5003},
+                new int[] {5000, 5002, 5003, 5001});
+        final StarterTiers tiers = new StarterTiers(new int[] {2, 4}, new int[] {10, 1});
+
+        final List<PlayerScoreBreakdown> ranked = StarterWeekRanker.rank(rankings, tiers, 4, 0, playerRegistry);
+
+        assertEquals(5000, ranked.get(0).getId());
+        assertArrayEquals(new int[] {2, 0}, ranked.get(0).getTierFinishes());
+        assertEquals(20, ranked.get(0).getGrade());
+        assertArrayEquals(new int[] {1, 1}, ranked.get(1).getTierFinishes());
+        assertEquals(11, ranked.get(1).getGrade());
+        assertArrayEquals(new int[] {1, 1}, ranked.get(2).getTierFinishes());
+        assertEquals(5003, ranked.get(3).getId());
+        assertArrayEquals(new int[] {0, 2}, ranked.get(3).getTierFinishes());
+        assertEquals(2, ranked.get(3).getGrade());
+    }
+
+    @Test
+    public void tiersAreLabelledByTheRanksTheyCover() {
+
+        assertEquals(Arrays.asList("Top 12", "13-24", "25-36"), StarterTiers.DEFAULT.getLabels());
+        assertEquals(Arrays.asList("Top 6", "7", "8-20"),
+                     new StarterTiers(new int[] {6, 7, 20}, new int[] {3, 2, 1}).getLabels());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTiersThatDoNotIncrease() {
+        StarterTiers.of(new int[] {12, 12, 36}, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMismatchedWeights() {
+        StarterTiers.of(null, new int[] {5, 3});
+    }
+
+    /**
+     * The report as {@code PlayerScoresController} used to build it: a list scan per ranked player and a full sort,
+     * with each finish counted from 1.
+     */
+    private List<PlayerScoreBreakdown> legacyRanking(final int depth) {
+
+        final Map<Integer, PlayerScoreBreakdown> breakdowns = new LinkedHashMap<>();
+        for (int[] ranking : weeklyRankings) {
+            for (int i = 0; i < Math.min(depth, ranking.length); i++) {
+
+                final Player player = playerRegistry.get(ranking[i]);
+                if (player == null) {
+                    continue;
+                }
+                if (!breakdowns.containsKey(ranking[i])) {
+                    breakdowns.put(ranking[i], new PlayerScoreBreakdown(player));
+                }
+                breakdowns.get(ranking[i]).addTopFinish(i + 1);
+            }
+        }
+
+        final List<PlayerScoreBreakdown> sorted = new ArrayList<>(breakdowns.values());
+        Collections.sort(sorted, PlayerScoreBreakdown.BY_TOP_FINISHES);
+        return sorted;
+    }
+}
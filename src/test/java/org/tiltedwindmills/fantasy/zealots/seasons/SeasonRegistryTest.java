@@ -0,0 +1,178 @@
+package org.tiltedwindmills.fantasy.zealots.seasons;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.tiltedwindmills.fantasy.mfl.model.League;
+import org.tiltedwindmills.fantasy.zealots.SyntheticDataset;
+import org.tiltedwindmills.fantasy.zealots.aggregation.AggregationEngine;
+import org.tiltedwindmills.fantasy.zealots.data.BackgroundLoad;
+import org.tiltedwindmills.fantasy.zealots.data.DataLocationExports;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerRegistry;
+import org.tiltedwindmills.fantasy.zealots.data.PlayerScoreRankings;
+import org.tiltedwindmills.fantasy.zealots.data.WeeklyResultsFiles;
+import org.tiltedwindmills.fantasy.zealots.data.WeeklyResultsRepository;
+import org.tiltedwindmills.fantasy.zealots.data.WeeklyResultsSource;
+import org.tiltedwindmills.fantasy.zealots.metrics.ReportMetrics;
+import org.tiltedwindmills.fantasy.zealots.reports.AggregatingReportService;
+import org.tiltedwindmills.fantasy.zealots.reports.PrecomputedReportService;
+import org.tiltedwindmills.fantasy.zealots.reports.ReportService;
+
+public class SeasonRegistryTest {
+
+    private static final int WEEKS = WeeklyResultsSource.LAST_WEEK;
+    private static final int TEAMS_PER_LEAGUE = 12;
+
+    private File dataDirectory;
+    private AggregationEngine aggregationEngine;
+    private ReportService configuredReports;
+    private SeasonRegistry seasonRegistry;
+
+    @Before
+    public void setUp() throws Exception {
+
+        dataDirectory = Files.createTempDirectory("zealots-seasons").toFile();
+        aggregationEngine = new AggregationEngine(4);
+
+        // the configured season has five leagues, 2013 has three and 2014 has two.
+        final SyntheticDataset configured = dataset(5, 2015);
+        final DataLocationExports exports =
+                new DataLocationExports(configured.writeTo(new File(dataDirectory, "current")));
+        final BackgroundLoad<PlayerRegistry> playerRegistry =
+                BackgroundLoad.of("players", new PlayerRegistry(configured.getPlayers()));
+        final ReportMetrics reportMetrics = new ReportMetrics();
+        configuredReports = new AggregatingReportService(
+                new WeeklyResultsRepository(new WeeklyResultsFiles(exports, reportMetrics), configured.getLeagues(),
+                        aggregationEngine),
+                new PlayerScoreRankings(exports, reportMetrics), configured.getLeagues(), playerRegistry,
+                aggregationEngine, reportMetrics);
+
+        final MockEnvironment environment = new MockEnvironment();
+        for (int season : new int[] {2013, 2014}) {
+            final SyntheticDataset dataset = dataset(season == 2013 ? 3 : 2, season);
+            dataset.writeTo(new File(dataDirectory, String.valueOf(season)));
+            environment.setProperty("seasons." + season + ".leagues", writeLeagues(dataset.getLeagues(), season));
+        }
+
+        seasonRegistry = new SeasonRegistry();
+        ReflectionTestUtils.setField(seasonRegistry, "reportService", configuredReports);
+        ReflectionTestUtils.setField(seasonRegistry, "environment", environment);
+        ReflectionTestUtils.setField(seasonRegistry, "propertyBasedLeagues", configured.getLeagues());
+        ReflectionTestUtils.setField(seasonRegistry, "playerRegistry", playerRegistry);
+        ReflectionTestUtils.setField(seasonRegistry, "aggregationEngine", aggregationEngine);
+        ReflectionTestUtils.setField(seasonRegistry, "reportMetrics", reportMetrics);
+        ReflectionTestUtils.setField(seasonRegistry, "season", 2015);
+        ReflectionTestUtils.setField(seasonRegistry, "seasons", "2013, 2014");
+        ReflectionTestUtils.setField(seasonRegistry, "maxLoaded", 1);
+        ReflectionTestUtils.setField(seasonRegistry, "dataLocation", dataDirectory.toURI().toString());
+        ReflectionTestUtils.setField(seasonRegistry, "playerSnapshotDirectory",
+                new File(dataDirectory, "player-snapshots").getPath());
+        ReflectionTestUtils.invokeMethod(seasonRegistry, "postConstruct");
+    }
+
+    @After
+    public void tearDown() {
+
+        ReflectionTestUtils.invokeMethod(seasonRegistry, "preDestroy");
+        aggregationEngine.shutdown();
+        SyntheticDataset.delete(dataDirectory);
+    }
+
+    @Test
+    public void theConfiguredSeasonIsServedByTheApplicationBeans() {
+
+        assertEquals(Arrays.asList(2013, 2014, 2015), Arrays.asList(seasonRegistry.getSeasons().toArray()));
+
+        // served through the precomputed reports, which pass everything through until the first refresh.
+        final ReportService reports = seasonRegistry.get(2015).getReports();
+        assertTrue(reports instanceof PrecomputedReportService);
+        assertEquals(configuredReports.positionCount().getTeams(), reports.positionCount().getTeams());
+
+        seasonRegistry.precomputeReports();
+        assertEquals(configuredReports.positionScoring(1, 13).getPositionScores(),
+                     reports.positionScoring(1, 13).getPositionScores());
+    }
+
+    @Test
+    public void otherSeasonsAreLoadedFromTheirOwnLeaguesAndData() {
+
+        final SeasonRegistry.Season season = seasonRegistry.get(2013);
+
+        assertEquals(3, season.getLeagues().size());
+        assertEquals(3 * TEAMS_PER_LEAGUE * WEEKS, season.getReports().positionScoring(1, WEEKS).getTeams());
+        assertSame(season, seasonRegistry.get(2013));
+    }
+
+    @Test
+    public void severalSeasonsComeBackInTheOrderAskedFor() {
+
+        final List<SeasonRegistry.Season> seasons = seasonRegistry.get(Arrays.asList(2015, 2013));
+
+        assertEquals(2015, seasons.get(0).getYear());
+        assertEquals(5 * TEAMS_PER_LEAGUE * WEEKS, seasons.get(0).getReports().positionScoring(1, WEEKS).getTeams());
+        assertEquals(2013, seasons.get(1).getYear());
+        assertEquals(3 * TEAMS_PER_LEAGUE * WEEKS, seasons.get(1).getReports().positionScoring(1, WEEKS).getTeams());
+    }
+
+    @Test
+    public void repeatedSeasonsAreLoadedAndReturnedOnce() {
+
+        final List<SeasonRegistry.Season> seasons = seasonRegistry.get(Arrays.asList(2013, 2015, 2013, 2013, 2015));
+
+        assertEquals(2, seasons.size());
+        assertEquals(2013, seasons.get(0).getYear());
+        assertEquals(2015, seasons.get(1).getYear());
+        assertSame(seasons.get(0), seasonRegistry.get(2013));
+    }
+
+    @Test
+    public void coldSeasonsAreEvicted() {
+
+        final SeasonRegistry.Season first = seasonRegistry.get(2013);
+        assertEquals(2, seasonRegistry.get(2014).getLeagues().size());
+
+        // only one season besides the configured one stays loaded, so 2013 has to be read again.
+        assertNotSame(first, seasonRegistry.get(2013));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSeasonsThatAreNotConfigured() {
+        seasonRegistry.get(Arrays.asList(2013, 2012));
+    }
+
+    private static SyntheticDataset dataset(final int leagueCount, final long seed) {
+        return new SyntheticDataset(leagueCount, WEEKS, TEAMS_PER_LEAGUE, 30, 20, 2500, seed);
+    }
+
+    private String writeLeagues(final List<League> leagues, final int season) throws IOException {
+
+        final File file = new File(dataDirectory, "zealots_" + season + ".properties");
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+
+            final StringBuilder keys = new StringBuilder();
+            for (League league : leagues) {
+                keys.append(keys.length() == 0 ? "" : ",").append(league.getName());
+                writer.write("leagues." + league.getName() + ".name=" + league.getName() + "\n");
+                writer.write("leagues." + league.getName() + ".serverid=" + league.getServerId() + "\n");
+                writer.write("leagues." + league.getName() + ".leagueid=" + league.getId() + "\n");
+            }
+            writer.write("leagues=" + keys + "\n");
+        }
+        return file.toURI().toString();
+    }
+}